@@ -142,7 +142,7 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
         var metricUpdater = new MetricUpdater(metricReporter, timer, options.fleetControllerIndex(), options.clusterName());
         var log = new EventLog(timer, metricUpdater);
         var cluster = new ContentCluster(options);
-        var stateGatherer = new NodeStateGatherer(timer, timer, log);
+        var stateGatherer = new NodeStateGatherer(timer, timer, log, hostInfoParserThreads());
         var communicator = new RPCCommunicator(
                 RPCCommunicator.createRealSupervisor(),
                 timer,
@@ -163,6 +163,10 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
         return controller;
     }
 
+    private static int hostInfoParserThreads() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
     public void start() {
         runner = new Thread(this);
         runner.start();
@@ -256,6 +260,7 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
             rpcServer.shutdown();
         }
         communicator.shutdown();
+        stateGatherer.shutdown();
         nodeLookup.shutdown();
     }
 
@@ -523,6 +528,7 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
             if ( ! isRunning()) { return; }
             // Process zero or more getNodeState responses that we have received.
             didWork |= metricUpdater.forWork("stateGatherer-processResponses", () -> stateGatherer.processResponses(this));
+            metricUpdater.updateHostInfoParseQueueSize(stateGatherer.pendingHostInfoParses());
 
             if ( ! isRunning()) { return; }
 
@@ -142,6 +142,10 @@ public class MetricUpdater {
         metricReporter.set("remote-task-queue.size", size);
     }
 
+    public void updateHostInfoParseQueueSize(int size) {
+        metricReporter.set("host-info-parse-queue.size", size);
+    }
+
     public boolean forWork(String workId, BooleanSupplier work) {
         long startNanos = System.nanoTime();
         boolean didWork = work.getAsBoolean();
@@ -1,13 +1,19 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.clustercontroller.core;
 
+import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.jrt.ErrorCode;
 import com.yahoo.jrt.Target;
 import com.yahoo.vdslib.state.NodeState;
 import com.yahoo.vespa.clustercontroller.core.hostinfo.HostInfo;
 import com.yahoo.vespa.clustercontroller.core.listeners.NodeListener;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,6 +22,9 @@ import static com.yahoo.vdslib.state.State.STOPPING;
 
 /**
  * Collects the state of all nodes by making remote requests and handling the replies.
+ *
+ * Host info of successful replies may be parsed by a bounded pool of worker threads before the reply
+ * is handed to the controller thread, so that processing responses in a tick does not include JSON parsing.
  */
 public class NodeStateGatherer {
 
@@ -23,13 +32,52 @@ public class NodeStateGatherer {
 
     private final Object monitor;
     private final Timer timer;
-    private final List<GetNodeStateRequest> replies = new LinkedList<>();
+    private final ExecutorService hostInfoParser; // null to parse in the thread delivering the reply
+    private final Queue<ParsedReply> replies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingHostInfoParses = new AtomicInteger();
+
+    /** A reply along with its parsed host info, which is null if the reply is an error. */
+    private record ParsedReply(GetNodeStateRequest request, HostInfo hostInfo) { }
 
     private class NodeStateWaiter implements Communicator.Waiter<GetNodeStateRequest> {
         @Override
         public void done(GetNodeStateRequest reply) {
+            if (reply.getReply().isError()) {
+                enqueue(new ParsedReply(reply, null));
+                return;
+            }
+            pendingHostInfoParses.incrementAndGet();
+            Runnable parse = () -> {
+                try {
+                    enqueue(new ParsedReply(reply, parseHostInfo(reply)));
+                } finally {
+                    pendingHostInfoParses.decrementAndGet();
+                }
+            };
+            if (hostInfoParser == null) {
+                parse.run();
+                return;
+            }
+            try {
+                hostInfoParser.execute(parse);
+            } catch (RejectedExecutionException e) { // Parser is shut down; parse in this thread instead
+                parse.run();
+            }
+        }
+
+        /** Returns the host info of the given reply, or an empty host info if it cannot be parsed */
+        private HostInfo parseHostInfo(GetNodeStateRequest reply) {
+            try {
+                return HostInfo.createHostInfo(reply.getReply().getHostInfo());
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Failed to parse host info of " + reply.getNodeInfo() + ", using empty host info", e);
+                return HostInfo.createHostInfo("{}");
+            }
+        }
+
+        private void enqueue(ParsedReply reply) {
+            replies.add(reply);
             synchronized (monitor) {
-                replies.add(reply);
                 monitor.notifyAll();
             }
         }
@@ -41,16 +89,41 @@ public class NodeStateGatherer {
     private int maxSlobrokDisconnectGracePeriod = 1000;
     private long nodeStateRequestTimeoutMS = 10 * 1000;
 
+    /** Creates a node state gatherer which parses host info in the thread delivering the reply. */
     public NodeStateGatherer(Object monitor, Timer timer, EventLog log) {
+        this(monitor, timer, log, 0);
+    }
+
+    /**
+     * Creates a node state gatherer which parses host info in the given number of worker threads,
+     * or in the thread delivering the reply if this is 0.
+     */
+    public NodeStateGatherer(Object monitor, Timer timer, EventLog log, int hostInfoParserThreads) {
+        if (hostInfoParserThreads < 0)
+            throw new IllegalArgumentException("hostInfoParserThreads must be non-negative, got " + hostInfoParserThreads);
         this.monitor = monitor;
         this.timer = timer;
         this.eventLog = log;
+        this.hostInfoParser = hostInfoParserThreads == 0
+                              ? null
+                              : Executors.newFixedThreadPool(hostInfoParserThreads, new DaemonThreadFactory("hostinfo-parser-"));
+    }
+
+    /** Stops the host info parser threads. Replies arriving after this are parsed in the thread delivering them. */
+    public void shutdown() throws InterruptedException {
+        if (hostInfoParser == null) return;
+        hostInfoParser.shutdown();
+        if ( ! hostInfoParser.awaitTermination(10, TimeUnit.SECONDS))
+            log.log(Level.WARNING, "Timed out waiting for host info parser threads to finish");
     }
 
     public void setMaxSlobrokDisconnectGracePeriod(int millisecs) { maxSlobrokDisconnectGracePeriod = millisecs; }
 
     public void setNodeStateRequestTimeout(long millisecs) { nodeStateRequestTimeoutMS = millisecs; }
 
+    /** Returns the number of replies whose host info is still being parsed, and which are not yet ready for processing. */
+    public int pendingHostInfoParses() { return pendingHostInfoParses.get(); }
+
     /**
      * Sends state requests to nodes that does not have one pending and is due
      * for another attempt.
@@ -98,8 +171,9 @@ public class NodeStateGatherer {
         boolean processedAnyResponses = false;
         long currentTime = timer.getCurrentTimeInMillis();
         synchronized(monitor) {
-            for(GetNodeStateRequest req : replies) {
+            for (ParsedReply parsed; (parsed = replies.poll()) != null; ) {
                 processedAnyResponses = true;
+                GetNodeStateRequest req = parsed.request();
                 NodeInfo info = req.getNodeInfo();
 
                 if (!info.isPendingGetNodeStateRequest(req)) {
@@ -142,12 +216,10 @@ public class NodeStateGatherer {
 
                 // Important: The old host info should be accessible in info.getHostInfo(), see interface.
                 // Therefore, setHostInfo() must be called AFTER handleUpdatedHostInfo().
-                HostInfo hostInfo = HostInfo.createHostInfo(reply.getHostInfo());
+                HostInfo hostInfo = parsed.hostInfo();
                 listener.handleUpdatedHostInfo(info, hostInfo);
                 info.setHostInfo(hostInfo);
-
             }
-            replies.clear();
         }
         return processedAnyResponses;
     }
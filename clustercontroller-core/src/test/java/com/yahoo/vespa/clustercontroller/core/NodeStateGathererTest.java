@@ -0,0 +1,104 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.clustercontroller.core;
+
+import com.yahoo.vdslib.state.Node;
+import com.yahoo.vdslib.state.NodeState;
+import com.yahoo.vdslib.state.State;
+import com.yahoo.vespa.clustercontroller.core.hostinfo.HostInfo;
+import com.yahoo.vespa.clustercontroller.core.listeners.NodeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class NodeStateGathererTest {
+
+    private static class HostInfoRecorder implements NodeListener {
+        final Map<Node, HostInfo> hostInfos = new HashMap<>();
+        @Override
+        public void handleUpdatedHostInfo(NodeInfo node, HostInfo newHostInfo) {
+            hostInfos.put(node.getNode(), newHostInfo);
+        }
+    }
+
+    private static void testHostInfoIsParsedBeforeProcessing(int hostInfoParserThreads) throws Exception {
+        FakeTimer timer = new FakeTimer();
+        ContentCluster cluster = ClusterFixture.forFlatCluster(5).cluster();
+        List<Node> nodes = new ArrayList<>();
+        for (NodeInfo info : cluster.getNodeInfos()) {
+            info.setRpcAddress("tcp/localhost:" + (12345 + nodes.size()));
+            nodes.add(info.getNode());
+        }
+        DummyCommunicator communicator = new DummyCommunicator(nodes, timer);
+        NodeStateGatherer gatherer = new NodeStateGatherer(timer, timer, mock(EventLog.class), hostInfoParserThreads);
+        HostInfoRecorder listener = new HostInfoRecorder();
+
+        assertTrue(gatherer.sendMessages(cluster, communicator, listener));
+        for (Node node : nodes)
+            communicator.setNodeState(node, new NodeState(node.getType(), State.UP), "{\"cluster-state-version\": " + node.getIndex() + "}");
+
+        synchronized (timer) {
+            while (gatherer.pendingHostInfoParses() > 0)
+                timer.wait(1);
+            assertTrue(gatherer.processResponses(listener));
+        }
+        assertFalse(gatherer.processResponses(listener));
+        gatherer.shutdown();
+
+        assertEquals(nodes.size(), listener.hostInfos.size());
+        for (Node node : nodes) {
+            assertEquals(node.getIndex(), listener.hostInfos.get(node).getClusterStateVersionOrNull());
+            assertEquals(listener.hostInfos.get(node), cluster.getNodeInfo(node).getHostInfo());
+        }
+    }
+
+    @Test
+    void host_info_is_parsed_in_reply_thread_without_parser_threads() throws Exception {
+        testHostInfoIsParsedBeforeProcessing(0);
+    }
+
+    @Test
+    void host_info_is_parsed_by_parser_threads_before_processing() throws Exception {
+        testHostInfoIsParsedBeforeProcessing(3);
+    }
+
+    @Test
+    void reply_is_processed_with_empty_host_info_when_host_info_cannot_be_parsed() throws Exception {
+        FakeTimer timer = new FakeTimer();
+        ContentCluster cluster = ClusterFixture.forFlatCluster(2).cluster();
+        List<Node> nodes = new ArrayList<>();
+        for (NodeInfo info : cluster.getNodeInfos()) {
+            info.setRpcAddress("tcp/localhost:" + (12345 + nodes.size()));
+            nodes.add(info.getNode());
+        }
+        DummyCommunicator communicator = new DummyCommunicator(nodes, timer);
+        NodeStateGatherer gatherer = new NodeStateGatherer(timer, timer, mock(EventLog.class), 1);
+        HostInfoRecorder listener = new HostInfoRecorder();
+
+        assertTrue(gatherer.sendMessages(cluster, communicator, listener));
+        for (Node node : nodes) // Parsing null host info throws
+            communicator.setNodeState(node, new NodeState(node.getType(), State.UP), null);
+
+        synchronized (timer) {
+            while (gatherer.pendingHostInfoParses() > 0)
+                timer.wait(1);
+            assertTrue(gatherer.processResponses(listener));
+        }
+        gatherer.shutdown();
+
+        for (Node node : nodes) {
+            assertEquals(State.UP, cluster.getNodeInfo(node).getReportedState().getState());
+            assertNull(cluster.getNodeInfo(node).getHostInfo().getClusterStateVersionOrNull());
+            assertEquals("{}", cluster.getNodeInfo(node).getHostInfo().getRawCreationString());
+        }
+    }
+
+}
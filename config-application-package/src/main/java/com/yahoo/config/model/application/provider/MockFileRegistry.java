@@ -17,23 +17,23 @@ import java.util.List;
 public class MockFileRegistry implements FileRegistry {
     private final List<Entry> entries = new ArrayList<>();
 
-    public FileReference addFile(String relativePath) {
+    public synchronized FileReference addFile(String relativePath) {
         FileReference fileReference = new FileReference(relativePath);
         entries.add(new Entry(relativePath, fileReference));
         return fileReference;
     }
 
-    public List<Entry> export() { return entries; }
+    public synchronized List<Entry> export() { return List.copyOf(entries); }
 
     @Override
-    public FileReference addUri(String uri) {
+    public synchronized FileReference addUri(String uri) {
         FileReference fileReference = new FileReference(uri);
         entries.add(new Entry(uri, fileReference));
         return fileReference;
     }
 
     @Override
-    public FileReference addBlob(String name, ByteBuffer blob) {
+    public synchronized FileReference addBlob(String name, ByteBuffer blob) {
         String relativePath = "./" + name;
         FileReference fileReference = new FileReference(relativePath);
         entries.add(new Entry(relativePath, fileReference));
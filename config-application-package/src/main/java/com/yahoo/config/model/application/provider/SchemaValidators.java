@@ -113,15 +113,16 @@ public class SchemaValidators {
             // Used when building standalone-container
             if ("jar".equals(u.getProtocol())) {
                 JarURLConnection jarConnection = (JarURLConnection) u.openConnection();
-                JarFile jarFile = jarConnection.getJarFile();
-                for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
-                    JarEntry je = entries.nextElement();
-                    if (je.getName().startsWith("schema/") && je.getName().endsWith(".rnc")) {
-                        schemasFound = true;
-                        writeContentsToFile(tmpDir, je.getName(), jarFile.getInputStream(je));
+                jarConnection.setUseCaches(false); // A cached jar file is shared with, and may be closed by, other threads
+                try (JarFile jarFile = jarConnection.getJarFile()) {
+                    for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
+                        JarEntry je = entries.nextElement();
+                        if (je.getName().startsWith("schema/") && je.getName().endsWith(".rnc")) {
+                            schemasFound = true;
+                            writeContentsToFile(tmpDir, je.getName(), jarFile.getInputStream(je));
+                        }
                     }
                 }
-                jarFile.close();
             } else if ("bundle".equals(u.getProtocol())) {
                 Bundle bundle = getBundle(schemaValidatorClass);
                 // Use schemas on disk when bundle is null (which is the case when using config-model-fat-amended.jar)
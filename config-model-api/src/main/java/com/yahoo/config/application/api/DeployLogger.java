@@ -5,8 +5,9 @@ import java.util.function.Supplier;
 import java.util.logging.Level;
 
 /**
- * Used during application deployment to propagate messages to the end user
- * 
+ * Used during application deployment to propagate messages to the end user.
+ * Implementations must be thread safe, as schemas are derived in parallel when building a model.
+ *
  * @author Ulf Lillengen
  */
 public interface DeployLogger {
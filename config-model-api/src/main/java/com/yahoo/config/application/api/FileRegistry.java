@@ -9,6 +9,9 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
+ * Registry of the files to distribute for an application.
+ * Implementations must be thread safe, as schemas are derived in parallel when building a model.
+ *
  * @author Tony Vaagenes
  */
 public interface FileRegistry {
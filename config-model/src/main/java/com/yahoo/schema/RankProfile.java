@@ -70,8 +70,8 @@ public class RankProfile implements Cloneable {
 
     private final List<String> inheritedNames = new ArrayList<>();
 
-    /** The resolved inherited profiles, or null when not resolved. */
-    private List<RankProfile> inherited;
+    /** The resolved inherited profiles, or null when not resolved. Volatile as profiles are read by parallel derivations */
+    private volatile List<RankProfile> inherited;
 
     private MatchPhaseSettings matchPhase = null;
     private DiversitySettings diversity = null;
@@ -125,7 +125,8 @@ public class RankProfile implements Cloneable {
 
     private Map<String, RankingExpressionFunction> functions = new LinkedHashMap<>();
     // This cache must be invalidated every time modifications are done to 'functions'.
-    private CachedFunctions allFunctionsCached = null;
+    // It is volatile as it is read concurrently when profiles inheriting this are compiled in parallel.
+    private volatile CachedFunctions allFunctionsCached = null;
 
     private Map<Reference, Input> inputs = new LinkedHashMap<>();
 
@@ -139,7 +140,7 @@ public class RankProfile implements Cloneable {
 
     private final TypeSettings attributeTypes = new TypeSettings();
 
-    private List<ImmutableSDField> allFieldsList;
+    private volatile List<ImmutableSDField> allFieldsList;
 
     private Boolean strict;
 
@@ -188,8 +189,10 @@ public class RankProfile implements Cloneable {
 
     private Stream<ImmutableSDField> allFields() {
         if (schema == null) return Stream.empty();
+        List<ImmutableSDField> allFieldsList = this.allFieldsList;
         if (allFieldsList == null) {
             allFieldsList = schema.allFieldsList();
+            this.allFieldsList = allFieldsList;
         }
         return allFieldsList.stream();
     }
@@ -245,9 +248,12 @@ public class RankProfile implements Cloneable {
     /** Returns the rank profiles inherited by this. */
     private List<RankProfile> inherited() {
         if (inheritedNames.isEmpty()) return List.of();
+        List<RankProfile> inherited = this.inherited;
         if (inherited != null) return inherited;
 
+        // Resolving is idempotent, so threads racing here publish equal lists
         inherited = resolveInheritedProfiles(schema);
+        this.inherited = inherited; // Set before verifying, such that a cycle back to this is detected rather than recursed into
         List<String> children = new ArrayList<>();
         children.add(createFullyQualifiedName());
         inherited.forEach(profile -> verifyNoInheritanceCycle(children, profile));
@@ -934,17 +940,18 @@ public class RankProfile implements Cloneable {
 
     /** Returns an unmodifiable snapshot of the functions in this */
     public Map<String, RankingExpressionFunction> getFunctions() {
-        updateCachedFunctions();
-        return allFunctionsCached.allRankingExpressionFunctions;
+        return updateCachedFunctions().allRankingExpressionFunctions;
     }
     private ImmutableMap<String, ExpressionFunction> getExpressionFunctions() {
-        updateCachedFunctions();
-        return allFunctionsCached.allExpressionFunctions;
+        return updateCachedFunctions().allExpressionFunctions;
     }
-    private void updateCachedFunctions() {
-        if (needToUpdateFunctionCache()) {
-            allFunctionsCached = new CachedFunctions(gatherAllFunctions());
+    private CachedFunctions updateCachedFunctions() {
+        CachedFunctions cached = allFunctionsCached;
+        if (cached == null || inherited().stream().anyMatch(RankProfile::needToUpdateFunctionCache)) {
+            cached = new CachedFunctions(gatherAllFunctions());
+            allFunctionsCached = cached;
         }
+        return cached;
     }
 
     private Map<String, RankingExpressionFunction> gatherAllFunctions() {
@@ -6,6 +6,7 @@ import com.yahoo.config.model.api.OnnxModelOptions;
 import com.yahoo.config.model.deploy.DeployState;
 import com.yahoo.embedding.huggingface.HuggingFaceEmbedderConfig;
 import com.yahoo.vespa.model.container.ApplicationContainerCluster;
+import com.yahoo.text.XML;
 import org.w3c.dom.Element;
 
 import java.util.Set;
@@ -39,16 +40,23 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
 
     private String prependDocument;
 
+    private Integer batchingMaxSize;
+
+    private Integer batchingMaxDelayMicros;
+
+    private Boolean reuseBuffers;
+
     public HuggingFaceEmbedder(ApplicationContainerCluster cluster, Element xml, DeployState state) {
         super("ai.vespa.embedding.huggingface.HuggingFaceEmbedder", INTEGRATION_BUNDLE_NAME, xml);
-        var model = Model.fromXml(state, xml, "transformer-model", Set.of(ONNX_MODEL)).orElseThrow();
+        var referenceModel = Model.fromXml(state, xml, "transformer-model", Set.of(ONNX_MODEL)).orElseThrow();
+        var model = selectModelVariant(state, xml, referenceModel);
         this.onnxModelOptions = new OnnxModelOptions(
                 getChildValue(xml, "onnx-execution-mode"),
                 getChildValue(xml, "onnx-interop-threads").map(Integer::parseInt),
                 getChildValue(xml, "onnx-intraop-threads").map(Integer::parseInt),
                 getChildValue(xml, "onnx-gpu-device").map(Integer::parseInt).map(OnnxModelOptions.GpuDevice::new));
         modelRef = model.modelReference();
-        vocabRef = Model.fromXmlOrImplicitlyFromOnnxModel(state, xml, model, "tokenizer-model", Set.of(HF_TOKENIZER)).modelReference();
+        vocabRef = Model.fromXmlOrImplicitlyFromOnnxModel(state, xml, referenceModel, "tokenizer-model", Set.of(HF_TOKENIZER)).modelReference();
         maxTokens = getChildValue(xml, "max-tokens").map(Integer::parseInt).orElse(null);
         transformerInputIds = getChildValue(xml, "transformer-input-ids").orElse(null);
         transformerAttentionMask = getChildValue(xml, "transformer-attention-mask").orElse(null);
@@ -61,10 +69,33 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
             prependQuery = getChildValue(prepend, "query").orElse(null);
             prependDocument = getChildValue(prepend, "document").orElse(null);
         }
+        Element batching = getChild(xml, "batching");
+        if (batching != null) {
+            batchingMaxSize = getChildValue(batching, "max-size").map(Integer::parseInt).orElse(null);
+            batchingMaxDelayMicros = getChildValue(batching, "max-delay-micros").map(Integer::parseInt).orElse(null);
+        }
+        reuseBuffers = getChildValue(xml, "onnx-reuse-buffers").map(Boolean::parseBoolean).orElse(null);
 
         model.registerOnnxModelCost(cluster, onnxModelOptions);
     }
 
+    /**
+     * Returns the first of the declared variants of the given transformer model whose drift is within the
+     * max drift, or the transformer model itself if there is none. Variants are benchmarked offline, and listed
+     * fastest first with their measured drift, so that all containers deterministically use the same model.
+     */
+    private static Model selectModelVariant(DeployState state, Element xml, Model referenceModel) {
+        Element variants = getChild(xml, "model-variants");
+        if (variants == null) return referenceModel;
+
+        double maxDrift = getChildValue(variants, "max-drift").map(Double::parseDouble).orElse(0.01);
+        for (Element variant : XML.getChildren(variants, "transformer-model")) {
+            if (Double.parseDouble(variant.getAttribute("drift")) <= maxDrift)
+                return Model.fromXml(state, variant, Set.of(ONNX_MODEL));
+        }
+        return referenceModel;
+    }
+
     @Override
     public void getConfig(HuggingFaceEmbedderConfig.Builder b) {
         b.transformerModel(modelRef).tokenizerPath(vocabRef);
@@ -77,6 +108,9 @@ public class HuggingFaceEmbedder extends TypedComponent implements HuggingFaceEm
         if (poolingStrategy != null) b.poolingStrategy(PoolingStrategy.Enum.valueOf(poolingStrategy));
         if(prependQuery != null) b.prependQuery(prependQuery);
         if(prependDocument != null) b.prependDocument(prependDocument);
+        if (batchingMaxSize != null) b.batchingMaxSize(batchingMaxSize);
+        if (batchingMaxDelayMicros != null) b.batchingMaxDelayMicros(batchingMaxDelayMicros);
+        if (reuseBuffers != null) b.transformerReuseBuffers(reuseBuffers);
         onnxModelOptions.executionMode().ifPresent(value -> b.transformerExecutionMode(TransformerExecutionMode.Enum.valueOf(value)));
         onnxModelOptions.interOpThreads().ifPresent(b::transformerInterOpThreads);
         onnxModelOptions.intraOpThreads().ifPresent(b::transformerIntraOpThreads);
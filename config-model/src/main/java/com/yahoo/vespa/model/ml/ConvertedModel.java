@@ -3,6 +3,8 @@ package com.yahoo.vespa.model.ml;
 
 import ai.vespa.rankingexpression.importer.configmodelview.ImportedMlFunction;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.yahoo.collections.Pair;
 import com.yahoo.config.application.api.ApplicationFile;
 import com.yahoo.config.application.api.ApplicationPackage;
@@ -54,6 +56,13 @@ import static com.yahoo.yolean.Exceptions.uncheck;
  */
 public class ConvertedModel {
 
+    /**
+     * Locks of the generated files of each model in each application package. Schemas are derived in parallel,
+     * and rank profiles with the same name in different schemas store the same model to the same files,
+     * so conversions of a model must not run concurrently.
+     */
+    private static final Interner<ModelFilesLock> modelFilesLocks = Interners.newWeakInterner();
+
     private final ModelName modelName;
     private final String modelDescription;
     private final ImmutableMap<String, ExpressionFunction> expressions;
@@ -111,10 +120,12 @@ public class ConvertedModel {
                                             ImportedMlModel importedModel) {
         try {
             ModelStore modelStore = new ModelStore(applicationPackage, modelName);
-            return new ConvertedModel(modelName,
-                                      modelDescription,
-                                      convertAndStore(importedModel, rankProfile, queryProfileRegistry, modelStore),
-                                      Optional.of(importedModel));
+            synchronized (lockOf(applicationPackage, modelName)) {
+                return new ConvertedModel(modelName,
+                                          modelDescription,
+                                          convertAndStore(importedModel, rankProfile, queryProfileRegistry, modelStore),
+                                          Optional.of(importedModel));
+            }
         }
         catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("In " + rankProfile + ": Could not create model '" + modelName +
@@ -128,10 +139,12 @@ public class ConvertedModel {
                                            RankProfile rankProfile) {
         try {
             ModelStore modelStore = new ModelStore(applicationPackage, modelName);
-            return new ConvertedModel(modelName,
-                                      modelDescription,
-                                      convertStored(modelStore, rankProfile),
-                                      Optional.empty());
+            synchronized (lockOf(applicationPackage, modelName)) {
+                return new ConvertedModel(modelName,
+                                          modelDescription,
+                                          convertStored(modelStore, rankProfile),
+                                          Optional.empty());
+            }
         }
         catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("In " + rankProfile + ": Could not create model '" + modelName +
@@ -195,6 +208,17 @@ public class ConvertedModel {
 
     // ----------------------- Static model conversion/storage below here
 
+    /**
+     * Returns the lock to hold while reading or writing the generated files of the given model.
+     * This is per local name, as the large constants of a model are shared by the rank profiles using it.
+     */
+    private static Object lockOf(ApplicationPackage applicationPackage, ModelName modelName) {
+        return modelFilesLocks.intern(new ModelFilesLock(applicationPackage, modelName.localName()));
+    }
+
+    /** Application packages have identity equality, so this is equal for the same model in the same package */
+    private record ModelFilesLock(ApplicationPackage applicationPackage, String localName) {}
+
     private static Map<String, ExpressionFunction> convertAndStore(ImportedMlModel model,
                                                                    RankProfile profile,
                                                                    QueryProfileRegistry queryProfiles,
@@ -24,6 +24,7 @@ import com.yahoo.vespa.config.search.vsm.VsmsummaryConfig;
 import com.yahoo.vespa.configdefinition.IlscriptsConfig;
 import com.yahoo.config.model.producer.AnyConfigProducer;
 import com.yahoo.config.model.producer.TreeConfigProducer;
+import com.yahoo.vespa.model.utils.internal.ParallelTasks;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -32,6 +33,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Represents a search cluster.
@@ -126,10 +128,23 @@ public abstract class SearchCluster extends TreeConfigProducer<AnyConfigProducer
      * Also stores the document names contained in the schemas.
      */
     public void deriveFromSchemas(DeployState deployState) {
+        List<SchemaInfo> specs = new ArrayList<>();
+        List<Callable<DerivedConfiguration>> derivations = new ArrayList<>();
         for (SchemaInfo spec : schemas().values()) {
             if (spec.fullSchema() instanceof DocumentOnlySchema) continue; // TODO verify if this special handling is necessary
+            specs.add(spec);
+            derivations.add(() -> new DerivedConfiguration(deployState, spec.fullSchema(), spec.getIndexMode()));
+        }
+        // Schemas are derived in parallel, while config producers are added to the tree in order in this thread.
+        // Derivations only read the shared state of the deploy state (schemas, rank profile registry, query profiles,
+        // imported models and properties), which is complete at this point, except for the lazily resolved caches of
+        // rank profiles, which are volatile and idempotent. What they write goes to the file registry and deploy logger,
+        // which must be thread safe, see FileRegistry and DeployLogger.
+        List<DerivedConfiguration> derivedConfigurations = ParallelTasks.run(derivations, deployState.getExecutor());
+        for (int i = 0; i < specs.size(); i++) {
+            SchemaInfo spec = specs.get(i);
             String schemaName = spec.fullSchema().getName();
-            var derived = new DerivedConfiguration(deployState, spec.fullSchema(), spec.getIndexMode());
+            var derived = derivedConfigurations.get(i);
             documentDbs.put(schemaName, new DocumentDatabase(this, schemaName, derived));
             if (spec.getIndexMode() == SchemaInfo.IndexMode.STREAMING) {
                 var parent = (TreeConfigProducer<AnyConfigProducer>)getParent();
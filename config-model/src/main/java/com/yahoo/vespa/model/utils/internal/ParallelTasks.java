@@ -0,0 +1,61 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.model.utils.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a list of tasks in parallel on an executor, where the calling thread helps out by running
+ * any task not yet started by the executor. This makes it safe to run parallel tasks from within a task
+ * already running on the same bounded executor, as the caller never blocks waiting for a queued task.
+ */
+public final class ParallelTasks {
+
+    private ParallelTasks() {}
+
+    /**
+     * Runs the given tasks and returns their results in the same order.
+     *
+     * @throws IllegalArgumentException or IllegalStateException if thrown by a task, or
+     *         IllegalStateException wrapping any other exception thrown by a task
+     */
+    public static <T> List<T> run(List<Callable<T>> tasks, Executor executor) {
+        List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks)
+            futures.add(new FutureTask<>(task));
+        if (futures.size() > 1) {
+            for (FutureTask<T> future : futures.subList(1, futures.size())) {
+                try {
+                    executor.execute(future);
+                }
+                catch (RejectedExecutionException e) {
+                    break; // Run the remaining tasks in this thread
+                }
+            }
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (FutureTask<T> future : futures) {
+                future.run(); // No-op if already started by the executor
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException iArg) throw iArg;
+            if (e.getCause() instanceof IllegalStateException iState) throw iState;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
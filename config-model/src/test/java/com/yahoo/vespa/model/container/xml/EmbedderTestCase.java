@@ -30,14 +30,17 @@ import com.yahoo.vespa.model.container.component.SpladeEmbedder;
 import com.yahoo.vespa.model.test.utils.VespaModelCreatorWithFilePkg;
 import com.yahoo.yolean.Exceptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.xml.sax.SAXException;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Set;
 
@@ -90,6 +93,33 @@ public class EmbedderTestCase {
         assertEquals(-1, tokenizerCfg.maxLength());
         assertEquals("Represent this sentence for searching relevant passages:", embedderCfg.prependQuery());
         assertEquals("passage:", embedderCfg.prependDocument());
+        assertEquals(16, embedderCfg.batchingMaxSize());
+        assertEquals(300, embedderCfg.batchingMaxDelayMicros());
+        assertTrue(embedderCfg.transformerReuseBuffers());
+    }
+
+    @Test
+    void huggingfaceEmbedder_modelVariants(@TempDir java.nio.file.Path applicationDir) throws Exception {
+        Files.writeString(applicationDir.resolve("services.xml"),
+                          """
+                          <services version="1.0">
+                            <container id="container" version="1.0">
+                              <component id="hf-embedder" type="hugging-face-embedder">
+                                <transformer-model url="https://my/url/model.onnx"/>
+                                <model-variants>
+                                  <transformer-model url="https://my/url/model_int4.onnx" drift="0.2"/>
+                                  <transformer-model url="https://my/url/model_int8.onnx" drift="0.004"/>
+                                  <transformer-model url="https://my/url/model_fp16.onnx" drift="0"/>
+                                  <max-drift>0.01</max-drift>
+                                </model-variants>
+                                <tokenizer-model url="https://my/url/tokenizer.json"/>
+                              </component>
+                            </container>
+                          </services>
+                          """);
+        var model = loadModel(applicationDir.toFile(), false);
+        var embedderCfg = assertHuggingfaceEmbedderComponentPresent(model.getContainerClusters().get("container"));
+        assertEquals("https://my/url/model_int8.onnx", modelReference(embedderCfg, "transformerModel").url().orElseThrow().value());
     }
 
     @Test
@@ -223,7 +253,11 @@ public class EmbedderTestCase {
     }
 
     private VespaModel loadModel(Path path, boolean hosted) throws Exception {
-        FilesApplicationPackage applicationPackage = FilesApplicationPackage.fromFile(path.toFile());
+        return loadModel(path.toFile(), hosted);
+    }
+
+    private VespaModel loadModel(File applicationDir, boolean hosted) throws Exception {
+        FilesApplicationPackage applicationPackage = FilesApplicationPackage.fromFile(applicationDir);
         TestProperties properties = new TestProperties().setHostedVespa(hosted);
         DeployState state = new DeployState.Builder()
                 .properties(properties)
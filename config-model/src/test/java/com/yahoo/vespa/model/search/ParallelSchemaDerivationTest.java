@@ -0,0 +1,215 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.model.search;
+
+import ai.vespa.rankingexpression.importer.onnx.OnnxImporter;
+import com.yahoo.config.application.api.ApplicationPackage;
+import com.yahoo.config.model.NullConfigModelRegistry;
+import com.yahoo.config.model.deploy.DeployState;
+import com.yahoo.config.model.test.MockApplicationPackage;
+import com.yahoo.io.IOUtils;
+import com.yahoo.vespa.config.search.RankProfilesConfig;
+import com.yahoo.vespa.model.VespaModel;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests deriving the schemas of a search cluster and their rank profiles in parallel.
+ */
+public class ParallelSchemaDerivationTest {
+
+    private static final Logger log = Logger.getLogger(ParallelSchemaDerivationTest.class.getName());
+
+    @Test
+    void parallel_derivation_produces_the_same_config_as_sequential() throws Exception {
+        List<String> schemas = createSchemas(6, 8);
+        Map<String, RankProfilesConfig> sequential = rankProfilesConfigs(createModel(schemas, null));
+        // Fewer threads than schemas, such that derivations must run in the threads submitting nested tasks
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Map<String, RankProfilesConfig> parallel = rankProfilesConfigs(createModel(schemas, executor));
+            assertEquals(6, parallel.size());
+            assertEquals(sequential, parallel);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rank_profiles_with_the_same_name_convert_the_same_model_in_parallel() throws Exception {
+        List<String> schemas = new ArrayList<>();
+        for (int s = 0; s < 6; s++) {
+            schemas.add("schema doc" + s + " {\n" +
+                        "  document doc" + s + " {\n" +
+                        "    field title type string { indexing: index | summary }\n" +
+                        "  }\n" +
+                        "  rank-profile my_profile {\n" +
+                        "    function input() {\n" +
+                        "      expression: tensor<float>(d0[3])(" + s + ".0)\n" +
+                        "    }\n" +
+                        "    first-phase {\n" +
+                        "      expression: onnx_vespa('small_constants_and_functions.onnx')\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}\n");
+        }
+        // Application package roots must be relative, and generated model files are written below them
+        Path root = Path.of("target/parallel-schema-derivation");
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            Path sequentialRoot = applicationWithModel(root.resolve("sequential"));
+            Path parallelRoot = applicationWithModel(root.resolve("parallel"));
+            Map<String, RankProfilesConfig> sequential = rankProfilesConfigs(createModel(schemas, null, sequentialRoot.toFile()));
+            Map<String, RankProfilesConfig> parallel = rankProfilesConfigs(createModel(schemas, executor, parallelRoot.toFile()));
+            assertEquals(sequential, parallel);
+
+            // All the schemas store the model of my_profile to the same files, which must not be interleaved
+            Path generated = Path.of(ApplicationPackage.MODELS_GENERATED_REPLICATED_DIR.append("my_profile.small_constants_and_functions").toString());
+            for (String file : List.of("functions.txt", "constants.txt"))
+                assertEquals(Files.readString(sequentialRoot.resolve(generated).resolve(file)),
+                             Files.readString(parallelRoot.resolve(generated).resolve(file)));
+        }
+        finally {
+            executor.shutdown();
+            IOUtils.recursiveDeleteDir(root.toFile());
+        }
+    }
+
+    /**
+     * Compares the time to derive a large synthetic application package sequentially and in parallel,
+     * and verifies that both produce the same config. Disabled as it is slow; run manually to measure
+     * the effect of changes, and see the timings in the log.
+     */
+    @Test
+    @Disabled
+    void benchmarkLargeApplication() throws Exception {
+        List<String> schemas = createSchemas(30, 40);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < 3; i++) {
+                var sequential = time("sequential", () -> createModel(schemas, null));
+                var parallel = time("parallel with " + threads + " threads", () -> createModel(schemas, executor));
+                assertEquals(rankProfilesConfigs(sequential), rankProfilesConfigs(parallel));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface ModelCreator {
+        VespaModel create() throws Exception;
+    }
+
+    private static VespaModel time(String text, ModelCreator creator) throws Exception {
+        long start = System.nanoTime();
+        VespaModel model = creator.create();
+        log.info("Deriving " + text + " took " + (System.nanoTime() - start) / 1000000 + "ms");
+        return model;
+    }
+
+    private static Path applicationWithModel(Path root) throws Exception {
+        Path models = Files.createDirectories(root.resolve(ApplicationPackage.MODELS_DIR.toString()));
+        Files.copy(Path.of("src/test/integration/onnx/models/small_constants_and_functions.onnx"),
+                   models.resolve("small_constants_and_functions.onnx"));
+        return root;
+    }
+
+    private static Map<String, RankProfilesConfig> rankProfilesConfigs(VespaModel model) {
+        Map<String, RankProfilesConfig> configs = new LinkedHashMap<>();
+        for (SearchCluster cluster : model.getSearchClusters()) {
+            for (DocumentDatabase db : cluster.getDocumentDbs()) {
+                RankProfilesConfig.Builder builder = new RankProfilesConfig.Builder();
+                db.getConfig(builder);
+                configs.put(db.getSchemaName(), builder.build());
+            }
+        }
+        return configs;
+    }
+
+    private static VespaModel createModel(List<String> schemas, ExecutorService executor) throws Exception {
+        return createModel(schemas, executor, null);
+    }
+
+    private static VespaModel createModel(List<String> schemas, ExecutorService executor, File root) throws Exception {
+        StringBuilder documents = new StringBuilder();
+        for (int i = 0; i < schemas.size(); i++)
+            documents.append("      <document type='doc").append(i).append("' mode='index'/>\n");
+        String services =
+                "<services version='1.0'>\n" +
+                "  <admin version='2.0'>\n" +
+                "    <adminserver hostalias='node1'/>\n" +
+                "  </admin>\n" +
+                "  <content id='test' version='1.0'>\n" +
+                "    <redundancy>1</redundancy>\n" +
+                "    <documents>\n" +
+                documents +
+                "    </documents>\n" +
+                "    <nodes>\n" +
+                "      <node hostalias='node1' distribution-key='0'/>\n" +
+                "    </nodes>\n" +
+                "  </content>\n" +
+                "</services>";
+        var builder = new MockApplicationPackage.Builder().withServices(services).withSchemas(schemas);
+        if (root != null)
+            builder.withRoot(root);
+        var applicationPackage = builder.build();
+        var deployState = new DeployState.Builder().applicationPackage(applicationPackage)
+                                                   .modelImporters(List.of(new OnnxImporter()));
+        if (executor != null)
+            deployState.executor(executor);
+        return new VespaModel(new NullConfigModelRegistry(), deployState.build());
+    }
+
+    private static List<String> createSchemas(int schemaCount, int profileCount) {
+        List<String> schemas = new ArrayList<>();
+        for (int s = 0; s < schemaCount; s++) {
+            StringBuilder schema = new StringBuilder();
+            schema.append("schema doc").append(s).append(" {\n")
+                  .append("  document doc").append(s).append(" {\n")
+                  .append("    field title type string { indexing: index | summary }\n")
+                  .append("    field popularity type double { indexing: attribute }\n")
+                  .append("    field embedding type tensor<float>(x[16]) { indexing: attribute }\n")
+                  .append("  }\n")
+                  .append("  rank-profile base {\n")
+                  .append("    inputs {\n")
+                  .append("      query(q) tensor<float>(x[16])\n")
+                  .append("    }\n")
+                  .append("    function inline similarity() {\n")
+                  .append("      expression: sum(query(q) * attribute(embedding))\n")
+                  .append("    }\n")
+                  .append("  }\n");
+            for (int p = 0; p < profileCount; p++) {
+                schema.append("  rank-profile profile").append(p).append(" inherits base {\n");
+                for (int f = 0; f < 10; f++) {
+                    schema.append("    function inline f").append(f).append("() {\n")
+                          .append("      expression: ").append(f == 0 ? "similarity" : "f" + (f - 1))
+                          .append(" * ").append(p + 1).append(" + attribute(popularity) * ").append(f).append("\n")
+                          .append("    }\n");
+                }
+                schema.append("    first-phase {\n")
+                      .append("      expression: f9 + nativeRank(title)\n")
+                      .append("    }\n")
+                      .append("  }\n");
+            }
+            schema.append("}\n");
+            schemas.add(schema.toString());
+        }
+        return schemas;
+    }
+
+}
@@ -46,7 +46,7 @@ public class DeployHandlerLogger implements DeployLogger {
         log.log(Level.FINE, throwable, () -> prefix + supplier.get());
 
         if (level.intValue() <= LogLevel.DEBUG.intValue() && !verbose) return;
-        logJson(level, supplier.get());
+        logJson(level, supplier.get(), false);
     }
 
     @Override
@@ -55,18 +55,19 @@ public class DeployHandlerLogger implements DeployLogger {
         if (level.intValue() <= LogLevel.DEBUG.intValue() && !verbose)
             return;
 
-        Cursor entry = logJson(level, message);
-        entry.setBool("applicationPackage", true);
+        logJson(level, message, true);
         // Also tee to a normal log, Vespa log for example, but use level fine
         log.log(Level.FINE, () -> prefix + message);
     }
 
-    private Cursor logJson(Level level, String message) {
+    // Synchronized since models for several versions may be built, and log, concurrently
+    private synchronized void logJson(Level level, String message, boolean applicationPackage) {
         Cursor entry = logroot.addObject();
         entry.setLong("time", System.currentTimeMillis());
         entry.setString("level", level.getName());
         entry.setString("message", message);
-        return entry;
+        if (applicationPackage)
+            entry.setBool("applicationPackage", true);
     }
 
     public Slime slime() {
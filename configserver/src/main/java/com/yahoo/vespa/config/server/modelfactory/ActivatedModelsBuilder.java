@@ -85,7 +85,8 @@ public class ActivatedModelsBuilder extends ModelsBuilder<Application> {
                                   ConfigDefinitionRepo configDefinitionRepo,
                                   OnnxModelCost onnxModelCost,
                                   List<EndpointCertificateSecretStore> endpointCertificateSecretStores) {
-        super(modelFactoryRegistry, configserverConfig, zone, hostProvisionerProvider, new SilentDeployLogger());
+        // Activated models are loaded for many applications in parallel already, so build their versions sequentially
+        super(modelFactoryRegistry, configserverConfig, zone, hostProvisionerProvider, new SilentDeployLogger(), Runnable::run);
         this.tenant = tenant;
         this.applicationGeneration = applicationGeneration;
         this.zkClient = zkClient;
@@ -17,6 +17,7 @@ import com.yahoo.config.provision.NodeAllocationException;
 import com.yahoo.config.provision.QuotaExceededException;
 import com.yahoo.config.provision.TransientException;
 import com.yahoo.config.provision.Zone;
+import com.yahoo.path.Path;
 import com.yahoo.vespa.config.server.http.InternalServerException;
 import com.yahoo.vespa.config.server.http.InvalidApplicationException;
 import com.yahoo.vespa.config.server.http.UnknownVespaVersionException;
@@ -24,18 +25,27 @@ import com.yahoo.vespa.config.server.provision.HostProvisionerProvider;
 import com.yahoo.vespa.config.server.provision.ProvisionerAdapter;
 import com.yahoo.vespa.config.server.provision.StaticProvisioner;
 import com.yahoo.yolean.Exceptions;
-
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Responsible for building the right versions of application models for a given tenant and application generation.
@@ -59,17 +69,22 @@ public abstract class ModelsBuilder<MODELRESULT extends ModelResult> {
 
     private final DeployLogger deployLogger;
 
+    /** Executor used to build the model versions other than the latest concurrently */
+    private final Executor modelVersionBuildExecutor;
+
     ModelsBuilder(ModelFactoryRegistry modelFactoryRegistry,
                   ConfigserverConfig configserverConfig,
                   Zone zone,
                   HostProvisionerProvider hostProvisionerProvider,
-                  DeployLogger deployLogger) {
+                  DeployLogger deployLogger,
+                  Executor modelVersionBuildExecutor) {
         this.modelFactoryRegistry = modelFactoryRegistry;
         this.configserverConfig = configserverConfig;
         this.hosted = configserverConfig.hostedVespa();
         this.zone = zone;
         this.hostProvisionerProvider = hostProvisionerProvider;
         this.deployLogger = deployLogger;
+        this.modelVersionBuildExecutor = modelVersionBuildExecutor;
     }
 
     /** Returns the zone this is running in */
@@ -183,26 +198,33 @@ public abstract class ModelsBuilder<MODELRESULT extends ModelResult> {
         if (buildLatestModelForThisMajor) {
             latest = Optional.of(findLatest(versions));
             // load latest application version
-            MODELRESULT latestModelVersion = buildModelVersion(modelFactoryRegistry.getFactory(latest.get()),
-                                                               applicationPackage,
-                                                               applicationId,
-                                                               wantedDockerImageRepository,
-                                                               wantedNodeVespaVersion);
+            MODELRESULT latestModelVersion = timedBuildModelVersion(latest.get(),
+                                                                    applicationPackage,
+                                                                    applicationId,
+                                                                    wantedDockerImageRepository,
+                                                                    wantedNodeVespaVersion);
             allocatedHosts.add(latestModelVersion.getModel().allocatedHosts(), latest.get());
             builtModelVersions.add(latestModelVersion);
         }
 
-        // load old model versions
+        // load old model versions: These only depend on the hosts allocated by the latest, so build them concurrently
         versions = versionsToBuild(versions, wantedNodeVespaVersion, majorVersion, allocatedHosts);
+        Executor executor = canBuildConcurrently(applicationPackage) ? modelVersionBuildExecutor : Runnable::run;
+        Map<Version, CompletableFuture<MODELRESULT>> oldModelVersions = new LinkedHashMap<>();
         for (Version version : versions) {
             if (latest.isPresent() && version.equals(latest.get())) continue; // already loaded
 
+            oldModelVersions.put(version, CompletableFuture.supplyAsync(() -> timedBuildModelVersion(version,
+                                                                                                    applicationPackage,
+                                                                                                    applicationId,
+                                                                                                    wantedDockerImageRepository,
+                                                                                                    wantedNodeVespaVersion),
+                                                                        executor));
+        }
+        for (Map.Entry<Version, CompletableFuture<MODELRESULT>> entry : oldModelVersions.entrySet()) {
+            Version version = entry.getKey();
             try {
-                MODELRESULT modelVersion = buildModelVersion(modelFactoryRegistry.getFactory(version),
-                                                             applicationPackage,
-                                                             applicationId,
-                                                             wantedDockerImageRepository,
-                                                             wantedNodeVespaVersion);
+                MODELRESULT modelVersion = await(entry.getValue());
                 allocatedHosts.add(modelVersion.getModel().allocatedHosts(), version);
                 builtModelVersions.add(modelVersion);
             } catch (RuntimeException e) {
@@ -215,6 +237,7 @@ public abstract class ModelsBuilder<MODELRESULT extends ModelResult> {
                             + Exceptions.toMessageString(e));
                 else {
                     log.log(Level.SEVERE, applicationId + ": Failed to build version " + version);
+                    oldModelVersions.values().forEach(future -> future.cancel(false));
                     throw e;
                 }
             }
@@ -222,6 +245,52 @@ public abstract class ModelsBuilder<MODELRESULT extends ModelResult> {
         return builtModelVersions;
     }
 
+    private MODELRESULT timedBuildModelVersion(Version version,
+                                               ApplicationPackage applicationPackage,
+                                               ApplicationId applicationId,
+                                               Optional<DockerImage> wantedDockerImageRepository,
+                                               Version wantedNodeVespaVersion) {
+        Instant start = Instant.now();
+        MODELRESULT result = buildModelVersion(modelFactoryRegistry.getFactory(version),
+                                               applicationPackage,
+                                               applicationId,
+                                               wantedDockerImageRepository,
+                                               wantedNodeVespaVersion);
+        deployLogger.log(Level.FINE, () -> "Built model for Vespa version " + version.toFullString() +
+                                           " in " + Duration.between(start, Instant.now()).toMillis() + " ms");
+        return result;
+    }
+
+    /**
+     * Returns whether models for several versions can be built concurrently from the given application package.
+     * Building models from machine-learned models writes generated files to the application package,
+     * which is not safe to do concurrently, so these are built sequentially.
+     */
+    private static boolean canBuildConcurrently(ApplicationPackage applicationPackage) {
+        if (applicationPackage.getFile(ApplicationPackage.MODELS_DIR).exists()) return false;
+
+        File appDir = applicationPackage.getFileReference(Path.fromString(""));
+        if ( ! appDir.isDirectory()) return false;
+        try (Stream<java.nio.file.Path> files = Files.walk(appDir.toPath())) {
+            return files.noneMatch(file -> file.getFileName().toString().endsWith(".onnx"));
+        }
+        catch (IOException | UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    /** Returns the result of the given future, rethrowing any runtime exception it completed with */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
     private Set<Version> versionsToBuild(Set<Version> versions, Version wantedVersion, int majorVersion,
                                          AllocatedHostsFromAllModels allocatedHosts) {
         // TODO: This won't find nodes allocated to the application only on older model versions.
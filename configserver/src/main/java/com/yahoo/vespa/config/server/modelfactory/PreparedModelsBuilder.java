@@ -45,6 +45,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -80,6 +81,7 @@ public class PreparedModelsBuilder extends ModelsBuilder<PreparedModelsBuilder.P
                                  ConfigDefinitionRepo configDefinitionRepo,
                                  FileRegistry fileRegistry,
                                  ExecutorService executor,
+                                 Executor modelVersionBuildExecutor,
                                  HostProvisionerProvider hostProvisionerProvider,
                                  Curator curator,
                                  HostValidator hostValidator,
@@ -89,7 +91,7 @@ public class PreparedModelsBuilder extends ModelsBuilder<PreparedModelsBuilder.P
                                  ConfigserverConfig configserverConfig,
                                  Zone zone,
                                  OnnxModelCost onnxModelCost) {
-        super(modelFactoryRegistry, configserverConfig, zone, hostProvisionerProvider, deployLogger);
+        super(modelFactoryRegistry, configserverConfig, zone, hostProvisionerProvider, deployLogger, modelVersionBuildExecutor);
         this.flagSource = flagSource;
         this.secretStore = secretStore;
         this.containerEndpoints = containerEndpoints;
@@ -69,6 +69,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
@@ -95,6 +96,7 @@ public class SessionPreparer {
     private final SecretStore secretStore;
     private final FlagSource flagSource;
     private final ExecutorService executor;
+    private final Executor modelVersionBuildExecutor;
     private final BooleanFlag writeSessionData;
     private final OnnxModelCost onnxModelCost;
     private final List<EndpointCertificateSecretStore> endpointCertificateSecretStores;
@@ -102,6 +104,7 @@ public class SessionPreparer {
     public SessionPreparer(ModelFactoryRegistry modelFactoryRegistry,
                            FileDistributionFactory fileDistributionFactory,
                            ExecutorService executor,
+                           Executor modelVersionBuildExecutor,
                            HostProvisionerProvider hostProvisionerProvider,
                            ConfigserverConfig configserverConfig,
                            ConfigDefinitionRepo configDefinitionRepo,
@@ -121,6 +124,7 @@ public class SessionPreparer {
         this.secretStore = secretStore;
         this.flagSource = flagSource;
         this.executor = executor;
+        this.modelVersionBuildExecutor = modelVersionBuildExecutor;
         this.writeSessionData = Flags.WRITE_CONFIG_SERVER_SESSION_DATA_AS_ONE_BLOB.bindTo(flagSource);
         this.onnxModelCost = onnxModelCost;
         this.endpointCertificateSecretStores = endpointCertificateSecretStores;
@@ -157,6 +161,7 @@ public class SessionPreparer {
                 preparation.writeContainerEndpointsZK();
             }
             log.log(Level.FINE, () -> "time used " + params.getTimeoutBudget().timesUsed() + " : " + applicationId);
+            logger.log(Level.FINE, () -> "Time used in prepare steps: " + params.getTimeoutBudget().timesUsed());
             return preparation.result();
         }
         catch (IllegalArgumentException e) {
@@ -224,6 +229,7 @@ public class SessionPreparer {
                                                                    configDefinitionRepo,
                                                                    fileRegistry,
                                                                    executor,
+                                                                   modelVersionBuildExecutor,
                                                                    hostProvisionerProvider,
                                                                    curator,
                                                                    hostValidator,
@@ -108,6 +108,7 @@ public class TenantRepository {
     private final StripedExecutor<TenantName> zkApplicationWatcherExecutor;
     private final FileDistributionFactory fileDistributionFactory;
     private final ExecutorService deployHelperExecutor;
+    private final ExecutorService modelVersionBuildExecutor;
     private final FlagSource flagSource;
     private final SecretStore secretStore;
     private final HostProvisionerProvider hostProvisionerProvider;
@@ -213,6 +214,9 @@ public class TenantRepository {
         this.endpointCertificateSecretStores = endpointCertificateSecretStores;
         // This we should control with a feature flag.
         this.deployHelperExecutor = createModelBuilderExecutor();
+        // Separate from the above, as model building waits for tasks submitted to that
+        this.modelVersionBuildExecutor = Executors.newFixedThreadPool(configserverConfig.numParallelModelVersionBuilds(),
+                                                                      ThreadFactoryFactory.getDaemonThreadFactory("model-version-builder"));
         this.onnxModelCost = onnxModelCost;
 
         curator.framework().getConnectionStateListenable().addListener(this::stateChanged);
@@ -360,6 +364,7 @@ public class TenantRepository {
         SessionPreparer sessionPreparer = new SessionPreparer(modelFactoryRegistry,
                                                               fileDistributionFactory,
                                                               deployHelperExecutor,
+                                                              modelVersionBuildExecutor,
                                                               hostProvisionerProvider,
                                                               configserverConfig,
                                                               configDefinitionRepo,
@@ -565,6 +570,7 @@ public class TenantRepository {
         try {
             zkCacheExecutor.shutdown();
             checkForRemovedApplicationsService.shutdown();
+            modelVersionBuildExecutor.shutdown();
             zkApplicationWatcherExecutor.shutdownAndWait();
             zkSessionWatcherExecutor.shutdownAndWait();
             zkCacheExecutor.awaitTermination(50, TimeUnit.SECONDS);
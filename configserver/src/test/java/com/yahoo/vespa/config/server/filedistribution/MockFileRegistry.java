@@ -24,7 +24,7 @@ public class MockFileRegistry implements FileRegistry {
         this.addFileInterface = new ApplicationFileManager(applicationDir, fileDirectory, false);
     }
 
-    public FileReference addFile(String relativePath) {
+    public synchronized FileReference addFile(String relativePath) {
         if (relativePath.isEmpty()) relativePath = "./";
         try {
             addFileInterface.addFile(Path.fromString(relativePath));
@@ -36,7 +36,7 @@ public class MockFileRegistry implements FileRegistry {
         }
     }
 
-    public List<Entry> export() { return entries; }
+    public synchronized List<Entry> export() { return List.copyOf(entries); }
 
     @Override
     public FileReference addUri(String uri) {
@@ -44,7 +44,7 @@ public class MockFileRegistry implements FileRegistry {
     }
 
     @Override
-    public FileReference addBlob(String name, ByteBuffer blob) {
+    public synchronized FileReference addBlob(String name, ByteBuffer blob) {
         name = "./" + name;
         FileReference fileReference = addFileInterface.addBlob(blob, Path.fromString(name));
 
@@ -10,9 +10,16 @@ import com.yahoo.config.model.api.ApplicationClusterEndpoint;
 import com.yahoo.config.model.api.ContainerEndpoint;
 import com.yahoo.config.model.api.EndpointCertificateSecrets;
 import com.yahoo.config.model.api.ModelContext;
+import com.yahoo.config.model.api.ModelCreateResult;
+import com.yahoo.config.model.api.ModelFactory;
 import com.yahoo.config.model.api.OnnxModelCost;
+import com.yahoo.config.model.api.ValidationParameters;
 import com.yahoo.config.model.application.provider.BaseDeployLogger;
 import com.yahoo.config.model.application.provider.FilesApplicationPackage;
+import com.yahoo.config.model.provision.Host;
+import com.yahoo.config.model.provision.Hosts;
+import com.yahoo.config.model.provision.InMemoryProvisioner;
+import com.yahoo.config.model.test.HostedConfigModelRegistry;
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.config.provision.ApplicationName;
 import com.yahoo.config.provision.CertificateNotReadyException;
@@ -36,6 +43,7 @@ import com.yahoo.vespa.config.server.TimeoutBudgetTest;
 import com.yahoo.vespa.config.server.deploy.DeployHandlerLogger;
 import com.yahoo.vespa.config.server.filedistribution.MockFileDistributionFactory;
 import com.yahoo.vespa.config.server.host.HostRegistry;
+import com.yahoo.vespa.config.server.http.InternalServerException;
 import com.yahoo.vespa.config.server.http.InvalidApplicationException;
 import com.yahoo.vespa.config.server.model.TestModelFactory;
 import com.yahoo.vespa.config.server.modelfactory.ModelFactoryRegistry;
@@ -66,12 +74,20 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 import static com.yahoo.vespa.config.server.session.SessionData.APPLICATION_PACKAGE_REFERENCE_PATH;
 import static com.yahoo.vespa.config.server.session.SessionPreparer.PrepareResult;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -83,6 +99,8 @@ public class SessionPreparerTest {
     private static final File invalidTestApp = new File("src/test/apps/illegalApp");
     private static final Version version123 = new Version(1, 2, 3);
     private static final Version version321 = new Version(3, 2, 1);
+    private static final Version version124 = new Version(1, 2, 4);
+    private static final Version version125 = new Version(1, 2, 5);
     private static final Zone zone = Zone.defaultZone();
     private final KeyPair keyPair = KeyUtils.generateKeypair(KeyAlgorithm.EC, 256);
     private final X509Certificate certificate = X509CertificateBuilder.fromKeypair(keyPair, new X500Principal("CN=subject"),
@@ -123,10 +141,17 @@ public class SessionPreparerTest {
 
     private SessionPreparer createPreparer(ModelFactoryRegistry modelFactoryRegistry,
                                            HostProvisionerProvider hostProvisionerProvider) {
+        return createPreparer(modelFactoryRegistry, hostProvisionerProvider, Runnable::run);
+    }
+
+    private SessionPreparer createPreparer(ModelFactoryRegistry modelFactoryRegistry,
+                                           HostProvisionerProvider hostProvisionerProvider,
+                                           Executor modelVersionBuildExecutor) {
         return new SessionPreparer(
                 modelFactoryRegistry,
                 new MockFileDistributionFactory(configserverConfig),
                 new InThreadExecutorService(),
+                modelVersionBuildExecutor,
                 hostProvisionerProvider,
                 configserverConfig,
                 new TestConfigDefinitionRepo(),
@@ -383,6 +408,93 @@ public class SessionPreparerTest {
         assertEquals(expected, tokensFromModel);
     }
 
+    @Test
+    public void require_that_old_model_versions_are_built_concurrently() throws Exception {
+        CyclicBarrier oldVersionsBuilding = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            preparer = createHostedPreparer(List.of(awaitingModelFactory(version123, oldVersionsBuilding),
+                                                    awaitingModelFactory(version124, oldVersionsBuilding),
+                                                    new TestModelFactory(HostedConfigModelRegistry.create(), version125)),
+                                            executor);
+            var params = hostedPrepareParams();
+            PrepareResult result = prepare(new File("src/test/resources/deploy/hosted-app"), params, 1);
+            assertEquals(Set.of(version123, version124, version125), result.getFileRegistries().keySet());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void require_that_failure_to_build_old_model_version_concurrently_is_propagated() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            preparer = createHostedPreparer(List.of(new TestModelFactory(HostedConfigModelRegistry.create(), version123),
+                                                    failingModelFactory(version124),
+                                                    new TestModelFactory(HostedConfigModelRegistry.create(), version125)),
+                                            executor);
+            var params = hostedPrepareParams();
+            var e = assertThrows(InternalServerException.class,
+                                 () -> prepare(new File("src/test/resources/deploy/hosted-app"), params, 1));
+            assertEquals("Unexpected error building default.test", e.getMessage());
+            assertEquals("Failed building model for 1.2.4", e.getCause().getMessage());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private PrepareParams hostedPrepareParams() {
+        return new PrepareParams.Builder().applicationId(applicationId("test"))
+                                          .vespaVersion(version125)
+                                          .containerEndpoints("[{\"clusterId\": \"qrs\", \"names\": [\"qrs.test.example.com\"], " +
+                                                              "\"scope\": \"zone\", \"routingMethod\": \"sharedLayer4\"}]")
+                                          .build();
+    }
+
+    /** Returns a preparer of hosted applications, on hosts running the two versions before version125 */
+    private SessionPreparer createHostedPreparer(List<ModelFactory> modelFactories, Executor modelVersionBuildExecutor) throws IOException {
+        configserverConfig = new ConfigserverConfig.Builder()
+                .hostedVespa(true)
+                .fileReferencesDir(folder.newFolder().getAbsolutePath())
+                .configServerDBDir(folder.newFolder().getAbsolutePath())
+                .configDefinitionsDir(folder.newFolder().getAbsolutePath())
+                .build();
+        List<Host> hosts = List.of(new Host("host1", List.of(), Optional.empty(), Optional.of(version123)),
+                                   new Host("host2", List.of(), Optional.empty(), Optional.of(version124)),
+                                   new Host("host3", List.of(), Optional.empty(), Optional.of(version124)));
+        var provisioner = new MockProvisioner().hostProvisioner(new InMemoryProvisioner(new Hosts(hosts), true, false));
+        return createPreparer(new ModelFactoryRegistry(modelFactories),
+                              HostProvisionerProvider.withProvisioner(provisioner, configserverConfig),
+                              modelVersionBuildExecutor);
+    }
+
+    /** Returns a model factory which waits for the given barrier to be reached by all parties before building */
+    private static ModelFactory awaitingModelFactory(Version version, CyclicBarrier barrier) {
+        return new TestModelFactory(HostedConfigModelRegistry.create(), version) {
+            @Override
+            public ModelCreateResult createAndValidateModel(ModelContext modelContext, ValidationParameters validationParameters) {
+                try {
+                    barrier.await(1, TimeUnit.MINUTES);
+                }
+                catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    throw new IllegalStateException("Model versions were not built concurrently", e);
+                }
+                return super.createAndValidateModel(modelContext, validationParameters);
+            }
+        };
+    }
+
+    private static ModelFactory failingModelFactory(Version version) {
+        return new TestModelFactory(HostedConfigModelRegistry.create(), version) {
+            @Override
+            public ModelCreateResult createAndValidateModel(ModelContext modelContext, ValidationParameters validationParameters) {
+                throw new IllegalStateException("Failed building model for " + version);
+            }
+        };
+    }
+
     private List<ContainerEndpoint> readContainerEndpoints(ApplicationId applicationId) {
         Path tenantPath = TenantRepository.getTenantPath(applicationId.tenant());
         return new ContainerEndpointsCache(tenantPath, curator).read(applicationId);
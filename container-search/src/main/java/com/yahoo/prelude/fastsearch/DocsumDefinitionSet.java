@@ -4,8 +4,8 @@ package com.yahoo.prelude.fastsearch;
 import com.yahoo.search.schema.DocumentSummary;
 import com.yahoo.search.schema.Schema;
 import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
 import com.yahoo.data.access.Inspector;
-import com.yahoo.slime.Slime;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.prelude.ConfigurationException;
 
@@ -82,8 +82,7 @@ public final class DocsumDefinitionSet {
             throw new IllegalArgumentException("Only expecting SchemaLess docsums - summary class:" + summaryClass + " hit:" + hit);
         }
         DocsumDefinition docsumDefinition = getDocsum(summaryClass);
-        Slime value = BinaryFormat.decode(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining());
-        Inspector docsum = new SlimeAdapter(value.get());
+        Inspector docsum = new SlimeAdapter(decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()));
         if (docsum.type() != OBJECT) {
             return "Hit " + hit + " failed: " + docsum.asString();
         }
@@ -91,6 +90,19 @@ public final class DocsumDefinitionSet {
         return null;
     }
 
+    /**
+     * Returns a view of the given docsum data which decodes fields only when they are accessed,
+     * or the partial result of decoding the data eagerly if it is not valid.
+     */
+    private static com.yahoo.slime.Inspector decode(byte[] data, int offset, int length) {
+        try {
+            return BinaryView.inspect(data, offset, length);
+        }
+        catch (IllegalArgumentException e) {
+            return BinaryFormat.decode(data, offset, length).get();
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -19,7 +19,10 @@ import com.yahoo.document.select.ResultList;
 import com.yahoo.document.select.Visitor;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * @author Simon Thoresen Hult
@@ -28,10 +31,12 @@ public class AttributeNode implements ExpressionNode {
 
     private ExpressionNode value;
     private final List<Item> items;
+    private final List<Step> steps;
 
     public AttributeNode(ExpressionNode value, List<Item> items) {
         this.value = value;
         this.items = new ArrayList<>(items);
+        this.steps = stepsOf(this.items);
     }
 
     public ExpressionNode getValue() {
@@ -54,37 +59,51 @@ public class AttributeNode implements ExpressionNode {
 
     @Override
     public Object evaluate(Context context) {
-        StringBuilder pos = new StringBuilder(value.toString());
         Object obj = value.evaluate(context);
-
-        StringBuilder builder = new StringBuilder();
-        for (Item item : items) {
+        for (Step step : steps) {
             if (obj == null) {
-                throw new IllegalStateException("Can not invoke '" + item + "' on '" + pos + "' because that term " +
-                                                "evaluated to null.");
+                throw new IllegalStateException("Can not invoke '" + items.get(step.firstItem) + "' on '" +
+                                                positionOf(step.firstItem) + "' because that term evaluated to null.");
             }
+            obj = step.function ? evaluateFunction(step.name, obj) : step.evaluateFieldPath(obj);
+        }
+        return obj;
+    }
+
+    private String positionOf(int item) {
+        StringBuilder pos = new StringBuilder(value.toString());
+        for (int i = 0; i < item; i++) {
+            pos.append(".").append(items.get(i));
+        }
+        return pos.toString();
+    }
+
+    /** Groups consecutive attribute items into field path steps, separated by function steps. */
+    private static List<Step> stepsOf(List<Item> items) {
+        List<Step> steps = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        int first = 0;
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
             if (item.getType() != Item.FUNCTION) {
                 if (builder.length() > 0) {
                     builder.append(".");
+                } else {
+                    first = i;
                 }
-
                 builder.append(item.getName());
             } else {
                 if (builder.length() > 0) {
-                    obj = evaluateFieldPath(builder.toString(), obj);
+                    steps.add(new Step(builder.toString(), false, first));
                     builder = new StringBuilder();
                 }
-
-                obj = evaluateFunction(item.getName(), obj);
+                steps.add(new Step(item.getName(), true, i));
             }
-
-            pos.append(".").append(item);
         }
-
         if (builder.length() > 0) {
-            obj = evaluateFieldPath(builder.toString(), obj);
+            steps.add(new Step(builder.toString(), false, first));
         }
-        return obj;
+        return List.copyOf(steps);
     }
 
     public static class VariableValueList extends ArrayList<ResultList.VariableValue> {
@@ -146,34 +165,6 @@ public class AttributeNode implements ExpressionNode {
         return documentType.hasImportedField(path);
     }
 
-    private static Object evaluateFieldPath(String fieldPathStr, Object value) {
-        if (value instanceof DocumentPut) {
-            Document doc = ((DocumentPut) value).getDocument();
-            if (isSimpleImportedField(fieldPathStr, doc.getDataType())) {
-                // Imported fields can only be meaningfully evaluated in the backend, so we
-                // explicitly treat them as if they are valid fields with missing values. This
-                // will be treated the same as if it's a normal field by the selection operators.
-                // This avoids any awkward interaction with Invalid values or having to
-                // augment the FieldPath code with knowledge of imported fields.
-                return null;
-            }
-            FieldPath fieldPath = doc.getDataType().buildFieldPath(fieldPathStr);
-            IteratorHandler handler = new IteratorHandler();
-            doc.iterateNested(fieldPath, 0, handler);
-            if (handler.values.isEmpty()) {
-                return null;
-            }
-            return handler.values;
-        } else if (value instanceof DocumentUpdate) {
-            return Result.INVALID;
-        } else if (value instanceof DocumentRemove) {
-            return Result.INVALID;
-        } else if (value instanceof DocumentGet) {
-            return Result.INVALID;
-        }
-        return Result.FALSE;
-    }
-
     private static Object evaluateFunction(String function, Object value) {
         if (value instanceof VariableValueList) {
             VariableValueList retVal = new VariableValueList();
@@ -205,6 +196,70 @@ public class AttributeNode implements ExpressionNode {
         return ret.toString();
     }
 
+    /**
+     * A field path or a function applied to the value of the previous step. Field paths are resolved
+     * once per document type and reused for all later documents of that type, as resolving them
+     * is far more expensive than iterating over the document.
+     */
+    private static final class Step {
+
+        private final String name;
+        private final boolean function;
+        private final int firstItem;
+
+        /** Resolved field paths by document type, where empty means an imported field. Copied on write. */
+        private volatile Map<DocumentType, Optional<FieldPath>> resolved = new IdentityHashMap<>();
+
+        Step(String name, boolean function, int firstItem) {
+            this.name = name;
+            this.function = function;
+            this.firstItem = firstItem;
+        }
+
+        Object evaluateFieldPath(Object value) {
+            if (value instanceof DocumentPut) {
+                Document doc = ((DocumentPut) value).getDocument();
+                Optional<FieldPath> fieldPath = resolve(doc.getDataType());
+                if (fieldPath.isEmpty()) {
+                    // Imported fields can only be meaningfully evaluated in the backend, so we
+                    // explicitly treat them as if they are valid fields with missing values. This
+                    // will be treated the same as if it's a normal field by the selection operators.
+                    // This avoids any awkward interaction with Invalid values or having to
+                    // augment the FieldPath code with knowledge of imported fields.
+                    return null;
+                }
+                IteratorHandler handler = new IteratorHandler();
+                doc.iterateNested(fieldPath.get(), 0, handler);
+                if (handler.values.isEmpty()) {
+                    return null;
+                }
+                return handler.values;
+            } else if (value instanceof DocumentUpdate) {
+                return Result.INVALID;
+            } else if (value instanceof DocumentRemove) {
+                return Result.INVALID;
+            } else if (value instanceof DocumentGet) {
+                return Result.INVALID;
+            }
+            return Result.FALSE;
+        }
+
+        private Optional<FieldPath> resolve(DocumentType documentType) {
+            Optional<FieldPath> fieldPath = resolved.get(documentType);
+            if (fieldPath == null) {
+                fieldPath = isSimpleImportedField(name, documentType) ? Optional.empty()
+                                                                       : Optional.of(documentType.buildFieldPath(name));
+                synchronized (this) {
+                    Map<DocumentType, Optional<FieldPath>> copy = new IdentityHashMap<>(resolved);
+                    copy.put(documentType, fieldPath);
+                    resolved = copy;
+                }
+            }
+            return fieldPath;
+        }
+
+    }
+
     public static class Item {
 
         public static final int ATTRIBUTE = 0;
@@ -29,6 +29,12 @@ public class ComparisonNode implements ExpressionNode {
     // The operator string for this.
     private String operator;
 
+    // The operator of this, resolved once rather than for each evaluation.
+    private Operator resolvedOperator;
+
+    // The last pattern compiled for a regex or glob comparison, reused while the right-hand-side is unchanged.
+    private volatile CompiledPattern compiledPattern = null;
+
     /**
      * Constructs a new comparison node.
      *
@@ -39,6 +45,7 @@ public class ComparisonNode implements ExpressionNode {
     public ComparisonNode(ExpressionNode lhs, String operator, ExpressionNode rhs) {
         this.lhs = lhs;
         this.operator = operator;
+        this.resolvedOperator = Operator.of(operator);
         this.rhs = rhs;
     }
 
@@ -68,6 +75,7 @@ public class ComparisonNode implements ExpressionNode {
      */
     public ComparisonNode setOperator(String operator) {
         this.operator = operator;
+        this.resolvedOperator = Operator.of(operator);
         return this;
     }
 
@@ -138,9 +146,9 @@ public class ComparisonNode implements ExpressionNode {
             return new ResultList(Result.INVALID);
         }
         if (oLeft instanceof AttributeNode.VariableValueList && oRight instanceof AttributeNode.VariableValueList) {
-            if (operator.equals("==")) {
+            if (resolvedOperator == Operator.EQUAL) {
                 return evaluateListsTrue((AttributeNode.VariableValueList)oLeft, (AttributeNode.VariableValueList)oRight);
-            } else if (operator.equals("!=")) {
+            } else if (resolvedOperator == Operator.NOT_EQUAL) {
                 return evaluateListsFalse((AttributeNode.VariableValueList)oLeft, (AttributeNode.VariableValueList)oRight);
             } else {
                 return new ResultList(Result.INVALID);
@@ -161,9 +169,9 @@ public class ComparisonNode implements ExpressionNode {
      * Precondition: lhs AND/OR rhs is null.
      */
     private ResultList evaluateWithAtLeastOneNullSide(Object lhs, Object rhs) {
-        if (operator.equals("==") || operator.equals("=")) { // Glob (=) operator falls back to equality for non-strings
+        if (resolvedOperator == Operator.EQUAL || resolvedOperator == Operator.GLOB) { // Glob (=) operator falls back to equality for non-strings
             return ResultList.fromBoolean(lhs == rhs);
-        } else if (operator.equals("!=")) {
+        } else if (resolvedOperator == Operator.NOT_EQUAL) {
             return ResultList.fromBoolean(lhs != rhs);
         } else {
             return new ResultList(Result.INVALID);
@@ -244,17 +252,13 @@ public class ComparisonNode implements ExpressionNode {
      * @return The evaluation result.
      */
     private Result evaluateBool(Object lhs, Object rhs) {
-        if (operator.equals("==")) {
-            return evaluateEquals(lhs, rhs);
-        } else if (operator.equals("!=")) {
-            return Result.invert(evaluateEquals(lhs, rhs));
-        } else if (operator.equals("<") || operator.equals("<=") ||
-                   operator.equals(">") || operator.equals(">=")) {
-            return evaluateNumber(lhs, rhs);
-        } else if (operator.equals("=~") || operator.equals("=")) {
-            return evaluateString(lhs, rhs);
-        }
-        throw new IllegalStateException("Comparison operator '" + operator + "' is not supported.");
+        return switch (resolvedOperator) {
+            case EQUAL -> evaluateEquals(lhs, rhs);
+            case NOT_EQUAL -> Result.invert(evaluateEquals(lhs, rhs));
+            case LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL -> evaluateNumber(lhs, rhs);
+            case REGEX, GLOB -> evaluateString(lhs, rhs);
+            case UNSUPPORTED -> throw new IllegalStateException("Comparison operator '" + operator + "' is not supported.");
+        };
     }
 
     /**
@@ -304,15 +308,12 @@ public class ComparisonNode implements ExpressionNode {
         if (Double.isNaN(a) || Double.isNaN(b)) {
             return Result.INVALID;
         }
-        if (operator.equals("<")) {
-            return Result.toResult(a < b);
-        } else if (operator.equals("<=")) {
-            return Result.toResult(a <= b);
-        } else if (operator.equals(">")) {
-            return Result.toResult(a > b);
-        } else {
-            return Result.toResult(a >= b);
-        }
+        return switch (resolvedOperator) {
+            case LESS -> Result.toResult(a < b);
+            case LESS_OR_EQUAL -> Result.toResult(a <= b);
+            case GREATER -> Result.toResult(a > b);
+            default -> Result.toResult(a >= b);
+        };
     }
 
     /**
@@ -325,11 +326,21 @@ public class ComparisonNode implements ExpressionNode {
     private Result evaluateString(Object lhs, Object rhs) {
         String left = "" + lhs; // Allows null objects to evaluate to string.
         String right = "" + rhs;
-        if (operator.equals("=~")) {
-            return Result.toResult(Pattern.compile(right).matcher(left).find());
-        } else {
-            return Result.toResult(Pattern.compile(globToRegex(right)).matcher(left).find());
+        return Result.toResult(patternOf(right).matcher(left).find());
+    }
+
+    /**
+     * Returns the compiled pattern of the given right-hand-side. This is usually a literal, so the pattern
+     * compiled for the previous evaluation is reused when both the operator and the right-hand-side are unchanged.
+     */
+    private Pattern patternOf(String right) {
+        CompiledPattern compiled = compiledPattern;
+        if (compiled == null || compiled.operator != resolvedOperator || ! compiled.source.equals(right)) {
+            Pattern pattern = Pattern.compile(resolvedOperator == Operator.REGEX ? right : globToRegex(right));
+            compiled = new CompiledPattern(resolvedOperator, right, pattern);
+            compiledPattern = compiled;
         }
+        return compiled.pattern;
     }
 
     /**
@@ -388,4 +399,27 @@ public class ComparisonNode implements ExpressionNode {
     public String toString() {
         return lhs + " " + operator + " " + rhs;
     }
+
+    private enum Operator {
+
+        EQUAL, NOT_EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, REGEX, GLOB, UNSUPPORTED;
+
+        static Operator of(String operator) {
+            return switch (operator) {
+                case "==" -> EQUAL;
+                case "!=" -> NOT_EQUAL;
+                case "<" -> LESS;
+                case "<=" -> LESS_OR_EQUAL;
+                case ">" -> GREATER;
+                case ">=" -> GREATER_OR_EQUAL;
+                case "=~" -> REGEX;
+                case "=" -> GLOB;
+                default -> UNSUPPORTED;
+            };
+        }
+
+    }
+
+    private record CompiledPattern(Operator operator, String source, Pattern pattern) {}
+
 }
@@ -4,6 +4,7 @@ package com.yahoo.document.select.rule;
 import com.yahoo.document.BucketIdFactory;
 import com.yahoo.document.select.BucketSet;
 import com.yahoo.document.select.Context;
+import com.yahoo.document.select.Result;
 import com.yahoo.document.select.ResultList;
 import com.yahoo.document.select.Visitor;
 
@@ -32,6 +33,9 @@ public class LogicNode implements ExpressionNode {
     // The items contained in this.
     private final List<NodeItem> items = new ArrayList<>();
 
+    // The operator combining all items if they use the same one, NOP if there is a single item, or -1 if mixed.
+    private int chainOperator = NOP;
+
     /**
      * Construct an empty logic expression.
      */
@@ -51,7 +55,10 @@ public class LogicNode implements ExpressionNode {
      * @return This, to allow chaining.
      */
     public LogicNode add(String operator, ExpressionNode node) {
-        items.add(new LogicNode.NodeItem(stringToOperator(operator), node));
+        NodeItem item = new LogicNode.NodeItem(stringToOperator(operator), node);
+        if ( ! items.isEmpty())
+            chainOperator = (chainOperator == NOP || chainOperator == item.operator) ? item.operator : -1;
+        items.add(item);
         return this;
     }
 
@@ -106,6 +113,8 @@ public class LogicNode implements ExpressionNode {
 
     @Override
     public Object evaluate(Context context) {
+        if (chainOperator != -1) return evaluateChain(context);
+
         Deque<ValueItem> buf = new ArrayDeque<>();
         for (NodeItem item : items) {
             if ( buf.size() > 1) {
@@ -121,6 +130,25 @@ public class LogicNode implements ExpressionNode {
         return buf.pop().getResult();
     }
 
+    /**
+     * Evaluates items which are all combined by the same operator from left to right, without building a stack,
+     * and stops as soon as the result is decided: At the first false item of an AND chain, and at the first
+     * true item of an OR chain.
+     */
+    private ResultList evaluateChain(Context context) {
+        ResultList result = ResultList.toResultList(items.get(0).node.evaluate(context));
+        for (int i = 1; i < items.size(); i++) {
+            Result decided = result.toResult();
+            if (chainOperator == AND && decided == Result.FALSE) return ResultList.toResultList(false);
+            if (chainOperator == OR && decided == Result.TRUE) return ResultList.toResultList(true);
+
+            ExpressionNode node = items.get(i).node;
+            ResultList.LazyResultList next = () -> ResultList.toResultList(node.evaluate(context));
+            result = chainOperator == AND ? result.combineAND(next) : result.combineOR(next);
+        }
+        return result;
+    }
+
     /**
      * Combines the top two items of the given stack using the operator of the second.
      *
@@ -0,0 +1,72 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.select;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.select.parser.ParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the time to evaluate typical visiting and routing selections over documents.
+ * Run the main method to get the numbers.
+ */
+public class DocumentSelectorMicroBenchmark {
+
+    private static final String[] selections = {
+            "music",
+            "music.year > 2000",
+            "music.year > 2000 and music.year < 2010 and music.artist == \"artist 7\"",
+            "music.artist = \"artist 1*\" or music.artist =~ \"^artist 2\" or music.title.lowercase() == \"title 3\"",
+    };
+
+    public void benchmark() throws ParseException {
+        List<DocumentPut> documents = createDocuments(1000);
+        for (String selection : selections) {
+            DocumentSelector selector = new DocumentSelector(selection);
+            evaluate(selector, documents, 1000); // warmup
+            int runs = 1000;
+            long startTime = System.nanoTime();
+            int accepted = evaluate(selector, documents, runs);
+            long totalTime = System.nanoTime() - startTime;
+            System.out.println(selection + ": " + (totalTime / ((long)runs * documents.size())) +
+                               " nanoseconds per document, " + (accepted / runs) + " accepted");
+        }
+    }
+
+    private static int evaluate(DocumentSelector selector, List<DocumentPut> documents, int runs) {
+        int accepted = 0;
+        for (int i = 0; i < runs; i++)
+            for (DocumentPut document : documents)
+                if (selector.accepts(document) == Result.TRUE)
+                    accepted++;
+        return accepted;
+    }
+
+    private static List<DocumentPut> createDocuments(int count) {
+        DocumentType type = new DocumentType("music");
+        type.addField("artist", DataType.STRING);
+        type.addField("title", DataType.STRING);
+        type.addField("year", DataType.INT);
+        List<DocumentPut> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Document document = new Document(type, new DocumentId("id:ns:music::" + i));
+            document.setFieldValue("artist", new StringFieldValue("artist " + i % 10));
+            document.setFieldValue("title", new StringFieldValue("Title " + i % 100));
+            document.setFieldValue("year", new IntegerFieldValue(1990 + i % 30));
+            documents.add(new DocumentPut(document));
+        }
+        return documents;
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new DocumentSelectorMicroBenchmark().benchmark();
+    }
+
+}
@@ -783,6 +783,27 @@ public class DocumentSelectorTestCase {
                      Result.TRUE, evaluate("parent.parentField = \"parentValue\"", documents.get(0)));
     }
 
+    @Test
+    public void selector_can_be_reused_across_documents_and_types() throws ParseException {
+        DocumentSelector inherited = new DocumentSelector("parent.parentField = \"parentValue\"");
+        Document parentDoc = new Document(manager.getDocumentType("parent"), new DocumentId("id:ns:parent::1"));
+        parentDoc.setFieldValue("parentField", new StringFieldValue("parentValue"));
+        DocumentPut childPut = createDocument("id:ns:test::1", 1, 1f, "foo", "bar");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Result.TRUE, inherited.accepts(new DocumentPut(parentDoc)));
+            assertEquals(Result.TRUE, inherited.accepts(childPut));
+        }
+
+        DocumentSelector regex = new DocumentSelector("test.content =~ \"^ba\"");
+        DocumentSelector glob = new DocumentSelector("test.content = \"ba*\"");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Result.TRUE, regex.accepts(createDocument("id:ns:test::1", 1, 1f, "foo", "bar")));
+            assertEquals(Result.FALSE, regex.accepts(createDocument("id:ns:test::2", 1, 1f, "foo", "foo")));
+            assertEquals(Result.TRUE, glob.accepts(createDocument("id:ns:test::1", 1, 1f, "foo", "bar")));
+            assertEquals(Result.FALSE, glob.accepts(createDocument("id:ns:test::2", 1, 1f, "foo", "foo")));
+        }
+    }
+
     @Test
     public void using_non_commutative_comparison_operator_with_field_value_is_well_defined() throws ParseException {
         var documents = createDocs();
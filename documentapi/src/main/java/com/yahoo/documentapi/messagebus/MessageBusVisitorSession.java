@@ -330,7 +330,7 @@ public final class MessageBusVisitorSession implements VisitorSession {
     private long startTimeNanos = 0;
     private long scheduledHandleReplyTasks = 0; // Must be protected by replyTrackingMonitor
     private boolean scheduledSendCreateVisitors = false;
-    private boolean done = false;
+    private volatile boolean done = false; // Only written with the token lock held, so it may be read without it
     private boolean destroying = false; // For testing and sanity checking
     private final Object completionMonitor = new Object();
     private final Trace trace;
@@ -1116,9 +1116,7 @@ public final class MessageBusVisitorSession implements VisitorSession {
 
     @Override
     public boolean isDone() {
-        synchronized (progress.getToken()) {
-            return done;
-        }
+        return done;
     }
 
     @Override
@@ -8,6 +8,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1724,4 +1725,31 @@ public class VisitorIteratorTestCase {
         assertEquals(input, p2.toString());
     }
 
+    @Test
+    public void testCompactBinaryProgressSerialization() {
+        ProgressToken p = new ProgressToken("""
+                VDS bucket progress file (48.828125% completed)
+                10
+                503
+                500
+                1024
+                28000000000000be:0
+                28000000000002be:5400000000000ebe
+                28000000000001be:0
+                """);
+        p.addFailedBucket(new BucketId(16, 0x3ff), new BucketId(20, 0x13ff), "it broke");
+        byte[] compact = p.serializeCompact();
+        ProgressToken p2 = new ProgressToken(compact);
+        // Failed buckets are pending when resuming, as when resuming from the text format
+        assertEquals(new ProgressToken(p.toString()).toString(), p2.toString());
+        assertEquals(4, p2.getPendingBucketCount());
+        assertFalse(p2.containsFailedBuckets());
+        assertEquals(p2.toString(), ProgressToken.fromSerializedString(Base64.getUrlEncoder().encodeToString(compact)).toString());
+        assertTrue(compact.length < p.serialize().length);
+        assertTrue(compact.length < p.toString().length() / 2);
+
+        // An empty token round trips as well
+        assertEquals(new ProgressToken().toString(), new ProgressToken(new ProgressToken().serializeCompact()).toString());
+    }
+
 }
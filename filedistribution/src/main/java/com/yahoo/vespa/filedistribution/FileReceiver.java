@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.filedistribution;
 
+import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.config.FileReference;
 import com.yahoo.io.IOUtils;
 import com.yahoo.jrt.Int32Value;
@@ -12,12 +13,21 @@ import net.jpountz.xxhash.StreamingXXHash64;
 import net.jpountz.xxhash.XXHashFactory;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -31,7 +41,9 @@ import static java.nio.file.StandardOpenOption.WRITE;
 /**
  * When asking for a file reference, this handles RPC callbacks from config server with file data and metadata.
  * Uses the same Supervisor as the original caller that requests files, so communication uses the same
- * connection in both directions.
+ * connection in both directions. Compressed files are decompressed while they are received, by a bounded
+ * number of threads shared by all receivers. Files received when all of these are busy are decompressed
+ * when they have been received in full.
  *
  * @author baldersheim
  */
@@ -48,6 +60,15 @@ public class FileReceiver {
     private final AtomicInteger nextSessionId = new AtomicInteger(1);
     private final Map<Integer, Session> sessions = new HashMap<>();
 
+    /** How long to wait for more of a compressed file before giving up decompressing it, as for a sender to send a part */
+    private static final Duration extractionTimeout = Duration.ofMinutes(10);
+
+    /** Decompresses files while they are received, for all receivers */
+    private static final ExecutorService extractor =
+            new ThreadPoolExecutor(0, Math.max(2, Runtime.getRuntime().availableProcessors()),
+                                   1, TimeUnit.MINUTES, new SynchronousQueue<>(),
+                                   new DaemonThreadFactory("file-receiver-extraction"));
+
     final static class Session {
         private final StreamingXXHash64 hasher;
         private final int sessionId;
@@ -63,6 +84,9 @@ public class FileReceiver {
         private final File tmpDir;
         private final File inProgressDir;
         private final File file;
+        private final File decompressedDir; // Only for compressed files
+        private final GrowingFileInputStream extractorInput; // Only for compressed files
+        private CompletableFuture<Void> extraction; // Only for compressed files, null until started
 
         Session(File downloadDirectory,
                 int sessionId,
@@ -71,6 +95,17 @@ public class FileReceiver {
                 FileReferenceData.CompressionType compressionType,
                 String fileName,
                 long fileSize) {
+            this(downloadDirectory, sessionId, reference, fileType, compressionType, fileName, fileSize, extractor);
+        }
+
+        Session(File downloadDirectory,
+                int sessionId,
+                FileReference reference,
+                Type fileType,
+                FileReferenceData.CompressionType compressionType,
+                String fileName,
+                long fileSize,
+                ExecutorService extractor) {
             this.hasher = XXHashFactory.fastestInstance().newStreamingHash64(0);
             this.sessionId = sessionId;
             this.reference = reference;
@@ -87,6 +122,17 @@ public class FileReceiver {
             try {
                 inProgressDir = Files.createTempDirectory(tmpDir.toPath(), "inprogress").toFile();
                 file = new File(inProgressDir, fileName);
+                if (fileType == Type.file) {
+                    decompressedDir = null;
+                    extractorInput = null;
+                    extraction = null;
+                } else {
+                    // Decompress while receiving, instead of after the whole file is received
+                    Files.createFile(file.toPath());
+                    decompressedDir = Files.createTempDirectory(tmpDir.toPath(), "archive").toFile();
+                    extractorInput = new GrowingFileInputStream(file.toPath(), extractionTimeout);
+                    extraction = startExtraction(extractor);
+                }
             } catch (IOException e) {
                 String msg = "Failed creating temp file for inprogress file for " + fileName + " in '" + tmpDir.toPath() + "': ";
                 log.log(Level.SEVERE, msg + e.getMessage(), e);
@@ -107,6 +153,8 @@ public class FileReceiver {
             } catch (IOException e) {
                 String message = "Failed writing to file (" + inProgressDir.toPath() + "): ";
                 log.log(Level.SEVERE, message + e.getMessage(), e);
+                if (extractorInput != null)
+                    extractorInput.abort();
                 boolean successfulDelete = inProgressDir.delete();
                 if ( ! successfulDelete)
                     log.log(Level.INFO, "Unable to delete " + inProgressDir.toPath());
@@ -115,32 +163,63 @@ public class FileReceiver {
             currentFileSize += part.length;
             currentPartId++;
             hasher.update(part, 0, part.length);
+            if (extractorInput != null)
+                extractorInput.written(currentFileSize);
         }
 
-        File close(long hash) {
-            verifyHash(hash);
+        /** Starts decompressing while receiving, or returns null to decompress when the file is received, if busy */
+        private CompletableFuture<Void> startExtraction(ExecutorService extractor) {
+            try {
+                return CompletableFuture.runAsync(this::extract, extractor);
+            } catch (RejectedExecutionException e) {
+                log.log(Level.FINE, () -> "No free extraction thread, will decompress " + fileName + " when it is received");
+                return null;
+            }
+        }
+
+        private void extract() {
+            log.log(Level.FINEST, () -> "compression type to use=" + compressionType);
+            try {
+                new FileReferenceCompressor(fileType, compressionType).decompress(extractorInput, decompressedDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-            File decompressedDir = null;
+        File close(long hash) {
             try {
+                verifyHash(hash); // Content is moved to the file reference dir only when verified
                 if (fileType == Type.file) {
                     log.log(Level.FINE, () -> "Uncompressed file, moving to " + file.getAbsolutePath());
                     moveFileToDestination(inProgressDir, fileReferenceDir);
                 } else {
-                    decompressedDir = Files.createTempDirectory(tmpDir.toPath(), "archive").toFile();
-                    log.log(Level.FINEST, () -> "compression type to use=" + compressionType);
-                    new FileReferenceCompressor(fileType, compressionType).decompress(file, decompressedDir);
+                    extractorInput.complete();
+                    if (extraction == null)
+                        extraction = CompletableFuture.runAsync(this::extract, Runnable::run);
+                    awaitExtraction();
                     moveFileToDestination(decompressedDir, fileReferenceDir);
                 }
-            } catch (IOException e) {
-                log.log(Level.SEVERE, "Failed writing file: " + e.getMessage(), e);
-                throw new RuntimeException("Failed writing file: ", e);
             } finally {
+                if (extraction != null && ! extraction.isDone()) { // Stop extraction before deleting what it writes to
+                    extractorInput.abort();
+                    extraction.handle((result, exception) -> null).join();
+                }
                 deletePath(inProgressDir);
                 deletePath(decompressedDir);
             }
             return new File(fileReferenceDir, fileName);
         }
 
+        private void awaitExtraction() {
+            try {
+                extraction.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+                log.log(Level.SEVERE, "Failed writing file: " + cause.getMessage(), cause);
+                throw new RuntimeException("Failed writing file: ", cause);
+            }
+        }
+
         double percentageReceived() {
             return (double)currentFileSize/(double)fileSize;
         }
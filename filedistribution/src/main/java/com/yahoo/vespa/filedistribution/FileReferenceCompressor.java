@@ -59,18 +59,28 @@ public class FileReferenceCompressor {
 
     public void decompress(File inputFile, File outputDir) throws IOException {
         log.log(Level.FINEST, () -> "Decompressing '" + inputFile + "' into '" + outputDir + "'");
-        try (TarArchiveInputStream ais = new TarArchiveInputStream(decompressedInputStream(inputFile))) {
-            decompress(ais, outputDir);
+        try {
+            decompress(new FileInputStream(inputFile), outputDir);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Unable to decompress '" + inputFile.getAbsolutePath() + "': " + e.getMessage());
         }
     }
 
+    /** Decompresses the given stream, which is closed when done, into the given directory, as it is read */
+    public void decompress(InputStream input, File outputDir) throws IOException {
+        try (TarArchiveInputStream ais = new TarArchiveInputStream(decompressedInputStream(input))) {
+            decompress(ais, outputDir);
+        }
+    }
+
     private static void decompress(TarArchiveInputStream archiveInputStream, File outputFile) throws IOException {
+        Path outputDir = outputFile.getCanonicalFile().toPath();
         int entries = 0;
         ArchiveEntry entry;
         while ((entry = archiveInputStream.getNextEntry()) != null) {
             File outFile = new File(outputFile, entry.getName());
+            if ( ! outFile.getCanonicalFile().toPath().startsWith(outputDir))
+                throw new IllegalArgumentException("Entry '" + entry.getName() + "' is outside the directory to decompress into");
             if (entry.isDirectory()) {
                 if (!(outFile.exists() && outFile.isDirectory())) {
                     log.log(Level.FINE, () -> "Creating dir: " + outFile.getAbsolutePath());
@@ -126,14 +136,14 @@ public class FileReferenceCompressor {
         };
     }
 
-    private InputStream decompressedInputStream(File inputFile) throws IOException {
+    private InputStream decompressedInputStream(InputStream input) throws IOException {
         return switch (type) {
             case compressed -> switch (compressionType) {
-                case gzip -> new GZIPInputStream(new FileInputStream(inputFile));
-                case lz4 -> new LZ4BlockInputStream(new FileInputStream(inputFile));
-                case zstd -> new ZstdInputStream(new FileInputStream(inputFile));
+                case gzip -> new GZIPInputStream(input);
+                case lz4 -> new LZ4BlockInputStream(input);
+                case zstd -> new ZstdInputStream(input);
             };
-            case file -> new FileInputStream(inputFile);
+            case file -> input;
         };
     }
 
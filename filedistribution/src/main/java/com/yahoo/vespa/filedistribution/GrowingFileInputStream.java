@@ -0,0 +1,95 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Reads a file while it is being written by someone else, who reports how much of the file is written.
+ * Reads block until more of the file is written, or the writer is done. This lets a consumer, such as a
+ * decompressor, process a file as it is downloaded.
+ */
+class GrowingFileInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final Duration timeout;
+    private long written = 0;
+    private long position = 0;
+    private boolean complete = false;
+    private boolean aborted = false;
+
+    /**
+     * Creates a stream reading the given file, which must exist.
+     *
+     * @param timeout how long to wait for more of the file to be written before failing
+     */
+    GrowingFileInputStream(Path file, Duration timeout) throws IOException {
+        this.channel = FileChannel.open(file, READ);
+        this.timeout = timeout;
+    }
+
+    /** Called by the writer when the file has the given size */
+    synchronized void written(long size) {
+        written = size;
+        notifyAll();
+    }
+
+    /** Called by the writer when the whole file is written */
+    synchronized void complete() {
+        complete = true;
+        notifyAll();
+    }
+
+    /** Called by the writer to make reads fail, e.g., because the file will not be completed */
+    synchronized void abort() {
+        aborted = true;
+        notifyAll();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        long available = awaitAvailable();
+        if (available == 0) return -1;
+
+        int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+        if (read > 0) position += read;
+        return read;
+    }
+
+    /** Returns the number of bytes which can be read now, waiting for some if none are written yet, or 0 at the end */
+    private synchronized long awaitAvailable() throws IOException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while ( ! aborted && ! complete && written == position) {
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0)
+                throw new IOException("Timed out waiting for more data after " + position + " bytes");
+            try {
+                wait(remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for more data", e);
+            }
+        }
+        if (aborted) throw new IOException("Writing of the file was aborted after " + written + " bytes");
+        return written - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
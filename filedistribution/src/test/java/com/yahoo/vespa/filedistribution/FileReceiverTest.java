@@ -6,15 +6,24 @@ import com.yahoo.io.IOUtils;
 import com.yahoo.text.Utf8;
 import net.jpountz.xxhash.XXHash64;
 import net.jpountz.xxhash.XXHashFactory;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.gzip;
@@ -22,7 +31,10 @@ import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.zstd;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.compressed;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.file;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 
 public class FileReceiverTest {
     private File root;
@@ -67,6 +79,78 @@ public class FileReceiverTest {
         testWithCompression(dirWithFiles, zstd);
     }
 
+    @Test
+    public void receiveCompressedFileInManyParts() throws IOException {
+        File dirWithFiles = temporaryFolder.newFolder("files");
+        byte[] content = new byte[1 << 20];
+        new Random(42).nextBytes(content);
+        Files.write(new File(dirWithFiles, "a").toPath(), content);
+        File compressedFile = new FileReferenceCompressor(compressed, zstd).compress(dirWithFiles, temporaryFolder.newFile());
+        byte[] data = IOUtils.readFileBytes(compressedFile);
+
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref"), compressed, zstd, "a", data.length);
+        int partSize = 4096;
+        for (int i = 0, pos = 0; pos < data.length; i++, pos += partSize)
+            session.addPart(i, Arrays.copyOfRange(data, pos, Math.min(data.length, pos + partSize)));
+        session.close(hasher.hash(ByteBuffer.wrap(data), 0));
+        assertArrayEquals(content, Files.readAllBytes(new File(new File(root, "ref"), "a").toPath()));
+        assertEquals(List.of("ref"), List.of(root.list()));
+    }
+
+    @Test
+    public void compressedFileIsDecompressedWhenReceivedIfNoExtractionThreadIsFree() throws IOException {
+        File dirWithFiles = temporaryFolder.newFolder("files");
+        Files.writeString(new File(dirWithFiles, "a").toPath(), "1");
+        File compressedFile = new FileReferenceCompressor(compressed, zstd).compress(dirWithFiles, temporaryFolder.newFile());
+        byte[] data = IOUtils.readFileBytes(compressedFile);
+
+        ExecutorService busyExtractor = Executors.newSingleThreadExecutor();
+        busyExtractor.shutdown(); // Rejects all tasks
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref"), compressed, zstd, "a",
+                                                                data.length, busyExtractor);
+        session.addPart(0, data);
+        session.close(hasher.hash(ByteBuffer.wrap(data), 0));
+        assertEquals("1", IOUtils.readFile(new File(new File(root, "ref"), "a")));
+        assertEquals(List.of("ref"), List.of(root.list()));
+    }
+
+    @Test
+    public void compressedFileWithWrongHashIsDiscarded() throws IOException {
+        File dirWithFiles = temporaryFolder.newFolder("files");
+        Files.writeString(new File(dirWithFiles, "a").toPath(), "1");
+        File compressedFile = new FileReferenceCompressor(compressed, lz4).compress(dirWithFiles, temporaryFolder.newFile());
+        byte[] data = IOUtils.readFileBytes(compressedFile);
+
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref"), compressed, lz4, "a", data.length);
+        session.addPart(0, data);
+        assertThrows(RuntimeException.class, () -> session.close(hasher.hash(ByteBuffer.wrap(data), 0) + 1));
+        assertEquals(0, root.list().length);
+    }
+
+    @Test
+    public void compressedFileWithEntryOutsideArchiveIsDiscarded() throws IOException {
+        File compressedFile = temporaryFolder.newFile();
+        try (TarArchiveOutputStream archive = new TarArchiveOutputStream(new GZIPOutputStream(new FileOutputStream(compressedFile)))) {
+            byte[] content = Utf8.toBytes("1");
+            TarArchiveEntry entry = new TarArchiveEntry("../escaped");
+            entry.setSize(content.length);
+            archive.putArchiveEntry(entry);
+            archive.write(content);
+            archive.closeArchiveEntry();
+        }
+        byte[] data = IOUtils.readFileBytes(compressedFile);
+
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref"), compressed, gzip, "a", data.length);
+        session.addPart(0, data);
+        assertThrows(RuntimeException.class, () -> session.close(hasher.hash(ByteBuffer.wrap(data), 0)));
+        assertEquals(0, root.list().length);
+        assertFalse(new File(root.getParentFile(), "escaped").exists());
+
+        File outputDir = temporaryFolder.newFolder("output");
+        assertThrows(RuntimeException.class, () -> new FileReferenceCompressor(compressed, gzip).decompress(compressedFile, outputDir));
+        assertFalse(new File(outputDir.getParentFile(), "escaped").exists());
+    }
+
     private void testWithCompression(File dirWithFiles, CompressionType compressionType) throws IOException {
         File tempFile = temporaryFolder.newFile();
         File file = new FileReferenceCompressor(compressed, compressionType).compress(dirWithFiles, tempFile);
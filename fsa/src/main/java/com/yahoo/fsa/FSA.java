@@ -14,6 +14,7 @@ import java.nio.CharBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -81,13 +82,55 @@ public class FSA implements Closeable {
 
         /** Jumps ahead by string */
         public void delta(String string){
-            ByteBuffer buf = fsa.encode(string);
+            delta((CharSequence)string);
+        }
+
+        /**
+         * Jumps ahead by the given chars. If the charset of the automaton is UTF-8, they are encoded
+         * while traversing, without allocating.
+         */
+        public void delta(CharSequence chars) {
             Maps m = fsa.map();
-            while (state >0 && buf.position()<buf.limit()){
-                delta(m, buf.get());
+            if ( ! fsa._utf8) {
+                ByteBuffer buf = fsa.encode(CharBuffer.wrap(chars));
+                while (state > 0 && buf.position() < buf.limit())
+                    delta(m, buf.get());
+                return;
+            }
+            for (int i = 0; state > 0 && i < chars.length(); i++) {
+                char c = chars.charAt(i);
+                if (c < 0x80) {
+                    delta(m, (byte)c);
+                }
+                else if (c < 0x800) {
+                    delta(m, (byte)(0xc0 | (c >> 6)));
+                    delta(m, (byte)(0x80 | (c & 0x3f)));
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < chars.length() && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                    delta(m, (byte)(0xf0 | (codePoint >> 18)));
+                    delta(m, (byte)(0x80 | ((codePoint >> 12) & 0x3f)));
+                    delta(m, (byte)(0x80 | ((codePoint >> 6) & 0x3f)));
+                    delta(m, (byte)(0x80 | (codePoint & 0x3f)));
+                }
+                else if (Character.isSurrogate(c)) { // Unpaired, replaced as by the charset encoder
+                    delta(m, (byte)'?');
+                }
+                else {
+                    delta(m, (byte)(0xe0 | (c >> 12)));
+                    delta(m, (byte)(0x80 | ((c >> 6) & 0x3f)));
+                    delta(m, (byte)(0x80 | (c & 0x3f)));
+                }
             }
         }
 
+        /** Jumps ahead by the given bytes, which must be encoded in the charset of the automaton */
+        public void delta(byte[] symbols, int offset, int length) {
+            Maps m = fsa.map();
+            for (int i = offset; state > 0 && i < offset + length; i++)
+                delta(m, symbols[i]);
+        }
+
         /**
          * Jumps ahead by string if that puts us into a valid state, does nothing otherwise
          *
@@ -158,6 +201,39 @@ public class FSA implements Closeable {
             return fsa.data(state);
         }
 
+        /**
+         * Moves this to the state reached by the given chars from the start state, and returns whether
+         * the chars are accepted by the automaton. This does not allocate if the charset of the automaton is UTF-8.
+         */
+        public boolean find(CharSequence chars) {
+            start();
+            delta(chars);
+            return isFinal();
+        }
+
+        /**
+         * Moves this to the state reached by the given bytes from the start state, and returns whether
+         * they are accepted by the automaton. This does not allocate.
+         */
+        public boolean find(byte[] symbols, int offset, int length) {
+            start();
+            delta(symbols, offset, length);
+            return isFinal();
+        }
+
+        /** Returns the length of the data of this state, or -1 if it is not final */
+        public int dataLength() {
+            return fsa.dataLength(state);
+        }
+
+        /**
+         * Copies the data of this state into the given array, if it is large enough,
+         * and returns the length of the data, or -1 if this state is not final.
+         */
+        public int data(byte[] destination) {
+            return fsa.data(state, destination);
+        }
+
         public boolean hasPerfectHash(){
             return fsa.hasPerfectHash();
         }
@@ -451,6 +527,7 @@ public class FSA implements Closeable {
     }
     private final boolean _ok;
     private final Charset _charset;
+    private final boolean _utf8;
     private final AtomicReference<Maps> maps = new AtomicReference<>();
 
 
@@ -515,6 +592,7 @@ public class FSA implements Closeable {
     private FSA(FileInputStream file, String charsetname, boolean closeInput) {
         try {
             _charset = Charset.forName(charsetname);
+            _utf8 = _charset.equals(StandardCharsets.UTF_8);
             maps.set(new Maps(file));
             _ok=true;
         }
@@ -602,26 +680,43 @@ public class FSA implements Closeable {
     protected ByteBuffer data(int state) {
         Maps m = maps.get();
         if(_ok && m.isFinal(state)){
-            int offset = m._state_tab.getInt(4*(state+255));
-            int length;
-            if(m.h_data_type()==1){
-                length = m.h_fixed_data_size();
-            }
-            else{
-                length = m._data.getInt(offset);
-                offset += 4;
-            }
-            ByteBuffer meta = ByteBuffer.allocate(length);
+            ByteBuffer meta = ByteBuffer.allocate(dataLength(m, state));
             meta.order(ByteOrder.LITTLE_ENDIAN);
-            byte[] dst = meta.array();
-            for (int i = 0; i < length; ++i) {
-                dst[i] = m._data.get(i + offset);
-            }
+            m._data.get(dataOffset(m, state), meta.array());
             return meta;
         }
         return null;
     }
 
+    /** Returns the length of the data of the given state, or -1 if it is not final */
+    protected int dataLength(int state) {
+        Maps m = maps.get();
+        return _ok && m.isFinal(state) ? dataLength(m, state) : -1;
+    }
+
+    /**
+     * Copies the data of the given state into the given array, if it is large enough,
+     * and returns the length of the data, or -1 if the state is not final.
+     */
+    protected int data(int state, byte[] destination) {
+        Maps m = maps.get();
+        if ( ! _ok || ! m.isFinal(state)) return -1;
+        int length = dataLength(m, state);
+        if (length <= destination.length)
+            m._data.get(dataOffset(m, state), destination, 0, length);
+        return length;
+    }
+
+    private static int dataLength(Maps m, int state) {
+        if (m.h_data_type() == 1) return m.h_fixed_data_size();
+        return m._data.getInt(m._state_tab.getInt(4*(state+255)));
+    }
+
+    private static int dataOffset(Maps m, int state) {
+        int offset = m._state_tab.getInt(4*(state+255));
+        return m.h_data_type() == 1 ? offset : offset + 4;
+    }
+
     /**
      * Retrieves data for the given state using the underlying fsa data buffer.
      * @param state The fsa state to retrieve data from.
@@ -0,0 +1,358 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fsa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Builds a minimal finite-state automaton from strings with associated data, and writes it in the
+ * binary format of the fsa library, such that it can be loaded by {@link FSA} or the C++ implementation.
+ * The automaton always has a perfect hash, which maps each string to its index in the sorted strings.
+ * <p>
+ * Strings may be added in any order, and adding a string again replaces its data. Strings are UTF-8 encoded,
+ * and data given as a String is UTF-8 encoded and terminated by a zero byte, as by <code>makefsa -t</code>.
+ * The bytes of a string can not be 0 or 255, as these are used to mark empty cells and final states.
+ * </p>
+ * This is not thread safe.
+ */
+public class FSABuilder {
+
+    private static final int MAGIC = 0x79832469;
+    private static final int VERSION = 2000001;
+    private static final int HEADER_SIZE = 256;
+    private static final int EMPTY_SYMBOL = 0x00;
+    private static final int FINAL_SYMBOL = 0xff;
+    private static final int DATA_VARIABLE = 0;
+    private static final int DATA_FIXED = 1;
+    private static final int BACKCHECK = 255;
+
+    private final Map<byte[], byte[]> strings = new TreeMap<>(Arrays::compareUnsigned);
+    private int serial = 0;
+
+    /** Adds a string with no data. */
+    public FSABuilder add(String string) {
+        return add(string.getBytes(StandardCharsets.UTF_8), new byte[0]);
+    }
+
+    /** Adds a string with the given data, which is stored as a zero terminated UTF-8 string. */
+    public FSABuilder add(String string, String data) {
+        byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+        return add(string.getBytes(StandardCharsets.UTF_8), Arrays.copyOf(dataBytes, dataBytes.length + 1));
+    }
+
+    /**
+     * Adds a string with the given data.
+     *
+     * @param string the string, encoded in the charset the automaton will be read with, usually UTF-8
+     * @param data the data of the string, returned from {@link FSA.State#data()} when the string is accepted
+     * @throws IllegalArgumentException if the string contains a byte which is 0 or 255
+     */
+    public FSABuilder add(byte[] string, byte[] data) {
+        for (byte symbol : string) {
+            int s = symbol & 0xff;
+            if (s == EMPTY_SYMBOL || s == FINAL_SYMBOL)
+                throw new IllegalArgumentException("Strings in an FSA can not contain the byte " + s);
+        }
+        strings.put(string, data);
+        return this;
+    }
+
+    /** Sets the serial number written in the header of the automaton. Default is 0. */
+    public FSABuilder serial(int serial) {
+        this.serial = serial;
+        return this;
+    }
+
+    /** Returns the number of strings added to this. */
+    public int size() { return strings.size(); }
+
+    /** Builds the automaton of the strings added to this, writes it to the given file, and loads it from there. */
+    public FSA build(Path file) throws IOException {
+        write(file);
+        return new FSA(file.toString());
+    }
+
+    /** Builds the automaton of the strings added to this and writes it to the given file. */
+    public void write(Path file) throws IOException {
+        Node start = minimalAutomaton();
+        Packed packed = new Packed(start);
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeFully(channel, packed.header(serial));
+            writeFully(channel, ByteBuffer.wrap(packed.symbols, 0, packed.size));
+            writeFully(channel, packed.ints(packed.states));
+            writeFully(channel, ByteBuffer.wrap(packed.data, 0, packed.dataSize));
+            writeFully(channel, packed.ints(packed.hashes));
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Returns the start state of the minimal automaton accepting the strings of this, built incrementally
+     * from the sorted strings by registering each state once all strings passing through it are added.
+     */
+    private Node minimalAutomaton() {
+        Map<Node, Node> register = new HashMap<>();
+        List<Node> path = new ArrayList<>();
+        path.add(new Node());
+        byte[] previous = new byte[0];
+        for (var entry : strings.entrySet()) {
+            byte[] string = entry.getKey();
+            int prefix = Arrays.mismatch(previous, string);
+            if (prefix < 0) prefix = previous.length;
+            replaceOrRegister(path, prefix, previous.length, register);
+            for (int i = prefix; i < string.length; i++) {
+                Node node = new Node();
+                path.get(i).add(string[i], node);
+                if (path.size() > i + 1)
+                    path.set(i + 1, node);
+                else
+                    path.add(node);
+            }
+            path.get(string.length).data = entry.getValue();
+            previous = string;
+        }
+        replaceOrRegister(path, 0, previous.length, register);
+        return path.get(0);
+    }
+
+    /** Replaces the nodes on the path below the given depth by equivalent registered nodes, or registers them. */
+    private static void replaceOrRegister(List<Node> path, int depth, int length, Map<Node, Node> register) {
+        for (int i = length; i > depth; i--) {
+            Node node = path.get(i);
+            Node registered = register.putIfAbsent(node, node);
+            if (registered != null)
+                path.get(i - 1).replaceLastChild(registered);
+        }
+    }
+
+    /** A state of the automaton under construction. */
+    private static class Node {
+
+        private byte[] labels = new byte[0];
+        private Node[] children = new Node[0];
+        private int degree = 0;
+        private byte[] data = null; // Non-null if this is final
+        private int hash = 0;
+        private int cell = 0; // The cell of this in the packed automaton, or 0 if not packed
+        private int count = -1; // The number of strings accepted from this, or -1 if not counted
+
+        void add(byte label, Node child) {
+            if (degree == labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(2, degree * 2));
+                children = Arrays.copyOf(children, labels.length);
+            }
+            labels[degree] = label;
+            children[degree++] = child;
+        }
+
+        void replaceLastChild(Node child) {
+            children[degree - 1] = child;
+        }
+
+        boolean isFinal() { return data != null; }
+
+        @Override
+        public int hashCode() {
+            if (hash == 0) {
+                int h = isFinal() ? Arrays.hashCode(data) : 1;
+                for (int i = 0; i < degree; i++)
+                    h = 31 * (31 * h + labels[i]) + System.identityHashCode(children[i]);
+                hash = h == 0 ? 1 : h;
+            }
+            return hash;
+        }
+
+        /** Nodes are equal if they have the same data and transitions to the same (already registered) nodes. */
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Node other)) return false;
+            if (degree != other.degree || isFinal() != other.isFinal()) return false;
+            if (isFinal() && ! Arrays.equals(data, other.data)) return false;
+            for (int i = 0; i < degree; i++)
+                if (labels[i] != other.labels[i] || children[i] != other.children[i]) return false;
+            return true;
+        }
+
+    }
+
+    /**
+     * An automaton packed into the cells of the binary format: The transition on a symbol from the state at cell c
+     * is stored at cell c + symbol, which holds the symbol, the target state and the perfect hash increment.
+     * Final states have a transition on the final symbol, which holds the offset of their data.
+     */
+    private static class Packed {
+
+        byte[] symbols = new byte[1 << 16];
+        boolean[] used = new boolean[1 << 16];
+        int[] states = new int[1 << 16];
+        int[] hashes = new int[1 << 16];
+        byte[] data = new byte[1 << 10];
+        int dataSize = 0;
+        int dataType;
+        int fixedDataSize;
+        int lastCell = 0;
+        int size;
+        final int start;
+
+        Packed(Node start) {
+            List<Node> nodes = new ArrayList<>();
+            Deque<Node> queue = new ArrayDeque<>();
+            queue.add(start);
+            while ( ! queue.isEmpty()) {
+                Node node = queue.remove();
+                if (node.cell != 0) continue;
+                node.cell = pack(node);
+                nodes.add(node);
+                for (int i = 0; i < node.degree; i++)
+                    if (node.children[i].cell == 0)
+                        queue.add(node.children[i]);
+            }
+            this.start = start.cell;
+            this.size = lastCell + 256;
+            ensureCapacity(size);
+
+            Map<ByteBuffer, Integer> dataOffsets = new HashMap<>();
+            fixedDataSize = nodes.stream().filter(Node::isFinal).mapToInt(node -> node.data.length).min().orElse(0);
+            dataType = nodes.stream().filter(Node::isFinal).allMatch(node -> node.data.length == fixedDataSize) ? DATA_FIXED : DATA_VARIABLE;
+            for (Node node : nodes) {
+                for (int i = 0; i < node.degree; i++)
+                    states[node.cell + (node.labels[i] & 0xff)] = node.children[i].cell;
+                if (node.isFinal())
+                    states[node.cell + FINAL_SYMBOL] = dataOffsets.computeIfAbsent(ByteBuffer.wrap(node.data), __ -> addData(node.data));
+            }
+            countStrings(start);
+        }
+
+        /** Returns the cell of the given node, which is the first free cell after the last few where its transitions fit. */
+        private int pack(Node node) {
+            for (int cell = Math.max(1, lastCell - BACKCHECK); ; cell++) {
+                ensureCapacity(cell + 256);
+                if (used[cell] || (node.isFinal() && symbols[cell + FINAL_SYMBOL] != EMPTY_SYMBOL)) continue;
+                boolean fits = true;
+                for (int i = 0; i < node.degree && fits; i++)
+                    fits = symbols[cell + (node.labels[i] & 0xff)] == EMPTY_SYMBOL;
+                if ( ! fits) continue;
+
+                used[cell] = true;
+                for (int i = 0; i < node.degree; i++)
+                    symbols[cell + (node.labels[i] & 0xff)] = node.labels[i];
+                if (node.isFinal())
+                    symbols[cell + FINAL_SYMBOL] = (byte) FINAL_SYMBOL;
+                lastCell = Math.max(lastCell, cell);
+                return cell;
+            }
+        }
+
+        private int addData(byte[] bytes) {
+            int offset = dataSize;
+            int length = (dataType == DATA_FIXED ? 0 : 4) + bytes.length;
+            if (dataSize + length > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + length));
+            if (dataType == DATA_VARIABLE) {
+                ByteBuffer.wrap(data, dataSize, 4).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length);
+                dataSize += 4;
+            }
+            System.arraycopy(bytes, 0, data, dataSize, bytes.length);
+            dataSize += bytes.length;
+            return offset;
+        }
+
+        /**
+         * Counts the strings accepted from each node, children first, and sets the perfect hash increment
+         * of each transition to the number of strings accepted from the node on lower symbols.
+         */
+        private void countStrings(Node start) {
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(start);
+            while ( ! stack.isEmpty()) {
+                Node node = stack.peek();
+                if (node.count >= 0) {
+                    stack.pop();
+                    continue;
+                }
+                boolean childrenCounted = true;
+                for (int i = 0; i < node.degree; i++) {
+                    if (node.children[i].count < 0) {
+                        stack.push(node.children[i]);
+                        childrenCounted = false;
+                    }
+                }
+                if ( ! childrenCounted) continue;
+
+                stack.pop();
+                int count = node.isFinal() ? 1 : 0;
+                for (int i = 0; i < node.degree; i++) { // Labels are in increasing order
+                    hashes[node.cell + (node.labels[i] & 0xff)] = count;
+                    count += node.children[i].count;
+                }
+                node.count = count;
+            }
+        }
+
+        private void ensureCapacity(int cells) {
+            if (cells <= symbols.length) return;
+            int capacity = Math.max(cells, symbols.length * 2);
+            symbols = Arrays.copyOf(symbols, capacity);
+            used = Arrays.copyOf(used, capacity);
+            states = Arrays.copyOf(states, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+
+        ByteBuffer ints(int[] values) {
+            ByteBuffer buffer = ByteBuffer.allocate(4 * size).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asIntBuffer().put(values, 0, size);
+            return buffer;
+        }
+
+        ByteBuffer header(int serial) {
+            int checksum = checksum(ByteBuffer.wrap(symbols, 0, size)) + checksum(ints(states)) +
+                           checksum(ByteBuffer.wrap(data, 0, dataSize)) + checksum(ints(hashes));
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(checksum).putInt(size).putInt(start).putInt(dataSize)
+                  .putInt(dataType).putInt(dataType == DATA_FIXED ? fixedDataSize : 0).putInt(1).putInt(serial);
+            return header.clear();
+        }
+
+        /**
+         * The checksum of the fsa library: The sum of the little endian 32-bit words of the buffer,
+         * plus the remaining bytes if the size is odd (but not if it is 2 modulo 4, as the C++ implementation).
+         */
+        private static int checksum(ByteBuffer buffer) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int checksum = 0;
+            int words = buffer.remaining() >> 2;
+            for (int i = 0; i < words; i++)
+                checksum += buffer.getInt(buffer.position() + 4 * i);
+            if ((buffer.remaining() & 1) != 0) {
+                int rest = 0;
+                for (int i = 0; i < (buffer.remaining() & 3); i++)
+                    rest |= (buffer.get(buffer.position() + 4 * words + i) & 0xff) << (8 * i);
+                checksum += rest;
+            }
+            return checksum;
+        }
+
+    }
+
+}
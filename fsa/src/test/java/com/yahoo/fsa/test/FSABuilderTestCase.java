@@ -0,0 +1,152 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fsa.test;
+
+import com.yahoo.fsa.FSA;
+import com.yahoo.fsa.FSABuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FSABuilderTestCase {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testRebuiltAutomataAreEquivalentToTheOriginals() throws IOException {
+        for (String name : List.of("test-fsa", "test-data", "test-iterator", "utf8")) {
+            FSA original = new FSA("src/test/fsa/" + name + ".fsa");
+            FSABuilder builder = new FSABuilder().serial(original.serial());
+            for (FSA.Iterator.Item item : items(original))
+                builder.add(item.getString().getBytes(StandardCharsets.UTF_8), bytes(item.getData()));
+            FSA rebuilt = builder.build(tmpDir.newFile(name + ".fsa").toPath());
+
+            assertTrue(rebuilt.isOk());
+            assertTrue(rebuilt.hasPerfectHash());
+            assertEquals(original.serial(), rebuilt.serial());
+            int count = 0;
+            FSA.State originalState = original.getState();
+            FSA.State rebuiltState = rebuilt.getState();
+            for (FSA.Iterator.Item item : items(original)) {
+                originalState.lookup(item.getString());
+                rebuiltState.lookup(item.getString());
+                assertTrue(name + ": " + item.getString(), rebuiltState.isFinal());
+                assertEquals(originalState.data(), rebuiltState.data());
+                if (original.hasPerfectHash())
+                    assertEquals(originalState.hash(), rebuiltState.hash());
+                assertEquals(count++, rebuiltState.hash());
+            }
+            assertEquals(builder.size(), count);
+
+            int rebuiltCount = 0;
+            for (FSA.Iterator.Item item : items(rebuilt)) {
+                assertTrue(originalState.find(item.getString()));
+                rebuiltCount++;
+            }
+            assertEquals(count, rebuiltCount);
+        }
+    }
+
+    @Test
+    public void testBuildingAndLookingUp() throws IOException {
+        FSA fsa = new FSABuilder().add("new york", "NY")
+                                  .add("new", "N")
+                                  .add("york")
+                                  .add("blåbær", "berry")
+                                  .add("😀", "smile")
+                                  .add("new jersey", "NJ")
+                                  .add("new york", "NYC")
+                                  .build(tmpDir.newFile().toPath());
+        assertEquals("NYC", fsa.lookup("new york"));
+        assertEquals("N", fsa.lookup("new"));
+        assertEquals("NJ", fsa.lookup("new jersey"));
+        assertEquals("berry", fsa.lookup("blåbær"));
+        assertEquals("smile", fsa.lookup("😀"));
+        assertEquals("", fsa.lookup("york"));
+        assertNull(fsa.lookup("new y"));
+        assertNull(fsa.lookup("new yorker"));
+        assertNull(fsa.lookup("blåbæ"));
+
+        FSA.State state = fsa.getState();
+        assertTrue(state.find(new StringBuilder("blåbær")));
+        assertEquals(6, state.dataLength());
+        byte[] data = new byte[16];
+        assertEquals(6, state.data(data));
+        assertEquals("berry", new String(data, 0, 5, StandardCharsets.UTF_8));
+        assertEquals(0, state.hash()); // The first string in byte order
+
+        byte[] symbols = " new jersey".getBytes(StandardCharsets.UTF_8);
+        assertTrue(state.find(symbols, 1, symbols.length - 1));
+        assertEquals(3, state.data(data));
+        assertEquals("NJ", new String(data, 0, 2, StandardCharsets.UTF_8));
+        assertEquals(3, state.data(new byte[1])); // Too small: Only the length is returned
+
+        assertFalse(state.find(symbols, 0, symbols.length));
+        assertEquals(-1, state.dataLength());
+        assertEquals(-1, state.data(data));
+        assertFalse(state.find("new jersey\uD83D")); // Unpaired surrogate
+    }
+
+    @Test
+    public void testFixedSizeData() throws IOException {
+        FSABuilder builder = new FSABuilder();
+        for (int i = 0; i < 1000; i++)
+            builder.add(("word" + i).getBytes(StandardCharsets.UTF_8), ByteBuffer.allocate(4).putInt(i * 7).array());
+        FSA fsa = builder.build(tmpDir.newFile().toPath());
+        FSA.State state = fsa.getState();
+        byte[] data = new byte[4];
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(state.find("word" + i));
+            assertEquals(4, state.data(data));
+            assertEquals(i * 7, ByteBuffer.wrap(data).getInt());
+        }
+        assertFalse(state.find("word1000"));
+    }
+
+    @Test
+    public void testEmptyAutomaton() throws IOException {
+        FSA fsa = new FSABuilder().build(tmpDir.newFile().toPath());
+        assertTrue(fsa.isOk());
+        assertNull(fsa.lookup("a"));
+        assertFalse(fsa.iterator().hasNext());
+    }
+
+    @Test
+    public void testInvalidSymbolsAreRejected() {
+        for (byte invalid : new byte[] { 0, (byte)0xff }) {
+            try {
+                new FSABuilder().add(new byte[] { 'a', invalid }, new byte[0]);
+                fail("Expected exception");
+            }
+            catch (IllegalArgumentException e) {
+                assertEquals("Strings in an FSA can not contain the byte " + (invalid & 0xff), e.getMessage());
+            }
+        }
+    }
+
+    private static List<FSA.Iterator.Item> items(FSA fsa) {
+        List<FSA.Iterator.Item> items = new ArrayList<>();
+        fsa.iterator().forEachRemaining(items::add);
+        return items;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        return Arrays.copyOfRange(buffer.array(), buffer.arrayOffset(), buffer.arrayOffset() + buffer.limit());
+    }
+
+
+}
@@ -0,0 +1,104 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fsa.test;
+
+import com.yahoo.fsa.FSA;
+import com.yahoo.fsa.FSABuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares the cost of building an automaton and of looking up strings with
+ * {@link FSA#lookup}, and with a reused {@link FSA.State} on chars and preencoded bytes.
+ */
+public class FSALookupMicroBenchmark {
+
+    private static final int wordCount = 1000000;
+
+    private final FSA fsa;
+    private final String[] words;
+    private final byte[][] encodedWords;
+
+    public FSALookupMicroBenchmark(Path file) throws IOException {
+        words = new String[wordCount];
+        encodedWords = new byte[wordCount][];
+        FSABuilder builder = new FSABuilder();
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = "wörd " + Integer.toString(i * 7919, 36);
+            encodedWords[i] = words[i].getBytes(StandardCharsets.UTF_8);
+            if (i % 2 == 0)
+                builder.add(words[i], Integer.toString(i));
+        }
+        long startTime = System.currentTimeMillis();
+        fsa = builder.build(file);
+        System.out.println("Built an automaton of " + builder.size() + " strings in " +
+                           (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    public void benchmark(int rounds) {
+        lookupStrings(1); // warm-up
+        findChars(1);
+        findBytes(1);
+        report("FSA.lookup(String)              ", rounds, this::lookupStrings);
+        report("State.find(CharSequence) + data ", rounds, this::findChars);
+        report("State.find(byte[]) + data       ", rounds, this::findBytes);
+    }
+
+    private void report(String description, int rounds, Lookups lookups) {
+        long startTime = System.currentTimeMillis();
+        int found = lookups.run(rounds);
+        long totalTime = System.currentTimeMillis() - startTime;
+        if (found != rounds * wordCount / 2)
+            throw new RuntimeException("Expected " + rounds * wordCount / 2 + " hits, got " + found);
+        System.out.println(description + ": " + totalTime + " ms (" +
+                           ((float)totalTime * 1000000 / ((long)rounds * wordCount)) + " ns per lookup)");
+    }
+
+    private int lookupStrings(int rounds) {
+        int found = 0;
+        for (int round = 0; round < rounds; round++)
+            for (String word : words)
+                if (fsa.lookup(word) != null)
+                    found++;
+        return found;
+    }
+
+    private int findChars(int rounds) {
+        int found = 0;
+        FSA.State state = fsa.getState();
+        byte[] data = new byte[16];
+        for (int round = 0; round < rounds; round++)
+            for (String word : words)
+                if (state.find(word) && state.data(data) > 0)
+                    found++;
+        return found;
+    }
+
+    private int findBytes(int rounds) {
+        int found = 0;
+        FSA.State state = fsa.getState();
+        byte[] data = new byte[16];
+        for (int round = 0; round < rounds; round++)
+            for (byte[] word : encodedWords)
+                if (state.find(word, 0, word.length) && state.data(data) > 0)
+                    found++;
+        return found;
+    }
+
+    private interface Lookups {
+        int run(int rounds);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("benchmark", ".fsa");
+        try {
+            new FSALookupMicroBenchmark(file).benchmark(10);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -73,13 +73,24 @@ public class LinguisticsAnnotator {
         String input = (text.getString().length() <= config.getMaxTokenizeLength())
                 ? text.getString()
                 : Text.substringByCodepoints(text.getString(), 0, config.getMaxTokenizeLength());
-        Iterable<Token> tokens = tokenizer.tokenize(input, config.getLanguage(), config.getStemMode(),
-                                                    config.getRemoveAccents());
         TermOccurrences termOccurrences = new TermOccurrences(config.getMaxTermOccurrences());
         SpanTree tree = new SpanTree(SpanTrees.LINGUISTICS);
-        for (Token token : tokens)
-            addAnnotationSpan(text.getString(), tree.spanList(), token, config.getStemMode(), termOccurrences,
-                    config.getMaxTokenLength());
+        if (config.getStemMode() == StemMode.ALL) { // Needs all the stems of each token
+            Iterable<Token> tokens = tokenizer.tokenize(input, config.getLanguage(), config.getStemMode(),
+                                                        config.getRemoveAccents());
+            for (Token token : tokens)
+                addAnnotationSpan(text.getString(), tree.spanList(), token, config.getStemMode(), termOccurrences,
+                        config.getMaxTokenLength());
+        }
+        else {
+            tokenizer.tokenize(input, config.getLanguage(), config.getStemMode(), config.getRemoveAccents(),
+                               (offset, original, tokenString, type, script, special) -> {
+                                   if ( ! special && ! type.isIndexable()) return;
+                                   verifyWithinInput(text.getString(), offset, original, tokenString);
+                                   addTermAnnotation(tree.spanList(), offset, original, tokenString, termOccurrences,
+                                                     config.getMaxTokenLength());
+                               });
+        }
 
         if (tree.numAnnotations() == 0) return false;
         text.setSpanTree(tree);
@@ -111,6 +122,12 @@ public class LinguisticsAnnotator {
         }
     }
 
+    private static boolean isBlank(CharSequence s) {
+        for (int i = 0; i < s.length(); i++)
+            if (s.charAt(i) > ' ') return false;
+        return true;
+    }
+
     private static void addAnnotationSpan(String input, SpanList parent, Token token, StemMode mode,
                                           TermOccurrences termOccurrences, int maxTokenLength) {
         if ( ! token.isSpecialToken()) {
@@ -122,14 +139,7 @@ public class LinguisticsAnnotator {
             }
             if ( ! token.isIndexable()) return;
         }
-        if (token.getOffset() >= input.length()) {
-            throw new IllegalArgumentException(token + " has offset " + token.getOffset() + ", which is outside the " +
-                                               "bounds of the input string '" + input + "'");
-        }
-        if (token.getOffset() + token.getOrig().length() > input.length()) {
-            throw new IllegalArgumentException(token + " has offset " + token.getOffset() + ", which makes it overflow " +
-                                               "the bounds of the input string; " + input);
-        }
+        verifyWithinInput(input, token.getOffset(), token.getOrig(), token);
         if (mode == StemMode.ALL) {
             Span where = parent.span((int)token.getOffset(), token.getOrig().length());
 
@@ -146,14 +156,33 @@ public class LinguisticsAnnotator {
                     addAnnotation(where, stem, token.getOrig(), termOccurrences, maxTokenLength);
             }
         } else {
-            String term = token.getTokenString();
-            if (term == null || term.trim().isEmpty()) return;
-            if (term.length() > maxTokenLength) {
-                return;
-            }
-            if (termOccurrences.termCountBelowLimit(term))  {
-                parent.span((int)token.getOffset(), token.getOrig().length()).annotate(termAnnotation(term, token.getOrig()));
-            }
+            addTermAnnotation(parent, (int)token.getOffset(), token.getOrig(), token.getTokenString(), termOccurrences,
+                              maxTokenLength);
+        }
+    }
+
+    private static void verifyWithinInput(String input, long offset, CharSequence original, Object token) {
+        if (offset >= input.length()) {
+            throw new IllegalArgumentException(token + " has offset " + offset + ", which is outside the " +
+                                               "bounds of the input string '" + input + "'");
+        }
+        if (offset + original.length() > input.length()) {
+            throw new IllegalArgumentException(token + " has offset " + offset + ", which makes it overflow " +
+                                               "the bounds of the input string; " + input);
+        }
+    }
+
+    /** Adds a term annotation of a token which is not annotated with all its stems, unless it is blank or too long */
+    private static void addTermAnnotation(SpanList parent, int offset, CharSequence original, CharSequence tokenString,
+                                          TermOccurrences termOccurrences, int maxTokenLength) {
+        if (tokenString == null || isBlank(tokenString)) return;
+        if (tokenString.length() > maxTokenLength) return;
+
+        String term = tokenString.toString();
+        if (termOccurrences.termCountBelowLimit(term)) {
+            Annotation annotation = term.contentEquals(original) ? new Annotation(AnnotationTypes.TERM)
+                                                                 : new Annotation(AnnotationTypes.TERM, new StringFieldValue(term));
+            parent.span(offset, original.length()).annotate(annotation);
         }
     }
 
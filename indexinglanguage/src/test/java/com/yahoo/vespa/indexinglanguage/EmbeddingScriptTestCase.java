@@ -139,7 +139,8 @@ public class EmbeddingScriptTestCase {
     /** Multiple paragraphs */
     @Test
     public void testArrayEmbedTo2dMixedTensor() {
-        var tester = new EmbeddingScriptTester(Map.of("emb1", new EmbeddingScriptTester.MockIndexedEmbedder("myDocument.mySparseTensor")));
+        var embedder = new EmbeddingScriptTester.MockIndexedEmbedder("myDocument.mySparseTensor");
+        var tester = new EmbeddingScriptTester(Map.of("emb1", embedder));
 
         TensorType tensorType = TensorType.fromSpec("tensor(passage{}, d[4])");
         var expression = tester.expressionFrom("input myTextArray | embed | attribute 'mySparseTensor'");
@@ -167,6 +168,7 @@ public class EmbeddingScriptTestCase {
         var sparseTensor = (TensorFieldValue)adapter.values.get("mySparseTensor");
         assertEquals(Tensor.from(tensorType, "{ '0':[102, 105, 114, 115], '1':[115, 101,  99, 111]}"),
                      sparseTensor.getTensor().get());
+        assertEquals("All array elements are embedded in one invocation", 1, embedder.batchInvocations);
     }
 
     /** Multiple paragraphs, and each paragraph leading to multiple vectors (ColBert style) */
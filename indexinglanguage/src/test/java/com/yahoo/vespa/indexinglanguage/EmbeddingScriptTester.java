@@ -85,6 +85,7 @@ public class EmbeddingScriptTester {
 
         final String expectedDestination;
         final int addition;
+        int batchInvocations = 0;
 
         public MockEmbedder(String expectedDestination, int addition) {
             this.expectedDestination = expectedDestination;
@@ -96,6 +97,12 @@ public class EmbeddingScriptTester {
             return null;
         }
 
+        @Override
+        public List<Tensor> embed(List<String> texts, Embedder.Context context, TensorType tensorType) {
+            batchInvocations++;
+            return Embedder.super.embed(texts, context, tensorType);
+        }
+
         void verifyDestination(Embedder.Context context) {
             assertEquals(expectedDestination, context.getDestination());
         }
@@ -79,6 +79,13 @@ public class LinguisticsAnnotatorTestCase {
         }
     }
 
+    @Test
+    public void requireThatIndexableTokensWithEmptyOrigAreAnnotated() {
+        SpanTree expected = new SpanTree(SpanTrees.LINGUISTICS);
+        expected.spanList().span(1, 0).annotate(new Annotation(AnnotationTypes.TERM, new StringFieldValue("bar")));
+        assertAnnotations(expected, "foo", token("", "bar", TokenType.ALPHABETIC).setOffset(1));
+    }
+
     @Test
     public void requireThatSpecialTokenStringsAreAnnotatedRegardlessOfType() {
         SpanTree expected = new SpanTree(SpanTrees.LINGUISTICS);
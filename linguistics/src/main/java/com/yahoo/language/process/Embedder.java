@@ -7,6 +7,7 @@ import com.yahoo.language.Language;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -68,6 +69,24 @@ public interface Embedder {
      */
     Tensor embed(String text, Context context, TensorType tensorType);
 
+    /**
+     * Converts a list of texts into tensors.
+     * Embedders which can embed several texts more efficiently together than one by one should override this;
+     * the default implementation embeds each text separately.
+     *
+     * @param texts the texts to embed
+     * @param context the context which may influence an embedder's behavior
+     * @param tensorType the type of the tensors to be returned
+     * @return the tensor embedding of each text, in the same order as the texts, as the specified tensor type
+     * @throws IllegalArgumentException if the language or tensor type is not supported by this embedder
+     */
+    default List<Tensor> embed(List<String> texts, Context context, TensorType tensorType) {
+        List<Tensor> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts)
+            embeddings.add(embed(text, context, tensorType));
+        return embeddings;
+    }
+
     /**
      * Runtime that is injectable through {@link Embedder} constructor.
      */
@@ -79,6 +98,30 @@ public interface Embedder {
         /** Add a sample embedding length to this */
         void sampleSequenceLength(long length, Context ctx);
 
+        /**
+         * Returns an embedding from the cache shared between all requests, or null if it is not cached.
+         * Embeddings are cached by the embedder id and language of the context, the model id,
+         * the tensor type, and the text. This default implementation caches nothing.
+         *
+         * @param modelId an id which changes whenever the model or any other setting influencing the embeddings changes
+         */
+        default Tensor getCachedEmbedding(String text, Context ctx, TensorType tensorType, String modelId) {
+            return null;
+        }
+
+        /** Adds an embedding to the cache shared between all requests, see {@link #getCachedEmbedding} */
+        default void putCachedEmbedding(String text, Context ctx, TensorType tensorType, String modelId, Tensor embedding) { }
+
+        /** Returns an embedding from the cache shared between all requests, or computes and caches it if not present */
+        default Tensor computeCachedEmbeddingIfAbsent(String text, Context ctx, TensorType tensorType, String modelId,
+                                                      Supplier<Tensor> embedder) {
+            Tensor embedding = getCachedEmbedding(text, ctx, tensorType, modelId);
+            if (embedding != null) return embedding;
+            embedding = embedder.get();
+            putCachedEmbedding(text, ctx, tensorType, modelId, embedding);
+            return embedding;
+        }
+
         static Runtime testInstance() {
             return new Runtime() {
                 @Override public void sampleEmbeddingLatency(double millis, Context ctx) { }
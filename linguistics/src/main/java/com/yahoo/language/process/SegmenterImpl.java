@@ -20,29 +20,14 @@ public class SegmenterImpl implements Segmenter {
     @Override
     public List<String> segment(String input, Language language) {
         List<String> segments = new ArrayList<>();
-        for (Token token : tokenizer.tokenize(input, language, StemMode.NONE, false)) {
-            findSegments(token, segments);
-        }
+        tokenizer.tokenize(input, language, StemMode.NONE, false, (offset, original, tokenString, type, script, special) -> {
+            if (type.isIndexable() && original.length() > 0)
+                segments.add(original.toString());
+        });
         if (segments.isEmpty()) {
             segments.add(input); // no segments, return original string
         }
         return segments;
     }
 
-    private void findSegments(Token token, List<String> out) {
-        int len;
-        if (token.isSpecialToken() || (len = token.getNumComponents()) == 0) {
-            if (token.isIndexable()) {
-                String orig = token.getOrig();
-                if (! orig.isEmpty()) {
-                    out.add(orig);
-                }
-            }
-        } else {
-            for (int i = 0; i < len; ++i) {
-                findSegments(token.getComponent(i), out);
-            }
-        }
-    }
-
 }
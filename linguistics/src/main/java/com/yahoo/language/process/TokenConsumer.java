@@ -0,0 +1,27 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+/**
+ * Receives the tokens of a text one at a time, as produced by
+ * {@link Tokenizer#tokenize(String, com.yahoo.language.Language, StemMode, boolean, TokenConsumer)}.
+ * Tokens are passed as their offset and views of their text rather than as {@link Token} instances.
+ * The views may be buffers which the tokenizer reuses for the next token, so they must be copied
+ * (e.g. by toString()) if they are to be kept after the call returns.
+ */
+@FunctionalInterface
+public interface TokenConsumer {
+
+    /**
+     * Receives a token which has no components, or is a special token.
+     *
+     * @param offset the offset of the original token in the tokenized text, in chars
+     * @param original the original token, usually the text from the offset. This is only valid during this call.
+     * @param tokenString the token string after processing, such as normalization and stemming, or null if none.
+     *                    This is only valid during this call.
+     * @param type the type of the token
+     * @param script the script of the token
+     * @param special whether this is a special token, see {@link Token#isSpecialToken()}
+     */
+    void accept(int offset, CharSequence original, CharSequence tokenString, TokenType type, TokenScript script, boolean special);
+
+}
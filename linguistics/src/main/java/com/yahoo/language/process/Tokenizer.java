@@ -22,4 +22,36 @@ public interface Tokenizer {
      */
     Iterable<Token> tokenize(String input, Language language, StemMode stemMode, boolean removeAccents);
 
+    /**
+     * Passes the tokens produced from an input string under the rules of the given Language and additional options
+     * to the given consumer, in order. Tokens having components are replaced by their components, recursively,
+     * unless they are special tokens.
+     * <p>
+     * This returns the same tokens as {@link #tokenize(String, Language, StemMode, boolean)}, but implementations
+     * may override it to avoid creating token objects, and any other per token allocations they can.
+     * Only the primary stem of each token is passed on, so use the token objects if multiple stems are needed.
+     *
+     * @param input the string to tokenize. May be arbitrarily large.
+     * @param language the language of the input string.
+     * @param stemMode the stem mode applied on the tokens
+     * @param removeAccents whether to normalize accents and similar
+     * @param consumer the consumer receiving the tokens
+     * @throws ProcessingException If the underlying library throws an Exception.
+     */
+    default void tokenize(String input, Language language, StemMode stemMode, boolean removeAccents, TokenConsumer consumer) {
+        for (Token token : tokenize(input, language, stemMode, removeAccents))
+            accept(token, consumer);
+    }
+
+    private static void accept(Token token, TokenConsumer consumer) {
+        if ( ! token.isSpecialToken() && token.getNumComponents() > 0) {
+            for (int i = 0; i < token.getNumComponents(); i++)
+                accept(token.getComponent(i), consumer);
+        }
+        else {
+            consumer.accept((int)token.getOffset(), token.getOrig(), token.getTokenString(),
+                            token.getType(), token.getScript(), token.isSpecialToken());
+        }
+    }
+
 }
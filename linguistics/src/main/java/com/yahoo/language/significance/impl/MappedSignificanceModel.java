@@ -0,0 +1,110 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.significance.impl;
+
+import com.yahoo.language.significance.DocumentFrequency;
+import com.yahoo.language.significance.SignificanceModel;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A significance model backed by a (usually memory mapped) buffer in the format written by
+ * {@link MappedSignificanceModelFile}. Looking up the frequency of a term allocates nothing.
+ * This is thread safe.
+ */
+public class MappedSignificanceModel implements SignificanceModel {
+
+    private static final int HEADER_SIZE = 8 + 4 + 4;
+
+    private final ByteBuffer buffer;
+    private final String id;
+    private final long corpusSize;
+    private final int termCount;
+    private final int slotMask;
+    private final int frequenciesStart;
+    private final int termOffsetsStart;
+    private final int termBytesStart;
+
+    MappedSignificanceModel(ByteBuffer buffer, String id) {
+        this.buffer = buffer;
+        this.id = id;
+        this.corpusSize = buffer.getLong(0);
+        this.termCount = buffer.getInt(8);
+        int slotCount = buffer.getInt(12);
+        if (Integer.bitCount(slotCount) != 1 || slotCount <= termCount)
+            throw new IllegalArgumentException("Invalid binary significance model: " + slotCount + " slots for " +
+                                               termCount + " terms");
+        this.slotMask = slotCount - 1;
+        this.frequenciesStart = HEADER_SIZE + 4 * slotCount;
+        this.termOffsetsStart = frequenciesStart + 8 * termCount;
+        this.termBytesStart = termOffsetsStart + 4 * (termCount + 1);
+    }
+
+    @Override
+    public DocumentFrequency documentFrequency(String word) {
+        return new DocumentFrequency(frequency(word), corpusSize);
+    }
+
+    /** Returns the number of documents containing the given word, or 1 if it is not in this model. */
+    public long frequency(String word) {
+        for (int slot = (int) hash(word) & slotMask; ; slot = (slot + 1) & slotMask) {
+            int entry = buffer.getInt(HEADER_SIZE + 4 * slot);
+            if (entry == 0) return 1;
+            int term = entry - 1;
+            int start = buffer.getInt(termOffsetsStart + 4 * term);
+            int end = buffer.getInt(termOffsetsStart + 4 * (term + 1));
+            if (equalsUtf8(word, termBytesStart + start, termBytesStart + end))
+                return buffer.getLong(frequenciesStart + 8 * term);
+        }
+    }
+
+    public long corpusSize() { return corpusSize; }
+
+    /** Returns the number of terms in this model. */
+    public int size() { return termCount; }
+
+    @Override
+    public String getId() { return id; }
+
+    /** Returns whether the given string encoded as UTF-8 equals the bytes of the buffer of this in the given range. */
+    private boolean equalsUtf8(String s, int start, int end) {
+        int position = start;
+        for (int i = 0; i < s.length(); ) {
+            int codePoint = s.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint < 0x80) {
+                if (position + 1 > end
+                    || buffer.get(position++) != (byte) codePoint) return false;
+            }
+            else if (codePoint < 0x800) {
+                if (position + 2 > end
+                    || buffer.get(position++) != (byte) (0xc0 | (codePoint >> 6))
+                    || buffer.get(position++) != (byte) (0x80 | (codePoint & 0x3f))) return false;
+            }
+            else if (codePoint < 0x10000) {
+                if (position + 3 > end
+                    || buffer.get(position++) != (byte) (0xe0 | (codePoint >> 12))
+                    || buffer.get(position++) != (byte) (0x80 | ((codePoint >> 6) & 0x3f))
+                    || buffer.get(position++) != (byte) (0x80 | (codePoint & 0x3f))) return false;
+            }
+            else {
+                if (position + 4 > end
+                    || buffer.get(position++) != (byte) (0xf0 | (codePoint >> 18))
+                    || buffer.get(position++) != (byte) (0x80 | ((codePoint >> 12) & 0x3f))
+                    || buffer.get(position++) != (byte) (0x80 | ((codePoint >> 6) & 0x3f))
+                    || buffer.get(position++) != (byte) (0x80 | (codePoint & 0x3f))) return false;
+            }
+        }
+        return position == end;
+    }
+
+    /** The FNV-1a hash of the chars of the given string, with the high bits mixed into the low ones. */
+    static long hash(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ (hash >>> 32);
+    }
+
+}
@@ -0,0 +1,180 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.significance.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * A binary significance model file, which is memory mapped rather than read onto the heap.
+ * This holds the same information as a {@link SignificanceModelFile}, except descriptions.
+ * <p>
+ * The document frequencies of each language are stored as an open addressing hash table of term indexes,
+ * keyed by a hash of the term chars, followed by the frequencies, the term offsets and the UTF-8 bytes of the terms.
+ * Terms are looked up by comparing the chars of the searched term directly with the stored bytes,
+ * so a lookup allocates nothing.
+ * </p>
+ * Layout, with all numbers big endian:
+ * <pre>
+ * file:    magic:int version:int id:string languageCount:int (languages:string offset:long length:long)* section*
+ * section: documentCount:long termCount:int slotCount:int slots:int[slotCount] frequencies:long[termCount]
+ *          termOffsets:int[termCount + 1] termBytes:byte[]
+ * string:  length:int utf8:byte[length]
+ * </pre>
+ *
+ * Slots hold the index of a term plus 1, or 0 if empty, and the number of slots is a power of two.
+ */
+public class MappedSignificanceModelFile {
+
+    private static final int MAGIC = 0x56534947; // "VSIG"
+    private static final int VERSION = 1;
+
+    private final String id;
+    private final Map<String, MappedSignificanceModel> languages;
+
+    private MappedSignificanceModelFile(String id, Map<String, MappedSignificanceModel> languages) {
+        this.id = id;
+        this.languages = languages;
+    }
+
+    public String id() { return id; }
+
+    /** Returns the models of this by the comma separated language tags they are for. */
+    public Map<String, MappedSignificanceModel> languages() { return languages; }
+
+    /** Returns whether the given file is a binary significance model file. */
+    public static boolean isMappedModel(Path path) {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) { }
+            return ! magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed reading " + path, e);
+        }
+    }
+
+    /** Maps the given binary significance model file into memory. */
+    public static MappedSignificanceModelFile read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Significance model file " + path + " is larger than 2Gb");
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed reading " + path, e);
+        }
+    }
+
+    /** Reads a binary significance model from the given buffer, which is referenced by the returned models. */
+    public static MappedSignificanceModelFile read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC)
+            throw new IllegalArgumentException("Not a binary significance model");
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported binary significance model version " + version);
+        String id = readString(buffer);
+        int languageCount = buffer.getInt();
+        Map<String, MappedSignificanceModel> languages = new LinkedHashMap<>();
+        for (int i = 0; i < languageCount; i++) {
+            String key = readString(buffer);
+            long offset = buffer.getLong();
+            long length = buffer.getLong();
+            languages.put(key, new MappedSignificanceModel(buffer.slice((int) offset, (int) length), id));
+        }
+        return new MappedSignificanceModelFile(id, languages);
+    }
+
+    /** Writes the given significance model to the given path in binary form. */
+    public static void write(SignificanceModelFile model, Path path) throws IOException {
+        Map<String, byte[]> sections = new TreeMap<>();
+        for (var language : model.languages().entrySet())
+            sections.put(language.getKey(), section(language.getValue()));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(model.id(), out);
+            out.writeInt(sections.size());
+            long offset = 4 + 4 + stringSize(model.id()) + 4;
+            for (String key : sections.keySet())
+                offset += stringSize(key) + 8 + 8;
+            for (var section : sections.entrySet()) {
+                writeString(section.getKey(), out);
+                out.writeLong(offset);
+                out.writeLong(section.getValue().length);
+                offset += section.getValue().length;
+            }
+            if (offset > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("The binary significance model would be larger than 2Gb");
+            for (byte[] section : sections.values())
+                out.write(section);
+        }
+    }
+
+    private static byte[] section(DocumentFrequencyFile frequencies) {
+        Map<String, Long> terms = new TreeMap<>(frequencies.frequencies());
+        int termCount = terms.size();
+        int slotCount = Integer.highestOneBit(Math.max(1, termCount * 2 - 1)) * 2; // Load factor at most 0.5
+        int[] slots = new int[slotCount];
+        long[] termFrequencies = new long[termCount];
+        int[] termOffsets = new int[termCount + 1];
+        byte[][] termBytes = new byte[termCount][];
+        int index = 0;
+        for (var term : terms.entrySet()) {
+            int slot = (int) MappedSignificanceModel.hash(term.getKey()) & (slotCount - 1);
+            while (slots[slot] != 0)
+                slot = (slot + 1) & (slotCount - 1);
+            slots[slot] = index + 1;
+            termFrequencies[index] = term.getValue();
+            termBytes[index] = term.getKey().getBytes(StandardCharsets.UTF_8);
+            termOffsets[index + 1] = Math.addExact(termOffsets[index], termBytes[index].length);
+            index++;
+        }
+
+        long size = 8 + 4 + 4 + 4L * slotCount + 8L * termCount + 4L * (termCount + 1) + termOffsets[termCount];
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The document frequencies of a language would be larger than 2Gb");
+        ByteBuffer section = ByteBuffer.allocate((int) size);
+        section.putLong(frequencies.documentCount());
+        section.putInt(termCount);
+        section.putInt(slotCount);
+        section.asIntBuffer().put(slots);
+        section.position(section.position() + 4 * slotCount);
+        section.asLongBuffer().put(termFrequencies);
+        section.position(section.position() + 8 * termCount);
+        section.asIntBuffer().put(termOffsets);
+        section.position(section.position() + 4 * (termCount + 1));
+        for (byte[] bytes : termBytes)
+            section.put(bytes);
+        return section.array();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int stringSize(String value) {
+        return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+}
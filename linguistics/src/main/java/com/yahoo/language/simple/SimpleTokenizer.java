@@ -6,6 +6,7 @@ import com.yahoo.language.LinguisticsCase;
 import com.yahoo.language.process.*;
 import com.yahoo.language.simple.kstem.KStemmer;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -30,6 +31,9 @@ public class SimpleTokenizer implements Tokenizer {
     private final Transformer transformer;
     private final KStemmer stemmer = new KStemmer();
     private final SpecialTokenRegistry specialTokenRegistry;
+    private final boolean asciiIsInvariant;
+    private char[] buffer = new char[64];
+    private CharBuffer bufferView = CharBuffer.wrap(buffer);
 
     public SimpleTokenizer() {
         this(new SimpleNormalizer(), new SimpleTransformer());
@@ -47,13 +51,38 @@ public class SimpleTokenizer implements Tokenizer {
         this.normalizer = normalizer;
         this.transformer = transformer;
         this.specialTokenRegistry = specialTokenRegistry;
+        // The default normalizer and transformer leave ASCII unchanged, which allows processing it in place
+        this.asciiIsInvariant = normalizer.getClass() == SimpleNormalizer.class &&
+                                transformer.getClass() == SimpleTransformer.class;
     }
 
     /** Tokenize the input, applying the transform of this to each token string. */
     @Override
     public Iterable<Token> tokenize(String input, Language language, StemMode stemMode, boolean removeAccents) {
-        return tokenize(input,
-                        token -> processToken(token, language, stemMode, removeAccents));
+        if (input.isEmpty()) return List.of();
+
+        List<Token> tokens = new ArrayList<>();
+        tokenize(input, language, stemMode, removeAccents, (offset, original, tokenString, type, script, special) ->
+                tokens.add(new SimpleToken(original.toString()).setOffset(offset)
+                                                               .setType(type)
+                                                               .setTokenString(tokenString.toString())
+                                                               .setScript(script)));
+        return tokens;
+    }
+
+    /**
+     * Tokenize the input, applying the transform of this to each token string, without creating token objects.
+     * The original tokens are passed as a view of the input. Lowercasing and stemming of ASCII tokens is done
+     * in a buffer reused for all tokens, when the normalizer and transformer of this are the default ones,
+     * which leave ASCII text unchanged.
+     */
+    @Override
+    public void tokenize(String input, Language language, StemMode stemMode, boolean removeAccents, TokenConsumer consumer) {
+        CharBuffer original = CharBuffer.wrap(input);
+        forEachToken(input, (start, end, type, script) ->
+                consumer.accept(start, original.clear().position(start).limit(end),
+                                processToken(input, start, end, language, stemMode, removeAccents),
+                                type, script, false));
     }
 
     /** Tokenize the input, and apply the given transform to each token string. */
@@ -61,6 +90,19 @@ public class SimpleTokenizer implements Tokenizer {
         if (input.isEmpty()) return List.of();
 
         List<Token> tokens = new ArrayList<>();
+        forEachToken(input, (start, end, type, script) -> {
+            String original = input.substring(start, end);
+            tokens.add(new SimpleToken(original).setOffset(start)
+                                                .setType(type)
+                                                .setTokenString(tokenProcessor.apply(original))
+                                                .setScript(script));
+        });
+        return tokens;
+    }
+
+    private void forEachToken(String input, TokenSpanConsumer consumer) {
+        if (input.isEmpty()) return;
+
         int nextCode = input.codePointAt(0);
         TokenType prevType = SimpleTokenType.valueOf(nextCode);
         TokenType tokenType = prevType;
@@ -72,11 +114,7 @@ public class SimpleTokenizer implements Tokenizer {
             TokenScript nextScript = SimpleTokenScript.valueOf(nextCode);
 
             if (isAtTokenBoundary(prevType, nextType)) {
-                String original = input.substring(prev, next);
-                tokens.add(new SimpleToken(original).setOffset(prev)
-                                                    .setType(tokenType)
-                                                    .setTokenString(tokenProcessor.apply(original))
-                                                    .setScript(tokenScript));
+                consumer.accept(prev, next, tokenType, tokenScript);
                 prev = next;
                 prevType = nextType;
                 prevScript = nextScript;
@@ -89,7 +127,6 @@ public class SimpleTokenizer implements Tokenizer {
             }
             next += Character.charCount(nextCode);
         }
-        return tokens;
     }
 
     private boolean isAtTokenBoundary(TokenType prevType, TokenType nextType) {
@@ -109,6 +146,32 @@ public class SimpleTokenizer implements Tokenizer {
         return tokenScript;
     }
 
+    /** Returns the processed token string of the given span of the input, which is only valid until the next call. */
+    private CharSequence processToken(String input, int start, int end,
+                                      Language language, StemMode stemMode, boolean removeAccents) {
+        if ( ! asciiIsInvariant || ! lowercaseAscii(input, start, end))
+            return processToken(input.substring(start, end), language, stemMode, removeAccents);
+
+        int length = end - start;
+        if (stemMode != StemMode.NONE && stemmer.stem(buffer, length))
+            return stemmer.asCharSequence();
+        return bufferView.clear().limit(length);
+    }
+
+    /** Writes the given span of the input, lowercased, to the buffer of this if it is all ASCII, and returns whether it was. */
+    private boolean lowercaseAscii(String input, int start, int end) {
+        if (end - start > buffer.length) {
+            buffer = new char[Math.max(end - start, buffer.length * 2)];
+            bufferView = CharBuffer.wrap(buffer);
+        }
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c >= 128) return false;
+            buffer[i - start] = (c >= 'A' && c <= 'Z') ? (char)(c + ('a' - 'A')) : c;
+        }
+        return true;
+    }
+
     private String processToken(String token, Language language, StemMode stemMode, boolean removeAccents) {
         String original = token;
         log.log(Level.FINEST, () -> "processToken '" + original + "'");
@@ -127,4 +190,10 @@ public class SimpleTokenizer implements Tokenizer {
         return result;
     }
 
+    private interface TokenSpanConsumer {
+
+        void accept(int start, int end, TokenType type, TokenScript script);
+
+    }
+
 }
@@ -1289,7 +1289,7 @@ public class KStemmer {
     return word.toString();
   }
   
-  CharSequence asCharSequence() {
+  public CharSequence asCharSequence() {
     return result != null ? result : word;
   }
 
@@ -1318,9 +1318,10 @@ public class KStemmer {
   }
   
   /**
-   * Stems the text in the token. Returns true if changed.
+   * Stems the text in the token. Returns true if changed, in which case the stem is available
+   * from {@link #asCharSequence()} until the next call.
    */
-  boolean stem(char[] term, int len) {
+  public boolean stem(char[] term, int len) {
     
     result = null;
     
@@ -0,0 +1,79 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.significance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.language.Language;
+import com.yahoo.language.significance.impl.DefaultSignificanceModelRegistry;
+import com.yahoo.language.significance.impl.DocumentFrequencyFile;
+import com.yahoo.language.significance.impl.MappedSignificanceModel;
+import com.yahoo.language.significance.impl.MappedSignificanceModelFile;
+import com.yahoo.language.significance.impl.SignificanceModelFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedSignificanceModelTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void testMappedModelHasTheSameFrequenciesAsJsonModel() throws IOException {
+        Path json = Path.of("src/test/models/docv2.json");
+        Path binary = tmpDir.resolve("docv2.bin");
+        SignificanceModelFile modelFile = new ObjectMapper().readValue(json.toFile(), SignificanceModelFile.class);
+        MappedSignificanceModelFile.write(modelFile, binary);
+
+        assertFalse(MappedSignificanceModelFile.isMappedModel(json));
+        assertTrue(MappedSignificanceModelFile.isMappedModel(binary));
+
+        var jsonRegistry = new DefaultSignificanceModelRegistry(List.of(json));
+        var binaryRegistry = new DefaultSignificanceModelRegistry(List.of(binary));
+        for (Language language : List.of(Language.ENGLISH, Language.NORWEGIAN_BOKMAL, Language.FRENCH, Language.UNKNOWN)) {
+            SignificanceModel jsonModel = jsonRegistry.getModel(language).get();
+            SignificanceModel binaryModel = binaryRegistry.getModel(language).get();
+            assertEquals("test::2", binaryModel.getId());
+            for (var languageFile : modelFile.languages().values())
+                for (String word : languageFile.frequencies().keySet())
+                    assertEquals(jsonModel.documentFrequency(word), binaryModel.documentFrequency(word), word);
+            assertEquals(jsonModel.documentFrequency("non-existent-word"), binaryModel.documentFrequency("non-existent-word"));
+        }
+        assertTrue(binaryRegistry.getModel(Language.GERMAN).isEmpty());
+    }
+
+    @Test
+    void testLookupOfManyAndNonAsciiTerms() throws IOException {
+        Map<String, Long> frequencies = new HashMap<>();
+        for (int i = 0; i < 10000; i++)
+            frequencies.put("term" + i, (long) i + 2);
+        frequencies.put("ærlig", 3L);
+        frequencies.put("日本語", 4L);
+        frequencies.put("😀", 5L);
+        frequencies.put("", 6L);
+        Path binary = tmpDir.resolve("many.bin");
+        MappedSignificanceModelFile.write(new SignificanceModelFile("1.0", "many", "many terms",
+                                                                    new HashMap<>(Map.of("en", new DocumentFrequencyFile("en", 20000, frequencies)))),
+                                          binary);
+
+        MappedSignificanceModel model = MappedSignificanceModelFile.read(binary).languages().get("en");
+        assertEquals(frequencies.size(), model.size());
+        assertEquals(20000, model.corpusSize());
+        for (var entry : frequencies.entrySet())
+            assertEquals(entry.getValue(), model.frequency(entry.getKey()), entry.getKey());
+        assertEquals(1, model.frequency("term10000"));
+        assertEquals(1, model.frequency("ærli"));
+        assertEquals(1, model.frequency("ærligt"));
+        assertEquals(1, model.frequency("日本"));
+        assertEquals(new DocumentFrequency(3, 20000), model.documentFrequency("ærlig"));
+    }
+
+}
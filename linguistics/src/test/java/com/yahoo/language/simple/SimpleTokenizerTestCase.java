@@ -8,7 +8,9 @@ import com.yahoo.language.process.Token;
 import com.yahoo.language.process.TokenScript;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -69,5 +71,32 @@ public class SimpleTokenizerTestCase extends AbstractTokenizerTestCase {
                 TokenScript.COMMON,
                 TokenScript.DEVANAGARI);
     }
-}
 
+    @Test
+    public void testStreamingTokenizationProducesTheSameTokens() {
+        String text = "a\u030a tralalala n4lle. \uD800\uDFC8 (old Persian sign Auramazda, sorry if " +
+                      "anyone 1s offended by ancien7 gods.Running) Ærlig TALKING \uD83D\uDD2A résumés " +
+                      "ANTIDISESTABLISHMENTARIANISMSTUFFANDTHENSOMEMORELETTERSTOEXCEEDTHEBUFFER";
+        for (StemMode stemMode : StemMode.values()) {
+            for (boolean removeAccents : new boolean[] { false, true }) {
+                assertStreamedTokens(new SimpleTokenizer(), text, stemMode, removeAccents);
+                assertStreamedTokens(new SimpleTokenizer(new SimpleNormalizer() {}), text, stemMode, removeAccents);
+            }
+        }
+    }
+
+    private void assertStreamedTokens(SimpleTokenizer tokenizer, String text, StemMode stemMode, boolean removeAccents) {
+        List<String> expected = new ArrayList<>();
+        for (Token token : tokenizer.tokenize(text, Language.ENGLISH, stemMode, removeAccents))
+            expected.add(token.getOffset() + ":" + token.getOrig() + ":" + token.getType() + ":" +
+                         token.getScript() + ":" + token.getTokenString());
+        List<String> streamed = new ArrayList<>();
+        tokenizer.tokenize(text, Language.ENGLISH, stemMode, removeAccents,
+                           (offset, original, tokenString, type, script, special) -> {
+                               assertFalse(special);
+                               streamed.add(offset + ":" + original + ":" + type + ":" + script + ":" + tokenString);
+                           });
+        assertEquals(expected, streamed);
+    }
+
+}
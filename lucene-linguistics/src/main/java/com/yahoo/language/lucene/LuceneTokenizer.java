@@ -5,6 +5,7 @@ import com.yahoo.component.provider.ComponentRegistry;
 import com.yahoo.language.Language;
 import com.yahoo.language.process.StemMode;
 import com.yahoo.language.process.Token;
+import com.yahoo.language.process.TokenConsumer;
 import com.yahoo.language.process.TokenScript;
 import com.yahoo.language.process.TokenType;
 import com.yahoo.language.process.Tokenizer;
@@ -15,6 +16,7 @@ import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 
 import java.io.IOException;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -48,29 +50,42 @@ class LuceneTokenizer implements Tokenizer {
         return tokens;
     }
 
+    /** Streams the tokens from the Lucene analyzer, passing the term buffer of it on without copying. */
+    @Override
+    public void tokenize(String input, Language language, StemMode stemMode, boolean removeAccents, TokenConsumer consumer) {
+        if (input.isEmpty()) return;
+        analyze(input, analyzerFactory.getAnalyzer(language, stemMode, removeAccents), consumer);
+    }
+
     private List<Token> textToTokens(String text, Analyzer analyzer) {
         List<Token> tokens = new ArrayList<>();
-        TokenStream tokenStream = analyzer.tokenStream(FIELD_NAME, text);
+        analyze(text, analyzer, (offset, original, tokenString, type, script, special) ->
+                tokens.add(new SimpleToken(original.toString(), tokenString.toString())
+                                   .setType(type)
+                                   .setOffset(offset)
+                                   .setScript(script)));
+        return tokens;
+    }
 
-        CharTermAttribute charTermAttribute = tokenStream.addAttribute(CharTermAttribute.class);
-        OffsetAttribute offsetAttribute = tokenStream.addAttribute(OffsetAttribute.class);
-        try {
+    private void analyze(String text, Analyzer analyzer, TokenConsumer consumer) {
+        CharBuffer original = CharBuffer.wrap(text);
+        try (TokenStream tokenStream = analyzer.tokenStream(FIELD_NAME, text)) {
+            CharTermAttribute charTermAttribute = tokenStream.addAttribute(CharTermAttribute.class);
+            OffsetAttribute offsetAttribute = tokenStream.addAttribute(OffsetAttribute.class);
             tokenStream.reset();
             while (tokenStream.incrementToken()) {
                 // TODO: what to do with cases when multiple tokens are inserted into the position?
-                String originalString = text.substring(offsetAttribute.startOffset(), offsetAttribute.endOffset());
-                String tokenString = charTermAttribute.toString();
-                tokens.add(new SimpleToken(originalString, tokenString)
-                        .setType(TokenType.ALPHABETIC)
-                        .setOffset(offsetAttribute.startOffset())
-                        .setScript(TokenScript.UNKNOWN));
+                consumer.accept(offsetAttribute.startOffset(),
+                                original.clear().position(offsetAttribute.startOffset()).limit(offsetAttribute.endOffset()),
+                                charTermAttribute,
+                                TokenType.ALPHABETIC,
+                                TokenScript.UNKNOWN,
+                                false);
             }
             tokenStream.end();
-            tokenStream.close();
         } catch (IOException e) {
             throw new RuntimeException("Failed to analyze: " + text, e);
         }
-        return tokens;
     }
 
 }
@@ -40,6 +40,16 @@ public class LuceneTokenizerTest {
         assertEquals(List.of("žalgir", "mūš", "dat", "1410", "met"), tokenStrings(tokens));
     }
 
+    @Test
+    public void testStreamingTokenizer() {
+        String text = "Žalgirio mūšio data yra 1410 metai";
+        List<String> tokens = new ArrayList<>();
+        luceneLinguistics().getTokenizer().tokenize(text, Language.LITHUANIAN, StemMode.ALL, true,
+                                                    (offset, original, tokenString, type, script, special) ->
+                                                            tokens.add(original + ":" + tokenString));
+        assertEquals(List.of("Žalgirio:žalgir", "mūšio:mūš", "data:dat", "1410:1410", "metai:met"), tokens);
+    }
+
     @Test
     public void testStemming() {
         String text = "mūšio";
@@ -20,6 +20,7 @@ public enum ClusterControllerMetrics implements VespaMetrics {
     WORK_MS("cluster-controller.work-ms", Unit.MILLISECOND, "Time used for actual work"),
     IS_MASTER("cluster-controller.is-master", Unit.BINARY, "1 if this cluster controller is currently the master, or 0 if not"),
     REMOTE_TASK_QUEUE_SIZE("cluster-controller.remote-task-queue.size", Unit.OPERATION, "Number of remote tasks queued"),
+    HOST_INFO_PARSE_QUEUE_SIZE("cluster-controller.host-info-parse-queue.size", Unit.OPERATION, "Number of node state replies waiting for their host info to be parsed"),
     // TODO(hakonhall): Update this name once persistent "count" metrics has been implemented.
     // DO NOT RELY ON THIS METRIC YET.
     NODE_EVENT_COUNT("cluster-controller.node-event.count", Unit.OPERATION, "Number of node events"),
@@ -74,6 +74,8 @@ public enum ConfigServerMetrics implements VespaMetrics {
     CACHE_NODE_OBJECT_HIT_RATE("cache.nodeObject.hitRate", Unit.FRACTION, "The fraction of cache hits vs cache lookups for the node object cache"),
     CACHE_NODE_OBJECT_EVICTION_COUNT("cache.nodeObject.evictionCount", Unit.ITEM, "The number of cache elements evicted from the node object cache"),
     CACHE_NODE_OBJECT_SIZE("cache.nodeObject.size", Unit.ITEM, "The number of cache elements in the node object cache"),
+    CACHE_NODE_LIST_HIT_RATE("cache.nodeList.hitRate", Unit.FRACTION, "The fraction of reads of all nodes served from the node list cache"),
+    CACHE_NODE_LIST_SIZE("cache.nodeList.size", Unit.NODE, "The number of nodes in the node list cache"),
     CACHE_CURATOR_HIT_RATE("cache.curator.hitRate", Unit.FRACTION, "The fraction of cache hits vs cache lookups for the curator cache"),
     CACHE_CURATOR_EVICTION_COUNT("cache.curator.evictionCount", Unit.ITEM, "The number of cache elements evicted from the curator cache"),
     CACHE_CURATOR_SIZE("cache.curator.size", Unit.ITEM, "The number of cache elements in the curator cache"),
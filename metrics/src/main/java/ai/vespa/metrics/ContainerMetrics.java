@@ -207,7 +207,9 @@ public enum ContainerMetrics implements VespaMetrics {
     SERVER_STARTED_MILLIS("serverStartedMillis", Unit.MILLISECOND, "Time since the service was started"),
 
     EMBEDDER_LATENCY("embedder.latency", Unit.MILLISECOND, "Time spent creating an embedding"),
-    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer");
+    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer"),
+    EMBEDDER_CACHE_HITS("embedder.cache.hits", Unit.OPERATION, "Number of embeddings found in the embedding cache shared between requests"),
+    EMBEDDER_CACHE_MISSES("embedder.cache.misses", Unit.OPERATION, "Number of embeddings not found in the embedding cache shared between requests");
 
     private final String name;
     private final Unit unit;
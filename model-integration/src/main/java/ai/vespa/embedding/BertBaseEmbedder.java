@@ -14,6 +14,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,12 +43,16 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
     private final PoolingStrategy poolingStrategy;
 
     private final Embedder.Runtime runtime;
+    /** Identifies the model and settings of this in the embedding cache shared between requests */
+    private final String modelId;
     private final WordPieceEmbedder tokenizer;
     private final OnnxEvaluator evaluator;
+    private final boolean acceptsBatches;
 
     @Inject
     public BertBaseEmbedder(OnnxRuntime onnx, Embedder.Runtime runtime, BertBaseEmbedderConfig config) {
         this.runtime = runtime;
+        modelId = EmbeddingCache.modelIdOf(config);
         maxTokens = config.transformerMaxTokens();
         startSequenceToken = config.transformerStartSequenceToken();
         endSequenceToken = config.transformerEndSequenceToken();
@@ -66,6 +71,7 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
         this.evaluator = onnx.evaluatorOf(config.transformerModel().toString(), options);
 
         validateModel();
+        acceptsBatches = TokenBatches.acceptsBatches(evaluator, inputIdsName);
     }
 
     private void validateModel() {
@@ -99,18 +105,68 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
 
     @Override
     public Tensor embed(String text, Context context, TensorType type) {
+        validateType(type);
+        return runtime.computeCachedEmbeddingIfAbsent(text, context, type, modelId, () -> {
+            var start = System.nanoTime();
+            List<Integer> tokens = embedWithSeparatorTokens(text, context, maxTokens);
+            runtime.sampleSequenceLength(tokens.size(), context);
+            var embedding = embedTokens(tokens, type);
+            runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+            return embedding;
+        });
+    }
+
+    /**
+     * Embeds the given texts by evaluating the model once per batch of texts not already cached,
+     * rather than once per text. The embedding latency is sampled once for the whole call.
+     */
+    @Override
+    public List<Tensor> embed(List<String> texts, Context context, TensorType type) {
+        if ( ! acceptsBatches || texts.size() < 2) return Embedder.super.embed(texts, context, type);
+        validateType(type);
         var start = System.nanoTime();
+        Tensor[] embeddings = new Tensor[texts.size()];
+        List<Integer> toEvaluate = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings[i] = runtime.getCachedEmbedding(texts.get(i), context, type, modelId);
+            if (embeddings[i] == null)
+                toEvaluate.add(i);
+        }
+        if (toEvaluate.isEmpty()) return List.of(embeddings);
+
+        List<List<Integer>> tokens = new ArrayList<>(toEvaluate.size());
+        for (int i : toEvaluate) {
+            tokens.add(embedWithSeparatorTokens(texts.get(i), context, maxTokens));
+            runtime.sampleSequenceLength(tokens.get(tokens.size() - 1).size(), context);
+        }
+        for (int[] batch : TokenBatches.groupByLength(tokens)) {
+            IndexedTensor inputSequence = TokenBatches.pad(tokens, batch, TokenBatches.maxLength(tokens, batch));
+            Map<String, Tensor> inputs = new HashMap<>();
+            inputs.put(inputIdsName, inputSequence);
+            inputs.put(attentionMaskName, createAttentionMask(inputSequence));
+            if (!"".equals(tokenTypeIdsName))
+                inputs.put(tokenTypeIdsName, createTokenTypeIds(inputSequence));
+            IndexedTensor tokenEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+            for (int row = 0; row < batch.length; row++) {
+                List<Integer> sequence = tokens.get(batch[row]);
+                int index = toEvaluate.get(batch[row]);
+                embeddings[index] = poolingStrategy.toSentenceEmbedding(type,
+                                                                        TokenBatches.sequence(tokenEmbeddings, row, sequence.size()),
+                                                                        createAttentionMask(createTensorRepresentation(sequence, "d1")));
+                runtime.putCachedEmbedding(texts.get(index), context, type, modelId, embeddings[index]);
+            }
+        }
+        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+        return List.of(embeddings);
+    }
+
+    private static void validateType(TensorType type) {
         if (type.dimensions().size() != 1) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': should only have one dimension.");
         }
         if (!type.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': dimension should be indexed.");
         }
-        List<Integer> tokens = embedWithSeparatorTokens(text, context, maxTokens);
-        runtime.sampleSequenceLength(tokens.size(), context);
-        var embedding = embedTokens(tokens, type);
-        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
-        return embedding;
     }
 
     @Override public void deconstruct() { evaluator.close(); }
@@ -43,6 +43,8 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
     private static final String PUNCTUATION = "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
 
     private final Embedder.Runtime runtime;
+    /** Identifies the model and settings of this in the embedding cache shared between requests */
+    private final String modelId;
     private final String inputIdsName;
     private final String attentionMaskName;
     private final String outputName;
@@ -68,6 +70,7 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
     @Inject
     public ColBertEmbedder(OnnxRuntime onnx, Embedder.Runtime runtime, ColBertEmbedderConfig config) {
         this.runtime = runtime;
+        modelId = EmbeddingCache.modelIdOf(config);
         inputIdsName = config.transformerInputIds();
         attentionMaskName = config.transformerAttentionMask();
         outputName = config.transformerOutput();
@@ -137,9 +140,11 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
                                                "Wanted a mixed 2-d mapped-indexed tensor, got " + tensorType);
         }
         if (context.getDestination().startsWith("query")) {
-            return embedQuery(text, context, tensorType);
+            return runtime.computeCachedEmbeddingIfAbsent(text, context, tensorType, modelId + ".query",
+                                                          () -> embedQuery(text, context, tensorType));
         } else {
-            return embedDocument(text, context, tensorType);
+            return runtime.computeCachedEmbeddingIfAbsent(text, context, tensorType, modelId + ".document",
+                                                          () -> embedDocument(text, context, tensorType));
         }
     }
     @Override
@@ -4,11 +4,15 @@ package ai.vespa.embedding;
 
 import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.component.annotation.Inject;
+import com.yahoo.embedding.EmbedderRuntimeConfig;
 import com.yahoo.language.Language;
 import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.Counter;
 import com.yahoo.metrics.simple.Gauge;
 import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.metrics.simple.Point;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -20,12 +24,19 @@ public class EmbedderRuntime implements Embedder.Runtime {
 
     private final Gauge embedLatency;
     private final Gauge sequenceLength;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
     private final Map<MetricDimensions, Point> metricPointCache = new ConcurrentHashMap<>();
+    /** The embeddings cached between requests, or null if caching is disabled */
+    private final EmbeddingCache cache;
 
     @Inject
-    public EmbedderRuntime(MetricReceiver metrics) {
+    public EmbedderRuntime(MetricReceiver metrics, EmbedderRuntimeConfig config) {
         embedLatency = metrics.declareGauge(ContainerMetrics.EMBEDDER_LATENCY.baseName());
         sequenceLength = metrics.declareGauge(ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH.baseName());
+        cacheHits = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_HITS.baseName());
+        cacheMisses = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_MISSES.baseName());
+        cache = config.cacheMaxSizeMb() > 0 ? new EmbeddingCache(config.cacheMaxSizeMb() * 1024L * 1024L) : null;
     }
 
     @Override
@@ -38,6 +49,24 @@ public class EmbedderRuntime implements Embedder.Runtime {
         sequenceLength.sample(length, metricPoint(ctx));
     }
 
+    @Override
+    public Tensor getCachedEmbedding(String text, Embedder.Context ctx, TensorType tensorType, String modelId) {
+        if (cache == null) return null;
+        Tensor embedding = cache.get(cacheKey(text, ctx, tensorType, modelId));
+        (embedding == null ? cacheMisses : cacheHits).add(metricPoint(ctx));
+        return embedding;
+    }
+
+    @Override
+    public void putCachedEmbedding(String text, Embedder.Context ctx, TensorType tensorType, String modelId, Tensor embedding) {
+        if (cache == null) return;
+        cache.put(cacheKey(text, ctx, tensorType, modelId), embedding);
+    }
+
+    private static EmbeddingCache.Key cacheKey(String text, Embedder.Context ctx, TensorType tensorType, String modelId) {
+        return EmbeddingCache.Key.of(ctx.getEmbedderId(), modelId, ctx.getLanguage(), tensorType, text);
+    }
+
     private Point metricPoint(Embedder.Context ctx) {
         var dimensions = new MetricDimensions(ctx.getEmbedderId(), ctx.getLanguage(), ctx.getDestination());
         return metricPointCache.computeIfAbsent(
@@ -0,0 +1,127 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.compress.Hasher;
+import com.yahoo.config.ConfigInstance;
+import com.yahoo.language.Language;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A memory bounded cache of embeddings, shared between all requests and embedders in a container.
+ * Texts are identified by a 128 bit hash, such that cached texts do not consume memory.
+ * The least recently used embeddings are evicted when the cache is full. This is thread safe.
+ */
+public class EmbeddingCache {
+
+    private static final int segmentCount = 16;
+    private static final Hasher textHasher1 = Hasher.withSeed(0x5d8ab09e1f3c7b24L);
+    private static final Hasher textHasher2 = Hasher.withSeed(0x2b7e151628aed2a6L);
+
+    /** Estimated bytes used by an entry in addition to the tensor cells */
+    static final long entryOverhead = 192;
+
+    private final Segment[] segments = new Segment[segmentCount];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** Creates a cache using at most approximately the given number of bytes */
+    public EmbeddingCache(long maxSizeBytes) {
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment(maxSizeBytes / segmentCount);
+    }
+
+    /** Returns the cached embedding for the given key, or null if not present */
+    public Tensor get(Key key) {
+        Tensor embedding = segmentOf(key).get(key);
+        (embedding == null ? misses : hits).increment();
+        return embedding;
+    }
+
+    public void put(Key key, Tensor embedding) {
+        segmentOf(key).put(key, embedding);
+    }
+
+    /** Returns the number of lookups which found an embedding in this */
+    public long hits() { return hits.sum(); }
+
+    /** Returns the number of lookups which did not find an embedding in this */
+    public long misses() { return misses.sum(); }
+
+    /** Returns the estimated number of bytes used by the embeddings in this */
+    public long sizeBytes() {
+        long size = 0;
+        for (Segment segment : segments)
+            size += segment.sizeBytes();
+        return size;
+    }
+
+    private Segment segmentOf(Key key) {
+        return segments[Math.floorMod(key.hashCode(), segmentCount)];
+    }
+
+    /** Returns an id for a model which changes whenever the given embedder config changes */
+    public static String modelIdOf(ConfigInstance config) {
+        return Long.toHexString(textHasher1.hash(String.join("\n", ConfigInstance.serialize(config))));
+    }
+
+    static long sizeOf(Tensor embedding) {
+        TensorType type = embedding.type();
+        long bytesPerCell = switch (type.valueType()) {
+            case DOUBLE -> 8;
+            case FLOAT -> 4;
+            case BFLOAT16 -> 2;
+            case INT8 -> 1;
+        };
+        if ( ! type.indexedSubtype().equals(type)) // mapped cells also store their address
+            bytesPerCell += 32L * type.dimensions().size();
+        return entryOverhead + embedding.size() * bytesPerCell;
+    }
+
+    /** The key of a cached embedding */
+    public record Key(String embedderId, String modelId, Language language, TensorType type,
+                      long textHash1, long textHash2) {
+
+        public static Key of(String embedderId, String modelId, Language language, TensorType type, String text) {
+            return new Key(embedderId, modelId, language, type, textHasher1.hash(text), textHasher2.hash(text));
+        }
+
+    }
+
+    private static class Segment {
+
+        private final long maxSizeBytes;
+        private final Map<Key, Tensor> embeddings = new LinkedHashMap<>(16, 0.75f, true);
+        private long sizeBytes = 0;
+
+        Segment(long maxSizeBytes) {
+            this.maxSizeBytes = maxSizeBytes;
+        }
+
+        synchronized Tensor get(Key key) {
+            return embeddings.get(key);
+        }
+
+        synchronized void put(Key key, Tensor embedding) {
+            long size = sizeOf(embedding);
+            if (size > maxSizeBytes) return;
+            Tensor previous = embeddings.put(key, embedding);
+            if (previous != null)
+                sizeBytes -= sizeOf(previous);
+            sizeBytes += size;
+            var iterator = embeddings.values().iterator();
+            while (sizeBytes > maxSizeBytes) {
+                sizeBytes -= sizeOf(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        synchronized long sizeBytes() { return sizeBytes; }
+
+    }
+
+}
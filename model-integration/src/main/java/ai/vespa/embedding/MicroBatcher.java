@@ -0,0 +1,127 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Collects inputs submitted concurrently by different threads into batches which are evaluated together.
+ * The first thread submitting to a batch waits until the batch is full or the max delay has passed,
+ * then evaluates the batch in its own thread, while the other threads of the batch wait for the result.
+ * Batches are never delayed longer than the max delay, so this trades a small, bounded latency increase
+ * for higher throughput when evaluating a batch costs less than evaluating its inputs one by one.
+ *
+ * @param <I> the input type
+ * @param <O> the output type
+ */
+public class MicroBatcher<I, O> {
+
+    private final Function<List<I>, List<O>> evaluator;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchClosed = lock.newCondition();
+    private Batch<I, O> currentBatch = null;
+
+    /**
+     * Creates a micro-batcher.
+     *
+     * @param evaluator evaluates a batch of inputs, returning one output per input in the same order
+     * @param maxBatchSize the max number of inputs in a batch
+     * @param maxDelay the max time to wait for a batch to fill up before evaluating it
+     */
+    public MicroBatcher(Function<List<I>, List<O>> evaluator, int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("Max batch size must be positive, was " + maxBatchSize);
+        this.evaluator = evaluator;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /** Evaluates the given input as part of a batch, and returns its output when the batch is evaluated */
+    public O evaluate(I input) {
+        Batch<I, O> batch;
+        int index;
+        boolean evaluateInThisThread;
+        lock.lock();
+        try {
+            evaluateInThisThread = currentBatch == null;
+            if (evaluateInThisThread)
+                currentBatch = new Batch<>();
+            batch = currentBatch;
+            index = batch.inputs.size();
+            batch.inputs.add(input);
+            if (batch.inputs.size() >= maxBatchSize)
+                closeCurrentBatch();
+            if (evaluateInThisThread)
+                awaitClose(batch);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (evaluateInThisThread)
+            evaluate(batch);
+        return batch.output(index);
+    }
+
+    private void awaitClose(Batch<I, O> batch) {
+        long remainingNanos = maxDelayNanos;
+        try {
+            while (currentBatch == batch && remainingNanos > 0)
+                remainingNanos = batchClosed.awaitNanos(remainingNanos);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (currentBatch == batch)
+            closeCurrentBatch();
+    }
+
+    private void closeCurrentBatch() {
+        currentBatch = null;
+        batchClosed.signalAll();
+    }
+
+    private void evaluate(Batch<I, O> batch) {
+        try {
+            List<O> outputs = evaluator.apply(batch.inputs);
+            if (outputs.size() != batch.inputs.size())
+                throw new IllegalStateException("Expected " + batch.inputs.size() + " outputs, got " + outputs.size());
+            batch.outputs.complete(outputs);
+        }
+        catch (RuntimeException | Error e) {
+            batch.outputs.completeExceptionally(e);
+        }
+    }
+
+    private static class Batch<I, O> {
+
+        /** The inputs of this, which are only modified by holders of the lock until the batch is closed */
+        final List<I> inputs = new ArrayList<>();
+        final CompletableFuture<List<O>> outputs = new CompletableFuture<>();
+
+        O output(int index) {
+            try {
+                return outputs.get().get(index);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for batch evaluation", e);
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+                if (e.getCause() instanceof Error error) throw error;
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+    }
+
+}
@@ -32,6 +32,8 @@ import static com.yahoo.language.huggingface.ModelInfo.TruncationStrategy.LONGES
 public class SpladeEmbedder extends AbstractComponent implements Embedder {
 
     private final Embedder.Runtime runtime;
+    /** Identifies the model and settings of this in the embedding cache shared between requests */
+    private final String modelId;
     private final String inputIdsName;
     private final String attentionMaskName;
     private final String tokenTypeIdsName;
@@ -47,6 +49,7 @@ public class SpladeEmbedder extends AbstractComponent implements Embedder {
     }
     SpladeEmbedder(OnnxRuntime onnx, Embedder.Runtime runtime, SpladeEmbedderConfig config, boolean useCustomReduce) {
         this.runtime = runtime;
+        modelId = EmbeddingCache.modelIdOf(config);
         inputIdsName = config.transformerInputIds();
         attentionMaskName = config.transformerAttentionMask();
         outputName = config.transformerOutput();
@@ -115,6 +118,11 @@ public class SpladeEmbedder extends AbstractComponent implements Embedder {
             throw new IllegalArgumentException("Invalid splade embedder tensor destination. " +
                                                "Wanted a mapped 1-d tensor, got " + tensorType);
         }
+        return runtime.computeCachedEmbeddingIfAbsent(text, context, tensorType, modelId,
+                                                      () -> evaluate(text, context, tensorType));
+    }
+
+    private Tensor evaluate(String text, Context context, TensorType tensorType) {
         var start = System.nanoTime();
 
         var encoding = tokenizer.encode(text, context.getLanguage());
@@ -0,0 +1,93 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Utilities for evaluating token sequences of different lengths together in batches, by padding them
+ * to the length of the longest sequence in each batch.
+ * Padded positions must be masked out by the attention mask input of the model.
+ */
+public final class TokenBatches {
+
+    /** The max number of sequences to evaluate in one batch */
+    public static final int maxBatchSize = 32;
+
+    private TokenBatches() {}
+
+    /** Returns whether the given model input accepts batches of any size in its first dimension */
+    public static boolean acceptsBatches(OnnxEvaluator evaluator, String inputName) {
+        TensorType type = evaluator.getInputInfo().get(inputName);
+        return type != null && type.rank() > 1 && type.dimensions().get(0).size().isEmpty();
+    }
+
+    /**
+     * Returns the indexes of the given sequences grouped into batches of at most maxBatchSize,
+     * where sequences of similar length are grouped together to minimize padding.
+     */
+    public static List<int[]> groupByLength(List<? extends List<?>> sequences) {
+        int[] byLength = IntStream.range(0, sequences.size()).boxed()
+                                  .sorted(Comparator.comparingInt(i -> sequences.get(i).size()))
+                                  .mapToInt(Integer::intValue)
+                                  .toArray();
+        List<int[]> batches = new ArrayList<>();
+        for (int start = 0; start < byLength.length; start += maxBatchSize)
+            batches.add(Arrays.copyOfRange(byLength, start, Math.min(start + maxBatchSize, byLength.length)));
+        return batches;
+    }
+
+    /** Returns the length of the longest of the given sequences */
+    public static int maxLength(List<? extends List<?>> sequences, int[] batch) {
+        int maxLength = 0;
+        for (int i : batch)
+            maxLength = Math.max(maxLength, sequences.get(i).size());
+        return maxLength;
+    }
+
+    /**
+     * Returns the given sequences as a tensor of type tensor&lt;float&gt;(d0[batch size],d1[maxLength]),
+     * where each sequence is padded with zeroes at the end.
+     */
+    public static IndexedTensor pad(List<? extends List<? extends Number>> sequences, int[] batch, int maxLength) {
+        float[] values = new float[batch.length * maxLength];
+        for (int row = 0; row < batch.length; row++) {
+            List<? extends Number> sequence = sequences.get(batch[row]);
+            for (int i = 0; i < sequence.size(); i++)
+                values[row * maxLength + i] = sequence.get(i).floatValue();
+        }
+        TensorType type = new TensorType.Builder(TensorType.Value.FLOAT).indexed("d0", batch.length)
+                                                                        .indexed("d1", maxLength)
+                                                                        .build();
+        return IndexedTensor.Builder.of(type, values).build();
+    }
+
+    /**
+     * Returns the unpadded token embeddings of a single sequence from a batch output with shape
+     * [batch size, padded length, embedding size], as a tensor with shape [1, length, embedding size].
+     */
+    public static IndexedTensor sequence(IndexedTensor batchOutput, int row, int length) {
+        long[] shape = batchOutput.shape();
+        if (shape.length != 3)
+            throw new IllegalArgumentException("Expected 3 output dimensions: [batch, sequence, embedding], got " + shape.length);
+        int paddedLength = (int)shape[1];
+        int embeddingSize = (int)shape[2];
+        float[] values = new float[length * embeddingSize];
+        long offset = (long)row * paddedLength * embeddingSize;
+        for (int i = 0; i < values.length; i++)
+            values[i] = batchOutput.getFloat(offset + i);
+        TensorType type = new TensorType.Builder(TensorType.Value.FLOAT).indexed("d0", 1)
+                                                                        .indexed("d1", length)
+                                                                        .indexed("d2", embeddingSize)
+                                                                        .build();
+        return IndexedTensor.Builder.of(type, values).build();
+    }
+
+}
@@ -1,7 +1,10 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.embedding.huggingface;
 
+import ai.vespa.embedding.EmbeddingCache;
+import ai.vespa.embedding.MicroBatcher;
 import ai.vespa.embedding.PoolingStrategy;
+import ai.vespa.embedding.TokenBatches;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluatorOptions;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime;
@@ -9,6 +12,7 @@ import com.yahoo.api.annotations.Beta;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.embedding.huggingface.HuggingFaceEmbedderConfig;
+import com.yahoo.language.huggingface.Encoding;
 import com.yahoo.language.huggingface.HuggingFaceTokenizer;
 import com.yahoo.language.process.Embedder;
 import com.yahoo.tensor.IndexedTensor;
@@ -17,7 +21,11 @@ import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -30,6 +38,8 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     private static final Logger log = Logger.getLogger(HuggingFaceEmbedder.class.getName());
 
     private final Embedder.Runtime runtime;
+    /** Identifies the model and settings of this in the embedding cache shared between requests */
+    private final String modelId;
     private final String inputIdsName;
     private final String attentionMaskName;
     private final String tokenTypeIdsName;
@@ -38,6 +48,9 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     private final HuggingFaceTokenizer tokenizer;
     private final OnnxEvaluator evaluator;
     private final PoolingStrategy poolingStrategy;
+    private final boolean acceptsBatches;
+    /** Batches concurrent evaluations of single texts, or null if disabled */
+    private final MicroBatcher<PendingEmbedding, HFEmbeddingResult> batcher;
 
     private final String prependQuery;
 
@@ -46,6 +59,7 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     @Inject
     public HuggingFaceEmbedder(OnnxRuntime onnx, Embedder.Runtime runtime, HuggingFaceEmbedderConfig config) {
         this.runtime = runtime;
+        modelId = EmbeddingCache.modelIdOf(config);
         inputIdsName = config.transformerInputIds();
         attentionMaskName = config.transformerAttentionMask();
         tokenTypeIdsName = config.transformerTokenTypeIds();
@@ -74,8 +88,16 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
             onnxOpts.setGpuDevice(config.transformerGpuDevice());
         onnxOpts.setExecutionMode(config.transformerExecutionMode().toString());
         onnxOpts.setThreads(config.transformerInterOpThreads(), config.transformerIntraOpThreads());
+        onnxOpts.setReuseBuffers(config.transformerReuseBuffers());
         evaluator = onnx.evaluatorOf(config.transformerModel().toString(), onnxOpts);
         validateModel();
+        acceptsBatches = TokenBatches.acceptsBatches(evaluator, inputIdsName);
+        batcher = acceptsBatches && config.batchingMaxSize() > 1
+                  ? new MicroBatcher<>(pending -> evaluate(pending.stream().map(PendingEmbedding::encoding).toList(),
+                                                           pending.stream().map(PendingEmbedding::context).toList()),
+                                       config.batchingMaxSize(),
+                                       Duration.ofNanos(config.batchingMaxDelayMicros() * 1000L))
+                  : null;
     }
 
     private void validateModel() {
@@ -113,13 +135,63 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     @SuppressWarnings("unchecked")
     @Override
     public Tensor embed(String text, Context context, TensorType tensorType) {
+        validateType(tensorType);
+        String input = prependInstruction(text, context);
+        return runtime.computeCachedEmbeddingIfAbsent(input, context, tensorType, modelId,
+                                                      () -> toEmbedding(lookupOrEvaluate(context, input), tensorType));
+    }
+
+    /**
+     * Embeds the given texts by evaluating the model once per batch of texts not already cached,
+     * rather than once per text.
+     */
+    @Override
+    public List<Tensor> embed(List<String> texts, Context context, TensorType tensorType) {
+        validateType(tensorType);
+        if ( ! acceptsBatches) return Embedder.super.embed(texts, context, tensorType);
+
+        Map<String, Tensor> embeddings = new HashMap<>();
+        Map<String, HFEmbeddingResult> results = new HashMap<>();
+        List<String> toEvaluate = new ArrayList<>();
+        for (String text : texts) {
+            String input = prependInstruction(text, context);
+            if (embeddings.containsKey(input) || results.containsKey(input)) continue;
+            Tensor embedding = runtime.getCachedEmbedding(input, context, tensorType, modelId);
+            if (embedding != null) {
+                embeddings.put(input, embedding);
+                continue;
+            }
+            var cached = (HFEmbeddingResult) context.getCachedValue(new HFEmbedderCacheKey(context.getEmbedderId(), input));
+            results.put(input, cached);
+            if (cached == null)
+                toEvaluate.add(input);
+        }
+        if (toEvaluate.size() == 1)
+            results.put(toEvaluate.get(0), lookupOrEvaluate(context, toEvaluate.get(0)));
+        else if ( ! toEvaluate.isEmpty())
+            evaluateBatched(context, toEvaluate, results);
+        for (var result : results.entrySet()) {
+            Tensor embedding = toEmbedding(result.getValue(), tensorType);
+            runtime.putCachedEmbedding(result.getKey(), context, tensorType, modelId, embedding);
+            embeddings.put(result.getKey(), embedding);
+        }
+
+        List<Tensor> ordered = new ArrayList<>(texts.size());
+        for (String text : texts)
+            ordered.add(embeddings.get(prependInstruction(text, context)));
+        return ordered;
+    }
+
+    private static void validateType(TensorType tensorType) {
         if (tensorType.dimensions().size() != 1) {
             throw new IllegalArgumentException("Error in embedding to type '" + tensorType + "': should only have one dimension.");
         }
         if (!tensorType.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + tensorType + "': dimension should be indexed.");
         }
-        var embeddingResult = lookupOrEvaluate(context, prependInstruction(text, context));
+    }
+
+    private Tensor toEmbedding(HFEmbeddingResult embeddingResult, TensorType tensorType) {
         IndexedTensor tokenEmbeddings = embeddingResult.output;
         if (tensorType.valueType() == TensorType.Value.INT8) {
             return binaryQuantization(embeddingResult, tensorType);
@@ -166,6 +238,12 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     private HuggingFaceEmbedder.HFEmbeddingResult evaluate(Context context, String text) {
         var start = System.nanoTime();
         var encoding = tokenizer.encode(text, context.getLanguage());
+        if (batcher != null) {
+            var result = batcher.evaluate(new PendingEmbedding(encoding, context));
+            runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+            return result;
+        }
+
         runtime.sampleSequenceLength(encoding.ids().size(), context);
         Tensor inputSequence = createTensorRepresentation(encoding.ids(), "d1");
         Tensor attentionMask = createTensorRepresentation(encoding.attentionMask(), "d1");
@@ -192,6 +270,48 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         return new HFEmbeddingResult(tokenEmbeddings, attentionMask, context.getEmbedderId());
     }
 
+    /** Evaluates the given texts in batches, and adds the results to the given map and the context cache */
+    private void evaluateBatched(Context context, List<String> texts, Map<String, HFEmbeddingResult> results) {
+        var start = System.nanoTime();
+        List<Encoding> encodings = new ArrayList<>(texts.size());
+        for (String text : texts)
+            encodings.add(tokenizer.encode(text, context.getLanguage()));
+        List<HFEmbeddingResult> evaluated = evaluate(encodings, Collections.nCopies(texts.size(), context));
+        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+        for (int i = 0; i < texts.size(); i++) {
+            context.putCachedValue(new HFEmbedderCacheKey(context.getEmbedderId(), texts.get(i)), evaluated.get(i));
+            results.put(texts.get(i), evaluated.get(i));
+        }
+    }
+
+    /**
+     * Evaluates the given encodings in batches, and returns the results in the same order.
+     * Each encoding is embedded for the context at the same position in the given contexts.
+     */
+    private List<HFEmbeddingResult> evaluate(List<Encoding> encodings, List<Context> contexts) {
+        HFEmbeddingResult[] results = new HFEmbeddingResult[encodings.size()];
+        List<List<Long>> ids = encodings.stream().map(Encoding::ids).toList();
+        boolean hasTokenTypeIds = ! tokenTypeIdsName.isEmpty() && encodings.stream().noneMatch(e -> e.typeIds().isEmpty());
+        for (int[] batch : TokenBatches.groupByLength(ids)) {
+            int maxLength = TokenBatches.maxLength(ids, batch);
+            Map<String, Tensor> inputs = new HashMap<>();
+            inputs.put(inputIdsName, TokenBatches.pad(ids, batch, maxLength));
+            inputs.put(attentionMaskName, TokenBatches.pad(encodings.stream().map(Encoding::attentionMask).toList(), batch, maxLength));
+            if (hasTokenTypeIds)
+                inputs.put(tokenTypeIdsName, TokenBatches.pad(encodings.stream().map(Encoding::typeIds).toList(), batch, maxLength));
+            IndexedTensor batchEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+            for (int row = 0; row < batch.length; row++) {
+                Encoding encoding = encodings.get(batch[row]);
+                Context context = contexts.get(batch[row]);
+                runtime.sampleSequenceLength(encoding.ids().size(), context);
+                results[batch[row]] = new HFEmbeddingResult(TokenBatches.sequence(batchEmbeddings, row, encoding.ids().size()),
+                                                            createTensorRepresentation(encoding.attentionMask(), "d1"),
+                                                            context.getEmbedderId());
+            }
+        }
+        return List.of(results);
+    }
+
     private Tensor binaryQuantization(HuggingFaceEmbedder.HFEmbeddingResult embeddingResult, TensorType tensorType) {
         long outputDimensions = embeddingResult.output().shape()[2];
         long targetDim = tensorType.dimensions().get(0).size().get();
@@ -246,6 +366,7 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         return builder.build();
     }
 
+    private record PendingEmbedding(Encoding encoding, Context context) {}
     protected record HFEmbeddingResult(IndexedTensor output, Tensor attentionMask, String embedderId) {}
     protected record HFEmbedderCacheKey(String embedderId, Object embeddedValue) { }
 }
@@ -0,0 +1,71 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package ai.vespa.modelintegration.evaluator;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.TensorInfo;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Native buffers for the inputs and outputs of a model, which are reused between evaluations in one thread.
+ * Input buffers grow to the largest input seen. Outputs with a fixed shape are bound to tensors
+ * which ONNX Runtime writes to directly, instead of allocating a new output tensor for each evaluation.
+ * The output tensors are closed by {@link #close}, or when this becomes unreachable if it is not closed.
+ * Instances are not thread safe.
+ */
+class IoBuffers {
+
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private final Map<String, ByteBuffer> inputs = new HashMap<>();
+    private final Map<String, OnnxTensor> outputs = new HashMap<>();
+    private final Cleaner.Cleanable cleanable;
+
+    IoBuffers() {
+        Map<String, OnnxTensor> outputs = this.outputs; // The cleaning action must not refer to this
+        cleanable = cleaner.register(this, () -> outputs.values().forEach(OnnxTensor::close));
+    }
+
+    /** Releases the buffers of this. This must not be used by any thread after this is called */
+    void close() {
+        cleanable.clean();
+        outputs.clear();
+        inputs.clear();
+    }
+
+    /** Returns an empty buffer with the given size for the given input */
+    ByteBuffer input(String name, int size) {
+        ByteBuffer buffer = inputs.get(name);
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+            inputs.put(name, buffer);
+        }
+        return buffer.clear().limit(size);
+    }
+
+    /** Returns whether the given output has a fixed shape, such that it can be bound to a reused tensor */
+    static boolean canBind(TensorInfo info) {
+        return Arrays.stream(info.getShape()).allMatch(size -> size > 0);
+    }
+
+    /** Returns the tensor the given output with a fixed shape should be written to */
+    OnnxTensor output(String name, TensorInfo info, OrtEnvironment environment) throws OrtException {
+        OnnxTensor tensor = outputs.get(name);
+        if (tensor == null) {
+            long size = Arrays.stream(info.getShape()).reduce(1, (a, b) -> a * b) * info.type.size;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(size)).order(ByteOrder.nativeOrder());
+            tensor = OnnxTensor.createTensor(environment, buffer, info.getShape(), info.type);
+            outputs.put(name, tensor);
+        }
+        return tensor;
+    }
+
+}
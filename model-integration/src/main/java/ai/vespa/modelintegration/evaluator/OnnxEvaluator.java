@@ -7,6 +7,7 @@ import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OnnxValue;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime.ModelPathOrData;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime.ReferencedOrtSession;
 import com.yahoo.tensor.Tensor;
@@ -14,7 +15,10 @@ import com.yahoo.tensor.TensorType;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,22 +35,40 @@ public class OnnxEvaluator implements AutoCloseable {
     private static final Logger LOG = Logger.getLogger(OnnxEvaluator.class.getName());
 
     private final ReferencedOrtSession session;
+    /** The buffers of each thread if buffers should be reused between evaluations, null otherwise */
+    private final ThreadLocal<IoBuffers> buffers;
+    /** The buffers of all threads, which are released on close */
+    private final Set<IoBuffers> allBuffers = ConcurrentHashMap.newKeySet();
 
     OnnxEvaluator(String modelPath, OnnxEvaluatorOptions options, OnnxRuntime runtime) {
         session = createSession(ModelPathOrData.of(modelPath), runtime, options, true);
+        buffers = createBuffers(options, allBuffers);
     }
 
     OnnxEvaluator(byte[] data, OnnxEvaluatorOptions options, OnnxRuntime runtime) {
         session = createSession(ModelPathOrData.of(data), runtime, options, true);
+        buffers = createBuffers(options, allBuffers);
     }
 
+    private static ThreadLocal<IoBuffers> createBuffers(OnnxEvaluatorOptions options, Set<IoBuffers> allBuffers) {
+        if (options == null || ! options.reuseBuffers()) return null;
+        return ThreadLocal.withInitial(() -> {
+            IoBuffers threadBuffers = new IoBuffers();
+            allBuffers.add(threadBuffers);
+            return threadBuffers;
+        });
+    }
+
+    /** Returns the number of threads having buffers which are not released */
+    int reusedBufferCount() { return allBuffers.size(); }
+
     public Tensor evaluate(Map<String, Tensor> inputs, String output) {
         Map<String, OnnxTensor> onnxInputs = null;
         try {
             output = mapToInternalName(output);
-            onnxInputs = TensorConverter.toOnnxTensors(inputs, OnnxRuntime.ortEnvironment(), session.instance());
-            try (OrtSession.Result result = session.instance().run(onnxInputs, Collections.singleton(output))) {
-                return TensorConverter.toVespaTensor(result.get(0));
+            onnxInputs = toOnnxTensors(inputs);
+            try (OrtSession.Result result = run(onnxInputs, Collections.singleton(output))) {
+                return TensorConverter.toVespaTensor(result.get(output).get());
             }
         } catch (OrtException e) {
             throw new RuntimeException("ONNX Runtime exception", e);
@@ -60,9 +82,9 @@ public class OnnxEvaluator implements AutoCloseable {
     public Map<String, Tensor> evaluate(Map<String, Tensor> inputs) {
         Map<String, OnnxTensor> onnxInputs = null;
         try {
-            onnxInputs = TensorConverter.toOnnxTensors(inputs, OnnxRuntime.ortEnvironment(), session.instance());
+            onnxInputs = toOnnxTensors(inputs);
             Map<String, Tensor> outputs = new HashMap<>();
-            try (OrtSession.Result result = session.instance().run(onnxInputs)) {
+            try (OrtSession.Result result = run(onnxInputs, session.instance().getOutputNames())) {
                 for (Map.Entry<String, OnnxValue> output : result) {
                     String mapped = TensorConverter.asValidName(output.getKey());
                     outputs.put(mapped, TensorConverter.toVespaTensor(output.getValue()));
@@ -78,6 +100,28 @@ public class OnnxEvaluator implements AutoCloseable {
         }
     }
 
+    private Map<String, OnnxTensor> toOnnxTensors(Map<String, Tensor> inputs) throws OrtException {
+        return TensorConverter.toOnnxTensors(inputs, OnnxRuntime.ortEnvironment(), session.instance(),
+                                             buffers != null ? buffers.get() : null);
+    }
+
+    /** Runs the model, writing outputs with a fixed shape to reused tensors if buffers are reused */
+    private OrtSession.Result run(Map<String, OnnxTensor> inputs, Set<String> outputs) throws OrtException {
+        if (buffers == null) return session.instance().run(inputs, outputs);
+
+        IoBuffers threadBuffers = buffers.get();
+        Map<String, NodeInfo> outputInfo = session.instance().getOutputInfo();
+        Set<String> allocatedOutputs = new HashSet<>();
+        Map<String, OnnxTensor> boundOutputs = new HashMap<>();
+        for (String output : outputs) {
+            if (outputInfo.get(output) != null && outputInfo.get(output).getInfo() instanceof TensorInfo info && IoBuffers.canBind(info))
+                boundOutputs.put(output, threadBuffers.output(output, info, OnnxRuntime.ortEnvironment()));
+            else
+                allocatedOutputs.add(output);
+        }
+        return session.instance().run(inputs, allocatedOutputs, boundOutputs);
+    }
+
     public record IdAndType(String id, TensorType type) { }
 
     private Map<String, IdAndType> toSpecMap(Map<String, NodeInfo> infoMap) {
@@ -125,6 +169,13 @@ public class OnnxEvaluator implements AutoCloseable {
 
     @Override
     public void close() throws IllegalStateException {
+        if (buffers != null) {
+            buffers.remove();
+            for (var iterator = allBuffers.iterator(); iterator.hasNext(); ) {
+                iterator.next().close();
+                iterator.remove();
+            }
+        }
         try {
             session.close();
         } catch (UncheckedOrtException e) {
@@ -23,6 +23,7 @@ public class OnnxEvaluatorOptions {
     private int intraOpThreads;
     private int gpuDeviceNumber;
     private boolean gpuDeviceRequired;
+    private boolean reuseBuffers;
 
     public OnnxEvaluatorOptions() {
         // Defaults:
@@ -33,6 +34,7 @@ public class OnnxEvaluatorOptions {
         intraOpThreads = quarterVcpu;
         gpuDeviceNumber = -1;
         gpuDeviceRequired = false;
+        reuseBuffers = false;
     }
 
     public OrtSession.SessionOptions getOptions(boolean loadCuda) throws OrtException {
@@ -99,6 +101,16 @@ public class OnnxEvaluatorOptions {
 
     public int gpuDeviceNumber() { return gpuDeviceNumber; }
 
+    /**
+     * Sets whether evaluation should reuse the native buffers of inputs, and of outputs with a fixed shape,
+     * between evaluations in the same thread, instead of allocating new ones for each evaluation.
+     * This reduces the overhead of evaluating small models, at the cost of keeping the largest buffers
+     * used by each evaluating thread allocated until the evaluator is closed.
+     */
+    public void setReuseBuffers(boolean reuseBuffers) { this.reuseBuffers = reuseBuffers; }
+
+    public boolean reuseBuffers() { return reuseBuffers; }
+
     public OnnxEvaluatorOptions copy() {
         var copy = new OnnxEvaluatorOptions();
         copy.gpuDeviceNumber = gpuDeviceNumber;
@@ -107,6 +119,7 @@ public class OnnxEvaluatorOptions {
         copy.interOpThreads = interOpThreads;
         copy.intraOpThreads = intraOpThreads;
         copy.optimizationLevel = optimizationLevel;
+        copy.reuseBuffers = reuseBuffers;
         return copy;
     }
 
@@ -117,11 +130,12 @@ public class OnnxEvaluatorOptions {
         OnnxEvaluatorOptions that = (OnnxEvaluatorOptions) o;
         return interOpThreads == that.interOpThreads && intraOpThreads == that.intraOpThreads
                 && gpuDeviceNumber == that.gpuDeviceNumber && gpuDeviceRequired == that.gpuDeviceRequired
-                && optimizationLevel == that.optimizationLevel && executionMode == that.executionMode;
+                && optimizationLevel == that.optimizationLevel && executionMode == that.executionMode
+                && reuseBuffers == that.reuseBuffers;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(optimizationLevel, executionMode, interOpThreads, intraOpThreads, gpuDeviceNumber, gpuDeviceRequired);
+        return Objects.hash(optimizationLevel, executionMode, interOpThreads, intraOpThreads, gpuDeviceNumber, gpuDeviceRequired, reuseBuffers);
     }
 }
@@ -0,0 +1,245 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package ai.vespa.modelintegration.evaluator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.yahoo.json.Jackson;
+import com.yahoo.tensor.Tensor;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Benchmarks variants of an ONNX model, such as quantized versions of it, on the local CPU,
+ * and selects the fastest variant whose outputs are close enough to those of the reference model.
+ * The drift of a variant is the largest cosine distance between its output and the output of the
+ * reference model over all the sample inputs.
+ * This is meant to be run offline, on the kind of hardware the model will be served on: Embedders are
+ * configured with the variants to use, fastest first, and their measured drift, such that all containers
+ * use the same model without benchmarking on startup.
+ * Run {@link #main} with a variant config file to benchmark the variants and print the selected one.
+ */
+public class OnnxModelVariantSelector {
+
+    private final OnnxRuntime runtime;
+    private final OnnxEvaluatorOptions options;
+    private final int warmupIterations;
+    private final int iterations;
+    private final int threads;
+
+    /**
+     * Creates a selector.
+     *
+     * @param runtime the runtime evaluating the models
+     * @param options the options to evaluate the models with
+     * @param warmupIterations the number of times to evaluate all samples before measuring
+     * @param iterations the number of times to evaluate all samples when measuring
+     * @param threads the number of threads evaluating concurrently when measuring throughput
+     */
+    public OnnxModelVariantSelector(OnnxRuntime runtime, OnnxEvaluatorOptions options,
+                                    int warmupIterations, int iterations, int threads) {
+        if (iterations < 1) throw new IllegalArgumentException("Iterations must be positive, was " + iterations);
+        if (threads < 1) throw new IllegalArgumentException("Threads must be positive, was " + threads);
+        this.runtime = runtime;
+        this.options = options;
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.threads = threads;
+    }
+
+    /**
+     * The result of benchmarking a model.
+     *
+     * @param model the path to the model
+     * @param meanLatency the mean time of evaluating a single sample in a single thread
+     * @param throughput the number of samples evaluated per second, using all the threads of this
+     * @param drift the largest cosine distance between an output of this and of the reference model
+     */
+    public record Measurement(String model, Duration meanLatency, double throughput, double drift) {}
+
+    /**
+     * Benchmarks the reference model and each of the variants.
+     *
+     * @param referenceModel the path to the model all the variants are compared to
+     * @param variants the paths to the variants of the reference model
+     * @param samples the inputs to evaluate each model with
+     * @param output the name of the output to compare
+     * @return a measurement of the reference model followed by one of each variant, in the given order
+     */
+    public List<Measurement> benchmark(String referenceModel, List<String> variants,
+                                       List<Map<String, Tensor>> samples, String output) {
+        if (samples.isEmpty()) throw new IllegalArgumentException("At least one sample input is required");
+        List<Measurement> measurements = new ArrayList<>();
+        List<Tensor> referenceOutputs = new ArrayList<>();
+        measurements.add(benchmark(referenceModel, samples, output, referenceOutputs, null));
+        for (String variant : variants)
+            measurements.add(benchmark(variant, samples, output, new ArrayList<>(), referenceOutputs));
+        return measurements;
+    }
+
+    private Measurement benchmark(String model, List<Map<String, Tensor>> samples, String output,
+                                  List<Tensor> outputs, List<Tensor> referenceOutputs) {
+        try (OnnxEvaluator evaluator = runtime.evaluatorOf(model, options)) {
+            for (var sample : samples)
+                outputs.add(evaluator.evaluate(sample, output));
+            double drift = 0;
+            if (referenceOutputs != null) {
+                for (int i = 0; i < samples.size(); i++)
+                    drift = Math.max(drift, cosineDistance(referenceOutputs.get(i), outputs.get(i)));
+            }
+
+            evaluate(evaluator, samples, output, warmupIterations);
+            long start = System.nanoTime();
+            evaluate(evaluator, samples, output, iterations);
+            long latencyNanos = (System.nanoTime() - start) / ((long) iterations * samples.size());
+            double throughput = threads == 1 ? 1e9 / Math.max(1, latencyNanos)
+                                             : measureThroughput(evaluator, samples, output);
+            return new Measurement(model, Duration.ofNanos(latencyNanos), throughput, drift);
+        }
+    }
+
+    private double measureThroughput(OnnxEvaluator evaluator, List<Map<String, Tensor>> samples, String output) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+                futures.add(executor.submit(() -> evaluate(evaluator, samples, output, iterations)));
+            for (var future : futures)
+                future.get();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return (double) threads * iterations * samples.size() / seconds;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while benchmarking", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void evaluate(OnnxEvaluator evaluator, List<Map<String, Tensor>> samples, String output, int iterations) {
+        for (int i = 0; i < iterations; i++)
+            for (var sample : samples)
+                evaluator.evaluate(sample, output);
+    }
+
+    /**
+     * Returns the measurement of the model with the highest throughput whose drift is at most the given max drift.
+     * The first measurement, of the reference model, is always within the budget.
+     */
+    public static Measurement select(List<Measurement> measurements, double maxDrift) {
+        Measurement best = measurements.get(0);
+        for (Measurement measurement : measurements.subList(1, measurements.size())) {
+            if (measurement.drift() <= maxDrift && measurement.throughput() > best.throughput())
+                best = measurement;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the cosine distance between the cells of the given tensors in their value order, which is 0 when
+     * they point in the same direction, or positive infinity if they have different numbers of cells.
+     */
+    static double cosineDistance(Tensor a, Tensor b) {
+        if (a.size() != b.size()) return Double.POSITIVE_INFINITY;
+        double dot = 0, normA = 0, normB = 0;
+        Iterator<Double> aValues = a.valueIterator();
+        Iterator<Double> bValues = b.valueIterator();
+        while (aValues.hasNext()) {
+            double x = aValues.next();
+            double y = bValues.next();
+            dot += x * y;
+            normA += x * x;
+            normB += y * y;
+        }
+        if (normA == 0 && normB == 0) return 0;
+        if (normA == 0 || normB == 0) return 1;
+        return Math.max(0, 1 - dot / Math.sqrt(normA * normB));
+    }
+
+    /**
+     * Benchmarks the models given in a JSON variant config file and prints the measurements and the selected model.
+     * Relative model paths are resolved against the directory of the config file. Example config:
+     * <pre>
+     * {
+     *     "model": "model.onnx",
+     *     "variants": [ "model_quantized.onnx" ],
+     *     "output": "last_hidden_state",
+     *     "max-drift": 0.01,
+     *     "samples": [ { "input_ids": "tensor(d0[1],d1[3]):[[101, 2023, 102]]",
+     *                    "attention_mask": "tensor(d0[1],d1[3]):[[1, 1, 1]]" } ],
+     *     "warmup-iterations": 10,
+     *     "iterations": 100,
+     *     "threads": 1
+     * }
+     * </pre>
+     * The iteration and thread counts are optional, and default to the values above.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: OnnxModelVariantSelector <variant-config.json>");
+            System.exit(1);
+        }
+        run(Path.of(args[0]), System.out);
+    }
+
+    /** Benchmarks the models of the given variant config file, prints the result, and returns the selected model */
+    static Measurement run(Path configFile, PrintStream out) {
+        JsonNode config;
+        try {
+            config = Jackson.mapper().readTree(configFile.toFile());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not read variant config " + configFile, e);
+        }
+        Path directory = configFile.toAbsolutePath().getParent();
+        String model = directory.resolve(required(config, "model").asText()).toString();
+        List<String> variants = new ArrayList<>();
+        for (JsonNode variant : config.path("variants"))
+            variants.add(directory.resolve(variant.asText()).toString());
+        List<Map<String, Tensor>> samples = new ArrayList<>();
+        for (JsonNode sample : required(config, "samples")) {
+            Map<String, Tensor> inputs = new HashMap<>();
+            sample.fields().forEachRemaining(input -> inputs.put(input.getKey(), Tensor.from(input.getValue().asText())));
+            samples.add(inputs);
+        }
+
+        var selector = new OnnxModelVariantSelector(new OnnxRuntime(), new OnnxEvaluatorOptions(),
+                                                    config.path("warmup-iterations").asInt(10),
+                                                    config.path("iterations").asInt(100),
+                                                    config.path("threads").asInt(1));
+        List<Measurement> measurements = selector.benchmark(model, variants, samples, required(config, "output").asText());
+        for (Measurement measurement : measurements)
+            out.printf("%s: mean latency %.3f ms, throughput %.1f/s, drift %.6f%n",
+                       measurement.model(), measurement.meanLatency().toNanos() / 1e6,
+                       measurement.throughput(), measurement.drift());
+        Measurement selected = select(measurements, required(config, "max-drift").asDouble());
+        out.println("Selected: " + selected.model());
+        return selected;
+    }
+
+    private static JsonNode required(JsonNode config, String field) {
+        if ( ! config.hasNonNull(field))
+            throw new IllegalArgumentException("The variant config must contain '" + field + "'");
+        return config.get(field);
+    }
+
+}
@@ -39,13 +39,24 @@ class TensorConverter {
 
     static Map<String, OnnxTensor> toOnnxTensors(Map<String, Tensor> tensorMap, OrtEnvironment env, OrtSession session)
         throws OrtException
+    {
+        return toOnnxTensors(tensorMap, env, session, null);
+    }
+
+    /** Converts the given tensors, writing them to the given reused buffers if they are not null */
+    static Map<String, OnnxTensor> toOnnxTensors(Map<String, Tensor> tensorMap, OrtEnvironment env, OrtSession session,
+                                                 IoBuffers buffers)
+        throws OrtException
     {
         Map<String, OnnxTensor> result = new HashMap<>();
         for (String name : tensorMap.keySet()) {
             Tensor vespaTensor = tensorMap.get(name);
             name = toOnnxName(name, session.getInputInfo().keySet());
             TensorInfo onnxTensorInfo = toTensorInfo(session.getInputInfo().get(name).getInfo());
-            OnnxTensor onnxTensor = toOnnxTensor(vespaTensor, onnxTensorInfo, env);
+            int size = (int)vespaTensor.size() * onnxTensorInfo.type.size;
+            ByteBuffer buffer = buffers != null ? buffers.input(name, size)
+                                                : ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+            OnnxTensor onnxTensor = toOnnxTensor(vespaTensor, onnxTensorInfo, env, buffer);
             result.put(name, onnxTensor);
         }
         return result;
@@ -53,11 +64,18 @@ class TensorConverter {
 
     static OnnxTensor toOnnxTensor(Tensor vespaTensor, TensorInfo onnxTensorInfo, OrtEnvironment environment)
         throws OrtException
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int)vespaTensor.size() * onnxTensorInfo.type.size).order(ByteOrder.nativeOrder());
+        return toOnnxTensor(vespaTensor, onnxTensorInfo, environment, buffer);
+    }
+
+    /** Converts the given tensor by writing it to the given direct buffer, which must have room for exactly all its cells */
+    static OnnxTensor toOnnxTensor(Tensor vespaTensor, TensorInfo onnxTensorInfo, OrtEnvironment environment, ByteBuffer buffer)
+        throws OrtException
     {
         if ( ! (vespaTensor instanceof IndexedTensor tensor)) {
             throw new IllegalArgumentException("OnnxEvaluator currently only supports tensors with indexed dimensions");
         }
-        ByteBuffer buffer = ByteBuffer.allocateDirect((int)tensor.size() * onnxTensorInfo.type.size).order(ByteOrder.nativeOrder());
         if (onnxTensorInfo.type == OnnxJavaType.FLOAT) {
             for (int i = 0; i < tensor.size(); i++)
                 buffer.putFloat(tensor.getFloat(i));
@@ -106,14 +124,6 @@ class TensorConverter {
         float convert(short value);
     }
     
-    private static void extractTensor(FloatBuffer buffer, IndexedTensor.BoundBuilder builder, int totalSize) {
-        for (int i = 0; i < totalSize; i++)
-            builder.cellByDirectIndex(i, buffer.get(i));
-    }
-    private static void extractTensor(DoubleBuffer buffer, IndexedTensor.BoundBuilder builder, int totalSize) {
-        for (int i = 0; i < totalSize; i++)
-            builder.cellByDirectIndex(i, buffer.get(i));
-    }
     private static void extractTensor(ByteBuffer buffer, IndexedTensor.BoundBuilder builder, int totalSize) {
         for (int i = 0; i < totalSize; i++)
             builder.cellByDirectIndex(i, buffer.get(i));
@@ -142,16 +152,20 @@ class TensorConverter {
         TensorInfo tensorInfo = onnxTensor.getInfo();
         TensorType type = toVespaType(onnxTensor.getInfo());
         DimensionSizes sizes = DimensionSizes.of(type);
-        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder) Tensor.Builder.of(type, sizes);
         long totalSizeAsLong = sizes.totalSize();
         if (totalSizeAsLong > Integer.MAX_VALUE) {
             throw new IllegalArgumentException("TotalSize=" + totalSizeAsLong + " currently limited at INTEGER.MAX_VALUE");
         }
 
         int totalSize = (int) totalSizeAsLong;
+        // Wrap float and double values rather than setting them one by one
+        if (tensorInfo.type == OnnxJavaType.FLOAT)
+            return IndexedTensor.Builder.of(type, sizes, toArray(onnxTensor.getFloatBuffer(), totalSize)).build();
+        if (tensorInfo.type == OnnxJavaType.DOUBLE)
+            return IndexedTensor.Builder.of(type, sizes, toArray(onnxTensor.getDoubleBuffer(), totalSize)).build();
+
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder) Tensor.Builder.of(type, sizes);
         switch (tensorInfo.type) {
-            case FLOAT -> extractTensor(onnxTensor.getFloatBuffer(), builder, totalSize);
-            case DOUBLE -> extractTensor(onnxTensor.getDoubleBuffer(), builder, totalSize);
             case INT8 -> extractTensor(onnxTensor.getByteBuffer(), builder, totalSize);
             case INT16 -> extractTensor(onnxTensor.getShortBuffer(), builder, totalSize);
             case INT32 -> extractTensor(onnxTensor.getIntBuffer(), builder, totalSize);
@@ -163,6 +177,21 @@ class TensorConverter {
         return builder.build();
     }
 
+    /** Returns the values of the given buffer as an array, without copying if it is already backed by one */
+    private static float[] toArray(FloatBuffer buffer, int size) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == size) return buffer.array();
+        float[] values = new float[size];
+        buffer.get(0, values);
+        return values;
+    }
+
+    private static double[] toArray(DoubleBuffer buffer, int size) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == size) return buffer.array();
+        double[] values = new double[size];
+        buffer.get(0, values);
+        return values;
+    }
+
     static Map<String, TensorType> toVespaTypes(Map<String, NodeInfo> infoMap) {
         return infoMap.entrySet().stream().collect(Collectors.toMap(e -> asValidName(e.getKey()),
                                                                     e -> toVespaType(e.getValue().getInfo())));
@@ -64,6 +64,26 @@ public class ImportedModel implements ImportedMlModel {
     @Override
     public String source() { return source; }
 
+    /**
+     * Returns a copy of this model which is read from the given source path instead.
+     * The content of the model is shared with this, so it must not be modified afterwards.
+     */
+    public ImportedModel withSource(String source) {
+        ImportedModel copy = new ImportedModel(name, source, modelType);
+        copy.inputs.putAll(inputs);
+        copy.smallConstants.putAll(smallConstants);
+        copy.largeConstants.putAll(largeConstants);
+        copy.expressions.putAll(expressions);
+        copy.functions.putAll(functions);
+        for (Signature signature : signatures.values()) {
+            Signature signatureCopy = copy.signature(signature.name());
+            signatureCopy.inputs.putAll(signature.inputs);
+            signatureCopy.outputs.putAll(signature.outputs);
+            signatureCopy.skippedOutputs.putAll(signature.skippedOutputs);
+        }
+        return copy;
+    }
+
     /** Returns the original model type */
     @Override
     public ModelType modelType() { return modelType; }
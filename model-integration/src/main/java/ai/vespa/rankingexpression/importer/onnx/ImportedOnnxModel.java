@@ -2,15 +2,34 @@
 package ai.vespa.rankingexpression.importer.onnx;
 
 import ai.vespa.rankingexpression.importer.ImportedModel;
+import com.yahoo.tensor.Tensor;
 import onnx.Onnx;
 
+import java.util.LinkedHashMap;
+
 public class ImportedOnnxModel extends ImportedModel {
 
+    private static final int maxConvertedModels = 16;
+
+    /** The max total estimated size of the constants of the converted models kept */
+    static final long maxConvertedBytes = 256L * 1024 * 1024;
+
+    /**
+     * The most recently used conversions to native models, by model name and content hash. This is shared by all
+     * imports, such that a model is not converted again when an unchanged application package is deployed anew.
+     * Only the converted models are kept, not the ONNX models they were converted from. As the constants of
+     * converted models may be large, this is bounded by their total size as well as by the number of models.
+     */
+    private static final LinkedHashMap<ConversionKey, ConvertedModel> convertedModels = new LinkedHashMap<>(16, 0.75f, true);
+    private static long convertedBytes = 0; // Guarded by convertedModels
+
     private final Onnx.ModelProto modelProto;
+    private final long contentHash;
 
-    public ImportedOnnxModel(String name, String source, Onnx.ModelProto modelProto) {
+    public ImportedOnnxModel(String name, String source, Onnx.ModelProto modelProto, long contentHash) {
         super(name, source, ModelType.ONNX);
         this.modelProto = modelProto;
+        this.contentHash = contentHash;
     }
 
     @Override
@@ -20,6 +39,60 @@ public class ImportedOnnxModel extends ImportedModel {
 
     @Override
     public ImportedModel asNative() {
-        return OnnxImporter.convertModel(name(), source(), modelProto, ModelType.ONNX);
+        ConversionKey key = new ConversionKey(name(), contentHash);
+        ConvertedModel converted;
+        synchronized (convertedModels) {
+            converted = convertedModels.get(key);
+        }
+        if (converted == null) {
+            ImportedModel model = OnnxImporter.convertModel(name(), source(), modelProto, ModelType.ONNX);
+            converted = new ConvertedModel(model, sizeOf(model));
+            keep(key, converted);
+        }
+        return converted.model().withSource(source());
+    }
+
+    private static void keep(ConversionKey key, ConvertedModel converted) {
+        if (converted.bytes() > maxConvertedBytes) return;
+        synchronized (convertedModels) {
+            ConvertedModel replaced = convertedModels.put(key, converted);
+            if (replaced != null)
+                convertedBytes -= replaced.bytes();
+            convertedBytes += converted.bytes();
+            var eldest = convertedModels.entrySet().iterator();
+            while (convertedModels.size() > maxConvertedModels || convertedBytes > maxConvertedBytes) {
+                convertedBytes -= eldest.next().getValue().bytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    /** Returns an estimate of the memory used by the constants of the given model, with 8 bytes per cell */
+    private static long sizeOf(ImportedModel model) {
+        long cells = 0;
+        for (Tensor constant : model.smallConstantTensors().values())
+            cells += constant.size();
+        for (Tensor constant : model.largeConstantTensors().values())
+            cells += constant.size();
+        return cells * 8;
     }
+
+    /** Returns the number of converted models currently kept */
+    static int convertedModelCount() {
+        synchronized (convertedModels) {
+            return convertedModels.size();
+        }
+    }
+
+    /** Returns the estimated total size of the converted models currently kept */
+    static long convertedModelBytes() {
+        synchronized (convertedModels) {
+            return convertedBytes;
+        }
+    }
+
+    private record ConvertedModel(ImportedModel model, long bytes) {}
+
+    private record ConversionKey(String name, long contentHash) {}
+
 }
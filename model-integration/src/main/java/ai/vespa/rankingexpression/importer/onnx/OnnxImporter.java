@@ -6,11 +6,15 @@ import ai.vespa.rankingexpression.importer.ImportedModel;
 import ai.vespa.rankingexpression.importer.IntermediateGraph;
 import ai.vespa.rankingexpression.importer.ModelImporter;
 import ai.vespa.rankingexpression.importer.configmodelview.ImportedMlModel;
+import net.jpountz.xxhash.StreamingXXHash64;
+import net.jpountz.xxhash.XXHashFactory;
 import onnx.Onnx;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Converts a ONNX model into a ranking expression and set of constants.
@@ -29,11 +33,11 @@ public class OnnxImporter extends ModelImporter {
 
     @Override
     public ImportedModel importModel(String modelName, String modelPath) {
-        try (FileInputStream inputStream = new FileInputStream(modelPath)) {
+        try (HashingInputStream inputStream = new HashingInputStream(new FileInputStream(modelPath))) {
             Onnx.ModelProto model = Onnx.ModelProto.parseFrom(inputStream);
             // long version = model.getOpsetImport(0).getVersion();  // opset version
 
-            ImportedModel importedModel = new ImportedOnnxModel(modelName, modelPath, model);
+            ImportedModel importedModel = new ImportedOnnxModel(modelName, modelPath, model, inputStream.hash());
             for (int i = 0; i < model.getGraph().getOutputCount(); ++i) {
                 Onnx.ValueInfoProto output = model.getGraph().getOutput(i);
                 String outputName = asValidIdentifier(output.getName());
@@ -59,6 +63,48 @@ public class OnnxImporter extends ModelImporter {
         return str.replaceAll("[^\\w\\d\\$@_]", "_");
     }
 
+    /** Computes the hash of the content read through it, without keeping the content */
+    private static class HashingInputStream extends FilterInputStream {
+
+        private final StreamingXXHash64 hash = XXHashFactory.fastestInstance().newStreamingHash64(0);
+        private final byte[] single = new byte[1];
+
+        HashingInputStream(InputStream in) { super(in); }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                single[0] = (byte)b;
+                hash.update(single, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0)
+                hash.update(buffer, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped content must be hashed too, so read it instead
+            if (n <= 0) return 0;
+            return Math.max(0, read(new byte[(int)Math.min(n, 8192)]));
+        }
+
+        /** Returns the hash of the entire content of the underlying stream, after reading whatever is left */
+        long hash() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) >= 0) { }
+            return hash.getValue();
+        }
+
+    }
+
     static ImportedModel convertModel(String name, String source, Onnx.ModelProto modelProto, ImportedMlModel.ModelType modelType) {
          IntermediateGraph graph = GraphImporter.importGraph(name, modelProto);
          return convertIntermediateGraphToModel(graph, source, modelType);
@@ -1,15 +1,19 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.embedding;
 
+import ai.vespa.metrics.ContainerMetrics;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime;
 import com.yahoo.config.ModelReference;
 import com.yahoo.embedding.BertBaseEmbedderConfig;
+import com.yahoo.embedding.EmbedderRuntimeConfig;
 import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
@@ -70,6 +74,45 @@ public class BertBaseEmbedderTest {
         assertThrows(IllegalArgumentException.class, () -> { newBertBaseEmbedder(builder.build()); });
     }
 
+    @Test
+    public void testBatchedEmbeddings() {
+        String vocabPath = "src/test/models/onnx/transformer/dummy_vocab.txt";
+        String modelPath = "src/test/models/onnx/transformer/dummy_token_embedder.onnx";
+        assumeTrue(OnnxRuntime.isRuntimeAvailable(modelPath));
+
+        BertBaseEmbedderConfig.Builder builder = new BertBaseEmbedderConfig.Builder();
+        builder.tokenizerVocab(ModelReference.valueOf(vocabPath));
+        builder.transformerModel(ModelReference.valueOf(modelPath));
+        builder.transformerStartSequenceToken(1); // within the vocabulary of the dummy model
+        builder.transformerEndSequenceToken(2);
+        var metrics = new MetricReceiver.MockReceiver();
+        var embedder = new BertBaseEmbedder(new OnnxRuntime(), new EmbedderRuntime(metrics, new EmbedderRuntimeConfig.Builder().build()),
+                                            builder.build());
+
+        TensorType destType = TensorType.fromSpec("tensor<float>(x[16])");
+        // Texts of different lengths, which are evaluated in two batches
+        String letters = "abcdefghijklmnopqrs";
+        List<String> texts = IntStream.range(0, 40)
+                                      .mapToObj(i -> letters.charAt(i % 19) + " " + letters.charAt(i / 19) + " c d".substring(0, 2 * (i % 3)))
+                                      .toList();
+        List<Tensor> embeddings = embedder.embed(texts, new Embedder.Context("schema.indexing"), destType);
+        assertEquals(1, embeddingLatencySamples(metrics)); // Sampled once per call, not per batch
+
+        assertEquals(texts.size(), embeddings.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(embedder.embed(texts.get(i), new Embedder.Context("schema.indexing"), destType), embeddings.get(i));
+        }
+        assertEquals(texts.size(), embeddingLatencySamples(metrics));
+    }
+
+    /** Returns the number of embedding latency samples since the last call to this */
+    private static long embeddingLatencySamples(MetricReceiver.MockReceiver metrics) {
+        long count = 0;
+        for (var value : metrics.getSnapshot().getValuesForMetric(ContainerMetrics.EMBEDDER_LATENCY.baseName()))
+            count += value.getValue().getCount();
+        return count;
+    }
+
     private static BertBaseEmbedder newBertBaseEmbedder(BertBaseEmbedderConfig cfg) {
         return new BertBaseEmbedder(new OnnxRuntime(), Embedder.Runtime.testInstance(), cfg);
     }
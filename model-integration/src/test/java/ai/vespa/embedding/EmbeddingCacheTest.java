@@ -0,0 +1,90 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.embedding.EmbedderRuntimeConfig;
+import com.yahoo.language.Language;
+import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EmbeddingCacheTest {
+
+    private static final TensorType type = TensorType.fromSpec("tensor<float>(x[4])");
+
+    @Test
+    public void testLookups() {
+        var cache = new EmbeddingCache(1024 * 1024);
+        Tensor embedding = Tensor.from(type, "[1, 2, 3, 4]");
+        cache.put(key("a text", Language.ENGLISH, type), embedding);
+
+        assertEquals(embedding, cache.get(key("a text", Language.ENGLISH, type)));
+        assertNull(cache.get(key("another text", Language.ENGLISH, type)));
+        assertNull(cache.get(key("a text", Language.GERMAN, type)));
+        assertNull(cache.get(key("a text", Language.ENGLISH, TensorType.fromSpec("tensor<bfloat16>(x[4])"))));
+        assertNull(cache.get(EmbeddingCache.Key.of("embedder", "otherModel", Language.ENGLISH, type, "a text")));
+        assertEquals(1, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(EmbeddingCache.sizeOf(embedding), cache.sizeBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        long entrySize = EmbeddingCache.sizeOf(Tensor.from(type, "[1, 2, 3, 4]"));
+        // All keys below may end up in the same segment, so this must hold 2 entries per segment
+        var cache = new EmbeddingCache(16 * 2 * entrySize);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(key("text " + i, Language.ENGLISH, type), Tensor.from(type, "[" + i + ", 0, 0, 0]"));
+            assertEquals(Tensor.from(type, "[0, 0, 0, 0]"), cache.get(key("text 0", Language.ENGLISH, type)));
+        }
+        assertEquals(Tensor.from(type, "[999, 0, 0, 0]"), cache.get(key("text 999", Language.ENGLISH, type)));
+        assertNull(cache.get(key("text 1", Language.ENGLISH, type)));
+        assertTrue(cache.sizeBytes() <= 16 * 2 * entrySize);
+    }
+
+    @Test
+    public void testModelIdChangesWithConfig() {
+        assertEquals(EmbeddingCache.modelIdOf(new EmbedderRuntimeConfig.Builder().build()),
+                     EmbeddingCache.modelIdOf(new EmbedderRuntimeConfig.Builder().build()));
+        assertNotEquals(EmbeddingCache.modelIdOf(new EmbedderRuntimeConfig.Builder().build()),
+                        EmbeddingCache.modelIdOf(new EmbedderRuntimeConfig.Builder().cacheMaxSizeMb(1).build()));
+    }
+
+    @Test
+    public void testRuntimeCachesEmbeddings() {
+        var metrics = new MetricReceiver.MockReceiver();
+        var runtime = new EmbedderRuntime(metrics, new EmbedderRuntimeConfig.Builder().cacheMaxSizeMb(1).build());
+        var context = new Embedder.Context("query(q)").setEmbedderId("embedder");
+        int[] evaluations = new int[1];
+        for (int i = 0; i < 3; i++) {
+            Tensor embedding = runtime.computeCachedEmbeddingIfAbsent("a text", context, type, "model", () -> {
+                evaluations[0]++;
+                return Tensor.from(type, "[1, 2, 3, 4]");
+            });
+            assertEquals(Tensor.from(type, "[1, 2, 3, 4]"), embedding);
+        }
+        assertEquals(1, evaluations[0]);
+        var snapshot = metrics.getSnapshot();
+        assertEquals(2, snapshot.getValuesForMetric("embedder.cache.hits").iterator().next().getValue().getCount());
+        assertEquals(1, snapshot.getValuesForMetric("embedder.cache.misses").iterator().next().getValue().getCount());
+    }
+
+    @Test
+    public void testRuntimeCacheIsDisabledByDefault() {
+        var runtime = new EmbedderRuntime(new MetricReceiver.MockReceiver(), new EmbedderRuntimeConfig.Builder().build());
+        var context = new Embedder.Context("query(q)");
+        runtime.putCachedEmbedding("a text", context, type, "model", Tensor.from(type, "[1, 2, 3, 4]"));
+        assertNull(runtime.getCachedEmbedding("a text", context, type, "model"));
+    }
+
+    private static EmbeddingCache.Key key(String text, Language language, TensorType type) {
+        return EmbeddingCache.Key.of("embedder", "model", language, type, text);
+    }
+
+}
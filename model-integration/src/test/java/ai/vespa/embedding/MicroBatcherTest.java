@@ -0,0 +1,66 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class MicroBatcherTest {
+
+    @Test
+    public void testConcurrentInputsAreEvaluatedInOneBatch() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        // A long max delay, such that the batch is evaluated when it is full
+        var batcher = new MicroBatcher<Integer, String>(inputs -> {
+                                                            batches.add(List.copyOf(inputs));
+                                                            return inputs.stream().map(i -> "out" + i).toList();
+                                                        },
+                                                        4, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> outputs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int input = i;
+                outputs.add(executor.submit(() -> batcher.evaluate(input)));
+            }
+            for (int i = 0; i < 4; i++)
+                assertEquals("out" + i, outputs.get(i).get());
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(1, batches.size());
+        assertEquals(4, batches.get(0).size());
+    }
+
+    @Test
+    public void testBatchIsEvaluatedAfterMaxDelay() {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        var batcher = new MicroBatcher<Integer, String>(inputs -> {
+                                                            batches.add(List.copyOf(inputs));
+                                                            return inputs.stream().map(i -> "out" + i).toList();
+                                                        },
+                                                        4, Duration.ofMillis(1));
+        assertEquals("out1", batcher.evaluate(1));
+        assertEquals("out2", batcher.evaluate(2));
+        assertEquals(List.of(List.of(1), List.of(2)), batches);
+    }
+
+    @Test
+    public void testEvaluationErrorsArePropagated() {
+        var batcher = new MicroBatcher<Integer, String>(inputs -> { throw new IllegalArgumentException("bad input"); },
+                                                        4, Duration.ofMillis(1));
+        var e = assertThrows(IllegalArgumentException.class, () -> batcher.evaluate(1));
+        assertEquals("bad input", e.getMessage());
+    }
+
+}
@@ -0,0 +1,44 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TokenBatchesTest {
+
+    @Test
+    public void testBatchingPaddingAndSlicing() {
+        List<List<Integer>> sequences = List.of(List.of(1, 2, 3), List.of(4), List.of(5, 6));
+        List<int[]> batches = TokenBatches.groupByLength(sequences);
+        assertEquals(1, batches.size());
+        assertArrayEquals(new int[] { 1, 2, 0 }, batches.get(0));
+        assertEquals(3, TokenBatches.maxLength(sequences, batches.get(0)));
+
+        IndexedTensor padded = TokenBatches.pad(sequences, batches.get(0), 3);
+        assertEquals(Tensor.from("tensor<float>(d0[3],d1[3]):[[4, 0, 0], [5, 6, 0], [1, 2, 3]]"), padded);
+
+        IndexedTensor output = (IndexedTensor)Tensor.from("tensor<float>(d0[2],d1[3],d2[2]):" +
+                                                          "[[[1, 2], [3, 4], [0, 0]], [[5, 6], [7, 8], [9, 10]]]");
+        assertEquals(Tensor.from("tensor<float>(d0[1],d1[2],d2[2]):[[[1, 2], [3, 4]]]"), TokenBatches.sequence(output, 0, 2));
+        assertEquals(Tensor.from("tensor<float>(d0[1],d1[3],d2[2]):[[[5, 6], [7, 8], [9, 10]]]"), TokenBatches.sequence(output, 1, 3));
+    }
+
+    @Test
+    public void testBatchSizeIsLimited() {
+        List<List<Integer>> sequences = new ArrayList<>();
+        for (int i = 0; i < TokenBatches.maxBatchSize + 1; i++)
+            sequences.add(List.of(i));
+        List<int[]> batches = TokenBatches.groupByLength(sequences);
+        assertEquals(2, batches.size());
+        assertEquals(TokenBatches.maxBatchSize, batches.get(0).length);
+        assertEquals(1, batches.get(1).length);
+    }
+
+}
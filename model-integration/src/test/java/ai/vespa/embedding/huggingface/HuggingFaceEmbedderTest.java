@@ -2,16 +2,24 @@
 package ai.vespa.embedding.huggingface;
 
 
+import ai.vespa.embedding.EmbedderRuntime;
+import ai.vespa.metrics.ContainerMetrics;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime;
 import com.yahoo.config.ModelReference;
+import com.yahoo.embedding.EmbedderRuntimeConfig;
 import com.yahoo.embedding.huggingface.HuggingFaceEmbedderConfig;
 import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TensorAddress;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assume.assumeTrue;
@@ -85,6 +93,99 @@ public class HuggingFaceEmbedderTest {
         embedder.embed(input, copyContext,TensorType.fromSpec("tensor<int8>(x[2])"));
         assertNotEquals(modelOuput, copyContext.getCachedValue(key));
     }
+    @Test
+    public void testBatchedEmbedding() {
+        var context = new Embedder.Context("schema.indexing");
+        var type = TensorType.fromSpec("tensor<float>(x[8])");
+        var texts = List.of("This is a test", "A", "This is a longer test string to embed", "This is a test");
+        var embeddings = embedder.embed(texts, context, type);
+        assertEquals(texts.size(), embeddings.size());
+        for (int i = 0; i < texts.size(); i++) {
+            Tensor expected = embedder.embed(texts.get(i), new Embedder.Context("schema.indexing"), type);
+            for (int j = 0; j < 8; j++)
+                assertEquals(expected.get(TensorAddress.of(j)), embeddings.get(i).get(TensorAddress.of(j)), 1e-4);
+        }
+        assertNotNull(context.getCachedValue(new HuggingFaceEmbedder.HFEmbedderCacheKey(context.getEmbedderId(), "A")));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreBatched() throws Exception {
+        var batchingEmbedder = getBatchingEmbedder();
+        var type = TensorType.fromSpec("tensor<float>(x[8])");
+        var queryContext = new Embedder.Context("query(q)").setEmbedderId("query-embedder");
+        var documentContext = new Embedder.Context("schema.indexing").setEmbedderId("document-embedder");
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            // The batch is evaluated when both have been submitted
+            var query = executor.submit(() -> batchingEmbedder.embed("This is a query", queryContext, type));
+            var document = executor.submit(() -> batchingEmbedder.embed("This is a longer document text", documentContext, type));
+            assertEquals(embedder.embed("This is a query", new Embedder.Context("query(q)"), type), query.get());
+            assertEquals(embedder.embed("This is a longer document text", new Embedder.Context("schema.indexing"), type), document.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+        var queryResult = (HuggingFaceEmbedder.HFEmbeddingResult) queryContext.getCachedValue(
+                new HuggingFaceEmbedder.HFEmbedderCacheKey("query-embedder", "This is a query"));
+        var documentResult = (HuggingFaceEmbedder.HFEmbeddingResult) documentContext.getCachedValue(
+                new HuggingFaceEmbedder.HFEmbedderCacheKey("document-embedder", "This is a longer document text"));
+        assertEquals("query-embedder", queryResult.embedderId());
+        assertEquals("document-embedder", documentResult.embedderId());
+    }
+
+    @Test
+    public void testEmbeddingsAreCachedBetweenRequests() {
+        var metrics = new MetricReceiver.MockReceiver();
+        var runtime = new EmbedderRuntime(metrics, new EmbedderRuntimeConfig.Builder().cacheMaxSizeMb(1).build());
+        var embedder = getEmbedder(runtime, false);
+        var type = TensorType.fromSpec("tensor<float>(x[8])");
+        String input = "This is a test";
+
+        Tensor result = embedder.embed(input, new Embedder.Context("query(q)"), type);
+        assertEquals(result, embedder.embed(input, new Embedder.Context("query(q)"), type));
+        assertArrayEquals(new long[] { 1, 1 }, cacheHitsAndMisses(metrics));
+
+        // Embeddings are cached by model and settings, also for embedders with the same id
+        Tensor normalized = getEmbedder(runtime, true).embed(input, new Embedder.Context("query(q)"), type);
+        assertNotEquals(result, normalized);
+        assertArrayEquals(new long[] { 0, 1 }, cacheHitsAndMisses(metrics));
+
+        List<Tensor> results = embedder.embed(List.of(input, "This is another test"), new Embedder.Context("query(q)"), type);
+        assertEquals(result, results.get(0));
+        assertArrayEquals(new long[] { 1, 1 }, cacheHitsAndMisses(metrics));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEmbeddingsAreEvicted() {
+        var metrics = new MetricReceiver.MockReceiver();
+        var runtime = new EmbedderRuntime(metrics, new EmbedderRuntimeConfig.Builder().cacheMaxSizeMb(1).build());
+        var embedder = getEmbedder(runtime, false);
+        var type = TensorType.fromSpec("tensor<double>(x[384])"); // About 300 of these fit in the cache
+
+        embedder.embed("text 0", new Embedder.Context("query(q)"), type);
+        embedder.embed("text 0", new Embedder.Context("query(q)"), type);
+        assertArrayEquals(new long[] { 1, 1 }, cacheHitsAndMisses(metrics));
+
+        List<String> texts = IntStream.range(1, 1000).mapToObj(i -> "text " + i).toList();
+        embedder.embed(texts, new Embedder.Context("query(q)"), type);
+        assertArrayEquals(new long[] { 0, texts.size() }, cacheHitsAndMisses(metrics));
+
+        embedder.embed("text 0", new Embedder.Context("query(q)"), type); // Evicted
+        embedder.embed("text 0", new Embedder.Context("query(q)"), type);
+        assertArrayEquals(new long[] { 1, 1 }, cacheHitsAndMisses(metrics));
+    }
+
+    /** Returns the number of hits and misses in the shared embedding cache since the last call to this */
+    private static long[] cacheHitsAndMisses(MetricReceiver.MockReceiver metrics) {
+        var snapshot = metrics.getSnapshot();
+        long[] counts = new long[2];
+        for (var value : snapshot.getValuesForMetric(ContainerMetrics.EMBEDDER_CACHE_HITS.baseName()))
+            counts[0] += value.getValue().getCount();
+        for (var value : snapshot.getValuesForMetric(ContainerMetrics.EMBEDDER_CACHE_MISSES.baseName()))
+            counts[1] += value.getValue().getCount();
+        return counts;
+    }
+
     @Test
     public void testEmbedder() {
         var context = new Embedder.Context("schema.indexing");
@@ -186,6 +287,31 @@ public class HuggingFaceEmbedderTest {
         builder.transformerGpuDevice(-1);
         return new HuggingFaceEmbedder(new OnnxRuntime(), Embedder.Runtime.testInstance(), builder.build());
     }
+    private static HuggingFaceEmbedder getEmbedder(Embedder.Runtime runtime, boolean normalize) {
+        String vocabPath = "src/test/models/onnx/transformer/real_tokenizer.json";
+        String modelPath = "src/test/models/onnx/transformer/embedding_model.onnx";
+        assumeTrue(OnnxRuntime.isRuntimeAvailable(modelPath));
+        HuggingFaceEmbedderConfig.Builder builder = new HuggingFaceEmbedderConfig.Builder();
+        builder.tokenizerPath(ModelReference.valueOf(vocabPath));
+        builder.transformerModel(ModelReference.valueOf(modelPath));
+        builder.transformerGpuDevice(-1);
+        builder.normalize(normalize);
+        return new HuggingFaceEmbedder(new OnnxRuntime(), runtime, builder.build());
+    }
+
+    private static HuggingFaceEmbedder getBatchingEmbedder() {
+        String vocabPath = "src/test/models/onnx/transformer/real_tokenizer.json";
+        String modelPath = "src/test/models/onnx/transformer/embedding_model.onnx";
+        assumeTrue(OnnxRuntime.isRuntimeAvailable(modelPath));
+        HuggingFaceEmbedderConfig.Builder builder = new HuggingFaceEmbedderConfig.Builder();
+        builder.tokenizerPath(ModelReference.valueOf(vocabPath));
+        builder.transformerModel(ModelReference.valueOf(modelPath));
+        builder.transformerGpuDevice(-1);
+        builder.batchingMaxSize(2);
+        builder.batchingMaxDelayMicros(60_000_000);
+        return new HuggingFaceEmbedder(new OnnxRuntime(), Embedder.Runtime.testInstance(), builder.build());
+    }
+
     private static HuggingFaceEmbedder getNormalizedEmbedder() {
         String vocabPath = "src/test/models/onnx/transformer/real_tokenizer.json";
         String modelPath = "src/test/models/onnx/transformer/embedding_model.onnx";
@@ -100,6 +100,56 @@ public class OnnxEvaluatorTest {
         assertEvaluate(runtime,"cast_bfloat16_float.onnx", "tensor<float>(d0[1]):[1]", "tensor<bfloat16>(d0[1]):[1]");
     }
 
+    @Test
+    public void testReusedBuffers() throws InterruptedException {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        var runtime = new OnnxRuntime();
+        var options = new OnnxEvaluatorOptions();
+        options.setReuseBuffers(true);
+
+        // Fixed output shapes, which are written to reused tensors
+        try (OnnxEvaluator evaluator = runtime.evaluatorOf("src/test/models/onnx/simple/simple.onnx", options)) {
+            for (int i = 0; i < 3; i++) {
+                Map<String, Tensor> inputs = new HashMap<>();
+                inputs.put("query_tensor", Tensor.from("tensor(d0[1],d1[4]):[0.1, 0.2, 0.3, 0.4]"));
+                inputs.put("attribute_tensor", Tensor.from("tensor(d0[4],d1[1]):[0.1, 0.2, 0.3, 0.4]"));
+                inputs.put("bias_tensor", Tensor.from("tensor(d0[1],d1[1]):[" + i + "]"));
+                assertEquals(Tensor.from("tensor(d0[1],d1[1]):[" + (i + 0.3) + "]"), evaluator.evaluate(inputs).get("output"));
+                assertEquals(Tensor.from("tensor(d0[1],d1[1]):[" + (i + 0.3) + "]"), evaluator.evaluate(inputs, "output"));
+            }
+        }
+
+        // Varying input and output shapes
+        try (OnnxEvaluator evaluator = runtime.evaluatorOf("src/test/models/onnx/pytorch/one_layer.onnx", options)) {
+            for (int i = 0; i < 2; i++) {
+                assertEquals(Tensor.from("tensor<float>(d0[2],d1[1]):[0.6393113,0.67574286]"),
+                             evaluator.evaluate(Map.of("input", Tensor.from("tensor<float>(d0[2],d1[3]):[[0.1, 0.2, 0.3],[0.4,0.5,0.6]]")), "output"));
+                assertEquals(Tensor.from("tensor<float>(d0[1],d1[1]):[0.6393113]"),
+                             evaluator.evaluate(Map.of("input", Tensor.from("tensor<float>(d0[1],d1[3]):[[0.1, 0.2, 0.3]]")), "output"));
+            }
+        }
+
+        // The buffers of all threads are released on close
+        OnnxEvaluator evaluator = runtime.evaluatorOf("src/test/models/onnx/simple/simple.onnx", options);
+        Map<String, Tensor> inputs = Map.of("query_tensor", Tensor.from("tensor(d0[1],d1[4]):[0.1, 0.2, 0.3, 0.4]"),
+                                            "attribute_tensor", Tensor.from("tensor(d0[4],d1[1]):[0.1, 0.2, 0.3, 0.4]"),
+                                            "bias_tensor", Tensor.from("tensor(d0[1],d1[1]):[1]"));
+        Thread other = new Thread(() -> evaluator.evaluate(inputs));
+        other.start();
+        evaluator.evaluate(inputs);
+        other.join();
+        assertEquals(2, evaluator.reusedBufferCount());
+        evaluator.close();
+        assertEquals(0, evaluator.reusedBufferCount());
+
+        for (int i = 0; i < 2; i++) {
+            assertEvaluate(runtime, options, "add_double.onnx", "tensor(d0[1]):[3]", "tensor(d0[1]):[1]", "tensor(d0[1]):[2]");
+            assertEvaluate(runtime, options, "add_float16.onnx", "tensor<float>(d0[1]):[3]", "tensor<float>(d0[1]):[1]", "tensor<float>(d0[1]):[2]");
+            assertEvaluate(runtime, options, "add_int64.onnx", "tensor<double>(d0[1]):[3]", "tensor<double>(d0[1]):[1]", "tensor<double>(d0[1]):[2]");
+            assertEvaluate(runtime, options, "cast_float_int8.onnx", "tensor<int8>(d0[1]):[-1]", "tensor<float>(d0[1]):[255]");
+        }
+    }
+
     @Test
     public void testNotIdentifiers() {
         assumeTrue(OnnxRuntime.isRuntimeAvailable());
@@ -203,7 +253,11 @@ public class OnnxEvaluatorTest {
     }
 
     private void assertEvaluate(OnnxRuntime runtime, String model, String output, String... input) {
-        OnnxEvaluator evaluator = runtime.evaluatorOf("src/test/models/onnx/" + model);
+        assertEvaluate(runtime, new OnnxEvaluatorOptions(), model, output, input);
+    }
+
+    private void assertEvaluate(OnnxRuntime runtime, OnnxEvaluatorOptions options, String model, String output, String... input) {
+        OnnxEvaluator evaluator = runtime.evaluatorOf("src/test/models/onnx/" + model, options);
         Map<String, Tensor> inputs = new HashMap<>();
         for (int i = 0; i < input.length; ++i) {
             inputs.put("input" + (i+1), Tensor.from(input[i]));
@@ -0,0 +1,106 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package ai.vespa.modelintegration.evaluator;
+
+import ai.vespa.modelintegration.evaluator.OnnxModelVariantSelector.Measurement;
+import com.yahoo.tensor.Tensor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class OnnxModelVariantSelectorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testBenchmark() {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        var selector = new OnnxModelVariantSelector(new OnnxRuntime(), new OnnxEvaluatorOptions(), 1, 5, 2);
+        var samples = List.of(Map.of("input1", Tensor.from("tensor<float>(d0[1]):[1]"),
+                                     "input2", Tensor.from("tensor<float>(d0[1]):[2]")),
+                              Map.of("input1", Tensor.from("tensor<float>(d0[1]):[3]"),
+                                     "input2", Tensor.from("tensor<float>(d0[1]):[-4]")));
+        // The double model computes the same as the float model
+        var measurements = selector.benchmark("src/test/models/onnx/add_float.onnx",
+                                              List.of("src/test/models/onnx/add_double.onnx"),
+                                              samples, "output");
+        assertEquals(2, measurements.size());
+        assertEquals("src/test/models/onnx/add_float.onnx", measurements.get(0).model());
+        assertEquals("src/test/models/onnx/add_double.onnx", measurements.get(1).model());
+        for (var measurement : measurements) {
+            assertEquals(0, measurement.drift(), 1e-9);
+            assertTrue(measurement.meanLatency().toNanos() > 0);
+            assertTrue(measurement.throughput() > 0);
+        }
+    }
+
+    @Test
+    public void testRunFromConfig() throws IOException {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        Path directory = tmp.newFolder().toPath();
+        Files.copy(Path.of("src/test/models/onnx/add_float.onnx"), directory.resolve("add_float.onnx"));
+        Files.copy(Path.of("src/test/models/onnx/add_double.onnx"), directory.resolve("add_double.onnx"));
+        Path config = directory.resolve("variants.json");
+        Files.writeString(config, """
+                          {
+                              "model": "add_float.onnx",
+                              "variants": [ "add_double.onnx" ],
+                              "output": "output",
+                              "max-drift": 0.01,
+                              "samples": [ { "input1": "tensor<float>(d0[1]):[1]", "input2": "tensor<float>(d0[1]):[2]" } ],
+                              "warmup-iterations": 1,
+                              "iterations": 2
+                          }
+                          """);
+        var printed = new ByteArrayOutputStream();
+        Measurement selected = OnnxModelVariantSelector.run(config, new PrintStream(printed, true));
+        String output = printed.toString();
+        assertTrue(output.contains(directory.resolve("add_float.onnx") + ": mean latency"));
+        assertTrue(output.contains(directory.resolve("add_double.onnx") + ": mean latency"));
+        assertTrue(output.endsWith("Selected: " + selected.model() + System.lineSeparator()));
+    }
+
+    @Test
+    public void testSelection() {
+        var reference = new Measurement("fp32", Duration.ofMillis(10), 100, 0);
+        var fastButInaccurate = new Measurement("int4", Duration.ofMillis(3), 333, 0.1);
+        var fast = new Measurement("int8", Duration.ofMillis(5), 200, 0.005);
+        var slow = new Measurement("fp16", Duration.ofMillis(12), 80, 0.001);
+        assertEquals(fast, OnnxModelVariantSelector.select(List.of(reference, fastButInaccurate, fast, slow), 0.01));
+        assertEquals(fastButInaccurate, OnnxModelVariantSelector.select(List.of(reference, fastButInaccurate, fast, slow), 0.1));
+        assertEquals(reference, OnnxModelVariantSelector.select(List.of(reference, fastButInaccurate, fast, slow), 0.001));
+        assertEquals(reference, OnnxModelVariantSelector.select(List.of(reference), 0));
+
+        // Throughput with concurrent evaluations decides, not the latency of single evaluations
+        var scalable = new Measurement("int8-scalable", Duration.ofMillis(6), 300, 0.005);
+        assertEquals(scalable, OnnxModelVariantSelector.select(List.of(reference, fast, scalable), 0.01));
+    }
+
+    @Test
+    public void testCosineDistance() {
+        assertEquals(0, OnnxModelVariantSelector.cosineDistance(Tensor.from("tensor(x[2]):[1, 2]"),
+                                                                Tensor.from("tensor<float>(x[2]):[2, 4]")), 1e-9);
+        assertEquals(1, OnnxModelVariantSelector.cosineDistance(Tensor.from("tensor(x[2]):[1, 0]"),
+                                                                Tensor.from("tensor(x[2]):[0, 1]")), 1e-9);
+        assertEquals(2, OnnxModelVariantSelector.cosineDistance(Tensor.from("tensor(x[2]):[1, 0]"),
+                                                                Tensor.from("tensor(x[2]):[-1, 0]")), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY,
+                     OnnxModelVariantSelector.cosineDistance(Tensor.from("tensor(x[2]):[1, 0]"),
+                                                             Tensor.from("tensor(x[3]):[1, 0, 0]")), 0);
+    }
+
+}
@@ -0,0 +1,75 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer.onnx;
+
+import ai.vespa.rankingexpression.importer.ImportedModel;
+import com.yahoo.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ImportedOnnxModelTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testConversionsAreReusedByContent() throws IOException {
+        File first = copy("simple", tmp.newFolder("session1"));
+        File second = copy("simple", tmp.newFolder("session2"));
+        File changed = new File(tmp.newFolder("session3"), "simple.onnx");
+        IOUtils.copy(new File("src/test/models/onnx/simple/matmul.onnx"), changed);
+
+        ImportedModel firstModel = importAsNative("reused", first);
+        ImportedModel secondModel = importAsNative("reused", second);
+        assertEquals(second.toString(), secondModel.source());
+        assertNotSame(firstModel, secondModel);
+        assertSame("The converted model is reused",
+                   firstModel.expressions().get("output"), secondModel.expressions().get("output"));
+
+        ImportedModel changedModel = importAsNative("reused", changed);
+        assertEquals(importAsNative("matmul", changed).expressions().keySet(), changedModel.expressions().keySet());
+        assertNotSame(firstModel.expressions().get("output"), changedModel.expressions().get("output"));
+    }
+
+    @Test
+    public void testConversionsAreBounded() throws IOException {
+        File model = copy("simple", tmp.newFolder("models"));
+        for (int i = 0; i < 20; i++)
+            importAsNative("model" + i, model);
+        assertTrue(ImportedOnnxModel.convertedModelCount() <= 16);
+        assertTrue(ImportedOnnxModel.convertedModelBytes() <= ImportedOnnxModel.maxConvertedBytes);
+    }
+
+    @Test
+    public void testConversionsAreReusedWhenHashingLargeModels() throws IOException {
+        // A model with large constants, which protobuf reads through the hashing stream in several reads
+        File first = new File(tmp.newFolder("first"), "model.onnx");
+        File second = new File(tmp.newFolder("second"), "model.onnx");
+        IOUtils.copy(new File("src/test/models/onnx/mnist_softmax/mnist_softmax.onnx"), first);
+        IOUtils.copy(new File("src/test/models/onnx/mnist_softmax/mnist_softmax.onnx"), second);
+        long bytesBefore = ImportedOnnxModel.convertedModelBytes();
+        ImportedModel firstModel = importAsNative("large", first);
+        assertTrue("The constants of the model are counted", ImportedOnnxModel.convertedModelBytes() > bytesBefore);
+        assertSame(firstModel.largeConstantTensors().values().iterator().next(),
+                   importAsNative("large", second).largeConstantTensors().values().iterator().next());
+    }
+
+    private static ImportedModel importAsNative(String name, File model) {
+        return new OnnxImporter().importModel(name, model.toString()).asNative();
+    }
+
+    private static File copy(String modelName, File directory) throws IOException {
+        File model = new File(directory, modelName + ".onnx");
+        IOUtils.copy(new File("src/test/models/onnx/simple/" + modelName + ".onnx"), model);
+        return model;
+    }
+
+}
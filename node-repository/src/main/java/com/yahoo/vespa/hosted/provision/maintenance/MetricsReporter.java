@@ -157,6 +157,10 @@ public class MetricsReporter extends NodeRepositoryMaintainer {
         metric.set(ConfigServerMetrics.CACHE_NODE_OBJECT_EVICTION_COUNT.baseName(), nodeCacheStats.evictionCount(), null);
         metric.set(ConfigServerMetrics.CACHE_NODE_OBJECT_SIZE.baseName(), nodeCacheStats.size(), null);
 
+        CacheStats nodeListCacheStats = nodeRepository().database().nodeListCacheStats();
+        metric.set(ConfigServerMetrics.CACHE_NODE_LIST_HIT_RATE.baseName(), nodeListCacheStats.hitRate(), null);
+        metric.set(ConfigServerMetrics.CACHE_NODE_LIST_SIZE.baseName(), nodeListCacheStats.size(), null);
+
         CacheStats curatorCacheStats = nodeRepository().database().cacheStats();
         metric.set(ConfigServerMetrics.CACHE_CURATOR_HIT_RATE.baseName(), curatorCacheStats.hitRate(), null);
         metric.set(ConfigServerMetrics.CACHE_CURATOR_EVICTION_COUNT.baseName(), curatorCacheStats.evictionCount(), null);
@@ -104,10 +104,8 @@ public class Nodes {
      * @param inState the states to return nodes from. If no states are given, all nodes are returned
      */
     public NodeList list(Node.State... inState) {
-        NodeList allNodes = NodeList.copyOf(db.readNodes());
-        NodeList nodes = inState.length == 0 ? allNodes : allNodes.state(Set.of(inState));
-        nodes = NodeList.copyOf(nodes.stream().toList());
-        return nodes;
+        NodeList allNodes = NodeList.copyOf(db.readNodes()); // Shares the immutable list read by db
+        return inState.length == 0 ? allNodes : allNodes.state(Set.of(inState));
     }
 
     /** Returns a locked list of all nodes in this repository */
@@ -172,6 +172,9 @@ public class CachingCurator {
             return get(stats, path, () -> curator.getStat(path).map(Stat::getVersion));
         }
 
+        @Override
+        public boolean isCached() { return true; }
+
         private <T> T get(Map<Path, T> values, Path path, Supplier<T> loader) {
             return values.compute(path, (key, value) -> {
                 if (value == null) {
@@ -206,6 +209,9 @@ public class CachingCurator {
             return curator.getStat(path).map(Stat::getVersion);
         }
 
+        @Override
+        public boolean isCached() { return false; }
+
     }
 
     interface Session {
@@ -222,6 +228,9 @@ public class CachingCurator {
 
         Optional<Integer> getStat(Path path);
 
+        /** Returns whether reads in this session always return the same result, i.e., whether reads are cached */
+        boolean isCached();
+
     }
 
 }
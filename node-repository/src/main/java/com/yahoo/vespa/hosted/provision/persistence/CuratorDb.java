@@ -2,6 +2,7 @@
 package com.yahoo.vespa.hosted.provision.persistence;
 
 import ai.vespa.http.DomainName;
+import com.google.common.cache.AbstractCache;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.yahoo.collections.Pair;
@@ -44,7 +45,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -94,6 +97,14 @@ public class CuratorDb {
     /** Simple cache for deserialized node objects, based on their ZK node version. */
     private final Cache<Path, Pair<Integer, Node>> cachedNodes = CacheBuilder.newBuilder().recordStats().build();
 
+    /**
+     * The list of all nodes read in the most recent curator cache session. As a session mirrors the curator
+     * content at a single generation, all reads of the node list in the same session are served from this.
+     * Nodes which did not change between sessions are shared with the previous list, through {@link #cachedNodes}.
+     */
+    private final AtomicReference<NodesSnapshot> nodesSnapshot = new AtomicReference<>();
+    private final AbstractCache.SimpleStatsCounter nodesSnapshotStatistics = new AbstractCache.SimpleStatsCounter();
+
     public CuratorDb(NodeFlavors flavors, Curator curator, Clock clock, boolean useCache) {
         this.nodeSerializer = new NodeSerializer(flavors);
         this.db = new CachingCurator(curator, root, useCache);
@@ -255,12 +266,27 @@ public class CuratorDb {
         return node.status();
     }
 
-    /** Returns all existing nodes */
+    /** Returns all existing nodes, as an immutable list */
     public List<Node> readNodes() {
         CachingCurator.Session session = db.getSession();
-        return session.getChildren(nodesPath).stream()
-                      .flatMap(hostname -> readNode(session, hostname).stream())
-                      .toList();
+        NodesSnapshot snapshot = nodesSnapshot.get();
+        if (snapshot != null && snapshot.session() == session) {
+            nodesSnapshotStatistics.recordHits(1);
+            return snapshot.nodes();
+        }
+        nodesSnapshotStatistics.recordMisses(1);
+        List<String> hostnames = session.getChildren(nodesPath);
+        List<Node> nodes = hostnames.stream()
+                                    .flatMap(hostname -> readNode(session, hostname).stream())
+                                    .toList();
+        nodes = List.copyOf(nodes);
+        if (session.isCached())
+            nodesSnapshot.set(new NodesSnapshot(session, nodes));
+
+        // Forget deserialized nodes which have been removed
+        Set<Path> paths = hostnames.stream().map(this::nodePath).collect(Collectors.toSet());
+        cachedNodes.asMap().keySet().retainAll(paths);
+        return nodes;
     }
 
     private Optional<Node> readNode(CachingCurator.Session session, String hostname) {
@@ -566,6 +592,12 @@ public class CuratorDb {
         return new CacheStats(stats.hitRate(), stats.evictionCount(), cachedNodes.size());
     }
 
+    public CacheStats nodeListCacheStats() {
+        var stats = nodesSnapshotStatistics.snapshot();
+        NodesSnapshot snapshot = nodesSnapshot.get();
+        return new CacheStats(stats.hitRate(), stats.evictionCount(), snapshot == null ? 0 : snapshot.nodes().size());
+    }
+
     private <T> Optional<T> read(Path path, Function<byte[], T> mapper) {
         return db.getData(path).filter(data -> data.length > 0).map(mapper);
     }
@@ -575,4 +607,6 @@ public class CuratorDb {
                                             : CuratorOperations.create(path.getAbsolute(), data);
     }
 
+    private record NodesSnapshot(CachingCurator.Session session, List<Node> nodes) { }
+
 }
@@ -134,13 +134,16 @@ public class MetricsReporterTest {
         expectedMetrics.put("suspendedSeconds", 123L);
         expectedMetrics.put("numberOfServices", 0L);
 
-        expectedMetrics.put("cache.nodeObject.hitRate", 5D/7D);
+        expectedMetrics.put("cache.nodeObject.hitRate", 1D/3D);
         expectedMetrics.put("cache.nodeObject.evictionCount", 0L);
         expectedMetrics.put("cache.nodeObject.size", 2L);
 
-        expectedMetrics.put("cache.curator.hitRate", 3D/5D);
+        expectedMetrics.put("cache.curator.hitRate", 0D);
         expectedMetrics.put("cache.curator.evictionCount", 0L);
         expectedMetrics.put("cache.curator.size", 2L);
+
+        expectedMetrics.put("cache.nodeList.hitRate", 0.5D);
+        expectedMetrics.put("cache.nodeList.size", 2L);
         expectedMetrics.put("nodes.emptyExclusive", 0);
 
         nodeRepository.nodes().list();
@@ -9,13 +9,17 @@ import com.yahoo.config.provision.TenantName;
 import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.mock.MockCurator;
 import com.yahoo.vespa.hosted.provision.Node;
+import com.yahoo.vespa.hosted.provision.node.Agent;
 import com.yahoo.vespa.hosted.provision.provisioning.FlavorConfigBuilder;
 import org.junit.Test;
 
 import java.time.Clock;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author mpolden
@@ -36,6 +40,31 @@ public class CuratorDbTest {
         assertEquals(NodeType.host, allocatedNodes.get(0).type());
     }
 
+    @Test
+    public void node_list_is_shared_until_nodes_change() throws Exception {
+        for (String hostname : List.of("host1", "host2")) {
+            String zkline = "{\"hostname\":\"" + hostname + "\",\"state\":\"ready\",\"ipAddresses\":[\"127.0.0.1\"],\"additionalIpAddresses\":[\"127.0.0.2\"],\"openStackId\":\"" + hostname + "\",\"flavor\":\"default\",\"created\":1421054425159, \"type\":\"host\"}";
+            curator.framework().create().creatingParentsIfNeeded().forPath("/provision/v1/nodes/" + hostname, zkline.getBytes());
+        }
+        zkClient.writeTo(List.of(zkClient.readNode("host1").get()), Agent.system, Optional.empty()); // Invalidate cache
+
+        List<Node> nodes = zkClient.readNodes();
+        assertEquals(2, nodes.size());
+        assertSame(nodes, zkClient.readNodes());
+
+        Node host1 = nodes.stream().filter(node -> node.hostname().equals("host1")).findFirst().get();
+        Node host2 = nodes.stream().filter(node -> node.hostname().equals("host2")).findFirst().get();
+        zkClient.writeTo(List.of(host1), Agent.system, Optional.empty());
+        List<Node> updated = zkClient.readNodes();
+        assertNotSame(nodes, updated);
+        assertEquals(2, updated.size());
+        for (Node node : updated) {
+            if (node.hostname().equals("host1")) assertNotSame(host1, node);
+            else assertSame(host2, node);
+        }
+        assertEquals(1.0 / 3, zkClient.nodeListCacheStats().hitRate(), 1e-9);
+    }
+
     @Test
     public void locks_can_be_acquired_and_released() {
         ApplicationId app = ApplicationId.from(TenantName.from("testTenant"), ApplicationName.from("testApp"), InstanceName.from("testInstance"));
@@ -9,6 +9,7 @@ import com.yahoo.language.process.Normalizer;
 import com.yahoo.language.process.SpecialTokenRegistry;
 import com.yahoo.language.process.StemMode;
 import com.yahoo.language.process.Token;
+import com.yahoo.language.process.TokenConsumer;
 import com.yahoo.language.process.TokenType;
 import com.yahoo.language.process.Tokenizer;
 import com.yahoo.language.process.Transformer;
@@ -103,6 +104,16 @@ public class OpenNlpTokenizer implements Tokenizer {
             return simpleTokenizer.tokenize(input, token -> processToken(token, language, stemMode, removeAccents, stemmer));
     }
 
+    /** Streams the tokens without creating token objects when this is just tokenizing like the simple tokenizer. */
+    @Override
+    public void tokenize(String input, Language language, StemMode stemMode, boolean removeAccents, TokenConsumer consumer) {
+        boolean segmentChinese = chineseSegmenter.isPresent() && ( language == Language.CHINESE_SIMPLIFIED || language == Language.CHINESE_TRADITIONAL);
+        if ( ! segmentChinese && stemmerFor(language, stemMode) == null)
+            simpleTokenizer.tokenize(input, language, stemMode, removeAccents, consumer);
+        else
+            Tokenizer.super.tokenize(input, language, stemMode, removeAccents, consumer);
+    }
+
     private Iterable<Token> segmentChinese(String input) {
         if (input.isEmpty()) return List.of();
 
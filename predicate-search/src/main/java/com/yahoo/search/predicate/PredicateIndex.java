@@ -8,11 +8,22 @@ import com.yahoo.search.predicate.index.conjunction.ConjunctionHit;
 import com.yahoo.search.predicate.index.conjunction.ConjunctionIndex;
 import com.yahoo.search.predicate.serialization.SerializationHelper;
 
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
@@ -31,6 +42,8 @@ import java.util.stream.Stream;
  * </p><p>
  * Note that the {@link PredicateIndex} is thread-safe, but a {@link Searcher} is not.
  * Each thread <strong>must</strong> use its own searcher.
+ * </p><p>
+ * To search for many queries at once using several threads, use {@link #search(List, ForkJoinPool, int)}.
  * </p>
  * @author Magnar Nedland
  * @author bjorncs
@@ -96,6 +109,52 @@ public class PredicateIndex {
         return new Searcher();
     }
 
+    /**
+     * Searches for the given queries in the given pool, reusing searchers between the queries of the batch.
+     * The document id space may also be split into a number of partitions which are searched in parallel,
+     * which reduces the latency of each query when there are fewer queries than workers.
+     *
+     * @param queries the queries to search for
+     * @param pool the pool to search in
+     * @param partitions the number of parts to split the documents of this into, for each query
+     * @return the hits of each query, in the order of the queries, and with the hits of each query in the same
+     *         order as returned by {@link Searcher#search(PredicateQuery)}
+     */
+    public List<List<Hit>> search(List<PredicateQuery> queries, ForkJoinPool pool, int partitions) {
+        if (partitions < 1) throw new IllegalArgumentException("Partitions must be positive, was " + partitions);
+        Queue<Searcher> searchers = new ConcurrentLinkedQueue<>(); // Reused by the tasks of this batch
+        int nDocuments = internalToExternalIdMapping.length;
+        int partitionSize = Math.max(1, (nDocuments + partitions - 1) / partitions);
+        List<List<ForkJoinTask<List<Hit>>>> tasks = new ArrayList<>(queries.size());
+        for (PredicateQuery query : queries) {
+            List<ForkJoinTask<List<Hit>>> queryTasks = new ArrayList<>(partitions);
+            for (int from = 0; from == 0 || from < nDocuments; from += partitionSize) {
+                int fromDocId = from;
+                int toDocId = Math.min(nDocuments, from + partitionSize);
+                queryTasks.add(pool.submit(() -> {
+                    Searcher searcher = searchers.poll();
+                    if (searcher == null) searcher = searcher();
+                    List<Hit> partitionHits = searcher.search(query, fromDocId, toDocId).toList();
+                    searchers.add(searcher);
+                    return partitionHits;
+                }));
+            }
+            tasks.add(queryTasks);
+        }
+        List<List<Hit>> hits = new ArrayList<>(queries.size());
+        for (List<ForkJoinTask<List<Hit>>> queryTasks : tasks) {
+            if (queryTasks.size() == 1) {
+                hits.add(queryTasks.get(0).join());
+            } else {
+                List<Hit> queryHits = new ArrayList<>();
+                for (ForkJoinTask<List<Hit>> task : queryTasks)
+                    queryHits.addAll(task.join());
+                hits.add(queryHits);
+            }
+        }
+        return hits;
+    }
+
     public void writeToOutputStream(DataOutputStream out) throws IOException {
         out.writeInt(SERIALIZATION_FORMAT_VERSION);
         config.writeToOutputStream(out);
@@ -112,11 +171,7 @@ public class PredicateIndex {
     }
 
     public static PredicateIndex fromInputStream(DataInputStream in) throws IOException {
-        int version = in.readInt();
-        if (version != SERIALIZATION_FORMAT_VERSION) {
-            throw new IllegalArgumentException(String.format(
-                    "Invalid serialization format version. Expected %d, was %d.", SERIALIZATION_FORMAT_VERSION, version));
-        }
+        verifyVersion(in.readInt());
         Config config = Config.fromInputStream(in);
         int[] internalToExternalIdMapping = SerializationHelper.readIntArray(in);
         byte[] minFeatureIndex = SerializationHelper.readByteArray(in);
@@ -143,6 +198,59 @@ public class PredicateIndex {
         );
     }
 
+    /**
+     * Reads an index written by {@link #writeToOutputStream} from the given file. This is much faster than
+     * {@link #fromInputStream}, as the file is memory mapped and posting lists are copied in bulk.
+     * The returned index is held in heap arrays like any other, and does not refer to the file.
+     */
+    public static PredicateIndex fromFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) { // Too large to map as a single buffer
+                try (var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16))) {
+                    return fromInputStream(in);
+                }
+            }
+            return fromByteBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Reads an index written by {@link #writeToOutputStream} from the position of the given buffer. */
+    public static PredicateIndex fromByteBuffer(ByteBuffer in) {
+        in.order(ByteOrder.BIG_ENDIAN);
+        verifyVersion(in.getInt());
+        Config config = Config.fromByteBuffer(in);
+        int[] internalToExternalIdMapping = SerializationHelper.readIntArray(in);
+        byte[] minFeatureIndex = SerializationHelper.readByteArray(in);
+        short[] intervalEnds = SerializationHelper.readShortArray(in);
+        int highestIntervalEnd = in.getInt();
+        int[] zeroConstraintDocuments = SerializationHelper.readIntArray(in);
+        SimpleIndex intervalIndex = SimpleIndex.fromByteBuffer(in);
+        SimpleIndex boundsIndex = SimpleIndex.fromByteBuffer(in);
+        SimpleIndex conjunctionIntervalIndex = SimpleIndex.fromByteBuffer(in);
+        PredicateIntervalStore intervalStore = PredicateIntervalStore.fromByteBuffer(in);
+        ConjunctionIndex conjunctionIndex = ConjunctionIndex.fromByteBuffer(in);
+        return new PredicateIndex(
+                config,
+                internalToExternalIdMapping,
+                minFeatureIndex,
+                intervalEnds,
+                highestIntervalEnd,
+                intervalIndex,
+                boundsIndex,
+                conjunctionIntervalIndex,
+                intervalStore,
+                conjunctionIndex,
+                zeroConstraintDocuments
+        );
+    }
+
+    private static void verifyVersion(int version) {
+        if (version != SERIALIZATION_FORMAT_VERSION) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid serialization format version. Expected %d, was %d.", SERIALIZATION_FORMAT_VERSION, version));
+        }
+    }
+
     @Beta
     public class Searcher {
         private final byte[] nPostingListsForDocument;
@@ -160,6 +268,11 @@ public class PredicateIndex {
          * @return A stream of hits.
          */
         public Stream<Hit> search(PredicateQuery query) {
+            return search(query, 0, internalToExternalIdMapping.length);
+        }
+
+        /** Returns the hits for the given query among the documents with internal ids in the given range */
+        private Stream<Hit> search(PredicateQuery query, int fromDocId, int toDocId) {
             ArrayList<PostingList> postingLists = new ArrayList<>();
             for (PredicateQuery.Feature feature : query.getFeatures()) {
                 addIntervalPostingList(feature.featureHash, feature.subqueryBitmap, postingLists);
@@ -176,10 +289,12 @@ public class PredicateIndex {
             addZeroConstraintPostingList(postingLists);
 
             CachedPostingListCounter counter = postingListCounter.get();
-            counter.registerUsage(postingLists);
-            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument);
+            if (fromDocId == 0) // Register the usage once per query when searching partitions
+                counter.registerUsage(postingLists);
+            counter.countPostingListsPerDocument(postingLists, nPostingListsForDocument, fromDocId, toDocId);
             return new PredicateSearch(
-                    postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd).stream()
+                    postingLists, nPostingListsForDocument, minFeatureIndex, intervalEnds, highestIntervalEnd)
+                    .stream(fromDocId, toDocId)
                     // Map to external id. Note that internal id for first document is 1.
                     .map(hit -> new Hit(internalToExternalIdMapping[hit.getDocId()], hit.getSubquery()));
         }
@@ -0,0 +1,257 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.api.annotations.Beta;
+import com.yahoo.document.predicate.Predicate;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * A {@link PredicateIndex} which can be updated one document at a time.
+ * <p>
+ * This consists of an immutable base index, and a small delta index of the documents changed since the base
+ * was built. The delta is rebuilt by the thread making an update, without holding the lock of this, and then
+ * published to searches. If another thread is rebuilding the delta already, the update is left for that thread
+ * to include in its next rebuild, so concurrent bursts of updates are applied together. When the delta has more
+ * than a given number of documents, a new base index is built from all documents in the background, and replaces
+ * the old one when done. Documents changed meanwhile are kept in the delta.
+ * </p><p>
+ * The predicates of all documents are kept, as they are needed to build the next base index.
+ * </p><p>
+ * This is thread-safe, but a {@link Searcher} is not. Each thread <strong>must</strong> use its own searcher.
+ * Searches never wait for the delta to be rebuilt, and see a consistent view of the index while they run.
+ * An update is visible to the searches started after it returns, unless it was left to another updating thread,
+ * in which case it is visible once that thread has published the delta.
+ * </p>
+ */
+@Beta
+public class UpdatablePredicateIndex {
+
+    private static final Logger log = Logger.getLogger(UpdatablePredicateIndex.class.getName());
+
+    private final Config config;
+    private final int maxDeltaSize;
+    private final Executor mergeExecutor;
+    private final AtomicBoolean publishing = new AtomicBoolean(false);
+    private PredicateIndex base;
+    private Map<Integer, Predicate> baseDocuments; // The documents of the base index, never modified
+    private final Map<Integer, Predicate> changes = new HashMap<>(); // Changed since the base index, null if removed
+    private IntHashSet changedIds = new IntHashSet(); // Changed since the base index, or the merge in progress, was started
+    private IntHashSet mergingIds = new IntHashSet(); // Changed since the base index, and included in the merge in progress
+    private int size;
+    private boolean merging = false;
+    private volatile long version = 0; // Incremented on each change, under the lock of this
+    private volatile Snapshot snapshot;
+
+    /** Creates an index of the given documents, which merges in a separate thread when 1000 documents have changed */
+    public UpdatablePredicateIndex(Config config, Map<Integer, Predicate> documents) {
+        this(config, documents, 1000, runnable -> {
+            Thread thread = new Thread(runnable, "predicate-index-merger");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Creates an index of the given documents.
+     *
+     * @param config the config of the index
+     * @param documents the initial documents of the index, by id
+     * @param maxDeltaSize the number of changed documents which triggers building a new base index
+     * @param mergeExecutor the executor running builds of new base indexes
+     */
+    public UpdatablePredicateIndex(Config config, Map<Integer, Predicate> documents, int maxDeltaSize, Executor mergeExecutor) {
+        this.config = config;
+        this.maxDeltaSize = maxDeltaSize;
+        this.mergeExecutor = mergeExecutor;
+        this.baseDocuments = new HashMap<>(documents);
+        this.size = baseDocuments.size();
+        this.base = build(baseDocuments);
+        this.snapshot = new Snapshot(base, build(Map.of()), new IntHashSet(), version);
+    }
+
+    /** Adds the given document, or replaces the predicate of it if it already exists */
+    public void indexDocument(int docId, Predicate predicate) {
+        synchronized (this) {
+            if (document(docId) == null)
+                size++;
+            changes.put(docId, predicate);
+            changed(docId);
+        }
+        publish();
+    }
+
+    /** Removes the given document, if it exists */
+    public void removeDocument(int docId) {
+        synchronized (this) {
+            if (document(docId) == null) return;
+            size--;
+            changes.put(docId, null);
+            changed(docId);
+        }
+        publish();
+    }
+
+    private Predicate document(int docId) {
+        return changes.containsKey(docId) ? changes.get(docId) : baseDocuments.get(docId);
+    }
+
+    private void changed(int docId) {
+        changedIds.add(docId);
+        version++;
+        if ( ! merging && changedIds.size() > maxDeltaSize)
+            startMerge();
+    }
+
+    /** Returns the number of documents in this */
+    public synchronized int size() { return size; }
+
+    /** Returns the number of documents changed since the current base index was built */
+    public synchronized int deltaSize() {
+        return changedIds.size() + mergingIds.size();
+    }
+
+    /** Rebuilds the posting list cache of the current base index, see {@link PredicateIndex#rebuildPostingListCache()} */
+    public void rebuildPostingListCache() {
+        snapshot.base.rebuildPostingListCache();
+    }
+
+    /** Creates a new searcher */
+    public Searcher searcher() {
+        return new Searcher();
+    }
+
+    private void startMerge() {
+        merging = true;
+        mergingIds = changedIds;
+        changedIds = new IntHashSet();
+        Map<Integer, Predicate> mergedChanges = new HashMap<>();
+        mergingIds.forEach(id -> mergedChanges.put(id, changes.get(id)));
+        Map<Integer, Predicate> documents = baseDocuments;
+        mergeExecutor.execute(() -> merge(documents, mergedChanges));
+    }
+
+    private void merge(Map<Integer, Predicate> documents, Map<Integer, Predicate> mergedChanges) {
+        Map<Integer, Predicate> mergedDocuments = new HashMap<>(documents);
+        mergedChanges.forEach((id, predicate) -> {
+            if (predicate != null)
+                mergedDocuments.put(id, predicate);
+            else
+                mergedDocuments.remove(id);
+        });
+        PredicateIndex merged = null;
+        try {
+            merged = build(mergedDocuments);
+        }
+        catch (RuntimeException e) {
+            log.log(Level.WARNING, "Failed building a new base predicate index", e);
+        }
+        synchronized (this) {
+            if (merged != null) {
+                base = merged;
+                baseDocuments = mergedDocuments;
+                mergingIds.forEach(id -> {
+                    if ( ! changedIds.contains(id))
+                        changes.remove(id);
+                });
+            }
+            else { // Keep the changes in the delta
+                changedIds.addAll(mergingIds);
+            }
+            mergingIds = new IntHashSet();
+            merging = false;
+            version++;
+            if (merged != null && changedIds.size() > maxDeltaSize)
+                startMerge();
+        }
+        publish();
+    }
+
+    /**
+     * Rebuilds the delta index and publishes a snapshot of the current version of this, unless that is published
+     * already, or another thread is rebuilding it. That thread checks for newer versions when done, so none are left behind.
+     */
+    private void publish() {
+        while (snapshot.version != version && publishing.compareAndSet(false, true)) {
+            try {
+                PredicateIndex currentBase;
+                IntHashSet shadowed;
+                Map<Integer, Predicate> delta = new HashMap<>();
+                long currentVersion;
+                synchronized (this) {
+                    currentBase = base;
+                    shadowed = new IntHashSet(mergingIds);
+                    shadowed.addAll(changedIds);
+                    shadowed.forEach(id -> {
+                        Predicate predicate = changes.get(id);
+                        if (predicate != null)
+                            delta.put(id, predicate);
+                    });
+                    currentVersion = version;
+                }
+                snapshot = new Snapshot(currentBase, build(delta), shadowed, currentVersion);
+            }
+            finally {
+                publishing.set(false);
+            }
+        }
+    }
+
+    private PredicateIndex build(Map<Integer, Predicate> documents) {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(config);
+        documents.forEach(builder::indexDocument);
+        return builder.build();
+    }
+
+    /**
+     * The indexes to search at some point in time.
+     *
+     * @param base the base index
+     * @param delta the index of the documents changed since the base index was built
+     * @param shadowed the ids of the documents changed since the base index was built, which must not be returned from it
+     * @param version the version of this index the snapshot is of
+     */
+    private record Snapshot(PredicateIndex base, PredicateIndex delta, IntHashSet shadowed, long version) {}
+
+    @Beta
+    public class Searcher {
+
+        private PredicateIndex base = null;
+        private PredicateIndex.Searcher baseSearcher = null;
+        private PredicateIndex delta = null;
+        private PredicateIndex.Searcher deltaSearcher = null;
+
+        private Searcher() {}
+
+        /**
+         * Retrieves a stream of hits for the given query, with the hits from the base index before those from the delta.
+         *
+         * @param query Specifies the boolean variables that are true.
+         * @return A stream of hits.
+         */
+        public Stream<Hit> search(PredicateQuery query) {
+            Snapshot snapshot = UpdatablePredicateIndex.this.snapshot;
+            if (snapshot.base != base) {
+                base = snapshot.base;
+                baseSearcher = base.searcher();
+            }
+            if (snapshot.delta != delta) {
+                delta = snapshot.delta;
+                deltaSearcher = delta.searcher();
+            }
+            Stream<Hit> baseHits = baseSearcher.search(query);
+            if ( ! snapshot.shadowed.isEmpty())
+                baseHits = baseHits.filter(hit -> ! snapshot.shadowed.contains(hit.getDocId()));
+            return Stream.concat(baseHits, deltaSearcher.search(query));
+        }
+
+    }
+
+}
@@ -18,10 +18,7 @@ import io.airlift.airline.Option;
 import io.airlift.airline.SingleCommand;
 
 import javax.inject.Inject;
-import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
-import java.io.DataInputStream;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -73,12 +70,10 @@ public class HitsVerificationBenchmark {
             builder.getStats().putValues(output);
             return builder.build();
         } else {
-            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args.indexFile)))) {
-                long start = System.currentTimeMillis();
-                PredicateIndex index = PredicateIndex.fromInputStream(in);
-                output.put("Time deserialize index", System.currentTimeMillis() - start);
-                return index;
-            }
+            long start = System.currentTimeMillis();
+            PredicateIndex index = PredicateIndex.fromFile(Paths.get(args.indexFile));
+            output.put("Time deserialize index", System.currentTimeMillis() - start);
+            return index;
         }
     }
 
@@ -4,10 +4,13 @@ package com.yahoo.search.predicate.benchmarks;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Iterators;
+import com.yahoo.document.predicate.Predicate;
 import com.yahoo.search.predicate.Config;
+import com.yahoo.search.predicate.Hit;
 import com.yahoo.search.predicate.PredicateIndex;
 import com.yahoo.search.predicate.PredicateIndexBuilder;
 import com.yahoo.search.predicate.PredicateQuery;
+import com.yahoo.search.predicate.UpdatablePredicateIndex;
 import com.yahoo.search.predicate.serialization.PredicateQuerySerializer;
 import com.yahoo.search.predicate.utils.VespaFeedParser;
 import com.yahoo.search.predicate.utils.VespaQueryParser;
@@ -17,16 +20,15 @@ import io.airlift.airline.Option;
 import io.airlift.airline.SingleCommand;
 
 import javax.inject.Inject;
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -37,9 +39,13 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Algorithm;
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Format;
@@ -65,6 +71,13 @@ public class PredicateIndexBenchmark {
                 .setArity(args.arity)
                 .setUseConjunctionAlgorithm(args.algorithm == Algorithm.CONJUNCTION)
                 .build();
+        if (args.updatesPerSecond > 0) {
+            runMixedWorkload(args, config);
+            output.put("Total time", System.currentTimeMillis() - start);
+            output.put("Timestamp", new Date().toString());
+            writeOutputToStandardOut();
+            return;
+        }
         PredicateIndex index = getIndex(args, config);
         if (args.indexOutputFile != null) {
             writeIndexToFile(index, args.indexOutputFile);
@@ -86,6 +99,10 @@ public class PredicateIndexBenchmark {
             System.err.println("Provide either a feed file or index file.");
             return Optional.empty();
         }
+        if (args.updatesPerSecond > 0 && (args.feedFile == null || args.queryFile == null)) {
+            System.err.println("Provide both a feed file and a query file to run a workload with updates.");
+            return Optional.empty();
+        }
         return Optional.of(args);
     }
 
@@ -105,12 +122,10 @@ public class PredicateIndexBenchmark {
             output.put("Time prepare index", System.currentTimeMillis() - start);
             return index;
         } else {
-            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args.indexFile)))) {
-                long start = System.currentTimeMillis();
-                PredicateIndex index = PredicateIndex.fromInputStream(in);
-                output.put("Time deserialize index", System.currentTimeMillis() - start);
-                return index;
-            }
+            long start = System.currentTimeMillis();
+            PredicateIndex index = PredicateIndex.fromFile(Paths.get(args.indexFile));
+            output.put("Time deserialize index", System.currentTimeMillis() - start);
+            return index;
         }
     }
 
@@ -135,16 +150,94 @@ public class PredicateIndexBenchmark {
         output.put("Index file", args.indexFile);
         output.put("Query format", args.format);
         output.put("Warmup", args.warmup);
+        output.put("Updates per second", args.updatesPerSecond);
     }
 
     private static void runQueries(BenchmarkArguments args, PredicateIndex index) throws IOException {
         List<PredicateQuery> queries = parseQueries(args.queryFile, args.maxQueries, args.format);
-        long warmup1 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        long warmup1 = warmup(queries, () -> index.searcher()::search, args.nThreads, args.warmup / 2);
         output.put("Time warmup before building posting cache", warmup1);
         rebuildPostingListCache(index);
-        long warmup2 = warmup(queries, index, args.nThreads, args.warmup / 2);
+        long warmup2 = warmup(queries, () -> index.searcher()::search, args.nThreads, args.warmup / 2);
         output.put("Time warmup after building posting cache", warmup2);
-        searchIndex(queries, index, args.nThreads, args.runtime);
+        searchIndex(queries, () -> index.searcher()::search, args.nThreads, args.runtime);
+        if (args.batchSize > 0) {
+            searchIndexInBatches(queries, index, args.nThreads, args.batchSize, args.partitions, args.runtime);
+        }
+    }
+
+    /** Searches the index with batches of queries, using a pool of the given number of threads */
+    private static void searchIndexInBatches(
+            List<PredicateQuery> queries, PredicateIndex index, int nThreads, int batchSize, int partitions, int runtime) {
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        Iterator<PredicateQuery> iterator = Iterators.cycle(queries);
+        long totalQueries = 0;
+        long totalHits = 0;
+        long start = System.currentTimeMillis();
+        long end = start + runtime * 1000L;
+        while (System.currentTimeMillis() < end) {
+            List<PredicateQuery> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(iterator.next());
+            }
+            for (List<Hit> hits : index.search(batch, pool, partitions)) {
+                totalHits += hits.size();
+            }
+            totalQueries += batchSize;
+        }
+        long searchTime = System.currentTimeMillis() - start;
+        pool.shutdown();
+        output.put("Batch size", batchSize);
+        output.put("Batch partitions", partitions);
+        output.put("Batch total queries", totalQueries);
+        output.put("Batch total hits", totalHits);
+        output.put("Batch QPS", totalQueries * 1000.0 / searchTime);
+    }
+
+    /** Searches an updatable index while documents from the feed are re-indexed at the given rate */
+    private static void runMixedWorkload(BenchmarkArguments args, Config config) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Predicate> predicates = new ArrayList<>();
+        VespaFeedParser.parseDocuments(args.feedFile, args.maxDocuments, predicates::add);
+        Map<Integer, Predicate> documents = new HashMap<>();
+        for (int i = 0; i < predicates.size(); i++)
+            documents.put(i + 1, predicates.get(i));
+        output.put("Indexed document count", documents.size());
+        output.put("Time parsing documents", System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        UpdatablePredicateIndex index = new UpdatablePredicateIndex(config, documents);
+        output.put("Time prepare index", System.currentTimeMillis() - start);
+
+        List<PredicateQuery> queries = parseQueries(args.queryFile, args.maxQueries, args.format);
+        ExecutorService updater = Executors.newSingleThreadExecutor();
+        Future<Long> updates = updater.submit(() -> updateDocuments(index, predicates, args.updatesPerSecond));
+        output.put("Time warmup", warmup(queries, () -> index.searcher()::search, args.nThreads, args.warmup));
+        searchIndex(queries, () -> index.searcher()::search, args.nThreads, args.runtime);
+        updater.shutdownNow();
+        try {
+            output.put("Updates", updates.get());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        output.put("Delta size at end", index.deltaSize());
+    }
+
+    /** Replaces the predicate of random documents at the given rate until interrupted, and returns the number of updates */
+    private static long updateDocuments(UpdatablePredicateIndex index, List<Predicate> predicates, int updatesPerSecond) {
+        Random random = new Random(42);
+        long intervalNanos = 1_000_000_000L / updatesPerSecond;
+        long next = System.nanoTime();
+        long updates = 0;
+        while ( ! Thread.currentThread().isInterrupted()) {
+            index.indexDocument(random.nextInt(predicates.size()) + 1, predicates.get(random.nextInt(predicates.size())));
+            updates++;
+            next += intervalNanos;
+            long sleepNanos = next - System.nanoTime();
+            if (sleepNanos > 0)
+                LockSupport.parkNanos(sleepNanos);
+        }
+        return updates;
     }
 
     private static void rebuildPostingListCache(PredicateIndex index) {
@@ -163,27 +256,27 @@ public class PredicateIndexBenchmark {
         return queries;
     }
 
-    private static long warmup(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int warmup) {
+    private static long warmup(List<PredicateQuery> queries, Supplier<Searcher> searchers, int nThreads, int warmup) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            executor.submit(new QueryRunner(shuffledQueries, index.searcher()));
+            executor.submit(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         waitAndShutdown(warmup, executor);
         return System.currentTimeMillis() - start;
     }
 
-    private static void searchIndex(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int runtime) {
+    private static void searchIndex(List<PredicateQuery> queries, Supplier<Searcher> searchers, int nThreads, int runtime) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         List<QueryRunner> runners = new ArrayList<>();
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            runners.add(new QueryRunner(shuffledQueries, index.searcher()));
+            runners.add(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         List<Future<ResultMetrics>> futureResults = runners.stream().map(executor::submit).toList();
@@ -214,11 +307,16 @@ public class PredicateIndexBenchmark {
         }
     }
 
+    /** A searcher of some index, for use by a single thread */
+    private interface Searcher {
+        Stream<Hit> search(PredicateQuery query);
+    }
+
     private static class QueryRunner implements Callable<ResultMetrics> {
         private final List<PredicateQuery> queries;
-        private final PredicateIndex.Searcher searcher;
+        private final Searcher searcher;
 
-        public QueryRunner(List<PredicateQuery> queries, PredicateIndex.Searcher seacher) {
+        public QueryRunner(List<PredicateQuery> queries, Searcher seacher) {
             this.queries = queries;
             this.searcher = seacher;
         }
@@ -278,6 +376,17 @@ public class PredicateIndexBenchmark {
         description = "Query format. Valid formats are either 'VESPA' (obsolete query property format) or 'JSON'.")
         public Format format = Format.VESPA;
 
+        @Option(name = {"-u", "--updates-per-second"},
+                description = "Search an updatable index while re-indexing this many documents from the feed file per second")
+        public int updatesPerSecond = 0;
+
+        @Option(name = {"-b", "--batch-size"},
+                description = "Also search in batches of this many queries, using all threads for each batch")
+        public int batchSize = 0;
+
+        @Option(name = {"-p", "--partitions"}, description = "The number of document partitions per query in batch search")
+        public int partitions = 1;
+
         @Option(name = {"-ff", "--feed-file"}, description = "File path to feed file (Vespa XML feed)")
         public String feedFile;
 
@@ -45,7 +45,16 @@ public class CachedPostingListCounter {
     }
 
     public void countPostingListsPerDocument(List<PostingList> postingLists, byte[] nPostingListsForDocument) {
-        Arrays.fill(nPostingListsForDocument, (byte) 0);
+        countPostingListsPerDocument(postingLists, nPostingListsForDocument, 0, nPostingListsForDocument.length);
+    }
+
+    /**
+     * Counts the posting lists of each document with an id in the given range.
+     * Counts for documents outside the range are left unchanged.
+     */
+    public void countPostingListsPerDocument(List<PostingList> postingLists, byte[] nPostingListsForDocument,
+                                             int fromDocId, int toDocId) {
+        Arrays.fill(nPostingListsForDocument, fromDocId, toDocId, (byte) 0);
         List<int[]> nonCachedPostingLists = new ArrayList<>(postingLists.size());
         List<int[]> cachedPostingLists = new ArrayList<>(postingLists.size());
         long nDocumentsCachedPostingLists = 0;
@@ -63,26 +72,35 @@ public class CachedPostingListCounter {
         }
         if (postingListBitmap != 0) {
             if (nDocumentsCachedPostingLists > nDocuments * THRESHOLD_USE_BIT_VECTOR) {
-                countUsingBitVector(nPostingListsForDocument, postingListBitmap);
+                countUsingBitVector(nPostingListsForDocument, postingListBitmap, fromDocId, toDocId);
             } else {
                 nonCachedPostingLists.addAll(cachedPostingLists);
             }
         }
         if (!nonCachedPostingLists.isEmpty()) {
-            countUsingDocIdIteration(nPostingListsForDocument, nonCachedPostingLists);
+            countUsingDocIdIteration(nPostingListsForDocument, nonCachedPostingLists, fromDocId, toDocId);
         }
     }
 
-    private void countUsingBitVector(byte[] nPostingListsForDocument, int postingListBitmap) {
-        for (int docId = 0; docId < nDocuments; docId++) {
+    private void countUsingBitVector(byte[] nPostingListsForDocument, int postingListBitmap, int fromDocId, int toDocId) {
+        for (int docId = fromDocId, end = Math.min(toDocId, nDocuments); docId < end; docId++) {
             nPostingListsForDocument[docId] += (byte)Integer.bitCount(bitVector[docId] & postingListBitmap);
         }
     }
 
-    private static void countUsingDocIdIteration(byte[] nPostingListsForDocument, List<int[]> nonCachedPostingLists) {
+    private static void countUsingDocIdIteration(byte[] nPostingListsForDocument, List<int[]> nonCachedPostingLists,
+                                                 int fromDocId, int toDocId) {
         for (int[] docIds : nonCachedPostingLists) {
-            for (int docId : docIds) {
-                ++nPostingListsForDocument[docId];
+            if (fromDocId == 0 && toDocId >= nPostingListsForDocument.length) {
+                for (int docId : docIds) {
+                    ++nPostingListsForDocument[docId];
+                }
+            }
+            else { // Doc ids are sorted
+                int start = Arrays.binarySearch(docIds, fromDocId);
+                for (int i = start < 0 ? -start - 1 : start; i < docIds.length && docIds[i] < toDocId; i++) {
+                    ++nPostingListsForDocument[docIds[i]];
+                }
             }
         }
     }
@@ -7,6 +7,7 @@ import com.yahoo.search.predicate.serialization.SerializationHelper;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -45,6 +46,15 @@ public class PredicateIntervalStore {
         return new PredicateIntervalStore(intervalsList);
     }
 
+    public static PredicateIntervalStore fromByteBuffer(ByteBuffer in) {
+        int length = in.getInt();
+        int[][] intervalsList = new int[length][];
+        for (int i = 0; i < length; i++) {
+            intervalsList[i] = SerializationHelper.readIntArray(in);
+        }
+        return new PredicateIntervalStore(intervalsList);
+    }
+
     public static class Builder {
         private final List<int[]> intervalsListBuilder = new ArrayList<>();
         private final Map<Entry, Integer> intervalsListIndexes = new HashMap<>();
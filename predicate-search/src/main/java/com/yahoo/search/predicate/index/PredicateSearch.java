@@ -35,6 +35,7 @@ public class PredicateSearch {
     private short[] sortedIndexes;
     private short[] sortedIndexesMergeBuffer;
     private int nPostingLists;
+    private int endDocId;
 
     /**
      * Creates a search for a set of posting lists.
@@ -61,6 +62,7 @@ public class PredicateSearch {
         this.subqueryMarkers = new long[highestIntervalEnd + 1];
         this.visited = new boolean[highestIntervalEnd + 1];
         this.intervalEnds = intervalEnds;
+        this.endDocId = nPostingListsForDocument.length;
 
         // Sort posting list array based on the underlying number of documents (largest first).
         Arrays.sort(this.postingLists, (l, r) -> -Integer.compare(l.size(), r.size()));
@@ -78,14 +80,31 @@ public class PredicateSearch {
      * @return A stream of Hit-objects from a lazy evaluation of the boolean search algorithm.
      */
     public Stream<Hit> stream() {
+        return stream(0, nPostingListsForDocument.length);
+    }
+
+    /**
+     * Returns a stream of the hits with doc ids in the given range. Only the counts of posting lists per document
+     * in this range need to be set, so searches of disjoint ranges may be run in parallel, each with its own posting lists.
+     * A search can only be streamed once.
+     *
+     * @param fromDocId the first doc id to consider, inclusive
+     * @param toDocId the last doc id to consider, exclusive
+     */
+    public Stream<Hit> stream(int fromDocId, int toDocId) {
         if (nPostingLists == 0) {
             return Stream.empty();
         }
-        return StreamSupport.stream(new PredicateSpliterator(), false);
+        this.endDocId = Math.min(toDocId, nPostingListsForDocument.length);
+        return StreamSupport.stream(new PredicateSpliterator(fromDocId - 1), false);
     }
 
     private class PredicateSpliterator implements java.util.Spliterator<Hit> {
-        private int lastHit = -1;
+        private int lastHit;
+
+        private PredicateSpliterator(int lastHit) {
+            this.lastHit = lastHit;
+        }
 
         @Override
         public boolean tryAdvance(Consumer<? super Hit> action) {
@@ -122,6 +141,7 @@ public class PredicateSearch {
         boolean skippedToEnd = skipMinFeature(docId);
         while (nPostingLists > 0 && !skippedToEnd) {
             int docId0 = docIds[sortedIndexes[0]];
+            if (docId0 >= endDocId) break;
             int minFeature = minFeatureIndex[docId0];
             int k = minFeature > 0 ? minFeature - 1 : 0;
             int intervalEnd = Short.toUnsignedInt(intervalEnds[docId0]);
@@ -139,7 +159,7 @@ public class PredicateSearch {
     }
 
     private boolean skipMinFeature(int docId) {
-        int nDocuments = nPostingListsForDocument.length;
+        int nDocuments = endDocId;
         while (docId < nDocuments && minFeatureIndex[docId] > nPostingListsForDocument[docId]) {
             ++docId;
         }
@@ -6,9 +6,12 @@ import com.yahoo.search.predicate.PredicateIndex;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Misc utility functions to help serialization of {@link PredicateIndex}.
+ * The methods reading from a {@link ByteBuffer} read the same format as those reading from a {@link DataInputStream},
+ * but copy whole arrays at once, which is much faster, e.g., when the buffer is a memory mapped file.
  *
  * @author bjorncs
  */
@@ -30,6 +33,13 @@ public class SerializationHelper {
         return array;
     }
 
+    public static int[] readIntArray(ByteBuffer in) {
+        int[] array = new int[in.getInt()];
+        in.asIntBuffer().get(array);
+        in.position(in.position() + array.length * Integer.BYTES);
+        return array;
+    }
+
     public static void writeByteArray(byte[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
         for (int v : array) {
@@ -46,6 +56,12 @@ public class SerializationHelper {
         return array;
     }
 
+    public static byte[] readByteArray(ByteBuffer in) {
+        byte[] array = new byte[in.getInt()];
+        in.get(array);
+        return array;
+    }
+
     public static void writeLongArray(long[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
         for (long v : array) {
@@ -62,6 +78,13 @@ public class SerializationHelper {
         return array;
     }
 
+    public static long[] readLongArray(ByteBuffer in) {
+        long[] array = new long[in.getInt()];
+        in.asLongBuffer().get(array);
+        in.position(in.position() + array.length * Long.BYTES);
+        return array;
+    }
+
     public static void writeShortArray(short[] array, DataOutputStream out) throws IOException {
         out.writeInt(array.length);
         for (short v : array) {
@@ -78,4 +101,11 @@ public class SerializationHelper {
         return array;
     }
 
+    public static short[] readShortArray(ByteBuffer in) {
+        short[] array = new short[in.getInt()];
+        in.asShortBuffer().get(array);
+        in.position(in.position() + array.length * Short.BYTES);
+        return array;
+    }
+
 }
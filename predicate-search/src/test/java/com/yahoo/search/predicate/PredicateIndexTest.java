@@ -3,9 +3,18 @@ package com.yahoo.search.predicate;
 
 import com.yahoo.document.predicate.Predicate;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import static com.yahoo.search.predicate.serialization.SerializationTestHelper.assertSerializationBufferDeserializationMatches;
 import static com.yahoo.search.predicate.serialization.SerializationTestHelper.assertSerializationDeserializationMatches;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -136,5 +145,53 @@ public class PredicateIndexTest {
         PredicateIndex index = builder.build();
         assertSerializationDeserializationMatches(
                 index, PredicateIndex::writeToOutputStream, PredicateIndex::fromInputStream);
+        assertSerializationBufferDeserializationMatches(
+                index, PredicateIndex::writeToOutputStream, PredicateIndex::fromByteBuffer);
+    }
+
+    @Test
+    void require_that_batch_search_returns_the_same_hits_as_searching_each_query() {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        String[] countries = {"no", "se", "dk", "fi"};
+        for (int i = 0; i < 100; i++) {
+            builder.indexDocument(i, Predicate.fromString(i % 10 == 0 ? "true" :
+                    "country in ['" + countries[i % 4] + "'] and age in [" + i + ".." + (i + 20) + "]"));
+        }
+        PredicateIndex index = builder.build();
+        List<PredicateQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("country", countries[i % 4]);
+            query.addRangeFeature("age", i * 5);
+            queries.add(query);
+        }
+        PredicateIndex.Searcher searcher = index.searcher();
+        List<List<Hit>> expected = queries.stream().map(query -> searcher.search(query).toList()).toList();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int partitions : new int[] { 1, 3, 8, 1000 })
+                assertEquals(expected, index.search(queries, pool, partitions));
+        }
+        finally {
+            pool.shutdown();
+        }
+        assertEquals(List.of(List.of()), new PredicateIndexBuilder(10).build().search(queries.subList(0, 1), ForkJoinPool.commonPool(), 2));
+    }
+
+    @Test
+    void require_that_index_can_be_read_from_file(@TempDir Path tempDir) throws IOException {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        builder.indexDocument(1, Predicate.fromString("country in ['no', 'se'] and gender in ['male']"));
+        builder.indexDocument(2, Predicate.fromString("age in [20..30]"));
+        Path file = tempDir.resolve("index");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            builder.build().writeToOutputStream(out);
+        }
+        PredicateIndex index = PredicateIndex.fromFile(file);
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", "no");
+        query.addFeature("gender", "male");
+        query.addRangeFeature("age", 25);
+        assertEquals("[1, 2]", index.searcher().search(query).toList().toString());
     }
 }
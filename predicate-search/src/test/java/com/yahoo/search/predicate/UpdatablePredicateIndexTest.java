@@ -0,0 +1,112 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.document.predicate.Predicate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UpdatablePredicateIndexTest {
+
+    private static final Config config = new Config.Builder().setArity(10).build();
+
+    @Test
+    void requireThatUpdatesAreVisibleToSearches() {
+        var index = new UpdatablePredicateIndex(config, Map.of(1, Predicate.fromString("country in ['no']"),
+                                                               2, Predicate.fromString("country in ['se']"),
+                                                               3, Predicate.fromString("true")),
+                                                100, Runnable::run);
+        var searcher = index.searcher();
+        assertEquals("[1, 3]", search(searcher, "no"));
+
+        index.indexDocument(4, Predicate.fromString("country in ['no', 'se']"));
+        assertEquals("[1, 3, 4]", search(searcher, "no"));
+
+        index.indexDocument(1, Predicate.fromString("country in ['dk']"));
+        index.removeDocument(3);
+        index.removeDocument(5);
+        assertEquals("[4]", search(searcher, "no"));
+        assertEquals("[1]", search(searcher, "dk"));
+        assertEquals("[2, 4]", search(searcher, "se"));
+        assertEquals(3, index.size());
+        assertEquals(3, index.deltaSize());
+    }
+
+    @Test
+    void requireThatDeltaIsMergedIntoBaseWhenLarge() {
+        var index = new UpdatablePredicateIndex(config, Map.of(), 2, Runnable::run);
+        var searcher = index.searcher();
+        index.indexDocument(1, Predicate.fromString("country in ['no']"));
+        index.indexDocument(2, Predicate.fromString("country in ['no']"));
+        assertEquals(2, index.deltaSize());
+        index.indexDocument(3, Predicate.fromString("country in ['se']"));
+        assertEquals(0, index.deltaSize());
+        assertEquals("[1, 2]", search(searcher, "no"));
+        index.removeDocument(2);
+        assertEquals("[1]", search(searcher, "no"));
+        assertEquals(1, index.deltaSize());
+    }
+
+    @Test
+    void requireThatChangesDuringMergeAreKept() {
+        List<Runnable> merges = new ArrayList<>();
+        var index = new UpdatablePredicateIndex(config, Map.of(1, Predicate.fromString("country in ['no']")), 1, merges::add);
+        var searcher = index.searcher();
+        index.indexDocument(2, Predicate.fromString("country in ['no']"));
+        index.indexDocument(3, Predicate.fromString("country in ['no']"));
+        assertEquals(1, merges.size());
+
+        index.removeDocument(1);
+        index.indexDocument(3, Predicate.fromString("country in ['se']"));
+        assertEquals("[2]", search(searcher, "no"));
+
+        merges.remove(0).run(); // Contains 1, 2 and 3 in 'no', but 1 and 3 are changed since
+        assertEquals(2, index.deltaSize());
+        assertEquals("[2]", search(searcher, "no"));
+        assertEquals("[3]", search(searcher, "se"));
+
+        assertEquals(1, merges.size()); // The changes during the last merge were too many, so another one has started
+        merges.remove(0).run();
+        assertEquals(0, index.deltaSize());
+        assertEquals("[2]", search(searcher, "no"));
+        assertEquals("[3]", search(searcher, "se"));
+    }
+
+    @Test
+    void requireThatConcurrentUpdatesAreAllPublished() throws Exception {
+        var index = new UpdatablePredicateIndex(config, Map.of(), 100, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            thread.start();
+        });
+        var searcher = index.searcher();
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int writer = i;
+            writers.add(new Thread(() -> {
+                for (int docId = writer * 500; docId < (writer + 1) * 500; docId++)
+                    index.indexDocument(docId, Predicate.fromString("country in ['no']"));
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers)
+            writer.join();
+        assertEquals(2000, index.size());
+        assertEquals(2000, searcher.search(query("no")).count());
+    }
+
+    private static String search(UpdatablePredicateIndex.Searcher searcher, String country) {
+        return searcher.search(query(country)).sorted().toList().toString();
+    }
+
+    private static PredicateQuery query(String country) {
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", country);
+        return query;
+    }
+
+}
@@ -17,6 +17,8 @@ public class SerializationHelperTest {
         long[] longs = {1, 2, 3, 4};
         assertSerializationDeserializationMatches(
                 longs, SerializationHelper::writeLongArray, SerializationHelper::readLongArray);
+        assertSerializationBufferDeserializationMatches(
+                longs, SerializationHelper::writeLongArray, SerializationHelper::readLongArray);
     }
 
     @Test
@@ -24,6 +26,8 @@ public class SerializationHelperTest {
         int[] ints = {1, 2, 3, 4};
         assertSerializationDeserializationMatches(
                 ints, SerializationHelper::writeIntArray, SerializationHelper::readIntArray);
+        assertSerializationBufferDeserializationMatches(
+                ints, SerializationHelper::writeIntArray, SerializationHelper::readIntArray);
     }
 
     @Test
@@ -31,6 +35,8 @@ public class SerializationHelperTest {
         byte[] bytes = {1, 2, 3, 4};
         assertSerializationDeserializationMatches(
                 bytes, SerializationHelper::writeByteArray, SerializationHelper::readByteArray);
+        assertSerializationBufferDeserializationMatches(
+                bytes, SerializationHelper::writeByteArray, SerializationHelper::readByteArray);
     }
 
     @Test
@@ -38,6 +44,8 @@ public class SerializationHelperTest {
         short[] shorts = {1, 2, 3, 4};
         assertSerializationDeserializationMatches(
                 shorts, SerializationHelper::writeShortArray, SerializationHelper::readShortArray);
+        assertSerializationBufferDeserializationMatches(
+                shorts, SerializationHelper::writeShortArray, SerializationHelper::readShortArray);
     }
 
 
@@ -6,6 +6,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 
@@ -35,6 +36,12 @@ public class SerializationTestHelper {
         assertArrayEquals(bytes, newBytes);
     }
 
+    public static <T> void assertSerializationBufferDeserializationMatches
+            (T object, Serializer<T> serializer, BufferDeserializer<T> deserializer) throws IOException {
+        assertSerializationDeserializationMatches(
+                object, serializer, in -> deserializer.deserialize(ByteBuffer.wrap(in.readAllBytes())));
+    }
+
     @FunctionalInterface
     public interface Serializer<T> {
         void serialize(T object, DataOutputStream out) throws IOException;
@@ -45,4 +52,9 @@ public class SerializationTestHelper {
         T deserialize(DataInputStream in) throws IOException;
     }
 
+    @FunctionalInterface
+    public interface BufferDeserializer<T> {
+        T deserialize(ByteBuffer in) throws IOException;
+    }
+
 }
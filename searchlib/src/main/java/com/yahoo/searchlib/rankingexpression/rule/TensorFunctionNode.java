@@ -12,6 +12,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.Parallelism;
 import com.yahoo.tensor.evaluation.TypeContext;
 import com.yahoo.tensor.functions.PrimitiveTensorFunction;
 import com.yahoo.tensor.functions.ScalarFunction;
@@ -416,6 +417,11 @@ public class TensorFunctionNode extends CompositeNode {
             return delegate.resolveBinding(argument);
         }
 
+        @Override
+        public Optional<Parallelism> parallelism() {
+            return delegate.parallelism();
+        }
+
     }
 
     private static Context asContext(EvaluationContext<Reference> generic) {
@@ -28,6 +28,7 @@ public class CommandLineOptions {
     public static final String ZST_COMPRESSION = "zst-compression";
 
     private final Options options = createOptions();
+    private final Options convertOptions = createConvertOptions();
 
     @SuppressWarnings("AccessStaticViaInstance")
     private static Options createOptions() {
@@ -76,6 +77,41 @@ public class CommandLineOptions {
         return options;
     }
 
+    private static Options createConvertOptions() {
+        Options options = new Options();
+
+        options.addOption(Option.builder("h")
+                .hasArg(false)
+                .desc("Show this syntax page.")
+                .longOpt(HELP_OPTION)
+                .build());
+
+        options.addOption(Option.builder("i")
+                .required()
+                .hasArg(true)
+                .desc("Input significance model file, in JSON format, optionally zstd compressed")
+                .longOpt(INPUT_OPTION)
+                .build());
+
+        options.addOption(Option.builder("o")
+                .required()
+                .hasArg(true)
+                .desc("Output file for the significance model in binary format")
+                .longOpt(OUTPUT_OPTION)
+                .build());
+
+        return options;
+    }
+
+    public void printConvertHelp() {
+        HelpFormatter formatter = new HelpFormatter();
+
+        formatter.printHelp(
+                "vespa-significance convert <options>", "Convert a significance model to binary format.", convertOptions,
+                "The binary format is memory mapped when loaded, which avoids reading large models onto the heap.\n",
+                false);
+    }
+
     public void printHelp() {
         HelpFormatter formatter = new HelpFormatter();
 
@@ -103,5 +139,21 @@ public class CommandLineOptions {
             throw new IllegalArgumentException("Failed to parse command line arguments: " + e.getMessage());
         }
     }
+
+    public ClientParameters parseConvertCommandLineArguments(String[] args) throws IllegalArgumentException {
+        try {
+            CommandLineParser clp = new DefaultParser();
+            CommandLine cl = clp.parse(convertOptions, args);
+            ClientParameters.Builder builder = new ClientParameters.Builder();
+
+            builder.setHelp(cl.hasOption(HELP_OPTION));
+            builder.setInputFile(cl.getOptionValue(INPUT_OPTION));
+            builder.setOutputFile(cl.getOptionValue(OUTPUT_OPTION));
+
+            return builder.build();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Failed to parse command line arguments: " + e.getMessage());
+        }
+    }
 }
 
@@ -0,0 +1,39 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package com.yahoo.vespasignificance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.language.significance.impl.MappedSignificanceModelFile;
+import com.yahoo.language.significance.impl.SignificanceModelFile;
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Converts a JSON significance model file, optionally zstd compressed, to the binary form which
+ * is memory mapped when loaded, see {@link MappedSignificanceModelFile}.
+ */
+public class SignificanceModelConverter {
+
+    private final ClientParameters clientParameters;
+
+    public SignificanceModelConverter(ClientParameters clientParameters) {
+        this.clientParameters = clientParameters;
+    }
+
+    public void convert() throws IOException {
+        SignificanceModelFile modelFile;
+        try (InputStream in = clientParameters.inputFile.endsWith(".zst") ?
+                new ZstdInputStream(new FileInputStream(clientParameters.inputFile)) :
+                new FileInputStream(clientParameters.inputFile)) {
+            modelFile = new ObjectMapper().readValue(in, SignificanceModelFile.class);
+        }
+        MappedSignificanceModelFile.write(modelFile, Path.of(clientParameters.outputFile));
+        System.out.println("Converted model '" + modelFile.id() + "' with languages " +
+                           modelFile.languages().keySet() + " to " + clientParameters.outputFile);
+    }
+
+}
@@ -0,0 +1,218 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespavisit;
+
+import com.yahoo.documentapi.ProgressToken;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The combined progress of a visit split into a number of shards which each visit their own slice
+ * of the bucket space in a separate session. The progress token of every shard is kept in a single
+ * file, such that the whole visit can be resumed from it. Tokens are stored in their compact binary
+ * form, which is cheap enough to write every few seconds also with many buckets in flight.
+ * The output of every shard is flushed and forced to disk before the checkpoint is written, such that
+ * the checkpoint never claims progress for documents which are not yet stored in the output.
+ * This is thread safe. The outputs are stored and the file is written without holding the lock of this,
+ * such that shards recording their progress meanwhile do not wait for the disk.
+ */
+public class ShardedCheckpoint {
+
+    private static final String shardsField = "shards";
+    private static final String progressField = "progress";
+
+    private final Path file;
+    private final String[] progress;
+    private final long[] serializedAtNanos;
+    private final PrintStream[] outputs;
+    private final FileChannel[] outputChannels;
+    private final Duration writeInterval;
+    private final Object writeLock = new Object(); // Held while storing outputs and writing the file, to order writes
+    private long lastWriteAtNanos = System.nanoTime(); // Avoid always writing a file on the first progress update
+    private boolean dirty = false;
+    private boolean writing = false; // Whether a write triggered by a progress update is in progress
+
+    ShardedCheckpoint(Path file, int shards, Duration writeInterval) {
+        this.file = file;
+        this.progress = new String[shards];
+        this.serializedAtNanos = new long[shards];
+        this.outputs = new PrintStream[shards];
+        this.outputChannels = new FileChannel[shards];
+        Arrays.fill(serializedAtNanos, lastWriteAtNanos);
+        this.writeInterval = writeInterval;
+    }
+
+    /**
+     * Returns the checkpoint stored in the given file, or a new, empty one if the file does not exist.
+     *
+     * @throws IllegalArgumentException if the file was written for a different number of shards
+     */
+    public static ShardedCheckpoint readOrCreate(Path file, int shards) throws IOException {
+        ShardedCheckpoint checkpoint = new ShardedCheckpoint(file, shards, Duration.ofSeconds(3));
+        byte[] json;
+        try {
+            json = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return checkpoint; // Will be created on the first progress update
+        }
+        Inspector root = SlimeUtils.jsonToSlimeOrThrow(json).get();
+        if (root.field(shardsField).asLong() != shards)
+            throw new IllegalArgumentException("Progress file '" + file + "' was written by a visit with " +
+                                               root.field(shardsField).asLong() + " shards, not " + shards);
+        for (int i = 0; i < shards; i++) {
+            String token = root.field(progressField).entry(i).asString();
+            checkpoint.progress[i] = token.isEmpty() ? null : token;
+        }
+        return checkpoint;
+    }
+
+    public int shards() { return progress.length; }
+
+    /**
+     * Sets the output the given shard writes its documents to. The output is flushed and the channel
+     * it writes to is forced to disk before each write of this checkpoint.
+     */
+    public synchronized void setOutput(int shard, PrintStream output, FileChannel channel) {
+        outputs[shard] = output;
+        outputChannels[shard] = channel;
+    }
+
+    /**
+     * Stores the output written by all shards so far, and stops storing them before writes of this.
+     * This must be called after all shards are done writing, and before the outputs are closed.
+     */
+    public void releaseOutputs() throws IOException {
+        synchronized (writeLock) {
+            try {
+                syncOutputs(snapshotOutputs(), snapshotChannels());
+            }
+            finally {
+                synchronized (this) {
+                    Arrays.fill(outputs, null);
+                    Arrays.fill(outputChannels, null);
+                }
+            }
+        }
+    }
+
+    /** Returns the progress to resume the given shard from, or null if it has not made any progress yet */
+    public synchronized ProgressToken resumeToken(int shard) {
+        if (progress[shard] == null) return null;
+        return ProgressToken.fromSerializedString(progress[shard]);
+    }
+
+    /**
+     * Records the progress of the given shard, and writes the checkpoint if it is some time since the last write.
+     * This is called on every progress update while the token is locked, so the token is only serialized
+     * when the progress recorded for the shard is older than the write interval. A write is skipped if another
+     * is in progress, as progress is written again later. The caller must hold the token lock.
+     */
+    public void update(int shard, ProgressToken token) throws IOException {
+        long nowNanos = System.nanoTime();
+        boolean serialize;
+        synchronized (this) {
+            serialize = progress[shard] == null || nowNanos - serializedAtNanos[shard] > writeInterval.toNanos();
+        }
+        // The progress of a shard is only recorded by the thread holding its token, so this may serialize unlocked
+        String serialized = serialize ? serialized(token) : null;
+        synchronized (this) {
+            if (serialized != null) {
+                progress[shard] = serialized;
+                serializedAtNanos[shard] = nowNanos;
+                dirty = true;
+            }
+            if ( ! dirty || writing || nowNanos - lastWriteAtNanos <= writeInterval.toNanos()) return;
+            writing = true;
+            lastWriteAtNanos = nowNanos;
+        }
+        try {
+            write();
+        }
+        finally {
+            synchronized (this) {
+                writing = false;
+            }
+        }
+    }
+
+    /** Records the final progress of the given shard and writes the checkpoint. The caller must hold the token lock. */
+    public void flush(int shard, ProgressToken token) throws IOException {
+        String serialized = serialized(token);
+        synchronized (this) {
+            progress[shard] = serialized;
+            serializedAtNanos[shard] = System.nanoTime();
+            dirty = true;
+        }
+        write();
+    }
+
+    private static String serialized(ProgressToken token) {
+        return Base64.getUrlEncoder().encodeToString(token.serializeCompact());
+    }
+
+    private synchronized PrintStream[] snapshotOutputs() { return outputs.clone(); }
+
+    private synchronized FileChannel[] snapshotChannels() { return outputChannels.clone(); }
+
+    /** Stores all the output written so far, which must include all documents covered by the progress of this */
+    private static void syncOutputs(PrintStream[] outputs, FileChannel[] channels) throws IOException {
+        for (int shard = 0; shard < outputs.length; shard++) {
+            if (outputs[shard] == null) continue;
+            if (outputs[shard].checkError()) // Flushes the output
+                throw new IOException("Failed writing the output of shard " + shard);
+            channels[shard].force(false);
+        }
+    }
+
+    /**
+     * Writes the progress recorded so far. The progress is captured before storing the outputs, so the outputs
+     * include all documents covered by it. Writes are ordered, so a later capture is never overwritten by an earlier.
+     */
+    private void write() throws IOException {
+        synchronized (writeLock) {
+            String[] progressSnapshot;
+            PrintStream[] outputsSnapshot;
+            FileChannel[] channelsSnapshot;
+            synchronized (this) {
+                progressSnapshot = progress.clone();
+                outputsSnapshot = outputs.clone();
+                channelsSnapshot = outputChannels.clone();
+                dirty = false;
+            }
+            try {
+                syncOutputs(outputsSnapshot, channelsSnapshot);
+                Slime slime = new Slime();
+                Cursor root = slime.setObject();
+                root.setLong(shardsField, progressSnapshot.length);
+                Cursor tokens = root.setArray(progressField);
+                for (String token : progressSnapshot)
+                    tokens.addString(token == null ? "" : token);
+
+                Path tmpPath = Path.of(file + ".tmp");
+                Files.write(tmpPath, SlimeUtils.toJsonBytes(slime));
+                Files.move(tmpPath, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            }
+            catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    dirty = true; // Not written
+                }
+                throw e;
+            }
+        }
+    }
+
+}
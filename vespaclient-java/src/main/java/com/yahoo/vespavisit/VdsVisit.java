@@ -23,15 +23,26 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
 /**
  * Client using visiting, used by the vespa-visit command line tool.
  *
@@ -42,6 +53,7 @@ public class VdsVisit {
     private VdsVisitParameters params;
     private MessageBusParams mbparams = new MessageBusParams();
     private VisitorSession session;
+    private final List<VisitorSession> shardSessions = new CopyOnWriteArrayList<>();
 
     private final VisitorSessionAccessorFactory sessionAccessorFactory;
     private VisitorSessionAccessor sessionAccessor;
@@ -381,6 +393,24 @@ public class VdsVisit {
                 .type(Number.class)
                 .build());
 
+        options.addOption(Option.builder()
+                .longOpt("shards")
+                .desc("Visit the document corpus as this number of slices concurrently in this process, " +
+                      "each with its own visitor session and output file given by --outputprefix. " +
+                      "Progress of all the slices is tracked in the single file given by --progress.")
+                .hasArg(true)
+                .argName("num")
+                .type(Number.class)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("outputprefix")
+                .desc("When visiting with --shards, write the output of shard i to the file <prefix>.<i>. " +
+                      "Resumed shards append to their file, so use --jsonl to get valid output when resuming.")
+                .hasArg(true)
+                .argName("prefix")
+                .build());
+
         options.addOption(Option.builder()
                 .longOpt("nullrender")
                 .desc("Process documents, but do not render any output. Overrides all other output options. " +
@@ -409,6 +439,8 @@ public class VdsVisit {
         private boolean nullRender = false;
         private int slices = 1;
         private int sliceId = 0;
+        private int shards = 1;
+        private String outputPrefix = null;
 
         public VisitorParameters getVisitorParameters() {
             return visitorParameters;
@@ -540,6 +572,22 @@ public class VdsVisit {
             this.sliceId = sliceId;
         }
 
+        public int shards() {
+            return shards;
+        }
+
+        public void setShards(int shards) {
+            this.shards = shards;
+        }
+
+        public String outputPrefix() {
+            return outputPrefix;
+        }
+
+        public void setOutputPrefix(String outputPrefix) {
+            this.outputPrefix = outputPrefix;
+        }
+
     }
 
     private static int optionAsInt(CommandLine cmdLine, String optName) throws org.apache.commons.cli.ParseException {
@@ -687,6 +735,25 @@ public class VdsVisit {
                 allParams.setSliceId(optionAsInt(line, "sliceid"));
             }
 
+            if (line.hasOption("shards")) {
+                allParams.setShards(optionAsInt(line, "shards"));
+                if (allParams.shards() < 1) {
+                    throw new IllegalArgumentException("--shards must be greater than 0");
+                }
+                if (line.hasOption("slices")) {
+                    throw new IllegalArgumentException("Cannot combine --shards with --slices");
+                }
+                if ( ! line.hasOption("outputprefix")) {
+                    throw new IllegalArgumentException("--outputprefix must be specified when visiting with --shards");
+                }
+                if (line.hasOption("d")) {
+                    throw new IllegalArgumentException("Cannot combine --shards with a remote data handler");
+                }
+            }
+            if (line.hasOption("outputprefix")) {
+                allParams.setOutputPrefix(line.getOptionValue("outputprefix"));
+            }
+
             boolean jsonOutput = line.hasOption("jsonoutput");
             boolean jsonl      = line.hasOption("jsonl");
             boolean xmlOutput  = line.hasOption("xmloutput");
@@ -810,6 +877,9 @@ public class VdsVisit {
         if (params.getSlices() > 1) {
             out.format("Visiting slice %d out of %s slices\n", params.getSliceId(), params.getSlices());
         }
+        if (vdsParams.shards() > 1) {
+            out.format("Visiting %d shards concurrently, writing to %s.<shard>\n", vdsParams.shards(), vdsParams.outputPrefix());
+        }
     }
 
     private void onDocumentSelectionException(Exception e) {
@@ -829,6 +899,9 @@ public class VdsVisit {
     }
 
     protected int doRun() {
+        if (params.shards() > 1) {
+            return doRunSharded();
+        }
         VisitorParameters visitorParameters = params.getVisitorParameters();
         // If progress file already exists, create resume token from it
         if (visitorParameters.getResumeFileName() != null &&
@@ -856,19 +929,7 @@ public class VdsVisit {
 
         VdsVisitHandler handler;
 
-        var handlerParams = new StdOutVisitorHandler.Params();
-        handlerParams.printIds             = params.isPrintIdsOnly();
-        handlerParams.indentXml            = params.isVerbose();
-        handlerParams.showProgress         = params.isVerbose();
-        handlerParams.showStatistics       = params.isVerbose();
-        handlerParams.doStatistics         = params.getStatisticsParts() != null;
-        handlerParams.abortOnClusterDown   = params.getAbortOnClusterDown();
-        handlerParams.processTimeMilliSecs = params.getProcessTime();
-        handlerParams.outputFormat         = params.stdOutHandlerOutputFormat();
-        handlerParams.tensorShortForm      = params.tensorShortForm();
-        handlerParams.tensorDirectValues   = params.tensorDirectValues();
-        handlerParams.nullRender           = params.nullRender();
-        handler = new StdOutVisitorHandler(handlerParams);
+        handler = new StdOutVisitorHandler(createHandlerParams());
 
         if (visitorParameters.getResumeFileName() != null) {
             handler.setProgressFileName(visitorParameters.getResumeFileName());
@@ -879,12 +940,7 @@ public class VdsVisit {
             visitorParameters.setLocalDataHandler(handler.getDataHandler());
         }
 
-        if (params.getStatisticsParts() != null) {
-            String[] parts = params.getStatisticsParts().split(",");
-            for (String s : parts) {
-                visitorParameters.setLibraryParameter(s, "true");
-            }
-        }
+        setStatisticsParameters(visitorParameters);
 
         try {
             session = sessionAccessor.createVisitorSession(visitorParameters);
@@ -916,6 +972,130 @@ public class VdsVisit {
         }
     }
 
+    private StdOutVisitorHandler.Params createHandlerParams() {
+        var handlerParams = new StdOutVisitorHandler.Params();
+        handlerParams.printIds             = params.isPrintIdsOnly();
+        handlerParams.indentXml            = params.isVerbose();
+        handlerParams.showProgress         = params.isVerbose();
+        handlerParams.showStatistics       = params.isVerbose();
+        handlerParams.doStatistics         = params.getStatisticsParts() != null;
+        handlerParams.abortOnClusterDown   = params.getAbortOnClusterDown();
+        handlerParams.processTimeMilliSecs = params.getProcessTime();
+        handlerParams.outputFormat         = params.stdOutHandlerOutputFormat();
+        handlerParams.tensorShortForm      = params.tensorShortForm();
+        handlerParams.tensorDirectValues   = params.tensorDirectValues();
+        handlerParams.nullRender           = params.nullRender();
+        return handlerParams;
+    }
+
+    private void setStatisticsParameters(VisitorParameters visitorParameters) {
+        if (params.getStatisticsParts() != null) {
+            String[] parts = params.getStatisticsParts().split(",");
+            for (String s : parts) {
+                visitorParameters.setLibraryParameter(s, "true");
+            }
+        }
+    }
+
+    /**
+     * Visits each slice of the corpus in its own session, with its own handler writing to its own output file,
+     * such that sessions neither share a progress token nor an output stream. The progress of all shards
+     * is kept in a single checkpoint, and shards which are resumed append to their existing output file.
+     */
+    private int doRunSharded() {
+        VisitorParameters baseParameters = params.getVisitorParameters();
+        int shards = params.shards();
+        ShardedCheckpoint checkpoint = null;
+        if (baseParameters.getResumeFileName() != null && !"".equals(baseParameters.getResumeFileName())) {
+            try {
+                checkpoint = ShardedCheckpoint.readOrCreate(Path.of(baseParameters.getResumeFileName()), shards);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not open progress file: " + baseParameters.getResumeFileName());
+                e.printStackTrace(System.err);
+                return 1;
+            }
+        }
+
+        initShutdownHook();
+        sessionAccessor = sessionAccessorFactory.createVisitorSessionAccessor();
+
+        var handlerParams = createHandlerParams();
+        handlerParams.showProgress = false; // Progress of concurrent shards would be interleaved
+        List<VisitorParameters> shardParameters = new ArrayList<>();
+        List<PrintStream> outputs = new ArrayList<>();
+        boolean outputFailed = false;
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                VisitorParameters parameters = new VisitorParameters(baseParameters);
+                parameters.slice(shards, shard);
+                parameters.setResumeFileName(null);
+                parameters.setResumeToken(checkpoint == null ? null : checkpoint.resumeToken(shard));
+                if (params.isVerbose() && parameters.getResumeToken() != null) {
+                    System.err.format("Resuming shard %d already %.1f %% finished.\n",
+                                      shard, parameters.getResumeToken().percentFinished());
+                }
+
+                Path outputFile = Path.of(params.outputPrefix() + "." + shard);
+                FileChannel channel = parameters.getResumeToken() == null
+                                      ? FileChannel.open(outputFile, CREATE, WRITE, TRUNCATE_EXISTING)
+                                      : FileChannel.open(outputFile, CREATE, WRITE, APPEND);
+                PrintStream output = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(channel)),
+                                                     false, StandardCharsets.UTF_8);
+                outputs.add(output);
+                VdsVisitHandler handler = new StdOutVisitorHandler(handlerParams, output);
+                if (checkpoint != null) {
+                    // Buffered output is stored before each checkpoint write, so resuming never skips documents
+                    checkpoint.setOutput(shard, output, channel);
+                    handler.setCheckpoint(checkpoint, shard);
+                }
+                parameters.setControlHandler(handler.getControlHandler());
+                parameters.setLocalDataHandler(handler.getDataHandler());
+                setStatisticsParameters(parameters);
+                shardParameters.add(parameters);
+            }
+
+            for (VisitorParameters parameters : shardParameters) {
+                shardSessions.add(sessionAccessor.createVisitorSession(parameters));
+            }
+            for (VisitorSession shardSession : shardSessions) {
+                while (true) {
+                    try {
+                        if (shardSession.waitUntilDone(params.getFullTimeout())) break;
+                    } catch (InterruptedException e) {}
+                }
+            }
+        } catch (ParseException e) {
+            onDocumentSelectionException(e);
+        } catch (IllegalArgumentException e) {
+            onIllegalArgumentException(e);
+        } catch (Exception e) {
+            System.err.println("Document selection string was: " + baseParameters.getDocumentSelection());
+            System.err.println("Caught unexpected exception: ");
+            e.printStackTrace(System.err);
+            return 1;
+        } finally {
+            if (checkpoint != null) {
+                try {
+                    checkpoint.releaseOutputs();
+                } catch (IOException e) {
+                    System.err.println("Could not write output: " + e.getMessage());
+                    outputFailed = true;
+                }
+            }
+            for (PrintStream output : outputs) {
+                output.close();
+            }
+        }
+
+        boolean success = ! outputFailed;
+        for (VisitorParameters parameters : shardParameters) {
+            // The result is null for sessions which were never started, e.g., due to an invalid selection
+            VisitorControlHandler.Result result = parameters.getControlHandler().getResult();
+            success &= result != null && result.code == VisitorControlHandler.CompletionCode.SUCCESS;
+        }
+        return success ? 0 : 1;
+    }
+
     private void initShutdownHook() {
         shutdownHookRegistrar.registerShutdownHook(new CleanUpThread());
     }
@@ -929,6 +1109,13 @@ public class VdsVisit {
             } catch (IllegalStateException ise) {
                 //ignore this
             }
+            for (VisitorSession shardSession : shardSessions) {
+                try {
+                    shardSession.destroy();
+                } catch (IllegalStateException ise) {
+                    //ignore this
+                }
+            }
             try {
                 if (sessionAccessor != null) {
                     sessionAccessor.shutdown();
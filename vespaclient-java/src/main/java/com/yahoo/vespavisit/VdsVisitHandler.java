@@ -36,7 +36,7 @@ public abstract class VdsVisitHandler {
 
     private static class ProgressMeta {
         String fileName = "";
-        String lastProgressContents;
+        ProgressToken lastToken; // Serialized only when written, as this is done while the session is locked
         int unwrittenUpdates = 0;
         long lastWriteAtNanos = 0;
         Duration writeInterval = Duration.ofSeconds(10);
@@ -47,6 +47,8 @@ public abstract class VdsVisitHandler {
     }
 
     ProgressMeta progressMeta = new ProgressMeta();
+    private ShardedCheckpoint checkpoint = null;
+    private int shard = 0;
     final VisitorControlHandler controlHandler = new ControlHandler();
 
     public VdsVisitHandler(boolean showProgress, boolean showStatistics, boolean abortOnClusterDown) {
@@ -98,16 +100,23 @@ public abstract class VdsVisitHandler {
         this.progressMeta.fileName = progressFileName;
     }
 
+    /** Records the progress of this in the given shard of a combined checkpoint, instead of in a progress file */
+    public void setCheckpoint(ShardedCheckpoint checkpoint, int shard) {
+        this.checkpoint = checkpoint;
+        this.shard = shard;
+    }
+
     public VisitorControlHandler getControlHandler() { return controlHandler; }
     public abstract VisitorDataHandler getDataHandler();
 
     class ControlHandler extends VisitorControlHandler {
         VisitorStatistics statistics;
+        ProgressToken lastCheckpointedToken = null;
 
         private void rewriteProgressFile() {
             try {
                 var tmpPath = Path.of(progressMeta.fileName + ".tmp");
-                Files.writeString(tmpPath, progressMeta.lastProgressContents);
+                Files.writeString(tmpPath, progressMeta.lastToken.toString());
                 Files.move(tmpPath, Path.of(progressMeta.fileName), REPLACE_EXISTING, ATOMIC_MOVE);
             } catch (IOException e) {
                 e.printStackTrace();
@@ -115,11 +124,34 @@ public abstract class VdsVisitHandler {
             }
         }
 
+        private void updateCheckpoint(ProgressToken token) {
+            try {
+                checkpoint.update(shard, token);
+                lastCheckpointedToken = token;
+            } catch (IOException e) {
+                e.printStackTrace();
+                abort(); // Don't continue visiting if we're unable to save progress state
+            }
+        }
+
+        private void flushCheckpoint() {
+            try {
+                checkpoint.flush(shard, lastCheckpointedToken);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
         public void onProgress(ProgressToken token) {
+            if (checkpoint != null) {
+                synchronized (token) {
+                    updateCheckpoint(token);
+                }
+            }
             if (progressMeta.shouldWriteProgress()) {
                  synchronized (token) {
                      progressMeta.unwrittenUpdates++;
-                     progressMeta.lastProgressContents = token.toString();
+                     progressMeta.lastToken = token;
                      long nowNanos = System.nanoTime();
                      if ((nowNanos - progressMeta.lastWriteAtNanos) > progressMeta.writeInterval.toNanos()) {
                          rewriteProgressFile();
@@ -177,7 +209,14 @@ public abstract class VdsVisitHandler {
             // Flush any remaining unwritten progress updates.
             // It is expected that this happens-after any and all calls to onProgress().
             if (progressMeta.unwrittenUpdates > 0) {
-                rewriteProgressFile();
+                synchronized (progressMeta.lastToken) {
+                    rewriteProgressFile();
+                }
+            }
+            if (checkpoint != null && lastCheckpointedToken != null) {
+                synchronized (lastCheckpointedToken) {
+                    flushCheckpoint();
+                }
             }
             if (lastLineIsProgress) {
                 System.err.print('\n');
@@ -0,0 +1,61 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package com.yahoo.vespasignificance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.language.significance.impl.DocumentFrequencyFile;
+import com.yahoo.language.significance.impl.MappedSignificanceModelFile;
+import com.yahoo.language.significance.impl.SignificanceModelFile;
+import io.airlift.compress.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SignificanceModelConverterTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testConvertJsonModel() throws IOException {
+        assertConverted(tempDir.resolve("model.json"));
+    }
+
+    @Test
+    void testConvertCompressedJsonModel() throws IOException {
+        assertConverted(tempDir.resolve("model.json.zst"));
+    }
+
+    private void assertConverted(Path input) throws IOException {
+        var model = new SignificanceModelFile("1.0", "test", "test model", new HashMap<>(Map.of(
+                "en", new DocumentFrequencyFile("english", 10, Map.of("hello", 3L, "world", 5L)),
+                "nb,nn", new DocumentFrequencyFile("norwegian", 20, Map.of("hei", 7L, "verden", 2L)))));
+        try (OutputStream out = input.toString().endsWith(".zst") ? new ZstdOutputStream(new FileOutputStream(input.toFile()))
+                                                                  : new FileOutputStream(input.toFile())) {
+            new ObjectMapper().writeValue(out, model);
+        }
+        Path output = tempDir.resolve("model.bin");
+        new SignificanceModelConverter(new ClientParameters.Builder().setInputFile(input.toString())
+                                                                     .setOutputFile(output.toString())
+                                                                     .build()).convert();
+
+        var converted = MappedSignificanceModelFile.read(output);
+        assertEquals("test", converted.id());
+        assertEquals(10, converted.languages().get("en").corpusSize());
+        assertEquals(3, converted.languages().get("en").frequency("hello"));
+        assertEquals(5, converted.languages().get("en").frequency("world"));
+        assertEquals(1, converted.languages().get("en").frequency("hei"));
+        assertEquals(20, converted.languages().get("nb,nn").corpusSize());
+        assertEquals(7, converted.languages().get("nb,nn").frequency("hei"));
+        assertEquals(2, converted.languages().get("nb,nn").frequency("verden"));
+    }
+
+}
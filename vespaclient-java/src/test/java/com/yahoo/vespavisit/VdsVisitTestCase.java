@@ -16,20 +16,34 @@ import com.yahoo.vespaclient.ClusterDef;
 import com.yahoo.vespaclient.ClusterList;
 import org.apache.commons.cli.Options;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -225,6 +239,29 @@ public class VdsVisitTestCase {
     }
 
     // TODO Vespa 9: change default from long to short
+    @Test
+    void sharding_options_are_parsed() throws Exception {
+        var allParams = createMockArgumentParser().parse(new String[] { "--shards", "4", "--outputprefix", "dump", "--jsonl" });
+        assertEquals(4, allParams.shards());
+        assertEquals("dump", allParams.outputPrefix());
+        assertEquals(1, allParams.getVisitorParameters().getSlices());
+
+        assertEquals(1, createMockArgumentParser().parse(emptyArgList()).shards());
+        assertParseFailure("--outputprefix must be specified when visiting with --shards", "--shards", "4");
+        assertParseFailure("Cannot combine --shards with --slices",
+                           "--shards", "4", "--outputprefix", "dump", "--slices", "2", "--sliceid", "0");
+        assertParseFailure("--shards must be greater than 0", "--shards", "0", "--outputprefix", "dump");
+    }
+
+    private void assertParseFailure(String expectedMessage, String ... args) {
+        try {
+            createMockArgumentParser().parse(args);
+            fail("Expected failure parsing " + Arrays.toString(args));
+        } catch (Exception e) {
+            assertEquals(expectedMessage, e.getMessage());
+        }
+    }
+
     @Test
     void tensor_output_format_is_long_by_default() throws Exception {
         var allParams = createMockArgumentParser().parse(emptyArgList());
@@ -395,8 +432,10 @@ public class VdsVisitTestCase {
 
     private static class MockVisitorSessionAccessor implements VdsVisit.VisitorSessionAccessor {
         boolean shutdown = false;
+        final List<VisitorParameters> sessionParameters = new ArrayList<>();
         @Override
         public VisitorSession createVisitorSession(VisitorParameters params) throws ParseException {
+            sessionParameters.add(params);
             return new MockVisitorSession(params);
         }
 
@@ -490,4 +529,116 @@ public class VdsVisitTestCase {
         assertNotNull(accessorFactory.getLastCreatedAccessor());
         assertTrue(accessorFactory.getLastCreatedAccessor().isShutdown());
     }
+
+    @Test
+    void testVdsVisitShardedRunLogic(@TempDir Path tmpDir) throws Exception {
+        Path progressFile = tmpDir.resolve("progress.json");
+        var checkpoint = ShardedCheckpoint.readOrCreate(progressFile, 3);
+        checkpoint.flush(1, new ProgressToken(Files.readString(Path.of("src/test/files/progress.txt"))));
+
+        MockVisitorSessionAccessorFactory accessorFactory = new MockVisitorSessionAccessorFactory();
+        MockShutdownHookRegistrar shutdownHookRegistrar = new MockShutdownHookRegistrar();
+        VdsVisit vdsVisit = new VdsVisit(accessorFactory, shutdownHookRegistrar);
+
+        VdsVisit.VdsVisitParameters params = new VdsVisit.VdsVisitParameters();
+        VisitorParameters visitorParameters = new VisitorParameters("");
+        visitorParameters.setResumeFileName(progressFile.toString());
+        params.setVisitorParameters(visitorParameters);
+        params.setShards(3);
+        params.setOutputPrefix(tmpDir.resolve("dump").toString());
+        params.setJsonLinesOutput(true);
+        vdsVisit.setVdsVisitParameters(params);
+
+        assertEquals(0, vdsVisit.doRun());
+        shutdownHookRegistrar.getCleanUpThread().run();
+        assertTrue(accessorFactory.getLastCreatedAccessor().isShutdown());
+
+        List<VisitorParameters> sessionParameters = accessorFactory.getLastCreatedAccessor().sessionParameters;
+        assertEquals(3, sessionParameters.size());
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(3, sessionParameters.get(shard).getSlices());
+            assertEquals(shard, sessionParameters.get(shard).getSliceId());
+            assertTrue(Files.exists(tmpDir.resolve("dump." + shard)));
+        }
+        assertNull(sessionParameters.get(0).getResumeToken());
+        assertEquals(3, sessionParameters.get(1).getResumeToken().getPendingBucketCount());
+        assertNull(sessionParameters.get(2).getResumeToken());
+
+        // A checkpoint can only be resumed with the same number of shards
+        params.setShards(2);
+        assertEquals(1, vdsVisit.doRun());
+    }
+
+    @Test
+    void testCheckpointIsNeverAheadOfOutput(@TempDir Path tmpDir) throws Exception {
+        Path progressFile = tmpDir.resolve("progress.json");
+        Path outputFile = tmpDir.resolve("dump.0");
+        var checkpoint = new ShardedCheckpoint(progressFile, 1, Duration.ZERO);
+        FileChannel channel = FileChannel.open(outputFile, CREATE, WRITE);
+        PrintStream output = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(channel)),
+                                             false, StandardCharsets.UTF_8);
+        checkpoint.setOutput(0, output, channel);
+        ProgressToken token = new ProgressToken(Files.readString(Path.of("src/test/files/progress.txt")));
+
+        long written = 0;
+        for (int i = 0; i < 3; i++) {
+            String document = "{\"id\":\"id:ns:type::" + i + "\"}\n";
+            output.print(document);
+            written += document.getBytes(StandardCharsets.UTF_8).length;
+            assertTrue(Files.size(outputFile) < written, "Output is buffered");
+
+            Thread.sleep(1); // Make sure the write interval has passed
+            checkpoint.update(0, token);
+            assertTrue(Files.exists(progressFile));
+            assertEquals(written, Files.size(outputFile), "All output covered by the checkpoint is stored");
+        }
+
+        output.print("{}\n");
+        checkpoint.releaseOutputs();
+        assertEquals(written + 3, Files.size(outputFile));
+        output.close();
+        assertEquals(3, ShardedCheckpoint.readOrCreate(progressFile, 1).resumeToken(0).getPendingBucketCount());
+    }
+
+    @Test
+    void testShardsRecordProgressWhileOutputIsStored(@TempDir Path tmpDir) throws Exception {
+        Path progressFile = tmpDir.resolve("progress.json");
+        var checkpoint = new ShardedCheckpoint(progressFile, 2, Duration.ZERO);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch stored = new CountDownLatch(1);
+        OutputStream slowDisk = new OutputStream() {
+            @Override public void write(int b) { }
+            @Override public void flush() {
+                flushing.countDown();
+                try {
+                    stored.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        checkpoint.setOutput(0, new PrintStream(slowDisk), FileChannel.open(tmpDir.resolve("dump.0"), CREATE, WRITE));
+        ProgressToken token = new ProgressToken(Files.readString(Path.of("src/test/files/progress.txt")));
+
+        Thread.sleep(1); // Make sure the write interval has passed
+        CompletableFuture<Void> writing = CompletableFuture.runAsync(() -> {
+            try {
+                checkpoint.update(0, token);
+            }
+            catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(flushing.await(1, TimeUnit.MINUTES));
+
+        // The other shard records its progress without waiting for the output of the first to be stored
+        assertTimeoutPreemptively(Duration.ofMinutes(1), () -> checkpoint.update(1, token));
+        stored.countDown();
+        writing.get(1, TimeUnit.MINUTES);
+
+        checkpoint.flush(1, token);
+        assertEquals(3, ShardedCheckpoint.readOrCreate(progressFile, 2).resumeToken(1).getPendingBucketCount());
+    }
+
 }
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.slime;
 
+import java.io.ByteArrayOutputStream;
 import java.util.function.Consumer;
 import static com.yahoo.slime.BinaryFormat.decode_double;
 import static com.yahoo.slime.BinaryFormat.decode_meta;
@@ -229,6 +230,18 @@ public final class BinaryView implements Inspector {
         return NixValue.invalid();
     }
 
+    @Override
+    public String toString() {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new JsonFormat(true).encode(out, this);
+            byte[] utf8 = out.toByteArray();
+            return Utf8Codec.decode(utf8, 0, utf8.length);
+        } catch (Exception e) {
+            return "null";
+        }
+    }
+
     private static void buildIndex(BufferedInput input, DecodeIndex index, int self, int extBits) {
         int pos = input.getPosition();
         byte tag = input.getByte();
@@ -283,11 +296,28 @@ public final class BinaryView implements Inspector {
         }
     }
 
+    /**
+     * Returns a read-only view of the binary Slime value in the given data. Only the symbol table is decoded,
+     * along with an index of the position of each value, while values are extracted as they are accessed.
+     * The returned view keeps a reference to the given data, which must not be modified.
+     *
+     * @throws IllegalArgumentException if the data is not a valid binary Slime value
+     */
     public static Inspector inspect(byte[] data) {
-        var input = new BufferedInput(data);
+        return inspect(data, 0, data.length);
+    }
+
+    /**
+     * Returns a read-only view of the binary Slime value in the given range of the given data,
+     * without copying it. See {@link #inspect(byte[])}.
+     *
+     * @throws IllegalArgumentException if the data is not a valid binary Slime value
+     */
+    public static Inspector inspect(byte[] data, int offset, int length) {
+        var input = new BufferedInput(data, offset, length);
         var names = new SymbolTable();
         BinaryDecoder.decodeSymbolTable(input, names);
-        var index = new DecodeIndex(input.getBacking().length, input.getPosition());
+        var index = new DecodeIndex(offset + length, input.getPosition());
         buildIndex(input, index, 0, 0);
         if (input.failed()) {
             throw new IllegalArgumentException("bad input: " + input.getErrorMessage());
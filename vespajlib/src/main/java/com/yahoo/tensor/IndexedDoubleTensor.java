@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor;
 
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
 
 /**
@@ -32,6 +33,9 @@ class IndexedDoubleTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return (float)get(valueIndex); }
 
+    @Override
+    public void writeValues(DoubleBuffer target) { target.put(values); }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
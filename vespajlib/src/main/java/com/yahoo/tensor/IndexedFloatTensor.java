@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 
 /**
@@ -30,6 +31,9 @@ class IndexedFloatTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return values[(int)valueIndex]; }
 
+    @Override
+    public void writeValues(FloatBuffer target) { target.put(values); }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
@@ -3,6 +3,8 @@ package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -158,6 +160,24 @@ public abstract class IndexedTensor implements Tensor {
      */
     public abstract float getFloat(long valueIndex);
 
+    /**
+     * Writes all the values of this, in <i>standard value order</i>, to the given buffer,
+     * starting at its current position.
+     */
+    public void writeValues(DoubleBuffer target) {
+        for (int i = 0; i < sizeAsInt(); i++)
+            target.put(get(i));
+    }
+
+    /**
+     * Writes all the values of this as floats, in <i>standard value order</i>, to the given buffer,
+     * starting at its current position.
+     */
+    public void writeValues(FloatBuffer target) {
+        for (int i = 0; i < sizeAsInt(); i++)
+            target.put(getFloat(i));
+    }
+
     static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
         if (indexes.length == 0) return 0; // for speed
@@ -1,14 +1,19 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor;
 
-import com.google.common.collect.ImmutableMap;
+import com.yahoo.tensor.impl.AddressTable;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
- * A sparse implementation of a tensor backed by a Map of cells to values.
+ * A sparse implementation of a tensor backed by an {@link AddressTable} of the cell addresses,
+ * and arrays of the addresses and values in the same order.
  *
  * @author bratseth
  */
@@ -16,41 +21,71 @@ public class MappedTensor implements Tensor {
 
     private final TensorType type;
 
-    private final ImmutableMap<TensorAddress, Double> cells;
+    /** The cells of this, where the entry number of an address is the index of its value */
+    private final AddressTable table;
+    private final TensorAddress[] addresses;
+    private final double[] values;
 
     /** Creates a sparse tensor. The cell addresses must match the type. */
-    private MappedTensor(TensorType type, Map<TensorAddress, Double> cells) {
+    private MappedTensor(TensorType type, AddressTable table, TensorAddress[] addresses, double[] values) {
         this.type = type;
-        this.cells = ImmutableMap.copyOf(cells);
+        this.table = table;
+        this.addresses = addresses;
+        this.values = values;
     }
 
     @Override
     public TensorType type() { return type; }
 
     @Override
-    public long size() { return cells.size(); }
+    public long size() { return values.length; }
 
     /** Once we can store more cells than an int we should drop this. */
     @Override
-    public int sizeAsInt() { return cells.size(); }
+    public int sizeAsInt() { return values.length; }
 
     @Override
-    public double get(TensorAddress address) { return cells.getOrDefault(address, 0.0); }
+    public double get(TensorAddress address) {
+        int cell = table.find(address);
+        return cell < 0 ? 0.0 : values[cell];
+    }
 
     @Override
-    public boolean has(TensorAddress address) { return cells.containsKey(address); }
+    public boolean has(TensorAddress address) { return table.find(address) >= 0; }
 
     @Override
-    public Double getAsDouble(TensorAddress address) { return cells.get(address); }
+    public Double getAsDouble(TensorAddress address) {
+        int cell = table.find(address);
+        return cell < 0 ? null : values[cell];
+    }
+
+    /**
+     * Returns the index of the cell having the given address, or -1 if none.
+     * This, and the methods accessing cells by index, allows reading cells without allocating.
+     */
+    public int indexOf(TensorAddress address) { return table.find(address); }
+
+    /**
+     * Returns the index of the cell having the address consisting of the labels of the given address
+     * at the given indexes (one per dimension of this), or -1 if none.
+     */
+    public int indexOf(TensorAddress address, int[] dimensions) { return table.find(address, dimensions); }
+
+    /** Returns the address of the cell at the given index */
+    public TensorAddress addressAt(int index) { return addresses[index]; }
+
+    /** Returns the value of the cell at the given index */
+    public double valueAt(int index) { return values[index]; }
 
     @Override
-    public Iterator<Cell> cellIterator() { return new CellIteratorAdaptor(cells.entrySet().iterator()); }
+    public Iterator<Cell> cellIterator() { return new CellIterator(); }
 
     @Override
-    public Iterator<Double> valueIterator() { return cells.values().iterator(); }
+    public Iterator<Double> valueIterator() { return Arrays.stream(values).iterator(); }
 
+    /** Returns an unmodifiable view of the cells of this, which looks up addresses in the address table of this */
     @Override
-    public Map<TensorAddress, Double> cells() { return cells; }
+    public Map<TensorAddress, Double> cells() { return new CellMap(); }
 
     @Override
     public Tensor withType(TensorType other) {
@@ -58,7 +93,7 @@ public class MappedTensor implements Tensor {
             throw new IllegalArgumentException("MappedTensor.withType: types are not compatible. Current type: '" +
                     this.type + "', requested type: '" + type.toString() + "'");
         }
-        return new MappedTensor(other, cells);
+        return new MappedTensor(other, table, addresses, values);
     }
 
     @Override
@@ -75,7 +110,12 @@ public class MappedTensor implements Tensor {
     }
 
     @Override
-    public int hashCode() { return cells.hashCode(); }
+    public int hashCode() {
+        int hashCode = 0; // The hash code of a map of the cells
+        for (int i = 0; i < values.length; i++)
+            hashCode += addresses[i].hashCode() ^ Double.hashCode(values[i]);
+        return hashCode;
+    }
 
     @Override
     public String toString() { return toString(true, true); }
@@ -101,12 +141,17 @@ public class MappedTensor implements Tensor {
     public static class Builder implements Tensor.Builder {
 
         private final TensorType type;
-        private final ImmutableMap.Builder<TensorAddress, Double> cells = new ImmutableMap.Builder<>();
+        private final AddressTable table;
+        private TensorAddress[] addresses;
+        private double[] values;
 
         public static Builder of(TensorType type) { return new Builder(type); }
 
         private Builder(TensorType type) {
             this.type = type;
+            this.table = new AddressTable(type.rank(), 16);
+            this.addresses = new TensorAddress[16];
+            this.values = new double[16];
         }
 
         public CellBuilder cell() {
@@ -121,9 +166,16 @@ public class MappedTensor implements Tensor {
             return cell(address, (double)value);
         }
 
+        /** Sets the value of a cell. If the cell is already set, its value is replaced. */
         @Override
         public Builder cell(TensorAddress address, double value) {
-            cells.put(address, value);
+            int cell = table.add(address);
+            if (cell == values.length) {
+                addresses = Arrays.copyOf(addresses, values.length * 2);
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            addresses[cell] = address;
+            values[cell] = value;
             return this;
         }
 
@@ -134,32 +186,67 @@ public class MappedTensor implements Tensor {
 
         @Override
         public Builder cell(double value, long... labels) {
-            cells.put(TensorAddress.of(labels), value);
-            return this;
+            return cell(TensorAddress.of(labels), value);
         }
 
         @Override
         public MappedTensor build() {
-            return new MappedTensor(type, cells.build());
+            return new MappedTensor(type, table.copy(),
+                                    Arrays.copyOf(addresses, table.size()), Arrays.copyOf(values, table.size()));
         }
 
     }
 
-    private static class CellIteratorAdaptor implements Iterator<Cell> {
+    private class CellMap extends AbstractMap<TensorAddress, Double> {
 
-        private final Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator;
+        @Override
+        public int size() { return values.length; }
 
-        private CellIteratorAdaptor(Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator) {
-            this.adaptedIterator = adaptedIterator;
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof TensorAddress address && table.find(address) >= 0;
         }
 
         @Override
-        public boolean hasNext() { return adaptedIterator.hasNext(); }
+        public Double get(Object key) {
+            return key instanceof TensorAddress address ? getAsDouble(address) : null;
+        }
+
+        @Override
+        public Set<Entry<TensorAddress, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() { return values.length; }
+
+                @Override
+                public Iterator<Entry<TensorAddress, Double>> iterator() {
+                    Iterator<Cell> cells = cellIterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() { return cells.hasNext(); }
+
+                        @Override
+                        public Entry<TensorAddress, Double> next() { return cells.next(); }
+                    };
+                }
+            };
+        }
+
+    }
+
+    private class CellIterator implements Iterator<Cell> {
+
+        private int index = 0;
+
+        @Override
+        public boolean hasNext() { return index < values.length; }
 
         @Override
         public Cell next() {
-            Map.Entry<TensorAddress, Double> entry = adaptedIterator.next();
-            return new Cell(entry.getKey(), entry.getValue());
+            if ( ! hasNext()) throw new NoSuchElementException("No more cells in " + type + " tensor");
+            Cell cell = new Cell(addresses[index], values[index]);
+            index++;
+            return cell;
         }
 
     }
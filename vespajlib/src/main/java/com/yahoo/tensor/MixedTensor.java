@@ -4,15 +4,18 @@ package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.yahoo.tensor.impl.AddressTable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * A mixed tensor type. This is class is currently suitable for serialization
@@ -106,9 +109,17 @@ public class MixedTensor implements Tensor {
      */
     @Override
     public Iterator<Cell> cellIterator() {
+        return cellIterator(0, index.denseSubspaces.size());
+    }
+
+    /**
+     * Returns an iterator over the cells of the dense subspaces from the given start (inclusive) to end (exclusive)
+     * index in {@link #getInternalDenseSubspaces}, in the same order as cellIterator.
+     */
+    public Iterator<Cell> cellIterator(int startSubspace, int endSubspace) {
         return new Iterator<>() {
 
-            final Iterator<DenseSubspace> blockIterator = index.denseSubspaces.iterator();
+            final Iterator<DenseSubspace> blockIterator = index.denseSubspaces.subList(startSubspace, endSubspace).iterator();
             final int[] labels = new int[index.indexedDimensions.size()];
             DenseSubspace currentBlock = null;
             int currOffset = index.denseSubspaceSize;
@@ -289,17 +300,21 @@ public class MixedTensor implements Tensor {
      */
     public static class BoundBuilder extends Builder {
 
-        /** For each sparse partial address, hold a dense subspace */
-        private final Map<TensorAddress, double[]> denseSubspaceMap;
+        /** The sparse partial addresses, and the dense subspace of each, in the order of their entries in the table */
+        private final AddressTable sparseTable;
+        private final List<TensorAddress> sparseAddresses;
+        private final List<double[]> denseSubspaces;
         private final Index.Builder indexBuilder;
         private final Index index;
         private final TensorType denseSubtype;
 
         private BoundBuilder(TensorType type, int expectedSize) {
             super(type);
-            denseSubspaceMap = new LinkedHashMap<>(expectedSize, 0.5f);
             indexBuilder = new Index.Builder(type);
             index = indexBuilder.index();
+            sparseTable = new AddressTable(index.mappedDimensions.size(), expectedSize);
+            sparseAddresses = new ArrayList<>(expectedSize);
+            denseSubspaces = new ArrayList<>(expectedSize);
             denseSubtype = new TensorType(type.valueType(),
                                           type.dimensions().stream().filter(TensorType.Dimension::isIndexed).toList());
         }
@@ -308,13 +323,33 @@ public class MixedTensor implements Tensor {
             return index.denseSubspaceSize();
         }
 
+        /** Returns the given address if it is sparse, or the sparse part of it if it is an address in the full type */
+        private TensorAddress sparsePartOf(TensorAddress address) {
+            if (address.size() == index.sparseType.rank()) return address;
+            return address.mappedPartialAddress(index.sparseType, index.type.dimensions());
+        }
+
         private double[] denseSubspace(TensorAddress sparseAddress) {
-            return denseSubspaceMap.computeIfAbsent(sparseAddress, (key) -> new double[(int)denseSubspaceSize()]);
+            sparseAddress = sparsePartOf(sparseAddress);
+            int subspace = sparseTable.add(sparseAddress);
+            if (subspace == denseSubspaces.size()) {
+                sparseAddresses.add(sparseAddress);
+                denseSubspaces.add(new double[(int)denseSubspaceSize()]);
+            }
+            return denseSubspaces.get(subspace);
         }
 
         public IndexedTensor.DirectIndexBuilder denseSubspaceBuilder(TensorAddress sparseAddress) {
             double[] values = new double[(int)denseSubspaceSize()];
-            denseSubspaceMap.put(sparseAddress, values);
+            sparseAddress = sparsePartOf(sparseAddress);
+            int subspace = sparseTable.add(sparseAddress);
+            if (subspace == denseSubspaces.size()) {
+                sparseAddresses.add(sparseAddress);
+                denseSubspaces.add(values);
+            }
+            else {
+                denseSubspaces.set(subspace, values);
+            }
             return new DenseSubspaceBuilder(denseSubtype, values);
         }
 
@@ -325,10 +360,12 @@ public class MixedTensor implements Tensor {
 
         @Override
         public Tensor.Builder cell(TensorAddress address, double value) {
-            TensorAddress sparsePart = address.mappedPartialAddress(index.sparseType, index.type.dimensions());
-            int denseOffset = index.denseOffsetOf(address);
-            double[] denseSubspace = denseSubspace(sparsePart);
-            denseSubspace[denseOffset] = value;
+            int subspace = sparseTable.add(address, index.mappedDimensionIndexes);
+            if (subspace == denseSubspaces.size()) { // Only create the sparse address of new subspaces
+                sparseAddresses.add(address.mappedPartialAddress(index.sparseType, index.type.dimensions()));
+                denseSubspaces.add(new double[(int)denseSubspaceSize()]);
+            }
+            denseSubspaces.get(subspace)[index.denseOffsetOf(address)] = value;
             return this;
         }
 
@@ -344,15 +381,10 @@ public class MixedTensor implements Tensor {
 
         @Override
         public MixedTensor build() {
-            // TODO: This can be solved more efficiently with a single map.
-            Set<Map.Entry<TensorAddress, double[]>> entrySet = denseSubspaceMap.entrySet();
-            for (Map.Entry<TensorAddress, double[]> entry : entrySet) {
-                TensorAddress sparsePart = entry.getKey();
-                double[] denseSubspace = entry.getValue();
-                var block = new DenseSubspace(sparsePart, denseSubspace);
-                indexBuilder.addBlock(block);
-            }
-            return new MixedTensor(type, indexBuilder.build());
+            List<DenseSubspace> blocks = new ArrayList<>(denseSubspaces.size());
+            for (int i = 0; i < denseSubspaces.size(); i++)
+                blocks.add(new DenseSubspace(sparseAddresses.get(i), denseSubspaces.get(i)));
+            return new MixedTensor(type, indexBuilder.build(sparseTable.copy(), blocks));
         }
 
         public static BoundBuilder of(TensorType type) {
@@ -445,9 +477,11 @@ public class MixedTensor implements Tensor {
         private final List<TensorType.Dimension> mappedDimensions;
         private final List<TensorType.Dimension> indexedDimensions;
         private final int[] indexedDimensionsSize;
+        private final int[] mappedDimensionIndexes;
 
-        private ImmutableMap<TensorAddress, Integer> sparseMap;
-        private List<DenseSubspace> denseSubspaces;
+        /** The sparse address of each dense subspace, where the entry of the address is the index of the subspace */
+        private final AddressTable sparseTable;
+        private final List<DenseSubspace> denseSubspaces;
         private final int denseSubspaceSize;
 
         static private int computeDSS(List<TensorType.Dimension> dimensions) {
@@ -463,6 +497,7 @@ public class MixedTensor implements Tensor {
             this.type = type;
             this.mappedDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).toList();
             this.indexedDimensions = type.dimensions().stream().filter(TensorType.Dimension::isIndexed).toList();
+            this.mappedDimensionIndexes = IntStream.range(0, type.rank()).filter(i -> type.dimensions().get(i).isMapped()).toArray();
             this.indexedDimensionsSize = new int[indexedDimensions.size()];
             for (int i = 0; i < indexedDimensions.size(); i++) {
                 long dimensionSize = indexedDimensions.get(i).size().orElseThrow(() ->
@@ -476,12 +511,27 @@ public class MixedTensor implements Tensor {
             if (this.denseSubspaceSize < 1) {
                 throw new IllegalStateException("invalid dense subspace size: " + denseSubspaceSize);
             }
+            this.sparseTable = new AddressTable(mappedDimensions.size(), 0);
+            this.denseSubspaces = List.of();
+        }
+
+        /** Creates an index of the given subspaces with the type information of the given index */
+        private Index(Index template, AddressTable sparseTable, List<DenseSubspace> denseSubspaces) {
+            this.type = template.type;
+            this.sparseType = template.sparseType;
+            this.denseType = template.denseType;
+            this.mappedDimensions = template.mappedDimensions;
+            this.indexedDimensions = template.indexedDimensions;
+            this.indexedDimensionsSize = template.indexedDimensionsSize;
+            this.mappedDimensionIndexes = template.mappedDimensionIndexes;
+            this.denseSubspaceSize = template.denseSubspaceSize;
+            this.sparseTable = sparseTable;
+            this.denseSubspaces = denseSubspaces;
         }
 
         private DenseSubspace blockOf(TensorAddress address) {
-            TensorAddress sparsePart = address.mappedPartialAddress(sparseType, type.dimensions());
-            Integer blockNum = sparseMap.get(sparsePart);
-            if (blockNum == null || blockNum >= denseSubspaces.size()) {
+            int blockNum = sparseTable.find(address, mappedDimensionIndexes);
+            if (blockNum < 0 || blockNum >= denseSubspaces.size()) {
                 return null;
             }
             return denseSubspaces.get(blockNum);
@@ -538,15 +588,15 @@ public class MixedTensor implements Tensor {
 
             // Exactly 1 mapped dimension
             StringBuilder b = new StringBuilder("{");
-            var cellEntries = new ArrayList<>(sparseMap.entrySet());
-            cellEntries.sort(Map.Entry.comparingByKey());
+            List<Integer> subspaces = new ArrayList<>(IntStream.range(0, denseSubspaces.size()).boxed().toList());
+            subspaces.sort(Comparator.comparing(subspace -> denseSubspaces.get(subspace).sparseAddress));
             int cellsWritten = 0;
-            for (int index = 0; index < cellEntries.size() && cellsWritten < maxCells; index++) {
+            for (int index = 0; index < subspaces.size() && cellsWritten < maxCells; index++) {
                 if (index > 0)
                     b.append(", ");
-                b.append(TensorAddress.labelToString(cellEntries.get(index).getKey().label(0)));
+                b.append(TensorAddress.labelToString(denseSubspaces.get(subspaces.get(index)).sparseAddress.label(0)));
                 b.append(":");
-                cellsWritten += denseSubspaceToString(tensor, cellEntries.get(index).getValue(), maxCells - cellsWritten, b);
+                cellsWritten += denseSubspaceToString(tensor, subspaces.get(index), maxCells - cellsWritten, b);
             }
             if (cellsWritten >= maxCells && cellsWritten < tensor.size())
                 b.append(", ...");
@@ -595,27 +645,37 @@ public class MixedTensor implements Tensor {
         private static class Builder {
 
             private final Index index;
-            private final ImmutableMap.Builder<TensorAddress, Integer> builder = new ImmutableMap.Builder<>();
+            private final AddressTable sparseTable;
             private final ImmutableList.Builder<DenseSubspace> listBuilder = new ImmutableList.Builder<>();
-            private int count = 0;
 
             Builder(TensorType type) {
                 index = new Index(type);
+                sparseTable = new AddressTable(index.mappedDimensions.size(), 16);
             }
 
             void addBlock(DenseSubspace block) {
-                if (block.cells.length != index.denseSubspaceSize) {
-                    throw new IllegalStateException("dense subspace size mismatch, expected " + index.denseSubspaceSize
-                            + " cells, but got: " + block.cells.length);
-                }
-                builder.put(block.sparseAddress, count++);
+                validate(block);
+                int count = sparseTable.size();
+                if (sparseTable.add(block.sparseAddress) != count)
+                    throw new IllegalArgumentException("Multiple dense subspaces with " + block.sparseAddress);
                 listBuilder.add(block);
             }
 
             Index build() {
-                index.sparseMap = builder.build();
-                index.denseSubspaces = listBuilder.build();
-                return index;
+                return build(sparseTable.copy(), listBuilder.build());
+            }
+
+            /** Builds the index from blocks which are in the order of the entries of their sparse address in the table */
+            Index build(AddressTable sparseTable, List<DenseSubspace> blocks) {
+                blocks.forEach(this::validate);
+                return new Index(index, sparseTable, ImmutableList.copyOf(blocks));
+            }
+
+            private void validate(DenseSubspace block) {
+                if (block.cells.length != index.denseSubspaceSize) {
+                    throw new IllegalStateException("dense subspace size mismatch, expected " + index.denseSubspaceSize
+                            + " cells, but got: " + block.cells.length);
+                }
             }
 
             Index index() {
@@ -5,6 +5,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
 import java.util.HashMap;
+import java.util.Optional;
 
 /**
  * @author bratseth
@@ -12,9 +13,13 @@ import java.util.HashMap;
 public class MapEvaluationContext<NAMETYPE extends Name> implements EvaluationContext<NAMETYPE> {
 
     private final java.util.Map<String, Tensor> bindings = new HashMap<>();
+    private Parallelism parallelism = null;
 
     public void put(String name, Tensor tensor) { bindings.put(name, tensor); }
 
+    /** Sets the parallelism to use when evaluating in this context, or null (default) to evaluate in the calling thread. */
+    public void setParallelism(Parallelism parallelism) { this.parallelism = parallelism; }
+
     @Override
     public TensorType getType(String name) {
         Tensor tensor = bindings.get(name);
@@ -31,4 +36,7 @@ public class MapEvaluationContext<NAMETYPE extends Name> implements EvaluationCo
     @Override
     public String resolveBinding(String name) { return name; }
 
+    @Override
+    public Optional<Parallelism> parallelism() { return Optional.ofNullable(parallelism); }
+
 }
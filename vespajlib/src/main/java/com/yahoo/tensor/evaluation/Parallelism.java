@@ -0,0 +1,87 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * Allows tensor functions producing or consuming many cells to split their work into tasks
+ * which are run in a fork-join pool. Functions only split work into parts which are independent,
+ * and combine the results of the tasks in order, such that the result is the same as when evaluating
+ * in a single thread.
+ *
+ * Functions given a parallelism may call their arguments from multiple threads at once,
+ * so these must be thread safe.
+ */
+public class Parallelism {
+
+    /** The default minimum number of cells to assign to a task */
+    public static final int defaultMinCellsPerTask = 10000;
+
+    private final ForkJoinPool pool;
+    private final int minCellsPerTask;
+
+    /** Creates a parallelism running tasks in the given pool, with the default minimum number of cells per task. */
+    public Parallelism(ForkJoinPool pool) {
+        this(pool, defaultMinCellsPerTask);
+    }
+
+    /**
+     * Creates a parallelism running tasks in the given pool
+     *
+     * @param pool the pool to run tasks in
+     * @param minCellsPerTask the minimum number of cells to assign to a task: Work on fewer cells
+     *                        than twice this is done in the calling thread
+     */
+    public Parallelism(ForkJoinPool pool, int minCellsPerTask) {
+        if (minCellsPerTask < 1)
+            throw new IllegalArgumentException("minCellsPerTask must be positive, got " + minCellsPerTask);
+        this.pool = pool;
+        this.minCellsPerTask = minCellsPerTask;
+    }
+
+    /**
+     * Returns the number of tasks to split work on the given number of parts into, which is 1 if it should
+     * not be split.
+     *
+     * @param parts the number of independent parts of the work, e.g. cells or subspaces
+     * @param cells the total number of cells processed
+     */
+    public int tasks(long parts, long cells) {
+        long tasks = Math.min(parts, Math.min(cells / minCellsPerTask, 4L * pool.getParallelism()));
+        return (int)Math.max(1, tasks);
+    }
+
+    /** Returns the first part (inclusive) of the given task when splitting the given number of parts into tasks. */
+    public static int start(int task, int tasks, int parts) {
+        return (int)((long)parts * task / tasks);
+    }
+
+    /**
+     * Runs the given task for task indexes 0 to tasks - 1, in parallel if there are multiple,
+     * and returns the results in order of increasing task index.
+     */
+    public <T> List<T> run(int tasks, IntFunction<T> task) {
+        if (tasks == 1) return List.of(task.apply(0));
+
+        List<ForkJoinTask<T>> forkJoinTasks = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            forkJoinTasks.add(ForkJoinTask.adapt(() -> task.apply(index)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(forkJoinTasks)));
+        List<T> results = new ArrayList<>(tasks);
+        for (ForkJoinTask<T> forkJoinTask : forkJoinTasks)
+            results.add(forkJoinTask.join());
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return "parallelism in " + pool + " with at least " + minCellsPerTask + " cells per task";
+    }
+
+}
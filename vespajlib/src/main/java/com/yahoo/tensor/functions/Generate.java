@@ -7,8 +7,11 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.impl.Convert;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -97,16 +100,52 @@ public class Generate<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAM
     @Override
     public TensorType type(TypeContext<NAMETYPE> context) { return type; }
 
+    /**
+     * Evaluates this. If the context has a parallelism, the cells are generated in parallel when there are many,
+     * and the generator must be thread safe.
+     */
     @Override
     public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
-        Tensor.Builder builder = Tensor.Builder.of(type);
-        IndexedTensor.Indexes indexes = IndexedTensor.Indexes.of(dimensionSizes(type));
+        DimensionSizes sizes = dimensionSizes(type);
+        int cellCount = Convert.safe2Int(sizes.totalSize());
+        Optional<Parallelism> parallelism = context.parallelism();
+        int tasks = parallelism.map(p -> p.tasks(cellCount, cellCount)).orElse(1);
+        List<double[]> values = tasks == 1
+                                ? List.of(generate(0, cellCount, sizes, context))
+                                : parallelism.get().run(tasks, task -> generate(Parallelism.start(task, tasks, cellCount),
+                                                                                Parallelism.start(task + 1, tasks, cellCount),
+                                                                                sizes, context));
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(type);
+        long index = 0;
+        for (double[] part : values)
+            for (double value : part)
+                builder.cellByDirectIndex(index++, value);
+        return builder.build();
+    }
+
+    /** Generates the values of the cells from start (inclusive) to end (exclusive) in the standard cell order */
+    private double[] generate(int start, int end, DimensionSizes sizes, EvaluationContext<NAMETYPE> context) {
+        long[] indexes = new long[sizes.dimensions()];
+        long rest = start;
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            indexes[i] = rest % sizes.size(i);
+            rest /= sizes.size(i);
+        }
         GenerateEvaluationContext generateContext = new GenerateEvaluationContext(type, context);
-        for (int i = 0; i < indexes.size(); i++) {
-            indexes.next();
-            builder.cell(generateContext.apply(indexes), indexes.indexesForReading());
+        double[] values = new double[end - start];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = generateContext.apply(indexes);
+            next(indexes, sizes);
+        }
+        return values;
+    }
+
+    /** Advances the given indexes to the next cell, with the last dimension changing fastest */
+    private static void next(long[] indexes, DimensionSizes sizes) {
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            if (++indexes[i] < sizes.size(i)) return;
+            indexes[i] = 0;
         }
-        return builder.build();
     }
 
     private DimensionSizes dimensionSizes(TensorType type) {
@@ -139,16 +178,19 @@ public class Generate<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAM
         private final TensorType type;
         private final EvaluationContext<NAMETYPE> context;
 
-        private IndexedTensor.Indexes indexes;
+        private long[] indexes;
 
         GenerateEvaluationContext(TensorType type, EvaluationContext<NAMETYPE> context) {
             this.type = type;
             this.context = context;
         }
 
-        double apply(IndexedTensor.Indexes indexes) {
+        double apply(long[] indexes) {
             if (freeGenerator != null) {
-                return freeGenerator.apply(indexes.toList());
+                List<Long> list = new ArrayList<>(indexes.length);
+                for (long index : indexes)
+                    list.add(index);
+                return freeGenerator.apply(Collections.unmodifiableList(list));
             }
             else {
                 this.indexes = indexes;
@@ -160,7 +202,7 @@ public class Generate<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAM
         public Tensor getTensor(String name) {
             Optional<Integer> index = type.indexOfDimension(name);
             if (index.isPresent()) // this is the name of a dimension
-                return Tensor.from(indexes.indexesForReading()[index.get()]);
+                return Tensor.from(indexes[index.get()]);
             else
                 return context.getTensor(name);
         }
@@ -188,6 +230,11 @@ public class Generate<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAM
             return context.resolveBinding(name);
         }
 
+        @Override
+        public Optional<Parallelism> parallelism() {
+            return context.parallelism();
+        }
+
     }
 
     /** A context which adds the bindings of the generate dimension names to the given context. */
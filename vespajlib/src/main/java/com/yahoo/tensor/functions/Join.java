@@ -4,6 +4,7 @@ package com.yahoo.tensor.functions;
 import com.google.common.collect.Sets;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.MappedTensor;
 import com.yahoo.tensor.PartialAddress;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
@@ -12,11 +13,10 @@ import com.yahoo.tensor.TypeResolver;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.impl.AddressTable;
 import com.yahoo.tensor.impl.TensorAddressAny;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -126,6 +126,8 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
 
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
     private static Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        if (a instanceof MappedTensor mappedA && b instanceof MappedTensor mappedB)
+            return mappedSingleSpaceJoin(mappedA, mappedB, joinedType, combinator);
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> aCell = i.next();
@@ -138,6 +140,17 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
+    /** Joins mapped tensors with the same dimensions by looking up each cell of a in b without allocating */
+    private static Tensor mappedSingleSpaceJoin(MappedTensor a, MappedTensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        Tensor.Builder builder = Tensor.Builder.of(joinedType);
+        for (int aCell = 0; aCell < a.sizeAsInt(); aCell++) {
+            int bCell = b.indexOf(a.addressAt(aCell));
+            if (bCell >= 0)
+                builder.cell(a.addressAt(aCell), combinator.applyAsDouble(a.valueAt(aCell), b.valueAt(bCell)));
+        }
+        return builder.build();
+    }
+
     /** Join a tensor into a superspace */
     private static Tensor subspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
         if (subspace instanceof IndexedTensor && superspace instanceof IndexedTensor)
@@ -333,26 +346,41 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         int[] aIndexesInJoined = mapIndexes(a.type(), joinedType);
         int[] bIndexesInJoined = mapIndexes(b.type(), joinedType);
 
-        // Iterate once through the smaller tensor and construct a hash map for common dimensions
-        Map<TensorAddress, List<Tensor.Cell>> aCellsByCommonAddress = new HashMap<>(a.sizeAsInt());
-        for (Iterator<Tensor.Cell> cellIterator = a.cellIterator(); cellIterator.hasNext(); ) {
+        // Iterate once through the smaller tensor and construct a table of the labels in common dimensions,
+        // where the cells of a having the labels of each entry are chained, in order, by their index in a
+        int aSize = a.sizeAsInt();
+        TensorAddress[] aAddresses = new TensorAddress[aSize];
+        double[] aValues = new double[aSize];
+        AddressTable aCommonAddresses = new AddressTable(aIndexesInCommon.length, aSize);
+        int[] firstCell = new int[aSize]; // The first cell index + 1 of each entry, or 0
+        int[] lastCell = new int[aSize];
+        int[] nextCell = new int[aSize]; // The next cell index + 1 having the same common labels, or 0
+        int aIndex = 0;
+        for (Iterator<Tensor.Cell> cellIterator = a.cellIterator(); cellIterator.hasNext(); aIndex++) {
             Tensor.Cell aCell = cellIterator.next();
-            TensorAddress partialCommonAddress = aCell.getKey().partialCopy(aIndexesInCommon);
-            aCellsByCommonAddress.computeIfAbsent(partialCommonAddress, (key) -> new ArrayList<>()).add(aCell);
+            aAddresses[aIndex] = aCell.getKey();
+            aValues[aIndex] = aCell.getValue();
+            int entry = aCommonAddresses.add(aCell.getKey(), aIndexesInCommon);
+            if (firstCell[entry] == 0)
+                firstCell[entry] = aIndex + 1;
+            else
+                nextCell[lastCell[entry] - 1] = aIndex + 1;
+            lastCell[entry] = aIndex + 1;
         }
 
-        // Iterate once through the larger tensor and use the hash map to find joinable cells
+        // Iterate once through the larger tensor and look up joinable cells without allocating
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> cellIterator = b.cellIterator(); cellIterator.hasNext(); ) {
             Tensor.Cell bCell = cellIterator.next();
-            TensorAddress partialCommonAddress = bCell.getKey().partialCopy(bIndexesInCommon);
-            for (Tensor.Cell aCell : aCellsByCommonAddress.getOrDefault(partialCommonAddress, List.of())) {
-                TensorAddress combinedAddress = joinAddresses(aCell.getKey(), aIndexesInJoined,
+            int entry = aCommonAddresses.find(bCell.getKey(), bIndexesInCommon);
+            if (entry < 0) continue;
+            for (int aCell = firstCell[entry] - 1; aCell >= 0; aCell = nextCell[aCell] - 1) {
+                TensorAddress combinedAddress = joinAddresses(aAddresses[aCell], aIndexesInJoined,
                                                               bCell.getKey(), bIndexesInJoined, joinedType);
                 if (combinedAddress == null) continue; // not combinable
                 double combinedValue = swapTensors ?
-                        combinator.applyAsDouble(bCell.getValue(), aCell.getValue()) :
-                        combinator.applyAsDouble(aCell.getValue(), bCell.getValue());
+                        combinator.applyAsDouble(bCell.getValue(), aValues[aCell]) :
+                        combinator.applyAsDouble(aValues[aCell], bCell.getValue());
                 builder.cell(combinedAddress, combinedValue);
             }
         }
@@ -7,14 +7,17 @@ import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TypeResolver;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
 import com.yahoo.tensor.evaluation.TypeContext;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The <i>map_subspaces</i> tensor function transforms each dense subspace in a (mixed) tensor
@@ -82,6 +85,10 @@ public class MapSubspaces<NAMETYPE extends Name> extends PrimitiveTensorFunction
         return outputType(argument.type(context));
     }
 
+    /**
+     * Evaluates this. If the context has a parallelism, subspaces are mapped in parallel when there are many cells,
+     * and the function must be thread safe.
+     */
     @Override
     public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
         Tensor input = argument().evaluate(context);
@@ -110,11 +117,19 @@ public class MapSubspaces<NAMETYPE extends Name> extends PrimitiveTensorFunction
         TensorType outputType = outputType(input.type());
         TensorType denseOutputType = outputType.indexedSubtype();
         var denseOutputDims = denseOutputType.dimensions();
+        List<Map.Entry<TensorAddress, Tensor.Builder>> subspaces = List.copyOf(builders.entrySet());
+        Optional<Parallelism> parallelism = context.parallelism();
+        int tasks = parallelism.map(p -> p.tasks(subspaces.size(), input.size())).orElse(1);
+        List<List<Tensor>> denseOutputs = tasks == 1
+                                          ? List.of(map(subspaces, 0, subspaces.size()))
+                                          : parallelism.get().run(tasks, task -> map(subspaces,
+                                                                                     Parallelism.start(task, tasks, subspaces.size()),
+                                                                                     Parallelism.start(task + 1, tasks, subspaces.size())));
+        List<Tensor> mappedSubspaces = denseOutputs.stream().flatMap(List::stream).toList();
         Tensor.Builder builder = Tensor.Builder.of(outputType);
-        for (var entry : builders.entrySet()) {
-            TensorAddress mappedAddr = entry.getKey();
-            Tensor denseInput = entry.getValue().build();
-            Tensor denseOutput = function.map(denseInput);
+        for (int subspace = 0; subspace < subspaces.size(); subspace++) {
+            TensorAddress mappedAddr = subspaces.get(subspace).getKey();
+            Tensor denseOutput = mappedSubspaces.get(subspace);
             // XXX check denseOutput.type().dimensions()
             for (Iterator<Tensor.Cell> iter = denseOutput.cellIterator(); iter.hasNext(); ) {
                 var cell = iter.next();
@@ -134,6 +149,14 @@ public class MapSubspaces<NAMETYPE extends Name> extends PrimitiveTensorFunction
         return builder.build();
     }
 
+    /** Returns the result of mapping the subspaces from start (inclusive) to end (exclusive) */
+    private List<Tensor> map(List<Map.Entry<TensorAddress, Tensor.Builder>> subspaces, int start, int end) {
+        List<Tensor> denseOutputs = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++)
+            denseOutputs.add(function.map(subspaces.get(i).getValue().build()));
+        return denseOutputs;
+    }
+
     @Override
     public String toString(ToStringContext<NAMETYPE> context) {
         return "map_subspaces(" + argument.toString(context) + ", " + function + ")";
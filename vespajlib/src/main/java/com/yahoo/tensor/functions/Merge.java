@@ -2,6 +2,7 @@
 package com.yahoo.tensor.functions;
 
 import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.MappedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
@@ -112,6 +113,11 @@ public class Merge<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETY
 
     private static Tensor generalMerge(Tensor a, Tensor b, TensorType mergedType, DoubleBinaryOperator combinator) {
         Tensor.Builder builder = Tensor.Builder.of(mergedType);
+        if (a instanceof MappedTensor mappedA && b instanceof MappedTensor mappedB) {
+            addCellsOf(mappedA, mappedB, builder, combinator);
+            addCellsOf(mappedB, mappedA, builder, null);
+            return builder.build();
+        }
         addCellsOf(a, b, builder, combinator);
         addCellsOf(b, a, builder, null);
         return builder.build();
@@ -130,5 +136,17 @@ public class Merge<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETY
         }
     }
 
+    /** Adds the cells of a looking up each in b by its index, which avoids allocating cells and boxing values */
+    private static void addCellsOf(MappedTensor a, MappedTensor b, Tensor.Builder builder, DoubleBinaryOperator combinator) {
+        for (int aCell = 0; aCell < a.sizeAsInt(); aCell++) {
+            int bCell = b.indexOf(a.addressAt(aCell));
+            if (bCell < 0) {
+                builder.cell(a.addressAt(aCell), a.valueAt(aCell));
+            } else if (combinator != null) {
+                builder.cell(a.addressAt(aCell), combinator.applyAsDouble(a.valueAt(aCell), b.valueAt(bCell)));
+            }
+        }
+    }
+
 }
 
@@ -4,22 +4,23 @@ package com.yahoo.tensor.functions;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.DirectIndexedAddress;
 import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.MixedTensor;
 import com.yahoo.tensor.Tensor;
-import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TypeResolver;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.impl.AddressTable;
 import com.yahoo.tensor.impl.Convert;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The <i>reduce</i> tensor operation returns a tensor produced from the argument tensor where some dimensions
@@ -105,7 +106,7 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
 
     @Override
     public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
-        return evaluate(this.argument.evaluate(context), dimensions, aggregator);
+        return evaluate(this.argument.evaluate(context), dimensions, aggregator, context.parallelism());
     }
 
     @Override
@@ -114,6 +115,14 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     }
 
     static Tensor evaluate(Tensor argument, List<String> dimensions, Aggregator aggregator) {
+        return evaluate(argument, dimensions, aggregator, Optional.empty());
+    }
+
+    /**
+     * Reduces the given tensor. If a parallelism is given, mixed tensors with many cells which are reduced
+     * over indexed dimensions only are reduced in parallel, one range of dense subspaces per task.
+     */
+    static Tensor evaluate(Tensor argument, List<String> dimensions, Aggregator aggregator, Optional<Parallelism> parallelism) {
         if (!dimensions.isEmpty() && !argument.type().dimensionNames().containsAll(dimensions))
             throw new IllegalArgumentException("Cannot reduce " + argument + " over dimensions " +
                     dimensions + ": Not all those dimensions are present in this tensor");
@@ -133,6 +142,9 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         int[] indexesToKeep = createIndexesToKeep(argument.type(), indexesToReduce);
         if (argument instanceof IndexedTensor indexedTensor && reducedType.hasOnlyIndexedBoundDimensions()) {
             return reduceIndexedTensor(indexedTensor, reducedType, indexesToKeep, indexesToReduce, aggregator);
+        } else if (parallelism.isPresent() && argument instanceof MixedTensor mixedTensor
+                   && reducesIndexedOnly(argument.type(), indexesToReduce)) {
+            return reduceSubspaces(mixedTensor, reducedType, indexesToKeep, aggregator, parallelism.get());
         } else {
             return reduceGeneral(argument, reducedType, indexesToKeep, aggregator);
         }
@@ -187,20 +199,64 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     private static Tensor reduceGeneral(Tensor argument, TensorType reducedType, int[] indexesToKeep, Aggregator aggregator) {
         // TODO cells.size() is most likely an overestimate, and might need a better heuristic
         // But the upside is larger than the downside.
-        Map<TensorAddress, ValueAggregator> aggregatingCells = new HashMap<>(argument.sizeAsInt());
-        for (Iterator<Tensor.Cell> i = argument.cellIterator(); i.hasNext(); ) {
-            Map.Entry<TensorAddress, Double> cell = i.next();
-            TensorAddress reducedAddress = cell.getKey().partialCopy(indexesToKeep);
-            ValueAggregator aggr = aggregatingCells.computeIfAbsent(reducedAddress, (key) ->ValueAggregator.ofType(aggregator));
-            aggr.aggregate(cell.getValue());
-        }
+        ReducedCells reducedCells = reduceCells(argument.cellIterator(), indexesToKeep, aggregator, argument.sizeAsInt());
         Tensor.Builder reducedBuilder = Tensor.Builder.of(reducedType);
-        for (Map.Entry<TensorAddress, ValueAggregator> aggregatingCell : aggregatingCells.entrySet())
-            reducedBuilder.cell(aggregatingCell.getKey(), aggregatingCell.getValue().aggregatedValue());
+        reducedCells.addTo(reducedBuilder);
+        return reducedBuilder.build();
+    }
 
+    /**
+     * Reduces a mixed tensor over indexed dimensions only. As the mapped dimensions are kept, each dense subspace
+     * reduces to separate cells, so ranges of subspaces are reduced in separate tasks.
+     */
+    private static Tensor reduceSubspaces(MixedTensor argument, TensorType reducedType, int[] indexesToKeep,
+                                          Aggregator aggregator, Parallelism parallelism) {
+        int subspaces = argument.getInternalDenseSubspaces().size();
+        int tasks = parallelism.tasks(subspaces, argument.size());
+        List<ReducedCells> parts =
+                parallelism.run(tasks, task -> reduceCells(argument.cellIterator(Parallelism.start(task, tasks, subspaces),
+                                                                                 Parallelism.start(task + 1, tasks, subspaces)),
+                                                           indexesToKeep, aggregator, argument.sizeAsInt() / tasks));
+        Tensor.Builder reducedBuilder = Tensor.Builder.of(reducedType);
+        for (ReducedCells reducedCells : parts)
+            reducedCells.addTo(reducedBuilder);
         return reducedBuilder.build();
     }
 
+    /**
+     * Aggregates the given cells by the labels of the dimensions to keep. The labels are looked up in an
+     * address table, so reduced addresses are only allocated once per reduced cell, when they are added to a builder.
+     */
+    private static ReducedCells reduceCells(Iterator<Tensor.Cell> cells, int[] indexesToKeep,
+                                            Aggregator aggregator, int expectedCells) {
+        AddressTable reducedAddresses = new AddressTable(indexesToKeep.length, expectedCells);
+        List<ValueAggregator> aggregators = new ArrayList<>();
+        while (cells.hasNext()) {
+            Tensor.Cell cell = cells.next();
+            int entry = reducedAddresses.add(cell.getKey(), indexesToKeep);
+            if (entry == aggregators.size())
+                aggregators.add(ValueAggregator.ofType(aggregator));
+            aggregators.get(entry).aggregate(cell.getValue());
+        }
+        return new ReducedCells(reducedAddresses, aggregators);
+    }
+
+    /** The aggregators of reduced cells, by the entry of their address in a table */
+    private record ReducedCells(AddressTable addresses, List<ValueAggregator> aggregators) {
+
+        void addTo(Tensor.Builder builder) {
+            for (int entry = 0; entry < addresses.size(); entry++)
+                builder.cell(addresses.address(entry), aggregators.get(entry).aggregatedValue());
+        }
+
+    }
+
+    private static boolean reducesIndexedOnly(TensorType type, int[] indexesToReduce) {
+        for (int index : indexesToReduce)
+            if ( ! type.dimensions().get(index).isIndexed()) return false;
+        return true;
+    }
+
     private static int[] createIndexesToReduce(TensorType tensorType, List<String> dimensions) {
         int[] indexesToReduce = new int[dimensions.size()];
         for (int i = 0; i < dimensions.size(); i++) {
@@ -0,0 +1,164 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+import com.yahoo.tensor.TensorAddress;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table which assigns consecutive entry numbers, in insertion order, to
+ * tuples of a fixed number of numeric labels (see {@link Label}).
+ * The labels of all entries are stored in a single long array, so addresses, or some of the labels of
+ * an address, can be looked up without allocating anything.
+ * Values are kept by the user of this, in arrays indexed by entry number.
+ *
+ * This is not thread safe for writing, but may be read by multiple threads once it is no longer modified.
+ */
+public final class AddressTable {
+
+    private final int rank;
+
+    /** The dimensions 0 to rank - 1, used to look up complete addresses */
+    private final int[] allDimensions;
+
+    /** The labels of each entry, in entry order */
+    private long[] labels;
+
+    /** The hash of each entry */
+    private int[] hashes;
+
+    /** Entry number + 1 of the entry in each slot, or 0 if the slot is empty. The length is a power of 2 */
+    private int[] slots;
+
+    private int size = 0;
+
+    /**
+     * Creates an empty table
+     *
+     * @param rank the number of labels of each entry
+     * @param expectedSize the number of entries to allocate room for initially
+     */
+    public AddressTable(int rank, int expectedSize) {
+        this.rank = rank;
+        this.allDimensions = new int[rank];
+        for (int i = 0; i < rank; i++)
+            allDimensions[i] = i;
+        int capacity = Math.max(8, expectedSize);
+        this.labels = new long[rank * capacity];
+        this.hashes = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+    }
+
+    private AddressTable(AddressTable other) {
+        this.rank = other.rank;
+        this.allDimensions = other.allDimensions;
+        int capacity = Math.max(1, other.size);
+        this.labels = Arrays.copyOf(other.labels, rank * capacity);
+        this.hashes = Arrays.copyOf(other.hashes, capacity);
+        this.slots = other.slots.clone();
+        this.size = other.size;
+    }
+
+    /** Returns a copy of this, which is not affected by later changes to this */
+    public AddressTable copy() { return new AddressTable(this); }
+
+    /** Returns the number of labels of each entry in this */
+    public int rank() { return rank; }
+
+    /** Returns the number of entries in this */
+    public int size() { return size; }
+
+    /** Returns the label of the given dimension of the given entry */
+    public long label(int entry, int dimension) {
+        return labels[entry * rank + dimension];
+    }
+
+    /** Returns the address of the given entry. This allocates a new address. */
+    public TensorAddress address(int entry) {
+        return TensorAddressAny.ofUnsafe(Arrays.copyOfRange(labels, entry * rank, entry * rank + rank));
+    }
+
+    /** Returns the entry of the given address, which must have the same size as the rank of this, or -1 if none */
+    public int find(TensorAddress address) {
+        if (address.size() != rank) return -1;
+        return find(address, allDimensions);
+    }
+
+    /**
+     * Returns the entry of the address consisting of some of the labels of the given address, or -1 if none.
+     *
+     * @param address the address to get labels from
+     * @param dimensions the index in the given address of each label to look up, of the same length as the rank of this
+     */
+    public int find(TensorAddress address, int[] dimensions) {
+        int hash = hash(address, dimensions);
+        for (int slot = hash & (slots.length - 1); ; slot = (slot + 1) & (slots.length - 1)) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) return -1;
+            if (hashes[entry] == hash && equals(entry, address, dimensions)) return entry;
+        }
+    }
+
+    /** Returns the entry of the given address, after adding it as the last entry if it is not already present. */
+    public int add(TensorAddress address) {
+        if (address.size() != rank)
+            throw new IllegalArgumentException("Expected an address of " + rank + " labels, but got " + address);
+        return add(address, allDimensions);
+    }
+
+    /**
+     * Returns the entry of the address consisting of some of the labels of the given address,
+     * after adding it as the last entry if it is not already present.
+     *
+     * @param address the address to get labels from
+     * @param dimensions the index in the given address of each label to add, of the same length as the rank of this
+     */
+    public int add(TensorAddress address, int[] dimensions) {
+        if (dimensions.length != rank)
+            throw new IllegalArgumentException("Expected an address of " + rank + " labels, but got " + dimensions.length);
+        int hash = hash(address, dimensions);
+        int slot = hash & (slots.length - 1);
+        for (; slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && equals(entry, address, dimensions)) return entry;
+        }
+
+        int entry = size++;
+        if (entry == hashes.length) {
+            labels = Arrays.copyOf(labels, rank * hashes.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        for (int i = 0; i < rank; i++)
+            labels[entry * rank + i] = address.numericLabel(dimensions[i]);
+        hashes[entry] = hash;
+        slots[slot] = entry + 1;
+        if (size * 2 > slots.length)
+            rehash(slots.length * 2);
+        return entry;
+    }
+
+    private boolean equals(int entry, TensorAddress address, int[] dimensions) {
+        int start = entry * rank;
+        for (int i = 0; i < rank; i++)
+            if (labels[start + i] != address.numericLabel(dimensions[i])) return false;
+        return true;
+    }
+
+    private void rehash(int slotCount) {
+        slots = new int[slotCount];
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & (slotCount - 1);
+            while (slots[slot] != 0)
+                slot = (slot + 1) & (slotCount - 1);
+            slots[slot] = entry + 1;
+        }
+    }
+
+    private static int hash(TensorAddress address, int[] dimensions) {
+        long hash = 0;
+        for (int dimension : dimensions)
+            hash = (hash + address.numericLabel(dimension)) * 0x9e3779b97f4a7c15L;
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+}
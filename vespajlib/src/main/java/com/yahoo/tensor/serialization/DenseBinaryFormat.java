@@ -6,6 +6,7 @@ import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.impl.Convert;
 
 import java.util.Optional;
 
@@ -56,13 +57,11 @@ public class DenseBinaryFormat implements BinaryFormat {
     }
 
     private void encodeDoubleCells(IndexedTensor tensor, GrowableByteBuffer buffer) {
-        for (int i = 0; i < tensor.sizeAsInt(); i++)
-            buffer.putDouble(tensor.get(i));
+        TypedBinaryFormat.putDoubles(tensor, buffer);
     }
 
     private void encodeFloatCells(IndexedTensor tensor, GrowableByteBuffer buffer) {
-        for (int i = 0; i < tensor.sizeAsInt(); i++)
-            buffer.putFloat(tensor.getFloat(i));
+        TypedBinaryFormat.putFloats(tensor, buffer);
     }
 
     private void encodeBFloat16Cells(IndexedTensor tensor, GrowableByteBuffer buffer) {
@@ -95,9 +94,7 @@ public class DenseBinaryFormat implements BinaryFormat {
             type = decodeType(buffer);
             sizes = sizesFromType(type);
         }
-        Tensor.Builder builder = Tensor.Builder.of(type, sizes);
-        decodeCells(sizes, buffer, (IndexedTensor.BoundBuilder)builder);
-        return builder.build();
+        return decodeCells(type, sizes, buffer).build();
     }
 
     private TensorType decodeType(GrowableByteBuffer buffer) {
@@ -116,35 +113,41 @@ public class DenseBinaryFormat implements BinaryFormat {
         return builder.build();
     }
 
-    private void decodeCells(DimensionSizes sizes, GrowableByteBuffer buffer, IndexedTensor.BoundBuilder builder) {
-        switch (serializationValueType) {
-            case DOUBLE: decodeDoubleCells(sizes, builder, buffer); break;
-            case FLOAT: decodeFloatCells(sizes, builder, buffer); break;
-            case BFLOAT16: decodeBFloat16Cells(sizes, builder, buffer); break;
-            case INT8: decodeInt8Cells(sizes, builder, buffer); break;
-        }
+    /** Decodes the cells into an array which is handed over to the returned builder */
+    private IndexedTensor.Builder decodeCells(TensorType type, DimensionSizes sizes, GrowableByteBuffer buffer) {
+        int size = Convert.safe2Int(sizes.totalSize());
+        return switch (serializationValueType) {
+            case DOUBLE -> IndexedTensor.Builder.of(type, sizes, decodeDoubleCells(size, buffer));
+            case FLOAT -> IndexedTensor.Builder.of(type, sizes, decodeFloatCells(size, buffer));
+            case BFLOAT16 -> IndexedTensor.Builder.of(type, sizes, decodeBFloat16Cells(size, buffer));
+            case INT8 -> IndexedTensor.Builder.of(type, sizes, decodeInt8Cells(size, buffer));
+        };
     }
 
-    private void decodeDoubleCells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getDouble());
+    private double[] decodeDoubleCells(int size, GrowableByteBuffer buffer) {
+        double[] values = new double[size];
+        TypedBinaryFormat.getDoubles(buffer, values);
+        return values;
     }
 
-    private void decodeFloatCells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getFloat());
+    private float[] decodeFloatCells(int size, GrowableByteBuffer buffer) {
+        float[] values = new float[size];
+        TypedBinaryFormat.getFloats(buffer, values);
+        return values;
     }
 
-    private void decodeBFloat16Cells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++) {
-            builder.cellByDirectIndex(i, TypedBinaryFormat.floatFromBFloat16Bits(buffer.getShort()));
-        }
+    private float[] decodeBFloat16Cells(int size, GrowableByteBuffer buffer) {
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++)
+            values[i] = TypedBinaryFormat.floatFromBFloat16Bits(buffer.getShort());
+        return values;
     }
 
-    private void decodeInt8Cells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++) {
-            builder.cellByDirectIndex(i, (float) buffer.get());
-        }
+    private float[] decodeInt8Cells(int size, GrowableByteBuffer buffer) {
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++)
+            values[i] = buffer.get();
+        return values;
     }
 
 }
@@ -47,7 +47,7 @@ public class JsonFormat {
             if (tensor instanceof IndexedTensor denseTensor) {
                 // Encode as nested lists if indexed tensor
                 Cursor parent = root == null ? slime.setArray() : root.setArray("values");
-                encodeValues(denseTensor, parent, new long[denseTensor.dimensionSizes().dimensions()], 0);
+                encodeValues(denseTensor, parent);
             } else if (tensor instanceof MappedTensor && tensor.type().dimensions().size() == 1) {
                 // Short form for a single mapped dimension
                 Cursor parent = root == null ? slime.setObject() : root.setObject("cells");
@@ -110,7 +110,8 @@ public class JsonFormat {
     private static void encodeSingleDimensionCells(MappedTensor tensor, Cursor cells) {
         if (tensor.type().dimensions().size() > 1)
             throw new IllegalStateException("JSON encode of mapped tensor can only contain a single dimension");
-        tensor.cells().forEach((k,v) -> setValue(k.label(0), v, tensor.type().valueType(), cells));
+        for (int i = 0; i < tensor.sizeAsInt(); i++)
+            setValue(tensor.addressAt(i).label(0), tensor.valueAt(i), tensor.type().valueType(), cells);
     }
 
     private static void encodeAddress(TensorType type, TensorAddress address, Cursor addressObject) {
@@ -118,19 +119,30 @@ public class JsonFormat {
             addressObject.setString(type.dimensions().get(i).name(), address.label(i));
     }
 
-    private static void encodeValues(IndexedTensor tensor, Cursor cursor, long[] indexes, int dimension) {
-        DimensionSizes sizes = tensor.dimensionSizes();
-        if (indexes.length == 0) {
+    private static void encodeValues(IndexedTensor tensor, Cursor cursor) {
+        if (tensor.dimensionSizes().dimensions() == 0)
             addValue(tensor.get(0), tensor.type().valueType(), cursor);
-        } else {
-            for (indexes[dimension] = 0; indexes[dimension] < sizes.size(dimension); ++indexes[dimension]) {
-                if (dimension < (sizes.dimensions() - 1)) {
-                    encodeValues(tensor, cursor.addArray(), indexes, dimension + 1);
-                } else {
-                    addValue(tensor.get(indexes), tensor.type().valueType(), cursor);
-                }
-            }
+        else
+            encodeValues(tensor, cursor, 0, 0);
+    }
+
+    /**
+     * Adds the values of the given dimension at the given start index to the cursor, as nested arrays.
+     * As values are in the standard value order, this reads the values of the tensor sequentially.
+     *
+     * @return the index following the last value added
+     */
+    private static long encodeValues(IndexedTensor tensor, Cursor cursor, int dimension, long index) {
+        DimensionSizes sizes = tensor.dimensionSizes();
+        if (dimension == sizes.dimensions() - 1) {
+            for (long i = 0; i < sizes.size(dimension); i++)
+                addValue(tensor.get(index++), tensor.type().valueType(), cursor);
+        }
+        else {
+            for (long i = 0; i < sizes.size(dimension); i++)
+                index = encodeValues(tensor, cursor.addArray(), dimension + 1, index);
         }
+        return index;
     }
 
     private static void encodeBlocks(MixedTensor tensor, Cursor cursor) {
@@ -146,11 +158,11 @@ public class JsonFormat {
         for (var subspace : tensor.getInternalDenseSubspaces()) {
             IndexedTensor denseSubspace = IndexedTensor.Builder.of(denseSubType, subspace.cells).build();
             if (mappedDimensions.size() == 1) {
-                encodeValues(denseSubspace, cursor.setArray(subspace.sparseAddress.label(0)), new long[denseSubspace.dimensionSizes().dimensions()], 0);
+                encodeValues(denseSubspace, cursor.setArray(subspace.sparseAddress.label(0)));
             } else {
                 Cursor block = cursor.addObject();
                 encodeAddress(mappedSubType, subspace.sparseAddress, block.setObject("address"));
-                encodeValues(denseSubspace, block.setArray("values"), new long[denseSubspace.dimensionSizes().dimensions()], 0);
+                encodeValues(denseSubspace, block.setArray("values"));
             }
 
         }
@@ -12,7 +12,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -62,15 +63,22 @@ class MixedBinaryFormat implements BinaryFormat {
 
     private void encodeCells(GrowableByteBuffer buffer, MixedTensor tensor) {
         switch (serializationValueType) {
-            case DOUBLE: encodeCells(buffer, tensor, buffer::putDouble); break;
-            case FLOAT: encodeCells(buffer, tensor, (val) -> buffer.putFloat(val.floatValue())); break;
-            case BFLOAT16: encodeCells(buffer, tensor, (val) ->
-                    buffer.putShort(TypedBinaryFormat.bFloat16BitsFromFloat(val.floatValue()))); break;
-            case INT8: encodeCells(buffer, tensor, (val) -> buffer.put(((byte)val.floatValue()))); break;
+            case DOUBLE: encodeCells(buffer, tensor, (values) -> TypedBinaryFormat.putDoubles(values, buffer)); break;
+            case FLOAT: encodeCells(buffer, tensor, eachValue((val) -> buffer.putFloat((float)val))); break;
+            case BFLOAT16: encodeCells(buffer, tensor, eachValue((val) ->
+                    buffer.putShort(TypedBinaryFormat.bFloat16BitsFromFloat((float)val)))); break;
+            case INT8: encodeCells(buffer, tensor, eachValue((val) -> buffer.put(((byte)(float)val)))); break;
         }
     }
 
-    private void encodeCells(GrowableByteBuffer buffer, MixedTensor tensor, Consumer<Double> consumer) {
+    private static Consumer<double[]> eachValue(DoubleConsumer consumer) {
+        return (values) -> {
+            for (double value : values)
+                consumer.accept(value);
+        };
+    }
+
+    private void encodeCells(GrowableByteBuffer buffer, MixedTensor tensor, Consumer<double[]> consumer) {
         List<TensorType.Dimension> sparseDimensions = tensor.type().dimensions().stream().filter(d -> !d.isIndexed()).toList();
         long denseSubspaceSize = tensor.denseSubspaceSize();
         var denseSubspaces = tensor.getInternalDenseSubspaces();
@@ -81,9 +89,7 @@ class MixedBinaryFormat implements BinaryFormat {
             for (int index = 0; index < subspace.sparseAddress.size(); index++) {
                 buffer.putUtf8String(subspace.sparseAddress.label(index));
             }
-            for (double val : subspace.cells) {
-                consumer.accept(val);
-            }
+            consumer.accept(subspace.cells);
         }
     }
 
@@ -124,15 +130,22 @@ class MixedBinaryFormat implements BinaryFormat {
 
     private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type) {
         switch (serializationValueType) {
-            case DOUBLE: decodeCells(buffer, builder, type, buffer::getDouble); break;
-            case FLOAT: decodeCells(buffer, builder, type, () -> (double)buffer.getFloat()); break;
-            case BFLOAT16: decodeCells(buffer, builder, type, () ->
-                    (double)TypedBinaryFormat.floatFromBFloat16Bits(buffer.getShort())); break;
-            case INT8: decodeCells(buffer, builder, type, () -> (double)buffer.get()); break;
+            case DOUBLE: decodeCells(buffer, builder, type, (values) -> TypedBinaryFormat.getDoubles(buffer, values)); break;
+            case FLOAT: decodeCells(buffer, builder, type, fillValues(buffer::getFloat)); break;
+            case BFLOAT16: decodeCells(buffer, builder, type, fillValues(() ->
+                    TypedBinaryFormat.floatFromBFloat16Bits(buffer.getShort()))); break;
+            case INT8: decodeCells(buffer, builder, type, fillValues(buffer::get)); break;
         }
     }
 
-    private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type, Supplier<Double> supplier) {
+    private static Consumer<double[]> fillValues(DoubleSupplier supplier) {
+        return (values) -> {
+            for (int i = 0; i < values.length; i++)
+                values[i] = supplier.getAsDouble();
+        };
+    }
+
+    private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type, Consumer<double[]> reader) {
         List<TensorType.Dimension> sparseDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).toList();
         TensorType sparseType = MixedTensor.createPartialType(type.valueType(), sparseDimensions);
         long denseSubspaceSize = builder.denseSubspaceSize();
@@ -148,9 +161,7 @@ class MixedBinaryFormat implements BinaryFormat {
             for (TensorType.Dimension sparseDimension : sparseDimensions) {
                 sparseAddress.add(sparseDimension.name(), buffer.getUtf8String());
             }
-            for (long denseOffset = 0; denseOffset < denseSubspaceSize; denseOffset++) {
-                denseSubspace[(int)denseOffset] = supplier.get();
-            }
+            reader.accept(denseSubspace);
             builder.block(sparseAddress.build(), denseSubspace);
         }
     }
@@ -2,10 +2,12 @@
 package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.MixedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 /**
@@ -142,6 +144,51 @@ public class TypedBinaryFormat {
         return result;
     }
 
+    /** Writes the values of the given tensor as doubles through a bulk view of the underlying byte buffer */
+    static void putDoubles(IndexedTensor tensor, GrowableByteBuffer buffer) {
+        int bytes = Math.multiplyExact(tensor.sizeAsInt(), Double.BYTES);
+        ByteBuffer target = reserve(buffer, bytes);
+        tensor.writeValues(target.asDoubleBuffer());
+        target.position(target.position() + bytes);
+    }
+
+    /** Writes the values of the given tensor as floats through a bulk view of the underlying byte buffer */
+    static void putFloats(IndexedTensor tensor, GrowableByteBuffer buffer) {
+        int bytes = Math.multiplyExact(tensor.sizeAsInt(), Float.BYTES);
+        ByteBuffer target = reserve(buffer, bytes);
+        tensor.writeValues(target.asFloatBuffer());
+        target.position(target.position() + bytes);
+    }
+
+    /** Writes the given values through a bulk view of the underlying byte buffer */
+    static void putDoubles(double[] values, GrowableByteBuffer buffer) {
+        int bytes = Math.multiplyExact(values.length, Double.BYTES);
+        ByteBuffer target = reserve(buffer, bytes);
+        target.asDoubleBuffer().put(values);
+        target.position(target.position() + bytes);
+    }
+
+    /** Reads doubles into all of the given array through a bulk view of the underlying byte buffer */
+    static void getDoubles(GrowableByteBuffer buffer, double[] values) {
+        ByteBuffer source = buffer.getByteBuffer();
+        source.asDoubleBuffer().get(values);
+        source.position(source.position() + values.length * Double.BYTES);
+    }
+
+    /** Reads floats into all of the given array through a bulk view of the underlying byte buffer */
+    static void getFloats(GrowableByteBuffer buffer, float[] values) {
+        ByteBuffer source = buffer.getByteBuffer();
+        source.asFloatBuffer().get(values);
+        source.position(source.position() + values.length * Float.BYTES);
+    }
+
+    /** Returns the underlying byte buffer of the given buffer, after growing it if needed to hold the given bytes */
+    private static ByteBuffer reserve(GrowableByteBuffer buffer, int bytes) {
+        if (buffer.capacity() - buffer.position() < bytes)
+            buffer.grow(Math.max(buffer.capacity() * 2, Math.addExact(buffer.position(), bytes)));
+        return buffer.getByteBuffer();
+    }
+
     static short bFloat16BitsFromFloat(float val) {
         return (short) (Float.floatToRawIntBits(val) >>> 16);
     }
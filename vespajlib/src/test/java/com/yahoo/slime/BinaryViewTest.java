@@ -306,6 +306,23 @@ public class BinaryViewTest {
         }
     }
 
+    @Test public void testBinaryViewOfRangeShapesParity() {
+        for (int i = 0; i < numShapes; ++i) {
+            var slime = makeSlime(i);
+            ctx = "case " + i + ": '" + slime.toString() + "'";
+            byte[] data = BinaryFormat.encode(slime);
+            byte[] padded = new byte[data.length + 10];
+            System.arraycopy(data, 0, padded, 3, data.length);
+            try {
+                var view = BinaryView.inspect(padded, 3, data.length);
+                checkParity(slime.get(), view);
+                assertEquals(ctx, slime.toString(), view.toString());
+            } catch (Exception e) {
+                fail(ctx + ", got exception: " + e);
+            }
+        }
+    }
+
     void assertFail(byte[] data, String reason) {
         try {
             var view = BinaryView.inspect(data);
@@ -351,4 +368,14 @@ public class BinaryViewTest {
         byte[] data = { 0, encode_type_and_meta(Type.OBJECT.ID, 20) };
         assertFail(data, "decode index too big");
     }
+
+    @Test public void testRangeUnderflow() {
+        byte[] data = { 0, encode_type_and_meta(Type.STRING.ID, 3), 65, 65, 65 };
+        try {
+            BinaryView.inspect(data, 0, 3);
+            fail("expected exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("bad input: underflow", e.getMessage());
+        }
+    }
 }
@@ -3,9 +3,14 @@ package com.yahoo.tensor;
 
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -49,4 +54,54 @@ public class MappedTensorTestCase {
         assertEquals("tensor(x{},y{}):{{x:0,y:0}:1.0, {x:1,y:0}:2.0}", tensor.toString());
     }
 
+    @Test
+    public void testCellLookup() {
+        TensorType type = new TensorType.Builder().mapped("x").mapped("y").build();
+        MappedTensor tensor = (MappedTensor)Tensor.Builder.of(type).
+                cell().label("x", "a").label("y", "0").value(1).
+                cell().label("x", "b").label("y", "0").value(2).
+                cell().label("x", "a").label("y", "0").value(3).build();
+        assertEquals(2, tensor.size());
+        assertEquals(0, tensor.indexOf(TensorAddress.ofLabels("a", "0")));
+        assertEquals(3.0, tensor.valueAt(0), 0);
+        assertEquals(TensorAddress.ofLabels("b", "0"), tensor.addressAt(1));
+        assertEquals(1, tensor.indexOf(TensorAddress.ofLabels("0", "-", "b"), new int[] { 2, 0 }));
+        assertEquals(-1, tensor.indexOf(TensorAddress.ofLabels("b", "1")));
+        assertEquals(-1, tensor.indexOf(TensorAddress.ofLabels("b")));
+        assertEquals(2.0, tensor.get(TensorAddress.ofLabels("b", "0")), 0);
+        assertEquals(Tensor.from("tensor(x{},y{}):{{x:a,y:0}:3.0, {x:b,y:0}:2.0}"), tensor);
+    }
+
+    @Test
+    public void testCells() {
+        TensorType type = new TensorType.Builder().mapped("x").mapped("y").build();
+        Tensor tensor = Tensor.Builder.of(type).
+                cell().label("x", "b").label("y", "0").value(1).
+                cell().label("x", "a").label("y", "0").value(2).build();
+        Map<TensorAddress, Double> cells = tensor.cells();
+        assertEquals(Map.of(TensorAddress.ofLabels("b", "0"), 1.0, TensorAddress.ofLabels("a", "0"), 2.0), cells);
+        assertEquals(cells, Map.of(TensorAddress.ofLabels("b", "0"), 1.0, TensorAddress.ofLabels("a", "0"), 2.0));
+        assertEquals(Map.of(TensorAddress.ofLabels("b", "0"), 1.0, TensorAddress.ofLabels("a", "0"), 2.0).hashCode(), cells.hashCode());
+        assertEquals(List.of(TensorAddress.ofLabels("b", "0"), TensorAddress.ofLabels("a", "0")), List.copyOf(cells.keySet()));
+        assertEquals(2.0, cells.get(TensorAddress.ofLabels("a", "0")), 0);
+        assertTrue(cells.containsKey(TensorAddress.ofLabels("b", "0")));
+        assertFalse(cells.containsKey(TensorAddress.ofLabels("b")));
+        assertFalse(cells.containsKey("b"));
+        assertNull(cells.get(TensorAddress.ofLabels("c", "0")));
+        assertThrows(UnsupportedOperationException.class, () -> cells.put(TensorAddress.ofLabels("c", "0"), 3.0));
+    }
+
+    @Test
+    public void testBuilderReuse() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        Tensor first = builder.cell().label("x", "a").value(1).build();
+        Tensor second = builder.cell().label("x", "b").value(2).build();
+        assertEquals(1, first.size());
+        assertEquals(0.0, first.get(TensorAddress.ofLabels("b")), 0);
+        assertEquals(-1, ((MappedTensor)first).indexOf(TensorAddress.ofLabels("b")));
+        assertEquals(Tensor.from("tensor(x{}):{a:1.0}"), first);
+        assertEquals(Tensor.from("tensor(x{}):{a:1.0, b:2.0}"), second);
+    }
+
 }
@@ -185,4 +185,27 @@ public class MixedTensorTestCase {
         assertEquals("tensor(x[3]):[4.0, 5.0, 6.0]", indexedTensors.get("key2").toString());
     }
 
+    @Test
+    public void testBlockBuilding() {
+        TensorType type = new TensorType.Builder().mapped("key").indexed("x", 2).build();
+        MixedTensor.BoundBuilder builder = (MixedTensor.BoundBuilder)Tensor.Builder.of(type);
+        builder.block(new TensorAddress.Builder(type.mappedSubtype()).add("key", "key1").build(), new double[] { 1, 2 });
+        // An address in the full type, with the dense label left out, as produced by the schema parser
+        builder.block(new TensorAddress.PartialBuilder(type).add("key", "key2").build(), new double[] { 3, 4 });
+        builder.block(new TensorAddress.PartialBuilder(type).add("key", "key1").build(), new double[] { 5, 6 });
+        assertEquals(Tensor.from("tensor(key{},x[2]):{key1:[5.0, 6.0], key2:[3.0, 4.0]}"), builder.build());
+    }
+
+    @Test
+    public void testBuilderReuse() {
+        TensorType type = new TensorType.Builder().mapped("x").indexed("y", 2).build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        Tensor first = builder.cell().label("x", "a").label("y", 0).value(1).build();
+        Tensor second = builder.cell().label("x", "b").label("y", 1).value(2).build();
+        assertEquals(2, first.size());
+        assertEquals(0.0, first.get(TensorAddress.ofLabels("b", "1")), 0);
+        assertEquals(Tensor.from("tensor(x{},y[2]):{a:[1.0, 0.0]}"), first);
+        assertEquals(Tensor.from("tensor(x{},y[2]):{a:[1.0, 0.0], b:[0.0, 2.0]}"), second);
+    }
+
 }
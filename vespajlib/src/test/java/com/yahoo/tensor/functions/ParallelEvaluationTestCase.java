@@ -0,0 +1,125 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that evaluating with a parallelism gives the same results as evaluating in a single thread.
+ */
+public class ParallelEvaluationTestCase {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTaskCount() {
+        Parallelism parallelism = new Parallelism(pool, 100);
+        assertEquals(1, parallelism.tasks(150, 150));
+        assertEquals(2, parallelism.tasks(250, 250));
+        assertEquals(3, parallelism.tasks(3, 1000));
+        assertEquals(16, parallelism.tasks(100000, 100000));
+        assertEquals(0, Parallelism.start(0, 3, 10));
+        assertEquals(3, Parallelism.start(1, 3, 10));
+        assertEquals(10, Parallelism.start(3, 3, 10));
+    }
+
+    @Test
+    public void testRunReturnsResultsInOrderAndPropagatesExceptions() {
+        Parallelism parallelism = new Parallelism(pool, 1);
+        assertEquals(List.of(0, 1, 4, 9, 16, 25, 36, 49), parallelism.run(8, i -> i * i));
+        try {
+            parallelism.run(4, i -> { if (i == 2) throw new IllegalStateException("Task 2 failed"); return i; });
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("Task 2 failed"));
+        }
+    }
+
+    @Test
+    public void testGenerate() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        var generate = Generate.<Name>free(TensorType.fromSpec("tensor<float>(x[30],y[7],z[11])"),
+                                           indexes -> {
+                                               threads.add(Thread.currentThread());
+                                               return (double)(indexes.get(0) * 100 + indexes.get(1) * 10 + indexes.get(2));
+                                           });
+        Tensor expected = generate.evaluate();
+        assertEquals(1234.0, expected.get(TensorAddress.of(12, 3, 4)), 0);
+        threads.clear();
+        assertEquals(expected, generate.evaluate(parallel(100)));
+        assertTrue(threads.stream().anyMatch(thread -> thread.getName().startsWith("ForkJoinPool")));
+
+        var bound = Generate.<Name>bound(TensorType.fromSpec("tensor(x[100],y[100])"), new XTimesY());
+        assertEquals(bound.evaluate(), bound.evaluate(parallel(100)));
+        assertEquals(21.0 * 33.0, bound.evaluate(parallel(100)).get(TensorAddress.of(21, 33)), 0);
+    }
+
+    @Test
+    public void testReduceMixedTensor() {
+        Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec("tensor(key{},x[16])"));
+        Random random = new Random(7);
+        for (int key = 0; key < 1000; key++)
+            for (int x = 0; x < 16; x++)
+                builder.cell().label("key", "key" + key).label("x", x).value(random.nextDouble());
+        Tensor tensor = builder.build();
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            for (List<String> dimensions : List.of(List.of("x"), List.of("key"), List.<String>of())) {
+                var reduce = new Reduce<Name>(new ConstantTensor<>(tensor), aggregator, dimensions);
+                assertEquals(aggregator + " over " + dimensions, reduce.evaluate(), reduce.evaluate(parallel(100)));
+            }
+        }
+    }
+
+    @Test
+    public void testMapSubspaces() {
+        Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec("tensor(key{},x[3])"));
+        for (int key = 0; key < 1000; key++)
+            for (int x = 0; x < 3; x++)
+                builder.cell().label("key", "key" + key).label("x", x).value(key * 10 + x);
+        var mapSubspaces = new MapSubspaces<Name>(new ConstantTensor<>(builder.build()), "denseInput",
+                                                  new Reduce<>(new VariableTensor<>("denseInput"), Reduce.Aggregator.sum));
+        Tensor expected = mapSubspaces.evaluate();
+        assertEquals(expected, mapSubspaces.evaluate(parallel(100)));
+        assertEquals(3 * 120.0 + 3, expected.get(TensorAddress.ofLabels("key12")), 0);
+    }
+
+    private static EvaluationContext<Name> parallel(int minCellsPerTask) {
+        var context = new MapEvaluationContext<Name>();
+        context.setParallelism(new Parallelism(pool, minCellsPerTask));
+        return context;
+    }
+
+    private static class XTimesY implements ScalarFunction<Name> {
+
+        @Override
+        public Double apply(EvaluationContext<Name> context) {
+            return context.getTensor("x").asDouble() * context.getTensor("y").asDouble();
+        }
+
+    }
+
+}
@@ -0,0 +1,52 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.impl;
+
+import com.yahoo.tensor.TensorAddress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AddressTableTestCase {
+
+    @Test
+    void testAddAndFind() {
+        AddressTable table = new AddressTable(2, 1);
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, table.add(TensorAddress.ofLabels("a" + i, String.valueOf(i % 7))));
+        assertEquals(1000, table.size());
+        for (int i = 0; i < 1000; i++) {
+            TensorAddress address = TensorAddress.ofLabels("a" + i, String.valueOf(i % 7));
+            assertEquals(i, table.add(address));
+            assertEquals(i, table.find(address));
+            assertEquals(address, table.address(i));
+        }
+        assertEquals(1000, table.size());
+        assertEquals(-1, table.find(TensorAddress.ofLabels("a1", "2")));
+        assertEquals(-1, table.find(TensorAddress.ofLabels("a1")));
+        assertThrows(IllegalArgumentException.class, () -> table.add(TensorAddress.ofLabels("a1")));
+    }
+
+    @Test
+    void testPartialAddresses() {
+        AddressTable table = new AddressTable(2, 4);
+        int[] dimensions = { 2, 0 };
+        assertEquals(0, table.add(TensorAddress.ofLabels("x", "y", "z"), dimensions));
+        assertEquals(1, table.add(TensorAddress.ofLabels("x", "y", "w"), dimensions));
+        assertEquals(0, table.add(TensorAddress.ofLabels("x", "v", "z"), dimensions));
+        assertEquals(TensorAddress.ofLabels("z", "x"), table.address(0));
+        assertEquals(1, table.find(TensorAddress.ofLabels("w", "x")));
+        assertEquals(1, table.find(TensorAddress.ofLabels("x", "-", "w"), dimensions));
+        assertEquals(-1, table.find(TensorAddress.ofLabels("w", "-", "x"), dimensions));
+    }
+
+    @Test
+    void testEmptyAddress() {
+        AddressTable table = new AddressTable(0, 0);
+        assertEquals(-1, table.find(TensorAddress.ofLabels()));
+        assertEquals(0, table.add(TensorAddress.ofLabels()));
+        assertEquals(0, table.find(TensorAddress.ofLabels("x"), new int[0]));
+        assertEquals(1, table.size());
+    }
+
+}
@@ -6,7 +6,9 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
@@ -108,6 +110,26 @@ public class DenseBinaryFormatTestCase {
         assertSerialization("tensor<int8>(x[2],y[2]):[2, 3, 4, 5]");
     }
 
+    @Test
+    public void testSerializationOfLargeTensorsToOneBuffer() {
+        List<Tensor> tensors = new ArrayList<>();
+        for (String valueType : List.of("double", "float", "bfloat16", "int8")) {
+            Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec("tensor<" + valueType + ">(x[100],y[37])"));
+            for (int x = 0; x < 100; x++)
+                for (int y = 0; y < 37; y++)
+                    builder.cell((x * 37 + y) % 101 - 50, x, y);
+            tensors.add(builder.build());
+        }
+
+        GrowableByteBuffer buffer = new GrowableByteBuffer(16);
+        for (Tensor tensor : tensors)
+            TypedBinaryFormat.encode(tensor, buffer);
+        buffer.flip();
+        for (Tensor tensor : tensors)
+            assertEquals(tensor, TypedBinaryFormat.decode(Optional.of(tensor.type()), buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
     private void assertSerialization(String tensorString) {
         assertSerialization(Tensor.from(tensorString));
     }
@@ -8,7 +8,9 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
@@ -145,6 +147,26 @@ public class MixedBinaryFormatTestCase {
         assertSerialization("tensor<int8>(x{},y[2]):{{x:0,y:0}:2, {x:0,y:1}:3, {x:1,y:0}:4, {x:1,y:1}:5}");
     }
 
+    @Test
+    public void testSerializationOfLargeTensorsToOneBuffer() {
+        List<Tensor> tensors = new ArrayList<>();
+        for (String valueType : List.of("double", "float", "bfloat16", "int8")) {
+            Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec("tensor<" + valueType + ">(key{},x[300])"));
+            for (int key = 0; key < 20; key++)
+                for (int x = 0; x < 300; x++)
+                    builder.cell().label("key", "k" + key).label("x", x).value((key * 300 + x) % 101 - 50);
+            tensors.add(builder.build());
+        }
+
+        GrowableByteBuffer buffer = new GrowableByteBuffer(16);
+        for (Tensor tensor : tensors)
+            TypedBinaryFormat.encode(tensor, buffer);
+        buffer.flip();
+        for (Tensor tensor : tensors)
+            assertEquals(tensor, TypedBinaryFormat.decode(Optional.of(tensor.type()), buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
     private void assertSerialization(String tensorString) {
         assertSerialization(Tensor.from(tensorString));
     }